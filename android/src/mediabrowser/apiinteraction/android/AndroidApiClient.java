@@ -8,6 +8,7 @@ import mediabrowser.apiinteraction.device.IDevice;
 import mediabrowser.apiinteraction.http.IAsyncHttpClient;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
 import mediabrowser.apiinteraction.tasks.IProgress;
+import mediabrowser.apiinteraction.tasks.IoPool;
 import mediabrowser.model.devices.LocalFileInfo;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.serialization.IJsonSerializer;
@@ -45,9 +46,7 @@ public class AndroidApiClient extends ApiClient {
                            IProgress<Double> progress,
                            CancellationToken cancellationToken) throws IOException {
 
-        Thread thread = new Thread(new UploadFileRunnable(this, fileInputStream, file, progress, cancellationToken));
-
-        thread.start();
+        getIoExecutor().execute(IoPool.Upload, new UploadFileRunnable(this, fileInputStream, file, progress, cancellationToken));
     }
 
     void PerformUploadFile(FileInputStream fileInputStream,
@@ -59,16 +58,14 @@ public class AndroidApiClient extends ApiClient {
     }
 
     @Override
-    public void getResponseStream(final String address, final Response<InputStream> response){
+    public void getResponseStream(final String address, final long rangeStart, final Response<InputStream> response){
 
-        Thread thread = new Thread(new Runnable() {
+        getIoExecutor().execute(IoPool.Download, new Runnable() {
             @Override
             public void run() {
-                getResponseStreamInternal(address, response);
+                getResponseStreamInternal(address, rangeStart, response);
             }
         });
-
-        thread.start();
     }
 
 
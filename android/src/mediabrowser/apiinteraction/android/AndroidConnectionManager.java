@@ -5,6 +5,7 @@ import mediabrowser.apiinteraction.*;
 import mediabrowser.apiinteraction.connectionmanager.ConnectionManager;
 import mediabrowser.apiinteraction.discovery.ServerLocator;
 import mediabrowser.apiinteraction.http.IAsyncHttpClient;
+import mediabrowser.apiinteraction.tasks.IoPool;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.serialization.IJsonSerializer;
@@ -61,9 +62,7 @@ public class AndroidConnectionManager extends ConnectionManager {
     @Override
     protected void FindServers(final Response<ArrayList<ServerInfo>> response)
     {
-        Thread thread = new Thread(new FindServersRunnable(this, response));
-
-        thread.start();
+        getIoExecutor().execute(IoPool.Control, new FindServersRunnable(this, response));
     }
 
     void FindServersAndroid(final Response<ArrayList<ServerInfo>> response){
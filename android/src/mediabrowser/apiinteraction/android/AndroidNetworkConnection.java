@@ -89,6 +89,7 @@ public class AndroidNetworkConnection implements INetworkConnection {
         if (activeNetwork != null && activeNetwork.isConnected()) {
 
             status.setIsNetworkAvailable(true);
+            status.setIsMetered(conMgr.isActiveNetworkMetered());
 
             logger.Debug("Android device is connected to a network");
 
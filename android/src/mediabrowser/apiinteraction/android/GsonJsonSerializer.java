@@ -5,6 +5,8 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
 
 public class GsonJsonSerializer implements IJsonSerializer {
 
@@ -48,7 +50,15 @@ public class GsonJsonSerializer implements IJsonSerializer {
     @Override
     public Object DeserializeFromStream(InputStream stream, Class type) {
 
-        throw new UnsupportedOperationException();
+        Gson gsonBuilder = new GsonBuilder()
+                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
+                .create();
+
+        try {
+            return gsonBuilder.fromJson(new InputStreamReader(stream, "UTF-8"), type);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
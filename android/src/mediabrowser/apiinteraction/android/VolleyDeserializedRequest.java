@@ -0,0 +1,97 @@
+package mediabrowser.apiinteraction.android;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import mediabrowser.apiinteraction.http.HttpRequest;
+import mediabrowser.apiinteraction.http.IResponseDeserializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deserializes the response bytes in parseNetworkResponse, which Volley calls on its network dispatcher thread, so
+ * that only the finished object reaches the main thread.
+ */
+public class VolleyDeserializedRequest<T> extends Request<T> {
+
+    private HttpRequest request;
+    private IResponseDeserializer<T> deserializer;
+    private Response.Listener<T> listener;
+
+    public VolleyDeserializedRequest(int method, String url, IResponseDeserializer<T> deserializer, Response.Listener<T> listener, Response.ErrorListener errorListener, HttpRequest request) {
+        super(method, url, errorListener);
+        this.deserializer = deserializer;
+        this.listener = listener;
+        this.request = request;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = new HashMap<String,String>();
+        VolleyStringRequest.AddHeaders(headers, request);
+        return headers;
+    }
+
+    @Override
+    public Map<String, String> getParams() throws AuthFailureError {
+
+        if (request.getPostData() == null){
+            return super.getParams();
+        }
+
+        Map<String, String> data = new HashMap<String,String>();
+        VolleyStringRequest.AddData(data, request);
+        return data;
+    }
+
+    @Override
+    public String getBodyContentType() {
+
+        if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(request.getRequestContentType()))
+        {
+            return request.getRequestContentType();
+        }
+
+        return super.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+
+        String postContent = request.getRequestContent();
+
+        if (postContent == null){
+            return super.getBody();
+        }
+
+        return postContent.getBytes();
+    }
+
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+
+        InputStream stream = new ByteArrayInputStream(response.data);
+
+        T result;
+
+        try {
+            result = deserializer.deserialize(stream);
+        }
+        catch (Exception ex) {
+            return Response.error(new ParseError(ex));
+        }
+
+        return Response.success(result, HttpHeaderParser.parseCacheHeaders(response));
+    }
+
+    @Override
+    protected void deliverResponse(T response) {
+        listener.onResponse(response);
+    }
+}
@@ -3,15 +3,16 @@ package mediabrowser.apiinteraction.android;
 import com.android.volley.Response;
 import com.android.volley.TimeoutError;
 import com.android.volley.VolleyError;
+import mediabrowser.apiinteraction.IResponse;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.net.HttpException;
 
 public class VolleyErrorListener implements Response.ErrorListener {
 
-    private mediabrowser.apiinteraction.Response<String> outerResponse;
+    private IResponse outerResponse;
     private ILogger logger;
 
-    public VolleyErrorListener(mediabrowser.apiinteraction.Response<String> outerResponse, ILogger logger) {
+    public VolleyErrorListener(IResponse outerResponse, ILogger logger) {
         this.outerResponse = outerResponse;
         this.logger = logger;
     }
@@ -3,6 +3,7 @@ package mediabrowser.apiinteraction.android;
 import mediabrowser.apiinteraction.android.images.ImageCacheManager;
 import mediabrowser.apiinteraction.http.HttpRequest;
 import mediabrowser.apiinteraction.http.IAsyncHttpClient;
+import mediabrowser.apiinteraction.http.IResponseDeserializer;
 import mediabrowser.apiinteraction.Response;
 import mediabrowser.model.logging.ILogger;
 import android.content.Context;
@@ -11,6 +12,8 @@ import com.android.volley.toolbox.ImageLoader;
 import com.android.volley.toolbox.StringRequest;
 import com.android.volley.toolbox.Volley;
 
+import java.io.InputStream;
+
 public class VolleyHttpClient implements IAsyncHttpClient {
 
     /**
@@ -72,7 +75,9 @@ public class VolleyHttpClient implements IAsyncHttpClient {
         // set the default tag if tag is empty
         //req.setTag(TAG);
 
-        logger.Debug("Adding request to queue: %s", req.getUrl());
+        if (logger.isDebugEnabled()) {
+            logger.Debug("Adding request to queue: %s", req.getUrl());
+        }
 
         getRequestQueue().add(req);
     }
@@ -91,14 +96,7 @@ public class VolleyHttpClient implements IAsyncHttpClient {
 
     public void Send(final HttpRequest request, final Response<String> response)
     {
-        int method = Request.Method.GET;
-
-        if (request.getMethod() == "POST"){
-            method = Request.Method.POST;
-        }
-        else if (request.getMethod() == "DELETE"){
-            method = Request.Method.DELETE;
-        }
+        int method = getMethod(request);
 
         final String url = request.getUrl();
 
@@ -113,4 +111,51 @@ public class VolleyHttpClient implements IAsyncHttpClient {
         // add the request object to the queue to be executed
         addToRequestQueue(req);
     }
+
+    public void SendStream(final HttpRequest request, final Response<InputStream> response)
+    {
+        int method = getMethod(request);
+
+        final String url = request.getUrl();
+
+        VolleyStreamRequest req = new VolleyStreamRequest(method, url, new VolleyStreamListener(response, logger, url), new VolleyErrorListener(response, logger), request);
+
+        req.setRetryPolicy(new DefaultRetryPolicy(
+                request.getTimeout(), // timeout in ms
+                0, // num of retries
+                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT
+        ));
+
+        addToRequestQueue(req);
+    }
+
+    @Override
+    public <T> void SendDeserialized(final HttpRequest request, final IResponseDeserializer<T> deserializer, final Response<T> response)
+    {
+        int method = getMethod(request);
+
+        final String url = request.getUrl();
+
+        VolleyDeserializedRequest<T> req = new VolleyDeserializedRequest<T>(method, url, deserializer, new VolleyDeserializedListener<T>(response, logger, url), new VolleyErrorListener(response, logger), request);
+
+        req.setRetryPolicy(new DefaultRetryPolicy(
+                request.getTimeout(), // timeout in ms
+                0, // num of retries
+                DefaultRetryPolicy.DEFAULT_BACKOFF_MULT
+        ));
+
+        addToRequestQueue(req);
+    }
+
+    private int getMethod(HttpRequest request)
+    {
+        if ("POST".equals(request.getMethod())){
+            return Request.Method.POST;
+        }
+        else if ("DELETE".equals(request.getMethod())){
+            return Request.Method.DELETE;
+        }
+
+        return Request.Method.GET;
+    }
 }
@@ -0,0 +1,39 @@
+package mediabrowser.apiinteraction.android;
+
+import com.android.volley.Response;
+import mediabrowser.model.logging.ILogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class VolleyStreamListener implements Response.Listener<InputStream> {
+
+    private mediabrowser.apiinteraction.Response<InputStream> outerResponse;
+    private ILogger logger;
+    private String url;
+
+    public VolleyStreamListener(mediabrowser.apiinteraction.Response<InputStream> outerResponse, ILogger logger, String url) {
+        this.outerResponse = outerResponse;
+        this.logger = logger;
+        this.url = url;
+    }
+
+    @Override
+    public void onResponse(InputStream stream) {
+
+        if (logger.isInfoEnabled()) {
+            logger.Info("Response received from: %s", url);
+        }
+
+        try {
+            outerResponse.onResponse(stream);
+        }
+        finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                logger.ErrorException("Error closing response stream", e);
+            }
+        }
+    }
+}
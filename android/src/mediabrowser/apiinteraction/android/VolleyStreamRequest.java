@@ -0,0 +1,83 @@
+package mediabrowser.apiinteraction.android;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import mediabrowser.apiinteraction.http.HttpRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Delivers the raw response bytes as a stream so the body is never decoded into an intermediate String.
+ */
+public class VolleyStreamRequest extends Request<InputStream> {
+
+    private HttpRequest request;
+    private Response.Listener<InputStream> listener;
+
+    public VolleyStreamRequest(int method, String url, Response.Listener<InputStream> listener, Response.ErrorListener errorListener, HttpRequest request) {
+        super(method, url, errorListener);
+        this.listener = listener;
+        this.request = request;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = new HashMap<String,String>();
+        VolleyStringRequest.AddHeaders(headers, request);
+        return headers;
+    }
+
+    @Override
+    public Map<String, String> getParams() throws AuthFailureError {
+
+        if (request.getPostData() == null){
+            return super.getParams();
+        }
+
+        Map<String, String> data = new HashMap<String,String>();
+        VolleyStringRequest.AddData(data, request);
+        return data;
+    }
+
+    @Override
+    public String getBodyContentType() {
+
+        if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(request.getRequestContentType()))
+        {
+            return request.getRequestContentType();
+        }
+
+        return super.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+
+        String postContent = request.getRequestContent();
+
+        if (postContent == null){
+            return super.getBody();
+        }
+
+        return postContent.getBytes();
+    }
+
+    @Override
+    protected Response<InputStream> parseNetworkResponse(NetworkResponse response) {
+
+        InputStream stream = new ByteArrayInputStream(response.data);
+
+        return Response.success(stream, HttpHeaderParser.parseCacheHeaders(response));
+    }
+
+    @Override
+    protected void deliverResponse(InputStream response) {
+        listener.onResponse(response);
+    }
+}
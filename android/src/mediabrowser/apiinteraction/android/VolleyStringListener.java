@@ -18,7 +18,9 @@ public class VolleyStringListener implements Response.Listener<String> {
     @Override
     public void onResponse(String s) {
 
-        logger.Info("Response received from: %s", url);
+        if (logger.isInfoEnabled()) {
+            logger.Info("Response received from: %s", url);
+        }
 
         outerResponse.onResponse(s);
     }
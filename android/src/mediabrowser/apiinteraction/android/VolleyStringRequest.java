@@ -90,7 +90,7 @@ public class VolleyStringRequest extends StringRequest {
         return super.parseNetworkResponse(response);
     }
 
-    private void AddHeaders(Map<String, String> headers, HttpRequest request)
+    static void AddHeaders(Map<String, String> headers, HttpRequest request)
     {
         HttpHeaders requestHeaders = request.getRequestHeaders();
 
@@ -113,7 +113,7 @@ public class VolleyStringRequest extends StringRequest {
         }
     }
 
-    private void AddData(Map<String, String> postParams, HttpRequest request)
+    static void AddData(Map<String, String> postParams, HttpRequest request)
     {
         if (request.getPostData() == null){
             return;
@@ -10,6 +10,7 @@ import mediabrowser.apiinteraction.http.IAsyncHttpClient;
 import mediabrowser.apiinteraction.sync.MultiServerSync;
 import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
 import mediabrowser.apiinteraction.tasks.CancellationTokenSource;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.logging.ConsoleLogger;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.serialization.IJsonSerializer;
@@ -79,6 +80,13 @@ public class MediaSyncAdapter extends AbstractThreadedSyncAdapter {
 
         CancellationTokenSource source = new CancellationTokenSource();
 
-        new MultiServerSync(connectionManager, logger, localAssetManager).Sync(source.getToken(), new MultiServerSyncProgress(syncResult, context.getContentResolver(), logger));
+        MultiServerSync multiServerSync = new MultiServerSync(connectionManager, logger, localAssetManager);
+
+        // OnDemandSync marks syncs the user asked for as manual; periodic syncs keep the normal priority
+        if (extras.getBoolean(ContentResolver.SYNC_EXTRAS_MANUAL, false)) {
+            multiServerSync.setTransferPriority(TransferPriority.UserRequested);
+        }
+
+        multiServerSync.Sync(source.getToken(), new MultiServerSyncProgress(syncResult, context.getContentResolver(), logger));
     }
 }
\ No newline at end of file
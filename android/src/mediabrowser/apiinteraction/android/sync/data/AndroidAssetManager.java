@@ -17,6 +17,7 @@ public class AndroidAssetManager extends LocalAssetManager {
                 new AndroidFileRepository(context, logger),
                 new UserRepository(context, jsonSerializer),
                 new AndroidImageFileRepository(context, logger),
-                logger);
+                logger,
+                jsonSerializer);
     }
 }
@@ -15,6 +15,7 @@ import mediabrowser.model.sync.LocalItemInfo;
 import mediabrowser.model.sync.LocalItemQuery;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Created by Luke on 3/24/2015.
@@ -25,6 +26,7 @@ public class ItemRepository extends SQLiteOpenHelper implements IItemRepository
     private static final int DATABASE_VERSION = 1;
     // Database creation sql statement
     private static final String DATABASE_CREATE = "create table Items ( Id text primary key, ItemId text not null, ItemType text not null, MediaType text, ServerId text not null, LocalPath text not null, UserIdsWithAccess text, AlbumId text, AlbumName text, SeriesId text, SeriesName text, Json text not null);";
+    private static final int MAX_IDS_PER_QUERY = 500;
     private static final String ALBUM_ARTISTS_DATABASE_CREATE = "create table AlbumArtists ( Id text not null, Name text not null, ItemId text not null);";
     private IJsonSerializer jsonSerializer;
 
@@ -53,6 +55,31 @@ public class ItemRepository extends SQLiteOpenHelper implements IItemRepository
     @Override
     public void addOrUpdateItem(LocalItem item) {
 
+        try (SQLiteDatabase db = getWritableDatabase()){
+            saveItem(db, item);
+        }
+    }
+
+    @Override
+    public void addOrUpdateItems(Collection<LocalItem> items) {
+
+        try (SQLiteDatabase db = getWritableDatabase()){
+
+            db.beginTransaction();
+            try {
+                for (LocalItem item : items){
+                    saveItem(db, item);
+                }
+                db.setTransactionSuccessful();
+            }
+            finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    private void saveItem(SQLiteDatabase db, LocalItem item){
+
         ContentValues values = new ContentValues();
         values.put("Id", item.getId());
         values.put("ItemId", item.getItemId());
@@ -71,16 +98,13 @@ public class ItemRepository extends SQLiteOpenHelper implements IItemRepository
         values.put("SeriesName", item.getItem().getSeriesName());
         values.put("Json", jsonSerializer.SerializeToString(item));
 
-        try (SQLiteDatabase db = getWritableDatabase()){
-
-            db.replace("Items", null, values);
-            db.delete("AlbumArtists", "ItemId=?", new String[]{item.getItemId()});
+        db.replace("Items", null, values);
+        db.delete("AlbumArtists", "ItemId=?", new String[]{item.getItemId()});
 
-            if (item.getItem().getAlbumArtists() != null){
+        if (item.getItem().getAlbumArtists() != null){
 
-                for (NameIdPair pair : item.getItem().getAlbumArtists()){
-                    addAlbumArtist(db, pair, item.getItemId());
-                }
+            for (NameIdPair pair : item.getItem().getAlbumArtists()){
+                addAlbumArtist(db, pair, item.getItemId());
             }
         }
     }
@@ -116,6 +140,67 @@ public class ItemRepository extends SQLiteOpenHelper implements IItemRepository
         return null;
     }
 
+    @Override
+    public ArrayList<LocalItem> getItemsById(Collection<String> ids) {
+
+        ArrayList<LocalItem> list = new ArrayList<LocalItem>();
+
+        String[] cols = new String[] {"Json"};
+        String[] allIds = ids.toArray(new String[ids.size()]);
+
+        try (SQLiteDatabase db = getReadableDatabase()){
+
+            // Stays under SQLite's default limit of 999 bound parameters per statement
+            for (int start = 0; start < allIds.length; start += MAX_IDS_PER_QUERY){
+
+                int count = Math.min(MAX_IDS_PER_QUERY, allIds.length - start);
+                String[] args = new String[count];
+                System.arraycopy(allIds, start, args, 0, count);
+
+                StringBuilder where = new StringBuilder("Id in (");
+                for (int i = 0; i < count; i++){
+                    where.append(i == 0 ? "?" : ",?");
+                }
+                where.append(')');
+
+                Cursor cursor = db.query(false, "Items", cols, where.toString(), args, null, null, null, null);
+
+                if (cursor != null) {
+                    try {
+                        while (cursor.moveToNext()){
+                            LocalItem item = jsonSerializer.DeserializeFromString(cursor.getString(0), LocalItem.class);
+                            list.add(item);
+                        }
+                    }
+                    finally {
+                        cursor.close();
+                    }
+                }
+            }
+        }
+
+        return list;
+    }
+
+    @Override
+    public void deleteItems(Collection<String> ids) {
+
+        try (SQLiteDatabase db = getWritableDatabase()){
+
+            db.beginTransaction();
+            try {
+                for (String id : ids){
+                    db.delete("Items", "Id=?", new String[]{id});
+                    db.delete("AlbumArtists", "ItemId=?", new String[]{id});
+                }
+                db.setTransactionSuccessful();
+            }
+            finally {
+                db.endTransaction();
+            }
+        }
+    }
+
     @Override
     public void deleteItem(String id) {
 
@@ -11,6 +11,8 @@ import mediabrowser.model.serialization.IJsonSerializer;
 import mediabrowser.model.users.UserAction;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Created by Luke on 3/24/2015.
@@ -20,6 +22,8 @@ public class UserActionRepository extends SQLiteOpenHelper implements IUserActio
     private IJsonSerializer jsonSerializer;
     private static final String DATABASE_NAME = "UserActions";
     private static final int DATABASE_VERSION = 1;
+    // Stays under SQLite's limit of 999 bound parameters per statement
+    private static final int MAX_IDS_PER_DELETE = 500;
 
     // Database creation sql statement
     private static final String DATABASE_CREATE = "create table UserActions ( Id text primary key, ServerId text not null, Json text not null);";
@@ -63,6 +67,38 @@ public class UserActionRepository extends SQLiteOpenHelper implements IUserActio
         }
     }
 
+    @Override
+    public void deleteUserActions(Collection<UserAction> actions) {
+
+        try (SQLiteDatabase db = getWritableDatabase()){
+
+            ArrayList<String> ids = new ArrayList<String>(actions.size());
+            for (UserAction action : actions){
+                ids.add(action.getId());
+            }
+
+            db.beginTransaction();
+            try {
+                for (int start = 0; start < ids.size(); start += MAX_IDS_PER_DELETE){
+
+                    List<String> chunk = ids.subList(start, Math.min(start + MAX_IDS_PER_DELETE, ids.size()));
+
+                    StringBuilder where = new StringBuilder("Id in (");
+                    for (int i = 0; i < chunk.size(); i++){
+                        where.append(i == 0 ? "?" : ",?");
+                    }
+                    where.append(')');
+
+                    db.delete("UserActions", where.toString(), chunk.toArray(new String[chunk.size()]));
+                }
+                db.setTransactionSuccessful();
+            }
+            finally {
+                db.endTransaction();
+            }
+        }
+    }
+
     @Override
     public ArrayList<UserAction> getUserActions(String serverId) {
 
@@ -73,7 +109,8 @@ public class UserActionRepository extends SQLiteOpenHelper implements IUserActio
         String[] args = new String[]{serverId};
 
         try (SQLiteDatabase db = getReadableDatabase()){
-            Cursor cursor = db.query(true, "UserActions", cols, where, args, null, null, null, null);
+            // In the order they were recorded, which breaks ties between actions with the same date
+            Cursor cursor = db.query(true, "UserActions", cols, where, args, null, null, "rowid", null);
 
             if (cursor != null) {
                 while (cursor.moveToNext()){
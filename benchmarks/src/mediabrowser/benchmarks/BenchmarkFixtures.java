@@ -0,0 +1,311 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.model.dlna.*;
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.dto.MediaSourceInfo;
+import mediabrowser.model.dto.UserItemDataDto;
+import mediabrowser.model.entities.ImageType;
+import mediabrowser.model.entities.MediaStream;
+import mediabrowser.model.entities.MediaStreamType;
+import mediabrowser.model.mediainfo.MediaProtocol;
+import mediabrowser.model.mediainfo.TransportStreamTimestamp;
+import mediabrowser.model.querying.ItemsResult;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Profiles and media shared by the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * The profile AndroidProfile builds with its default options. AndroidProfile itself reads android.os.Build,
+     * so it cannot be loaded on a desktop JVM and its device independent part is reproduced here.
+     */
+    public static DeviceProfile createAndroidProfile() {
+
+        DeviceProfile profile = new DeviceProfile();
+        profile.setName("Android");
+        profile.setMaxStaticBitrate(20000000);
+        profile.setMaxStreamingBitrate(20000000);
+        profile.setProtocolInfo(null);
+
+        ArrayList<TranscodingProfile> transcodingProfiles = new ArrayList<TranscodingProfile>();
+        transcodingProfiles.add(createTranscodingProfile(DlnaProfileType.Audio, EncodingContext.Streaming, null, "mp3", null, "mp3"));
+        transcodingProfiles.add(createTranscodingProfile(DlnaProfileType.Audio, EncodingContext.Static, null, "mp3", null, "mp3"));
+        transcodingProfiles.add(createTranscodingProfile(DlnaProfileType.Video, EncodingContext.Streaming, "hls", "ts", "h264", "aac"));
+        transcodingProfiles.add(createTranscodingProfile(DlnaProfileType.Video, EncodingContext.Static, null, "mp4", "h264", "aac"));
+        transcodingProfiles.add(createTranscodingProfile(DlnaProfileType.Video, EncodingContext.Streaming, null, "webm", "vpx", "vorbis"));
+        profile.setTranscodingProfiles(transcodingProfiles.toArray(new TranscodingProfile[transcodingProfiles.size()]));
+
+        profile.setDirectPlayProfiles(new DirectPlayProfile[]{
+                createDirectPlayProfile(DlnaProfileType.Video, "mp4,m4v", "h264,mpeg4", "aac"),
+                createDirectPlayProfile(DlnaProfileType.Audio, "mp4,aac", null, "aac"),
+                createDirectPlayProfile(DlnaProfileType.Audio, "mp3", null, "mp3"),
+                createDirectPlayProfile(DlnaProfileType.Audio, "flac", null, "flac"),
+                createDirectPlayProfile(DlnaProfileType.Audio, "ogg", null, "vorbis"),
+                createDirectPlayProfile(DlnaProfileType.Photo, "jpeg,png,gif,bmp", null, null)
+        });
+
+        profile.setCodecProfiles(new CodecProfile[]{
+                createCodecProfile(CodecType.Video, "h264",
+                        new ProfileCondition(ProfileConditionType.EqualsAny, ProfileConditionValue.VideoProfile, "high|main|baseline|constrained baseline"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.VideoLevel, "40"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.Width, "1920"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.Height, "1080"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.VideoBitDepth, "8"),
+                        new ProfileCondition(ProfileConditionType.NotEquals, ProfileConditionValue.IsAnamorphic, "true")),
+                createCodecProfile(CodecType.Video, "vpx,mpeg4",
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.Width, "1920"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.Height, "1080"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.VideoBitDepth, "8"),
+                        new ProfileCondition(ProfileConditionType.NotEquals, ProfileConditionValue.IsAnamorphic, "true")),
+                createCodecProfile(CodecType.VideoAudio, "aac",
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.AudioChannels, "2")),
+                createCodecProfile(CodecType.Audio, "aac",
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.AudioChannels, "2")),
+                createCodecProfile(CodecType.Audio, "mp3",
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.AudioChannels, "2"),
+                        new ProfileCondition(ProfileConditionType.LessThanEqual, ProfileConditionValue.AudioBitrate, "320000"))
+        });
+
+        SubtitleProfile srtSubs = new SubtitleProfile();
+        srtSubs.setFormat("srt");
+        srtSubs.setMethod(SubtitleDeliveryMethod.External);
+        profile.setSubtitleProfiles(new SubtitleProfile[]{srtSubs});
+
+        return profile;
+    }
+
+    /**
+     * A 1080p h264/aac stereo mp4, which the Android profile plays without transcoding.
+     */
+    public static MediaSourceInfo createDirectPlayVideo() {
+
+        MediaSourceInfo mediaSource = createMediaSource("mp4", 8000000);
+        mediaSource.getMediaStreams().add(createVideoStream(0, "h264", "High", 40.0, 1920, 1080, 7600000));
+        mediaSource.getMediaStreams().add(createAudioStream(1, "aac", 2, 192000, "eng"));
+        mediaSource.setDefaultAudioStreamIndex(1);
+        return mediaSource;
+    }
+
+    /**
+     * A 1080p h264 mkv with 5.1 ac3 and aac tracks and text subtitles, which the Android profile transcodes.
+     */
+    public static MediaSourceInfo createTranscodeVideo() {
+
+        MediaSourceInfo mediaSource = createMediaSource("mkv", 12000000);
+        mediaSource.getMediaStreams().add(createVideoStream(0, "h264", "High", 41.0, 1920, 1080, 11000000));
+        mediaSource.getMediaStreams().add(createAudioStream(1, "ac3", 6, 640000, "eng"));
+        mediaSource.getMediaStreams().add(createAudioStream(2, "aac", 2, 160000, "jpn"));
+        mediaSource.getMediaStreams().add(createSubtitleStream(3, "srt", "eng"));
+        mediaSource.getMediaStreams().add(createSubtitleStream(4, "ass", "jpn"));
+        mediaSource.setDefaultAudioStreamIndex(1);
+        mediaSource.setDefaultSubtitleStreamIndex(3);
+        return mediaSource;
+    }
+
+    /**
+     * A 2160p hevc ts recording, which exceeds every Android codec profile.
+     */
+    public static MediaSourceInfo createHighResolutionVideo() {
+
+        MediaSourceInfo mediaSource = createMediaSource("ts", 40000000);
+        mediaSource.setTimestamp(TransportStreamTimestamp.Valid);
+        mediaSource.getMediaStreams().add(createVideoStream(0, "hevc", "Main 10", 51.0, 3840, 2160, 38000000));
+        mediaSource.getMediaStreams().add(createAudioStream(1, "eac3", 6, 768000, "eng"));
+        mediaSource.setDefaultAudioStreamIndex(1);
+        return mediaSource;
+    }
+
+    public static MediaSourceInfo createMp3Audio() {
+
+        MediaSourceInfo mediaSource = createMediaSource("mp3", 320000);
+        mediaSource.getMediaStreams().add(createAudioStream(0, "mp3", 2, 320000, null));
+        return mediaSource;
+    }
+
+    public static MediaSourceInfo createFlacAudio() {
+
+        MediaSourceInfo mediaSource = createMediaSource("flac", 1100000);
+        mediaSource.getMediaStreams().add(createAudioStream(0, "flac", 6, 1100000, null));
+        return mediaSource;
+    }
+
+    public static VideoOptions createVideoOptions(DeviceProfile profile, MediaSourceInfo mediaSource) {
+
+        VideoOptions options = new VideoOptions();
+        fillOptions(options, profile, mediaSource);
+        return options;
+    }
+
+    public static AudioOptions createAudioOptions(DeviceProfile profile, MediaSourceInfo mediaSource) {
+
+        AudioOptions options = new AudioOptions();
+        fillOptions(options, profile, mediaSource);
+        return options;
+    }
+
+    /**
+     * A page of movies as a library browse returns them.
+     */
+    public static ItemsResult createItemsResult(int count) {
+
+        BaseItemDto[] items = new BaseItemDto[count];
+
+        for (int i = 0; i < count; i++) {
+            items[i] = createItem(i);
+        }
+
+        ItemsResult result = new ItemsResult();
+        result.setItems(items);
+        result.setTotalRecordCount(count * 4);
+        return result;
+    }
+
+    public static BaseItemDto createItem(int index) {
+
+        BaseItemDto item = new BaseItemDto();
+        item.setId(String.format("%032x", index));
+        item.setServerId("b7ad4b8f1fc94d8aa50fb30f26c0f8b5");
+        item.setName("Movie " + index);
+        item.setType("Movie");
+        item.setMediaType("Video");
+        item.setIsFolder(false);
+        item.setOverview("A long overview of the movie that is about as long as the ones the server usually returns, " +
+                "running to a couple of sentences so that string handling carries a realistic weight. Item " + index + ".");
+        item.setOfficialRating("PG-13");
+        item.setCommunityRating(7.4f);
+        item.setProductionYear(1990 + (index % 25));
+        item.setRunTimeTicks(72000000000L + index);
+        item.setDateCreated(new Date(1420070400000L + index * 60000L));
+        item.setPremiereDate(new Date(946684800000L + index * 86400000L));
+
+        ArrayList<String> genres = new ArrayList<String>();
+        genres.add("Action");
+        genres.add("Adventure");
+        genres.add("Science Fiction");
+        item.setGenres(genres);
+
+        HashMap<ImageType, String> imageTags = new HashMap<ImageType, String>();
+        imageTags.put(ImageType.Primary, "9f2c7fb3a3c2a8e0a6c1d6d4b1e0f3a2");
+        imageTags.put(ImageType.Backdrop, "1b3d5f7092a4c6e8f0a2c4e6081a3c5e");
+        item.setImageTags(imageTags);
+
+        UserItemDataDto userData = new UserItemDataDto();
+        userData.setKey(item.getId());
+        userData.setPlayCount(index % 3);
+        userData.setPlayed(index % 3 > 0);
+        userData.setIsFavorite(index % 7 == 0);
+        userData.setPlaybackPositionTicks(index % 5 == 0 ? 12000000000L : 0);
+        item.setUserData(userData);
+
+        return item;
+    }
+
+    private static void fillOptions(AudioOptions options, DeviceProfile profile, MediaSourceInfo mediaSource) {
+
+        ArrayList<MediaSourceInfo> mediaSources = new ArrayList<MediaSourceInfo>();
+        mediaSources.add(mediaSource);
+
+        options.setItemId("8d7e2c7a1f5e4b2f9d6c3a1b0e9f8d7c");
+        options.setDeviceId("benchmark-device");
+        options.setProfile(profile);
+        options.setMediaSources(mediaSources);
+        options.setContext(EncodingContext.Streaming);
+        options.setMaxBitrate(20000000);
+    }
+
+    private static MediaSourceInfo createMediaSource(String container, int bitrate) {
+
+        MediaSourceInfo mediaSource = new MediaSourceInfo();
+        mediaSource.setId("5e8f9c7d2b1a4e3f8c9d0a1b2c3d4e5f");
+        mediaSource.setName("Benchmark " + container);
+        mediaSource.setPath("/media/library/benchmark." + container);
+        mediaSource.setProtocol(MediaProtocol.File);
+        mediaSource.setContainer(container);
+        mediaSource.setBitrate(bitrate);
+        mediaSource.setRunTimeTicks(72000000000L);
+        return mediaSource;
+    }
+
+    private static MediaStream createVideoStream(int index, String codec, String profile, double level, int width, int height, int bitrate) {
+
+        MediaStream stream = new MediaStream();
+        stream.setType(MediaStreamType.Video);
+        stream.setIndex(index);
+        stream.setCodec(codec);
+        stream.setProfile(profile);
+        stream.setLevel(level);
+        stream.setWidth(width);
+        stream.setHeight(height);
+        stream.setBitRate(bitrate);
+        stream.setBitDepth(8);
+        stream.setRefFrames(4);
+        stream.setAverageFrameRate(23.976f);
+        stream.setIsAnamorphic(false);
+        stream.setIsCabac(true);
+        stream.setIsDefault(true);
+        return stream;
+    }
+
+    private static MediaStream createAudioStream(int index, String codec, int channels, int bitrate, String language) {
+
+        MediaStream stream = new MediaStream();
+        stream.setType(MediaStreamType.Audio);
+        stream.setIndex(index);
+        stream.setCodec(codec);
+        stream.setChannels(channels);
+        stream.setBitRate(bitrate);
+        stream.setLanguage(language);
+        stream.setIsDefault(index == 1);
+        return stream;
+    }
+
+    private static MediaStream createSubtitleStream(int index, String codec, String language) {
+
+        MediaStream stream = new MediaStream();
+        stream.setType(MediaStreamType.Subtitle);
+        stream.setIndex(index);
+        stream.setCodec(codec);
+        stream.setLanguage(language);
+        stream.setSupportsExternalStream(true);
+        return stream;
+    }
+
+    private static TranscodingProfile createTranscodingProfile(DlnaProfileType type, EncodingContext context, String protocol, String container, String videoCodec, String audioCodec) {
+
+        TranscodingProfile profile = new TranscodingProfile();
+        profile.setType(type);
+        profile.setContext(context);
+        profile.setProtocol(protocol);
+        profile.setContainer(container);
+        profile.setVideoCodec(videoCodec);
+        profile.setAudioCodec(audioCodec);
+        return profile;
+    }
+
+    private static DirectPlayProfile createDirectPlayProfile(DlnaProfileType type, String container, String videoCodec, String audioCodec) {
+
+        DirectPlayProfile profile = new DirectPlayProfile();
+        profile.setType(type);
+        profile.setContainer(container);
+        profile.setVideoCodec(videoCodec);
+        profile.setAudioCodec(audioCodec);
+        return profile;
+    }
+
+    private static CodecProfile createCodecProfile(CodecType type, String codec, ProfileCondition... conditions) {
+
+        CodecProfile profile = new CodecProfile();
+        profile.setType(type);
+        profile.setCodec(codec);
+        profile.setConditions(conditions);
+        return profile;
+    }
+}
@@ -0,0 +1,71 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.model.dlna.CodecProfile;
+import mediabrowser.model.dlna.CodecType;
+import mediabrowser.model.dlna.CompiledDeviceProfile;
+import mediabrowser.model.dlna.CompiledProfileCondition;
+import mediabrowser.model.dlna.ConditionProcessor;
+import mediabrowser.model.dlna.DeviceProfile;
+import mediabrowser.model.dlna.ProfileCondition;
+import mediabrowser.model.mediainfo.TransportStreamTimestamp;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the Android profile's h264 conditions against a 1080p stream, both from the raw profile conditions, which
+ * parse their values on every call, and from the compiled conditions StreamBuilder uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConditionProcessorBenchmark {
+
+    private ConditionProcessor conditionProcessor;
+    private ProfileCondition[] conditions;
+    private CompiledProfileCondition[] compiledConditions;
+
+    @Setup
+    public void setup() {
+
+        DeviceProfile profile = BenchmarkFixtures.createAndroidProfile();
+
+        conditionProcessor = new ConditionProcessor();
+
+        for (CodecProfile codecProfile : profile.getCodecProfiles()) {
+            if (codecProfile.getType() == CodecType.Video && codecProfile.ContainsCodec("h264")) {
+                conditions = codecProfile.getConditions();
+                break;
+            }
+        }
+
+        compiledConditions = CompiledDeviceProfile.Get(profile).GetCodecConditions(CodecType.Video, "h264");
+    }
+
+    @Benchmark
+    public boolean profileConditions() {
+
+        boolean all = true;
+
+        for (ProfileCondition condition : conditions) {
+            all &= conditionProcessor.IsVideoConditionSatisfied(condition, 192000, 2, 1920, 1080, 8, 7600000, "High", 40.0, 23.976f, null, TransportStreamTimestamp.None, false, true, 4, 1, 1);
+        }
+
+        return all;
+    }
+
+    @Benchmark
+    public boolean compiledConditions() {
+
+        boolean all = true;
+
+        for (CompiledProfileCondition condition : compiledConditions) {
+            all &= conditionProcessor.IsVideoConditionSatisfied(condition, 192000, 2, 1920, 1080, 8, 7600000, "High", 40.0, 23.976f, null, TransportStreamTimestamp.None, false, true, 4, 1, 1);
+        }
+
+        return all;
+    }
+}
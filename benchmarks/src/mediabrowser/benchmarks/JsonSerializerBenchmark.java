@@ -0,0 +1,70 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.apiinteraction.serialization.BoonJsonSerializer;
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.querying.ItemsResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoonJsonSerializer round trips of a single item and of item pages as large as library browsing requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonSerializerBenchmark {
+
+    @Param({"100", "500"})
+    public int itemCount;
+
+    private BoonJsonSerializer serializer;
+    private BaseItemDto item;
+    private String itemJson;
+    private ItemsResult itemsResult;
+    private String itemsResultJson;
+    private byte[] itemsResultBytes;
+
+    @Setup
+    public void setup() throws UnsupportedEncodingException {
+
+        serializer = new BoonJsonSerializer();
+
+        item = BenchmarkFixtures.createItem(1);
+        itemJson = serializer.SerializeToString(item);
+
+        itemsResult = BenchmarkFixtures.createItemsResult(itemCount);
+        itemsResultJson = serializer.SerializeToString(itemsResult);
+        itemsResultBytes = itemsResultJson.getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public String serializeItem() {
+        return serializer.SerializeToString(item);
+    }
+
+    @Benchmark
+    public BaseItemDto deserializeItem() {
+        return serializer.DeserializeFromString(itemJson, BaseItemDto.class);
+    }
+
+    @Benchmark
+    public String serializeItemsResult() {
+        return serializer.SerializeToString(itemsResult);
+    }
+
+    @Benchmark
+    public ItemsResult deserializeItemsResult() {
+        return serializer.DeserializeFromString(itemsResultJson, ItemsResult.class);
+    }
+
+    @Benchmark
+    public Object deserializeItemsResultStream() {
+        return serializer.DeserializeFromStream(new ByteArrayInputStream(itemsResultBytes), ItemsResult.class);
+    }
+}
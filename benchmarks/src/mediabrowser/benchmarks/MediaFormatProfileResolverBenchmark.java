@@ -0,0 +1,40 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.model.dlna.MediaFormatProfile;
+import mediabrowser.model.dlna.MediaFormatProfileResolver;
+import mediabrowser.model.mediainfo.TransportStreamTimestamp;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MediaFormatProfileResolverBenchmark {
+
+    private MediaFormatProfileResolver resolver;
+
+    @Setup
+    public void setup() {
+        resolver = new MediaFormatProfileResolver();
+    }
+
+    @Benchmark
+    public ArrayList<MediaFormatProfile> resolveMp4() {
+        return resolver.ResolveVideoFormat("mp4", "h264", "aac", 1920, 1080, TransportStreamTimestamp.None);
+    }
+
+    @Benchmark
+    public ArrayList<MediaFormatProfile> resolveTs() {
+        return resolver.ResolveVideoFormat("ts", "h264", "ac3", 1920, 1080, TransportStreamTimestamp.Valid);
+    }
+
+    @Benchmark
+    public ArrayList<MediaFormatProfile> resolveMkv() {
+        return resolver.ResolveVideoFormat("mkv", "hevc", "dts", 3840, 2160, TransportStreamTimestamp.None);
+    }
+}
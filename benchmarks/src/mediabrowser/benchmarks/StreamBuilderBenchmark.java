@@ -0,0 +1,81 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.model.dlna.AudioOptions;
+import mediabrowser.model.dlna.StreamBuilder;
+import mediabrowser.model.dlna.StreamInfo;
+import mediabrowser.model.dlna.VideoOptions;
+import mediabrowser.model.logging.NullLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playback decisions for the Android profile. The video fixtures cover direct streaming, transcoding with subtitles
+ * and a source beyond every codec profile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamBuilderBenchmark {
+
+    @State(Scope.Thread)
+    public static class VideoState {
+
+        @Param({"direct", "transcode", "highresolution"})
+        public String video;
+
+        private StreamBuilder streamBuilder;
+        private VideoOptions options;
+
+        @Setup
+        public void setup() {
+
+            streamBuilder = new StreamBuilder(new NullLogger());
+
+            if ("direct".equals(video)) {
+                options = BenchmarkFixtures.createVideoOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createDirectPlayVideo());
+            }
+            else if ("transcode".equals(video)) {
+                options = BenchmarkFixtures.createVideoOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createTranscodeVideo());
+            }
+            else {
+                options = BenchmarkFixtures.createVideoOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createHighResolutionVideo());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AudioState {
+
+        @Param({"mp3", "flac"})
+        public String audio;
+
+        private StreamBuilder streamBuilder;
+        private AudioOptions options;
+
+        @Setup
+        public void setup() {
+
+            streamBuilder = new StreamBuilder(new NullLogger());
+
+            if ("mp3".equals(audio)) {
+                options = BenchmarkFixtures.createAudioOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createMp3Audio());
+            }
+            else {
+                options = BenchmarkFixtures.createAudioOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createFlacAudio());
+            }
+        }
+    }
+
+    @Benchmark
+    public StreamInfo buildVideoItem(VideoState state) {
+        return state.streamBuilder.BuildVideoItem(state.options);
+    }
+
+    @Benchmark
+    public StreamInfo buildAudioItem(AudioState state) {
+        return state.streamBuilder.BuildAudioItem(state.options);
+    }
+}
@@ -0,0 +1,95 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.apiinteraction.QueryStringDictionary;
+import mediabrowser.model.dlna.StreamBuilder;
+import mediabrowser.model.dlna.StreamInfo;
+import mediabrowser.model.extensions.UrlBuilder;
+import mediabrowser.model.logging.NullLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building stream urls and the query strings of typical item queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UrlBenchmark {
+
+    private static final String BaseUrl = "http://192.168.1.20:8096/mediabrowser";
+    private static final String AccessToken = "0f1e2d3c4b5a69788796a5b4c3d2e1f0";
+
+    private StreamInfo directStream;
+    private StreamInfo transcode;
+
+    @Setup
+    public void setup() {
+
+        StreamBuilder streamBuilder = new StreamBuilder(new NullLogger());
+
+        directStream = streamBuilder.BuildVideoItem(BenchmarkFixtures.createVideoOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createDirectPlayVideo()));
+        transcode = streamBuilder.BuildVideoItem(BenchmarkFixtures.createVideoOptions(BenchmarkFixtures.createAndroidProfile(), BenchmarkFixtures.createTranscodeVideo()));
+    }
+
+    @Benchmark
+    public String directStreamUrl() {
+        return directStream.ToUrl(BaseUrl, AccessToken);
+    }
+
+    @Benchmark
+    public String transcodeUrl() {
+        return transcode.ToUrl(BaseUrl, AccessToken);
+    }
+
+    @Benchmark
+    public String itemsQueryUrl() {
+
+        QueryStringDictionary dict = new QueryStringDictionary();
+
+        dict.AddIfNotNullOrEmpty("ParentId", "f137a2dd21bbc1b99aa5c0f6bf02a805");
+        dict.AddIfNotNull("StartIndex", 100);
+        dict.AddIfNotNull("Limit", 100);
+        dict.AddIfNotNullOrEmpty("SortBy", "SortName");
+        dict.AddIfNotNullOrEmpty("SortOrder", "Ascending");
+        dict.Add("Recursive", true);
+        dict.Add("Fields", new String[]{"PrimaryImageAspectRatio", "SortName", "Overview", "Genres", "DateCreated"});
+        dict.Add("IncludeItemTypes", new String[]{"Movie"});
+        dict.AddIfNotNullOrEmpty("NameStartsWith", "The Lord of the Rings & Co");
+
+        return dict.GetUrl(BaseUrl + "/Users/4b1b4c8e2f5a4d7d9a0c1e2f3a4b5c6d/Items");
+    }
+
+    @Benchmark
+    public String itemsQueryUrlBuilder() {
+
+        return new UrlBuilder(BaseUrl).Append("/Users/").Append("4b1b4c8e2f5a4d7d9a0c1e2f3a4b5c6d").Append("/Items")
+                .AddIfNotNullOrEmpty("ParentId", "f137a2dd21bbc1b99aa5c0f6bf02a805")
+                .AddIfNotNull("StartIndex", 100)
+                .AddIfNotNull("Limit", 100)
+                .AddIfNotNullOrEmpty("SortBy", "SortName")
+                .AddIfNotNullOrEmpty("SortOrder", "Ascending")
+                .Add("Recursive", true)
+                .Add("Fields", new String[]{"PrimaryImageAspectRatio", "SortName", "Overview", "Genres", "DateCreated"}, ",")
+                .Add("IncludeItemTypes", new String[]{"Movie"}, ",")
+                .AddIfNotNullOrEmpty("NameStartsWith", "The Lord of the Rings & Co")
+                .Build();
+    }
+
+    /**
+     * The shape of a primary image url, as requested for every cell of a grid.
+     */
+    @Benchmark
+    public String imageUrlBuilder() {
+
+        return new UrlBuilder(BaseUrl).Append("/Items/").Append("f137a2dd21bbc1b99aa5c0f6bf02a805").Append("/Images/Primary")
+                .Add("MaxHeight", 300)
+                .Add("Quality", 90)
+                .Add("Tag", "a3f1c2d4e5b6978867564534231201ff")
+                .Add("EnableImageEnhancers", true)
+                .Build();
+    }
+}
@@ -0,0 +1,64 @@
+package mediabrowser.benchmarks;
+
+import mediabrowser.apiinteraction.serialization.BoonJsonSerializer;
+import mediabrowser.apiinteraction.websocket.BasicWebSocketMessage;
+import mediabrowser.apiinteraction.websocket.WebSocketMessageRouter;
+import mediabrowser.model.logging.NullLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the type of a large Sessions message nobody has subscribed to, by parsing the whole message as
+ * ApiWebSocket used to, and by routing it through WebSocketMessageRouter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WebSocketRouterBenchmark {
+
+    @Param({"10", "50"})
+    public int sessionCount;
+
+    private BoonJsonSerializer serializer;
+    private WebSocketMessageRouter router;
+    private String message;
+
+    @Setup
+    public void setup() {
+
+        serializer = new BoonJsonSerializer();
+        router = new WebSocketMessageRouter(serializer, new NullLogger());
+
+        StringBuilder json = new StringBuilder("{\"MessageType\":\"Sessions\",\"Data\":[");
+
+        for (int i = 0; i < sessionCount; i++) {
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append("{\"Id\":\"session").append(i)
+                    .append("\",\"UserName\":\"User ").append(i)
+                    .append("\",\"Client\":\"Android\",\"DeviceName\":\"Phone ").append(i)
+                    .append("\",\"NowPlayingItem\":").append(serializer.SerializeToString(BenchmarkFixtures.createItem(i)))
+                    .append('}');
+        }
+
+        message = json.append("]}").toString();
+    }
+
+    @Benchmark
+    public String parseMessageType() {
+        BasicWebSocketMessage envelope = serializer.DeserializeFromString(message, BasicWebSocketMessage.class);
+        return envelope.getMessageType();
+    }
+
+    @Benchmark
+    public String routeUnhandled() {
+        return router.route(message);
+    }
+}
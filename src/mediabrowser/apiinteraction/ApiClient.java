@@ -1,14 +1,22 @@
 package mediabrowser.apiinteraction;
 
-import com.android.internal.telephony.cat.Input;
 import mediabrowser.apiinteraction.cryptography.Md5;
 import mediabrowser.apiinteraction.cryptography.Sha1;
 import mediabrowser.apiinteraction.device.IDevice;
+import mediabrowser.apiinteraction.http.CachingHttpClient;
+import mediabrowser.apiinteraction.http.DeserializingResponse;
 import mediabrowser.apiinteraction.http.HttpRequest;
 import mediabrowser.apiinteraction.http.IAsyncHttpClient;
+import mediabrowser.apiinteraction.http.IResponseHeadersListener;
+import mediabrowser.apiinteraction.http.StreamingFileUploader;
 import mediabrowser.apiinteraction.network.INetworkConnection;
+import mediabrowser.apiinteraction.playback.PlaybackProgressReporter;
+import mediabrowser.apiinteraction.serialization.ItemsResultStreamReader;
+import mediabrowser.apiinteraction.tasks.BoundedIoExecutor;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.tasks.IIoExecutor;
 import mediabrowser.apiinteraction.tasks.IProgress;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
 import mediabrowser.apiinteraction.websocket.ApiWebSocket;
 import mediabrowser.model.apiclient.ConnectionMode;
 import mediabrowser.model.apiclient.RemoteLogoutReason;
@@ -65,6 +73,9 @@ import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 
 public class ApiClient extends BaseApiClient {
@@ -82,6 +93,56 @@ public class ApiClient extends BaseApiClient {
 
     private ConnectionMode connectionMode = ConnectionMode.Local;
 
+    private RequestCoalescer requestCoalescer = new RequestCoalescer(Logger);
+
+    private TransferScheduler transferScheduler;
+    public TransferScheduler getTransferScheduler(){
+        return transferScheduler;
+    }
+
+    /**
+     * Sets the scheduler that sync downloads and camera uploads made through this client are queued on and
+     * throttled by. Without one they run unthrottled.
+     */
+    public void setTransferScheduler(TransferScheduler transferScheduler){
+        this.transferScheduler = transferScheduler;
+    }
+
+    /**
+     * Gets the key this server's transfers are throttled under, which is the server id when it is known.
+     */
+    public String getTransferServerId(){
+        return serverInfo == null ? getServerAddress() : serverInfo.getId();
+    }
+
+    private PlaybackProgressReporter playbackProgressReporter;
+
+    /**
+     * Gets the reporter that ReportPlaybackProgressAsync goes through, whose interval can be changed.
+     */
+    public synchronized PlaybackProgressReporter getPlaybackProgressReporter(){
+
+        if (playbackProgressReporter == null){
+            playbackProgressReporter = new PlaybackProgressReporter(this, Logger);
+        }
+
+        return playbackProgressReporter;
+    }
+
+    private IIoExecutor ioExecutor;
+
+    /**
+     * Gets the executor that background downloads and uploads made through this client run on, which is
+     * BoundedIoExecutor.getShared() unless one has been set.
+     */
+    public IIoExecutor getIoExecutor(){
+        return ioExecutor == null ? BoundedIoExecutor.getShared() : ioExecutor;
+    }
+
+    public void setIoExecutor(IIoExecutor ioExecutor){
+        this.ioExecutor = ioExecutor;
+    }
+
     private Observable authenticatedObservable = new AutomaticObservable();
     public Observable getAuthenticatedObservable() {
         return authenticatedObservable;
@@ -129,6 +190,26 @@ public class ApiClient extends BaseApiClient {
         apiWebSocket.EnsureWebSocket();
     }
 
+    /**
+     * Drops cached responses after the server reports a change. Has no effect unless the http client is a CachingHttpClient.
+     *
+     * @param userId The user whose data changed, or null to drop everything.
+     */
+    public void InvalidateResponseCache(String userId) {
+
+        if (httpClient instanceof CachingHttpClient){
+
+            CachingHttpClient cachingHttpClient = (CachingHttpClient)httpClient;
+
+            if (userId == null){
+                cachingHttpClient.invalidateAll();
+            }
+            else {
+                cachingHttpClient.invalidateUser(userId);
+            }
+        }
+    }
+
     void OnRemoteLoggedOut(HttpException httpError) {
 
         RemoteLogoutReason reason = RemoteLogoutReason.GeneralAccesError;
@@ -147,7 +228,72 @@ public class ApiClient extends BaseApiClient {
 
     private void SendRequest(HttpRequest request, final boolean fireGlobalEvents, final Response<String> response)
     {
-        httpClient.Send(request, new ApiClientRequestListener(this, fireGlobalEvents, response));
+        httpClient.Send(request, new ApiClientRequestListener<String>(this, fireGlobalEvents, response));
+    }
+
+    private void SendStreamRequest(HttpRequest request, final boolean fireGlobalEvents, final Response<InputStream> response)
+    {
+        httpClient.SendStream(request, new ApiClientRequestListener<InputStream>(this, fireGlobalEvents, response));
+    }
+
+    private void SendStream(String url, String method, final Response<InputStream> response)
+    {
+        HttpRequest request = new HttpRequest();
+        request.setUrl(url);
+        request.setMethod(method);
+        request.setRequestHeaders(this.HttpHeaders);
+        SendStreamRequest(request, true, response);
+    }
+
+    /**
+     * Sends a GET whose result is shared with any identical request already in flight, so concurrent callers cost
+     * one network request and one deserialization.
+     */
+    private <T> void GetCoalesced(String url, Class type, final Response<T> response)
+    {
+        Response<T> sharedResponse = requestCoalescer.join(GetCoalescingKey(url, type), response);
+
+        if (sharedResponse == null){
+            return;
+        }
+
+        // The key is registered now, so a send that fails before reaching the network must still complete it
+        try {
+            GetDeserialized(url, new SerializedResponse<T>(sharedResponse, jsonSerializer, type));
+        }
+        catch (RuntimeException ex) {
+            sharedResponse.onError(ex);
+        }
+    }
+
+    private <T> void GetStreamCoalesced(String url, Class type, final Response<T> response)
+    {
+        Response<T> sharedResponse = requestCoalescer.join(GetCoalescingKey(url, type), response);
+
+        if (sharedResponse == null){
+            return;
+        }
+
+        try {
+            SendStream(url, "GET", GetStreamResponse(new SerializedResponse<T>(sharedResponse, jsonSerializer, type)));
+        }
+        catch (RuntimeException ex) {
+            sharedResponse.onError(ex);
+        }
+    }
+
+    /**
+     * Deserializes a response body straight from the stream, on whichever thread the http client delivers it.
+     */
+    private static <T> Response<InputStream> GetStreamResponse(SerializedResponse<T> response)
+    {
+        return new DeserializingResponse<T>(response, response.getDeserializedResponse());
+    }
+
+    private String GetCoalescingKey(String url, Class type)
+    {
+        // The access token is part of the key so that requests made on behalf of different users are never merged
+        return getAccessToken() + " " + type.getName() + " " + url;
     }
 
     private void Send(String url, String method, final Response<String> response)
@@ -159,6 +305,19 @@ public class ApiClient extends BaseApiClient {
         SendRequest(request, true, response);
     }
 
+    /**
+     * Sends a GET and deserializes the response on the http client's thread, so that callbacks delivered on the main
+     * thread only receive the finished object. Other methods go through Send, as before.
+     */
+    private <T> void GetDeserialized(String url, final SerializedResponse<T> response)
+    {
+        HttpRequest request = new HttpRequest();
+        request.setUrl(url);
+        request.setMethod("GET");
+        request.setRequestHeaders(this.HttpHeaders);
+        httpClient.SendDeserialized(request, response, new ApiClientRequestListener<T>(this, true, response.getDeserializedResponse()));
+    }
+
     private void Send(String url, String method, String requestContent, String requestContentType, final Response<String> response)
     {
         HttpRequest request = new HttpRequest();
@@ -186,11 +345,26 @@ public class ApiClient extends BaseApiClient {
 
     public void getResponseStream(String address, Response<InputStream> response){
 
-        getResponseStreamInternal(address, response);
+        getResponseStream(address, 0, response);
+    }
+
+    /**
+     * Gets a response stream starting at the given byte offset, using an http Range request when the offset is
+     * greater than zero. Servers may ignore the range and return the whole body, so a response that needs to know
+     * should implement IResponseHeadersListener and check for status 206.
+     */
+    public void getResponseStream(String address, long rangeStart, Response<InputStream> response){
+
+        getResponseStreamInternal(address, rangeStart, response);
     }
 
     protected void getResponseStreamInternal(String address, Response<InputStream> response){
 
+        getResponseStreamInternal(address, 0, response);
+    }
+
+    protected void getResponseStreamInternal(String address, long rangeStart, Response<InputStream> response){
+
         Logger.Debug("Getting response stream from " + address);
 
         HttpURLConnection conn = null;
@@ -209,6 +383,42 @@ public class ApiClient extends BaseApiClient {
                 conn.setRequestProperty(key, this.HttpHeaders.get(key));
             }
 
+            if (rangeStart > 0){
+                conn.setRequestProperty("Range", "bytes=" + rangeStart + "-");
+            }
+
+            int responseCode = conn.getResponseCode();
+
+            if (response instanceof IResponseHeadersListener){
+
+                Map<String, String> headers = new HashMap<String, String>();
+                for (Map.Entry<String, List<String>> header : conn.getHeaderFields().entrySet()){
+                    if (header.getKey() != null && header.getValue() != null && header.getValue().size() > 0){
+                        headers.put(header.getKey(), header.getValue().get(0));
+                    }
+                }
+
+                ((IResponseHeadersListener) response).onResponseHeaders(responseCode, headers);
+            }
+
+            if (responseCode < 200 || responseCode >= 300){
+
+                // Consume the error body so the connection can go back to the keep-alive pool
+                InputStream errorStream = conn.getErrorStream();
+                if (errorStream != null){
+                    try (InputStream alias = errorStream){
+                        byte[] buffer = new byte[4096];
+                        while (alias.read(buffer) != -1){
+                        }
+                    }
+                }
+
+                HttpException httpException = new HttpException(conn.getResponseMessage());
+                httpException.setStatusCode(responseCode);
+                response.onError(httpException);
+                return;
+            }
+
             InputStream inputStream = conn.getInputStream();
 
             response.onResponse(inputStream);
@@ -232,7 +442,7 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("userId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/Items/" + id);
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/Items/").Append(id).Build();
 
         GetItemFromUrl(url, response);
     }
@@ -249,7 +459,7 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("userId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/Items/" + itemId + "/Intros");
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/Items/").Append(itemId).Append("/Intros").Build();
 
         GetItemsFromUrl(url, response);
     }
@@ -270,7 +480,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ItemCounts>(response, jsonSerializer, ItemCounts.class));
+        GetDeserialized(url, new SerializedResponse<ItemCounts>(response, jsonSerializer, ItemCounts.class));
     }
 
     public void GetRegistrationInfo(String feature, final Response<RegistrationInfo> response)
@@ -284,7 +494,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<>(response, jsonSerializer, RegistrationInfo.class));
+        GetDeserialized(url, new SerializedResponse<>(response, jsonSerializer, RegistrationInfo.class));
     }
 
     public void GetRootFolderAsync(String userId, final Response<BaseItemDto> response)
@@ -294,7 +504,7 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("userId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/Items/Root");
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/Items/Root").Build();
 
         GetItemFromUrl(url, response);
     }
@@ -310,7 +520,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<UserDto[]>(response, jsonSerializer, new UserDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<UserDto[]>(response, jsonSerializer, new UserDto[]{}.getClass()));
     }
 
     public void GetPublicUsersAsync(final Response<UserDto[]> response)
@@ -319,7 +529,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<UserDto[]>(response, jsonSerializer, new UserDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<UserDto[]>(response, jsonSerializer, new UserDto[]{}.getClass()));
     }
 
     public void GetClientSessionsAsync(SessionQuery query, final Response<SessionInfoDto[]> response)
@@ -332,21 +542,21 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<SessionInfoDto[]>(response, jsonSerializer, new SessionInfoDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<SessionInfoDto[]>(response, jsonSerializer, new SessionInfoDto[]{}.getClass()));
     }
 
     private void GetItemsFromUrl(String url, final Response<ItemsResult> response) {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ItemsResult>(response, jsonSerializer, ItemsResult.class));
+        GetStreamCoalesced(url, ItemsResult.class, response);
     }
 
     private void GetItemFromUrl(String url, final Response<BaseItemDto> response) {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<BaseItemDto>(response, jsonSerializer, BaseItemDto.class));
+        GetCoalesced(url, BaseItemDto.class, response);
     }
 
     public void GetItemsAsync(ItemQuery query, final Response<ItemsResult> response)
@@ -361,6 +571,103 @@ public class ApiClient extends BaseApiClient {
         GetItemsFromUrl(url, response);
     }
 
+    /**
+     * Streams the items of a query to the response one at a time as they are parsed, instead of materialising the
+     * whole ItemsResult. The query's StartIndex and Limit are honoured as-is.
+     */
+    public void GetItemsStreamAsync(ItemQuery query, final ItemStreamResponse response)
+    {
+        GetItemsStreamAsync(query, 0, response);
+    }
+
+    /**
+     * Streams the items of a query to the response one at a time as they are parsed. When pageSize is greater than
+     * zero the query is fetched in pages of that size, starting at its StartIndex and stopping at its Limit, so
+     * memory stays bounded however large the library is. The query must not be modified until the response completes.
+     */
+    public void GetItemsStreamAsync(ItemQuery query, int pageSize, final ItemStreamResponse response)
+    {
+        if (query == null)
+        {
+            throw new IllegalArgumentException("query");
+        }
+
+        int startIndex = query.getStartIndex() == null ? 0 : query.getStartIndex();
+
+        GetItemsStreamPage(query, startIndex, pageSize, query.getLimit(), 0, response);
+    }
+
+    private void GetItemsStreamPage(final ItemQuery query,
+                                    final int startIndex,
+                                    final int pageSize,
+                                    final Integer limit,
+                                    final int itemsDelivered,
+                                    final ItemStreamResponse response)
+    {
+        String url;
+        final int pageLimit;
+
+        if (pageSize > 0) {
+
+            pageLimit = limit == null ? pageSize : Math.min(pageSize, limit - itemsDelivered);
+
+            Integer originalStartIndex = query.getStartIndex();
+            Integer originalLimit = query.getLimit();
+
+            query.setStartIndex(startIndex);
+            query.setLimit(pageLimit);
+
+            try {
+                url = GetItemListUrl(query);
+            }
+            finally {
+                query.setStartIndex(originalStartIndex);
+                query.setLimit(originalLimit);
+            }
+        }
+        else {
+            pageLimit = 0;
+            url = GetItemListUrl(query);
+        }
+
+        url = AddDataFormat(url);
+
+        SendStream(url, "GET", new Response<InputStream>(response) {
+
+            @Override
+            public void onResponse(InputStream stream) {
+
+                ItemsResultStreamReader reader;
+
+                try {
+                    reader = new ItemsResultStreamReader(jsonSerializer, new BufferedReader(new InputStreamReader(stream, "UTF-8")));
+                    reader.read(response);
+                }
+                catch (Exception ex) {
+                    response.onError(ex);
+                    return;
+                }
+
+                int delivered = itemsDelivered + reader.getItemCount();
+                int nextIndex = startIndex + reader.getItemCount();
+                Integer total = reader.getTotalRecordCount();
+
+                boolean isComplete = pageSize <= 0 ||
+                        reader.isStopped() ||
+                        reader.getItemCount() < pageLimit ||
+                        (total != null && nextIndex >= total) ||
+                        (limit != null && delivered >= limit);
+
+                if (isComplete) {
+                    response.onResponse();
+                }
+                else {
+                    GetItemsStreamPage(query, nextIndex, pageSize, limit, delivered, response);
+                }
+            }
+        });
+    }
+
     /// <summary>
     /// Gets the next up async.
     /// </summary>
@@ -864,7 +1171,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<SystemInfo>(response, jsonSerializer, SystemInfo.class));
+        GetCoalesced(url, SystemInfo.class, response);
     }
 
     /// <summary>
@@ -878,7 +1185,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<PublicSystemInfo>(response, jsonSerializer, PublicSystemInfo.class));
+        GetCoalesced(url, PublicSystemInfo.class, response);
     }
 
     /// <summary>
@@ -891,7 +1198,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<PluginInfo[]>(response, jsonSerializer, new PluginInfo[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<PluginInfo[]>(response, jsonSerializer, new PluginInfo[]{}.getClass()));
     }
 
     /// <summary>
@@ -904,7 +1211,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ServerConfiguration>(response, jsonSerializer, ServerConfiguration.class));
+        GetCoalesced(url, ServerConfiguration.class, response);
     }
 
     /// <summary>
@@ -916,7 +1223,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("ScheduledTasks");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<TaskInfo[]>(response, jsonSerializer, new TaskInfo[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<TaskInfo[]>(response, jsonSerializer, new TaskInfo[]{}.getClass()));
     }
 
     /// <summary>
@@ -936,7 +1243,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<TaskInfo>(response, jsonSerializer, TaskInfo.class));
+        GetDeserialized(url, new SerializedResponse<TaskInfo>(response, jsonSerializer, TaskInfo.class));
     }
 
     /// <summary>
@@ -956,7 +1263,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<UserDto>(response, jsonSerializer, UserDto.class));
+        GetCoalesced(url, UserDto.class, response);
     }
 
     /// <summary>
@@ -968,7 +1275,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Localization/ParentalRatings");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ParentalRating[]>(response, jsonSerializer, new ParentalRating[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<ParentalRating[]>(response, jsonSerializer, new ParentalRating[]{}.getClass()));
     }
 
     /// <summary>
@@ -989,10 +1296,9 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("itemId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/Items/" + itemId + "/LocalTrailers");
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/Items/").Append(itemId).Append("/LocalTrailers").Add("format", "json").Build();
 
-        url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass()));
     }
 
     /// <summary>
@@ -1013,11 +1319,9 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("itemId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/Items/" + itemId + "/SpecialFeatures");
-
-        url = AddDataFormat(url);
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/Items/").Append(itemId).Append("/SpecialFeatures").Add("format", "json").Build();
 
-        Send(url, "GET", new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass()));
     }
 
     /// <summary>
@@ -1029,7 +1333,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Localization/Cultures");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<CultureDto[]>(response, jsonSerializer, new CultureDto[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<CultureDto[]>(response, jsonSerializer, new CultureDto[]{}.getClass()));
     }
 
     /// <summary>
@@ -1041,7 +1345,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Localization/Countries");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<CountryInfo[]>(response, jsonSerializer, new CountryInfo[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<CountryInfo[]>(response, jsonSerializer, new CountryInfo[]{}.getClass()));
     }
 
     /// <summary>
@@ -1053,7 +1357,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Games/SystemSummaries");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<GameSystemSummary[]>(response, jsonSerializer, new GameSystemSummary[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<GameSystemSummary[]>(response, jsonSerializer, new GameSystemSummary[]{}.getClass()));
     }
  
     public void MarkPlayedAsync(String itemId, String userId, Date datePlayed, final Response<UserItemDataDto> response)
@@ -1099,8 +1403,7 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("userId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/PlayedItems/" + itemId);
-        url = AddDataFormat(url);
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/PlayedItems/").Append(itemId).Add("format", "json").Build();
 
         Send(url, "DELETE", new SerializedResponse<UserItemDataDto>(response, jsonSerializer, new UserItemDataDto().getClass()));
     }
@@ -1122,8 +1425,7 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("userId");
         }
 
-        String url = GetApiUrl("Users/" + userId + "/FavoriteItems/" + itemId);
-        url = AddDataFormat(url);
+        String url = GetApiUrlBuilder("Users/").Append(userId).Append("/FavoriteItems/").Append(itemId).Add("format", "json").Build();
 
         Send(url, isFavorite ? "POST" : "DELETE", new SerializedResponse<UserItemDataDto>(response, jsonSerializer, new UserItemDataDto().getClass()));
     }
@@ -1161,12 +1463,47 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("info");
         }
 
-        if (apiWebSocket != null && apiWebSocket.IsWebSocketOpen()){
-            apiWebSocket.SendWebSocketMessage("ReportPlaybackProgress", info, response);
+        getPlaybackProgressReporter().report(info, response);
+    }
+
+    /**
+     * Sends a progress report straight away, without the rate limiting of ReportPlaybackProgressAsync. It goes over
+     * the web socket when there is one, and is posted over http if the web socket cannot deliver it.
+     */
+    public void SendPlaybackProgressAsync(final PlaybackProgressInfo info, final EmptyResponse response)
+    {
+        if (info == null)
+        {
+            throw new IllegalArgumentException("info");
+        }
+
+        final String url = GetApiUrl("Sessions/Playing/Progress");
+
+        if (apiWebSocket != null && apiWebSocket.IsWebSocketOpenOrReconnecting()){
+
+            apiWebSocket.SendWebSocketMessage("ReportPlaybackProgress", info, new EmptyResponse() {
+
+                @Override
+                public void onResponse() {
+                    response.onResponse();
+                }
+
+                @Override
+                public void onError(Exception ex) {
+
+                    // Nothing to fall back to once logged out
+                    if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(getAccessToken())) {
+                        response.onError(ex);
+                        return;
+                    }
+
+                    Logger.Debug("Web socket could not deliver playback progress. Posting it instead.");
+                    PostAsync(url, info, response);
+                }
+            });
             return;
         }
 
-        String url = GetApiUrl("Sessions/Playing/Progress");
         PostAsync(url, info, response);
     }
 
@@ -1183,6 +1520,8 @@ public class ApiClient extends BaseApiClient {
             throw new IllegalArgumentException("info");
         }
 
+        getPlaybackProgressReporter().onPlaybackStopped(info);
+
         String url = GetApiUrl("Sessions/Playing/Stopped");
 
         PostAsync(url, info, response);
@@ -1502,7 +1841,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<DisplayPreferences>(response, jsonSerializer, DisplayPreferences.class));
+        GetDeserialized(url, new SerializedResponse<DisplayPreferences>(response, jsonSerializer, DisplayPreferences.class));
     }
 
     /// <summary>
@@ -1533,7 +1872,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Notifications/" + userId + "/Summary");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<NotificationsSummary>(response, jsonSerializer, NotificationsSummary.class));
+        GetDeserialized(url, new SerializedResponse<NotificationsSummary>(response, jsonSerializer, NotificationsSummary.class));
     }
 
     public void MarkNotificationsRead(String userId, String[] notificationIdList, Boolean isRead, final EmptyResponse response)
@@ -1564,7 +1903,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<NotificationResult>(response, jsonSerializer, NotificationResult.class));
+        GetDeserialized(url, new SerializedResponse<NotificationResult>(response, jsonSerializer, NotificationResult.class));
     }
 
     public void GetAllThemeMediaAsync(String userId, String itemId, Boolean inheritFromParent, final Response<AllThemeMediaResult> response)
@@ -1578,7 +1917,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<AllThemeMediaResult>(response, jsonSerializer, AllThemeMediaResult.class));
+        GetDeserialized(url, new SerializedResponse<AllThemeMediaResult>(response, jsonSerializer, AllThemeMediaResult.class));
     }
 
     public void GetSearchHintsAsync(SearchQuery query, final Response<SearchHintResult> response)
@@ -1606,7 +1945,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<SearchHintResult>(response, jsonSerializer, SearchHintResult.class));
+        GetDeserialized(url, new SerializedResponse<SearchHintResult>(response, jsonSerializer, SearchHintResult.class));
     }
 
     public void GetThemeSongsAsync(String userId, String itemId, Boolean inheritFromParent, final Response<ThemeMediaResult> response)
@@ -1620,7 +1959,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ThemeMediaResult>(response, jsonSerializer, ThemeMediaResult.class));
+        GetDeserialized(url, new SerializedResponse<ThemeMediaResult>(response, jsonSerializer, ThemeMediaResult.class));
     }
 
     public void GetThemeVideosAsync(String userId, String itemId, Boolean inheritFromParent, final Response<ThemeMediaResult> response)
@@ -1634,7 +1973,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ThemeMediaResult>(response, jsonSerializer, ThemeMediaResult.class));
+        GetDeserialized(url, new SerializedResponse<ThemeMediaResult>(response, jsonSerializer, ThemeMediaResult.class));
     }
 
     /// <summary>
@@ -1665,7 +2004,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ItemReviewsResult>(response, jsonSerializer, ItemReviewsResult.class));
+        GetDeserialized(url, new SerializedResponse<ItemReviewsResult>(response, jsonSerializer, ItemReviewsResult.class));
     }
 
     /// <summary>
@@ -1683,7 +2022,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Games/PlayerIndex", queryString);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ItemIndex[]>(response, jsonSerializer, new ItemIndex[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<ItemIndex[]>(response, jsonSerializer, new ItemIndex[]{}.getClass()));
     }
 
     /// <summary>
@@ -1703,7 +2042,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Items/YearIndex", queryString);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ItemIndex[]>(response, jsonSerializer, new ItemIndex[]{}.getClass()));
+        GetDeserialized(url, new SerializedResponse<ItemIndex[]>(response, jsonSerializer, new ItemIndex[]{}.getClass()));
     }
 
     public void ReportCapabilities(ClientCapabilities capabilities, final EmptyResponse response)
@@ -1723,7 +2062,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Info");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<LiveTvInfo>(response, jsonSerializer, LiveTvInfo.class));
+        GetDeserialized(url, new SerializedResponse<LiveTvInfo>(response, jsonSerializer, LiveTvInfo.class));
     }
 
     public void GetLiveTvRecordingGroupsAsync(RecordingGroupQuery query, final Response<RecordingGroupDtoResult> response)
@@ -1740,7 +2079,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Recordings/Groups", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<RecordingGroupDtoResult>(response, jsonSerializer, RecordingGroupDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<RecordingGroupDtoResult>(response, jsonSerializer, RecordingGroupDtoResult.class));
     }
 
     public void GetLiveTvRecordingsAsync(RecordingQuery query, final Response<RecordingInfoDtoResult> response)
@@ -1764,7 +2103,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Recordings", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<RecordingInfoDtoResult>(response, jsonSerializer, RecordingInfoDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<RecordingInfoDtoResult>(response, jsonSerializer, RecordingInfoDtoResult.class));
     }
 
     public void GetLiveTvChannelsAsync(LiveTvChannelQuery query, final Response<ChannelInfoDtoResult> response)
@@ -1792,7 +2131,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Channels", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ChannelInfoDtoResult>(response, jsonSerializer, ChannelInfoDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<ChannelInfoDtoResult>(response, jsonSerializer, ChannelInfoDtoResult.class));
     }
 
     public void CancelLiveTvSeriesTimerAsync(String id, final EmptyResponse response)
@@ -1850,7 +2189,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Channels/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ChannelInfoDto>(response, jsonSerializer, ChannelInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<ChannelInfoDto>(response, jsonSerializer, ChannelInfoDto.class));
     }
 
     public void GetLiveTvRecordingAsync(String id, String userId, final Response<RecordingInfoDto> response)
@@ -1866,7 +2205,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Recordings/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<RecordingInfoDto>(response, jsonSerializer, RecordingInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<RecordingInfoDto>(response, jsonSerializer, RecordingInfoDto.class));
     }
 
     public void GetLiveTvRecordingGroupAsync(String id, String userId, final Response<RecordingGroupDto> response)
@@ -1882,7 +2221,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Recordings/Groups/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<RecordingGroupDto>(response, jsonSerializer, RecordingGroupDto.class));
+        GetDeserialized(url, new SerializedResponse<RecordingGroupDto>(response, jsonSerializer, RecordingGroupDto.class));
     }
 
     public void GetLiveTvSeriesTimerAsync(String id, final Response<SeriesTimerInfoDto> response)
@@ -1897,7 +2236,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/SeriesTimers/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
     }
 
     public void GetLiveTvSeriesTimersAsync(SeriesTimerQuery query, final Response<SeriesTimerInfoDtoResult> response)
@@ -1915,7 +2254,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/SeriesTimers", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<SeriesTimerInfoDtoResult>(response, jsonSerializer, SeriesTimerInfoDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<SeriesTimerInfoDtoResult>(response, jsonSerializer, SeriesTimerInfoDtoResult.class));
     }
 
     public void GetLiveTvTimerAsync(String id, final Response<TimerInfoDto> response)
@@ -1930,7 +2269,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Timers/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<TimerInfoDto>(response, jsonSerializer, TimerInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<TimerInfoDto>(response, jsonSerializer, TimerInfoDto.class));
     }
 
     public void GetLiveTvTimersAsync(TimerQuery query, final Response<TimerInfoDtoResult> response)
@@ -1948,7 +2287,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Timers", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<TimerInfoDtoResult>(response, jsonSerializer, new TimerInfoDtoResult().getClass()));
+        GetDeserialized(url, new SerializedResponse<TimerInfoDtoResult>(response, jsonSerializer, new TimerInfoDtoResult().getClass()));
     }
 
     public void GetLiveTvProgramsAsync(ProgramQuery query, final Response<ProgramInfoDtoResult> response)
@@ -1990,7 +2329,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Programs", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ProgramInfoDtoResult>(response, jsonSerializer, ProgramInfoDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<ProgramInfoDtoResult>(response, jsonSerializer, ProgramInfoDtoResult.class));
     }
 
     public void GetRecommendedLiveTvProgramsAsync(RecommendedProgramQuery query, final Response<ProgramInfoDtoResult> response)
@@ -2010,7 +2349,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Programs/Recommended", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ProgramInfoDtoResult>(response, jsonSerializer, ProgramInfoDtoResult.class));
+        GetDeserialized(url, new SerializedResponse<ProgramInfoDtoResult>(response, jsonSerializer, ProgramInfoDtoResult.class));
     }
 
     public void CreateLiveTvSeriesTimerAsync(SeriesTimerInfoDto timer, final EmptyResponse response)
@@ -2051,7 +2390,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Timers/Defaults", dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
     }
 
     public void GetDefaultLiveTvTimerInfo(final Response<SeriesTimerInfoDto> response)
@@ -2059,7 +2398,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Timers/Defaults");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<SeriesTimerInfoDto>(response, jsonSerializer, SeriesTimerInfoDto.class));
     }
 
     public void GetLiveTvGuideInfo(final Response<GuideInfo> response)
@@ -2067,7 +2406,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/GuideInfo");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<GuideInfo>(response, jsonSerializer, GuideInfo.class));
+        GetDeserialized(url, new SerializedResponse<GuideInfo>(response, jsonSerializer, GuideInfo.class));
     }
 
     public void GetLiveTvProgramAsync(String id, String userId, final Response<ProgramInfoDto> response)
@@ -2083,7 +2422,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("LiveTv/Programs/" + id, dict);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ProgramInfoDto>(response, jsonSerializer, ProgramInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<ProgramInfoDto>(response, jsonSerializer, ProgramInfoDto.class));
     }
 
     public void UpdateLiveTvSeriesTimerAsync(SeriesTimerInfoDto timer, final EmptyResponse response)
@@ -2172,7 +2511,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Channels/" + channelId + "/Features");
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<ChannelFeatures>(response, jsonSerializer, ChannelFeatures.class));
+        GetDeserialized(url, new SerializedResponse<ChannelFeatures>(response, jsonSerializer, ChannelFeatures.class));
     }
 
     public void GetChannelItems(ChannelItemQuery query, final Response<ItemsResult> response)
@@ -2219,7 +2558,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Sessions", queryString);
 
         url = AddDataFormat(url);
-        Send(url, "GET", new SerializedResponse<SessionInfoDto>(response, jsonSerializer, SessionInfoDto.class));
+        GetDeserialized(url, new SerializedResponse<SessionInfoDto>(response, jsonSerializer, SessionInfoDto.class));
     }
 
     public void StopTranscodingProcesses(String deviceId, String playSessionId, final EmptyResponse response)
@@ -2247,6 +2586,9 @@ public class ApiClient extends BaseApiClient {
 
     public void Logout(final EmptyResponse response)
     {
+        // Held progress reports need the access token that logging out clears
+        getPlaybackProgressReporter().flush();
+
         String url = GetApiUrl("Sessions/Logout");
 
         PostAsync(url, new EmptyResponse() {
@@ -2267,7 +2609,7 @@ public class ApiClient extends BaseApiClient {
             }
         });
 
-        if (apiWebSocket != null && apiWebSocket.IsWebSocketOpenOrConnecting()){
+        if (apiWebSocket != null){
             apiWebSocket.Close();
             apiWebSocket = null;
         }
@@ -2304,7 +2646,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass()));
+        SendStream(url, "GET", GetStreamResponse(new SerializedResponse<BaseItemDto[]>(response, jsonSerializer, new BaseItemDto[]{}.getClass())));
     }
 
     public void AddToPlaylist(String playlistId, String[] itemIds, String userId, final EmptyResponse response)
@@ -2381,7 +2723,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<QueryFilters>(response, jsonSerializer, QueryFilters.class));
+        GetDeserialized(url, new SerializedResponse<QueryFilters>(response, jsonSerializer, QueryFilters.class));
     }
 
     public void GetPlaybackInfo(PlaybackInfoRequest request, final Response<PlaybackInfoResponse> response)
@@ -2394,7 +2736,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<PlaybackInfoResponse>(response, jsonSerializer, PlaybackInfoResponse.class));
+        GetDeserialized(url, new SerializedResponse<PlaybackInfoResponse>(response, jsonSerializer, PlaybackInfoResponse.class));
     }
 
     public void OpenLiveStream(LiveStreamRequest request, final Response<LiveStreamResponse> response)
@@ -2413,7 +2755,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<DevicesOptions>(response, jsonSerializer, DevicesOptions.class));
+        GetDeserialized(url, new SerializedResponse<DevicesOptions>(response, jsonSerializer, DevicesOptions.class));
     }
 
     public void GetContentUploadHistory(final Response<ContentUploadHistory> response)
@@ -2426,7 +2768,7 @@ public class ApiClient extends BaseApiClient {
 
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ContentUploadHistory>(response, jsonSerializer, ContentUploadHistory.class));
+        GetDeserialized(url, new SerializedResponse<ContentUploadHistory>(response, jsonSerializer, ContentUploadHistory.class));
     }
 
     public void UploadFile(FileInputStream fileInputStream,
@@ -2449,85 +2791,9 @@ public class ApiClient extends BaseApiClient {
         dict.Add("Id", file.getId());
         dict.AddIfNotNullOrEmpty("Album", file.getAlbum());
 
-        HttpURLConnection conn = null;
-        DataOutputStream dos = null;
-        URL url = new URL(GetApiUrl("Devices/CameraUploads", dict));
-
-        int maxBufferSize = 1 * 1024 * 1024;
-
-        try {
-
-            // Open a HTTP  connection to  the URL
-            conn = (HttpURLConnection) url.openConnection();
-            conn.setDoInput(true); // Allow Inputs
-            conn.setDoOutput(true); // Allow Outputs
-            conn.setUseCaches(false); // Don't use a Cached Copy
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Connection", "Keep-Alive");
-            conn.setRequestProperty("Content-Type", file.getMimeType());
-
-            for (String key: this.HttpHeaders.keySet()){
-                conn.setRequestProperty(key, this.HttpHeaders.get(key));
-            }
-
-            String parameter = this.HttpHeaders.getAuthorizationParameter();
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(parameter))
-            {
-                String value = this.HttpHeaders.getAuthorizationScheme() + " " + parameter;
-                conn.setRequestProperty("Authorization", value);
-            }
-
-            dos = new DataOutputStream(conn.getOutputStream());
-
-            // createUserAction a buffer of  maximum size
-            int bytesAvailable = fileInputStream.available();
-
-            int bufferSize = Math.min(bytesAvailable, maxBufferSize);
-            byte[] buffer = new byte[bufferSize];
-
-            // read file and write it into form...
-            long bytesRead = fileInputStream.read(buffer, 0, bufferSize);
-
-            while (bytesRead > 0) {
-
-                dos.write(buffer, 0, bufferSize);
-                bytesAvailable = fileInputStream.available();
-                bufferSize = Math.min(bytesAvailable, maxBufferSize);
-                bytesRead = fileInputStream.read(buffer, 0, bufferSize);
-            }
-
-            String serverResponseMessage = conn.getResponseMessage();
-
-            int responseCode = conn.getResponseCode();
-
-            if(responseCode == 200 || responseCode == 204){
-
-                progress.reportComplete();
-            }
-            else{
-
-                HttpException ex = new HttpException(serverResponseMessage);
-                ex.setStatusCode(responseCode);
-
-                progress.reportError(ex);
-            }
-
-        }
-        catch (Exception ex) {
-
-            Logger.ErrorException("Error uploading file", ex);
-            progress.reportError(new HttpException(ex.getMessage()));
-        }
-        finally {
-
-            //close the streams //
-            fileInputStream.close();
+        String url = GetApiUrl("Devices/CameraUploads", dict);
 
-            if (dos != null){
-                dos.flush();
-                dos.close();
-            }
-        }
+        new StreamingFileUploader(Logger).upload(url, this.HttpHeaders, file.getMimeType(), fileInputStream, progress, cancellationToken, transferScheduler, getTransferServerId());
     }
 
      public void GetNewsItems(final Response<NewsItemsResult> response) {
@@ -2535,7 +2801,7 @@ public class ApiClient extends BaseApiClient {
          String url = GetApiUrl("News/Product");
          url = AddDataFormat(url);
 
-         Send(url, "GET", new SerializedResponse<NewsItemsResult>(response, jsonSerializer, NewsItemsResult.class));
+         GetDeserialized(url, new SerializedResponse<NewsItemsResult>(response, jsonSerializer, NewsItemsResult.class));
      }
 
     public void UpdateUserConfiguration(String userId, UserConfiguration configuration, EmptyResponse response) {
@@ -2573,6 +2839,14 @@ public class ApiClient extends BaseApiClient {
         getResponseStream(getSyncJobItemFileUrl(id), response);
     }
 
+    /**
+     * Gets the sync job item file starting at the given byte offset, for resuming a partial download.
+     */
+    public void GetSyncJobItemFile(String id, long rangeStart, Response<InputStream> response){
+
+        getResponseStream(getSyncJobItemFileUrl(id), rangeStart, response);
+    }
+
     public String getSyncJobItemFileUrl(String id)
     {
         if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(id))
@@ -2597,7 +2871,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Sync/Jobs", dict);
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<SyncJobQueryResult>(response, jsonSerializer, SyncJobQueryResult.class));
+        GetDeserialized(url, new SerializedResponse<SyncJobQueryResult>(response, jsonSerializer, SyncJobQueryResult.class));
     }
 
     public void GetSyncJobItems(SyncJobItemQuery query, Response<SyncJobItemQueryResult> response) {
@@ -2614,7 +2888,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Sync/JobItems", dict);
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<SyncJobItemQueryResult>(response, jsonSerializer, SyncJobItemQueryResult.class));
+        GetDeserialized(url, new SerializedResponse<SyncJobItemQueryResult>(response, jsonSerializer, SyncJobItemQueryResult.class));
     }
 
     public void reportSyncJobItemTransferred(String id, EmptyResponse response) {
@@ -2639,7 +2913,7 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Users/" + id + "/Offline");
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<UserDto>(response, jsonSerializer, UserDto.class));
+        GetDeserialized(url, new SerializedResponse<UserDto>(response, jsonSerializer, UserDto.class));
     }
 
     public void ReportOfflineActions(ArrayList<UserAction> actions, EmptyResponse response) {
@@ -2688,6 +2962,6 @@ public class ApiClient extends BaseApiClient {
         String url = GetApiUrl("Sync/Items/Ready", dict);
         url = AddDataFormat(url);
 
-        Send(url, "GET", new SerializedResponse<ReadySyncItemsResult>(response, jsonSerializer, url, Logger, new ReadySyncItemsResult().getClass()));
+        GetDeserialized(url, new SerializedResponse<ReadySyncItemsResult>(response, jsonSerializer, url, Logger, new ReadySyncItemsResult().getClass()));
     }
 }
\ No newline at end of file
@@ -5,23 +5,23 @@ import mediabrowser.apiinteraction.IResponse;
 import mediabrowser.apiinteraction.Response;
 import mediabrowser.model.net.HttpException;
 
-public class ApiClientRequestListener extends Response<String> {
+public class ApiClientRequestListener<T> extends Response<T> {
 
     private boolean fireGlobalEvents;
     private ApiClient apiClient;
-    private Response<String> innerStringResponse;
+    private Response<T> innerTypedResponse;
 
-    public ApiClientRequestListener(ApiClient apiClient, boolean fireGlobalEvents, Response<String> innerResponse) {
+    public ApiClientRequestListener(ApiClient apiClient, boolean fireGlobalEvents, Response<T> innerResponse) {
         super(innerResponse);
         this.fireGlobalEvents = fireGlobalEvents;
         this.apiClient = apiClient;
-        innerStringResponse = innerResponse;
+        innerTypedResponse = innerResponse;
     }
 
     @Override
-    public void onResponse(String response)
+    public void onResponse(T response)
     {
-        innerStringResponse.onResponse(response);
+        innerTypedResponse.onResponse(response);
     }
 
     @Override
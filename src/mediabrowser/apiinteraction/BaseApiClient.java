@@ -276,7 +276,24 @@ public abstract class BaseApiClient implements IDisposable
 	*/
 	public final String GetApiUrl(String handler)
 	{
-		return GetApiUrl(handler, new QueryStringDictionary());
+		return GetApiUrlBuilder(handler).Build();
+	}
+
+	/** 
+	 Gets a builder for an API URL, to which path segments and parameters can be appended.
+	 
+	 @param handler The handler.
+	 @return UrlBuilder.
+	 @exception System.ArgumentNullException handler
+	*/
+	protected final UrlBuilder GetApiUrlBuilder(String handler)
+	{
+		if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(handler))
+		{
+			throw new IllegalArgumentException("handler");
+		}
+
+		return new UrlBuilder(getServerAddress()).Append("/mediabrowser/").Append(handler);
 	}
 
     protected mediabrowser.apiinteraction.http.HttpHeaders HttpHeaders = new HttpHeaders();
@@ -349,7 +366,11 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("queryString");
 		}
 
-		return queryString.GetUrl(getApiUrl() + "/" + handler);
+		UrlBuilder builder = new UrlBuilder(getServerAddress()).Append("/mediabrowser/").Append(handler);
+
+		queryString.AppendTo(builder);
+
+		return builder.Build();
 	}
 
 	public final String GetSubtitleUrl(SubtitleDownloadOptions options)
@@ -628,54 +649,48 @@ public abstract class BaseApiClient implements IDisposable
 	/** 
 	 Gets the image URL.
 	 
-	 @param baseUrl The base URL.
+	 @param builder The builder holding the image path.
 	 @param options The options.
-	 @param queryParams The query params.
 	 @return System.String.
 	 @exception System.ArgumentNullException options
 	*/
-	private String GetImageUrl(String baseUrl, ImageOptions options, QueryStringDictionary queryParams)
+	private String GetImageUrl(UrlBuilder builder, ImageOptions options)
 	{
 		if (options == null)
 		{
 			throw new IllegalArgumentException("options");
 		}
 
-		if (queryParams == null)
-		{
-			throw new IllegalArgumentException("queryParams");
-		}
-
 		if (options.getImageIndex() != null)
 		{
-			baseUrl += "/" + options.getImageIndex().intValue();
+			builder.Append('/').Append(options.getImageIndex().intValue());
 		}
 
-		queryParams.AddIfNotNull("Width", options.getWidth());
-		queryParams.AddIfNotNull("Height", options.getHeight());
-		queryParams.AddIfNotNull("MaxWidth", options.getMaxWidth());
-		queryParams.AddIfNotNull("MaxHeight", options.getMaxHeight());
-		queryParams.AddIfNotNull("Quality", (options.getQuality() != null) ? options.getQuality() : getImageQuality());
+		builder.AddIfNotNull("Width", options.getWidth());
+		builder.AddIfNotNull("Height", options.getHeight());
+		builder.AddIfNotNull("MaxWidth", options.getMaxWidth());
+		builder.AddIfNotNull("MaxHeight", options.getMaxHeight());
+		builder.AddIfNotNull("Quality", (options.getQuality() != null) ? options.getQuality() : getImageQuality());
 
-		queryParams.AddIfNotNullOrEmpty("Tag", options.getTag());
+		builder.AddIfNotNullOrEmpty("Tag", options.getTag());
 
-		queryParams.AddIfNotNull("CropWhitespace", options.getCropWhitespace());
-		queryParams.Add("EnableImageEnhancers", options.getEnableImageEnhancers());
+		builder.AddIfNotNull("CropWhitespace", options.getCropWhitespace());
+		builder.Add("EnableImageEnhancers", options.getEnableImageEnhancers());
 
 		if (options.getFormat() != null)
 		{
-			queryParams.Add("Format", options.getFormat().toString());
+			builder.Add("Format", options.getFormat().toString());
 		}
 
 		if (options.getAddPlayedIndicator())
 		{
-			queryParams.Add("AddPlayedIndicator", true);
+			builder.Add("AddPlayedIndicator", true);
 		}
-		queryParams.AddIfNotNull("UnPlayedCount", options.getUnPlayedCount());
-		queryParams.AddIfNotNull("PercentPlayed", options.getPercentPlayed());
-		queryParams.AddIfNotNullOrEmpty("BackgroundColor", options.getBackgroundColor());
+		builder.AddIfNotNull("UnPlayedCount", options.getUnPlayedCount());
+		builder.AddIfNotNull("PercentPlayed", options.getPercentPlayed());
+		builder.AddIfNotNullOrEmpty("BackgroundColor", options.getBackgroundColor());
 
-		return GetApiUrl(baseUrl, queryParams);
+		return builder.Build();
 	}
 
 	/** 
@@ -753,6 +768,33 @@ public abstract class BaseApiClient implements IDisposable
 		return GetImageUrl(item.getId(), options);
 	}
 
+	/**
+	 Gets a template for building the image urls of many items with the same options. The options are read once and
+	 are not modified, and the template may be shared between threads.
+
+	 @param options The options.
+	 @return ImageUrlTemplate.
+	 @exception System.ArgumentNullException options
+	*/
+	public final ImageUrlTemplate GetImageUrlTemplate(ImageOptions options)
+	{
+		return new ImageUrlTemplate(getApiUrl(), options, getImageQuality());
+	}
+
+	/**
+	 Gets the image urls of a list of items, for example to fill a grid. Each url carries the tag of its own item's
+	 image. Unlike GetImageUrl(BaseItemDto, ImageOptions), the options are not modified.
+
+	 @param items The items.
+	 @param options The options.
+	 @return The urls, in the same order as the items.
+	 @exception System.ArgumentNullException items
+	*/
+	public final String[] GetImageUrls(java.util.List<BaseItemDto> items, ImageOptions options)
+	{
+		return GetImageUrlTemplate(options).getUrls(items);
+	}
+
 	/** 
 	 Gets an image url that can be used to download an image from the api
 	 
@@ -768,9 +810,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("itemId");
 		}
 
-		String url = "Items/" + itemId + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("Items/").Append(itemId).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -813,9 +855,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("userId");
 		}
 
-		String url = "Users/" + userId + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("Users/").Append(userId).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -885,9 +927,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("name");
 		}
 
-		String url = "Genres/" + GetSlugName(name) + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("Genres/").Append(GetSlugName(name)).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -905,9 +947,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("name");
 		}
 
-		String url = "MusicGenres/" + GetSlugName(name) + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("MusicGenres/").Append(GetSlugName(name)).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -925,9 +967,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("name");
 		}
 
-		String url = "GameGenres/" + GetSlugName(name) + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("GameGenres/").Append(GetSlugName(name)).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -945,9 +987,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("name");
 		}
 
-		String url = "Studios/" + GetSlugName(name) + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("Studios/").Append(GetSlugName(name)).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -965,9 +1007,9 @@ public abstract class BaseApiClient implements IDisposable
 			throw new IllegalArgumentException("name");
 		}
 
-		String url = "Artists/" + GetSlugName(name) + "/Images/" + options.getImageType();
+		UrlBuilder builder = GetApiUrlBuilder("Artists/").Append(GetSlugName(name)).Append("/Images/").Append(options.getImageType().toString());
 
-		return GetImageUrl(url, options, new QueryStringDictionary());
+		return GetImageUrl(builder, options);
 	}
 
 	/** 
@@ -0,0 +1,154 @@
+package mediabrowser.apiinteraction;
+
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.dto.ChapterInfoDto;
+import mediabrowser.model.dto.ImageOptions;
+import mediabrowser.model.entities.ImageType;
+import mediabrowser.model.extensions.UrlBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Image options captured once so that many item image urls can be built from them, such as the posters of a grid.
+ *
+ * Everything in the url except the item id and image tag is worked out when the template is created, including
+ * the encoded query string on either side of the tag. The template is immutable and never touches the options it
+ * was created from, so it can be shared between threads. Urls are the same as BaseApiClient.GetImageUrl returns.
+ */
+public final class ImageUrlTemplate {
+
+    private final String apiUrl;
+    private final ImageType imageType;
+    private final String imageTypeName;
+    private final Integer imageIndex;
+    private final String queryBeforeTag;
+    private final String queryAfterTag;
+
+    ImageUrlTemplate(String apiUrl, ImageOptions options, Integer defaultQuality) {
+
+        if (options == null)
+        {
+            throw new IllegalArgumentException("options");
+        }
+
+        this.apiUrl = apiUrl;
+
+        imageType = options.getImageType();
+        imageTypeName = imageType.toString();
+        imageIndex = options.getImageIndex();
+
+        queryBeforeTag = new UrlBuilder()
+                .AddIfNotNull("Width", options.getWidth())
+                .AddIfNotNull("Height", options.getHeight())
+                .AddIfNotNull("MaxWidth", options.getMaxWidth())
+                .AddIfNotNull("MaxHeight", options.getMaxHeight())
+                .AddIfNotNull("Quality", (options.getQuality() != null) ? options.getQuality() : defaultQuality)
+                .Build();
+
+        UrlBuilder afterTag = new UrlBuilder()
+                .AddIfNotNull("CropWhitespace", options.getCropWhitespace())
+                .Add("EnableImageEnhancers", options.getEnableImageEnhancers());
+
+        if (options.getFormat() != null) {
+            afterTag.Add("Format", options.getFormat().toString());
+        }
+
+        if (options.getAddPlayedIndicator()) {
+            afterTag.Add("AddPlayedIndicator", true);
+        }
+
+        queryAfterTag = afterTag
+                .AddIfNotNull("UnPlayedCount", options.getUnPlayedCount())
+                .AddIfNotNull("PercentPlayed", options.getPercentPlayed())
+                .AddIfNotNullOrEmpty("BackgroundColor", options.getBackgroundColor())
+                .Build();
+    }
+
+    public ImageType getImageType() {
+        return imageType;
+    }
+
+    public Integer getImageIndex() {
+        return imageIndex;
+    }
+
+    /**
+     * @param tag The image tag, or null to leave it out.
+     */
+    public String getUrl(String itemId, String tag) {
+
+        if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(itemId))
+        {
+            throw new IllegalArgumentException("itemId");
+        }
+
+        UrlBuilder builder = new UrlBuilder(apiUrl).Append("/Items/").Append(itemId).Append("/Images/").Append(imageTypeName);
+
+        if (imageIndex != null) {
+            builder.Append('/').Append(imageIndex.intValue());
+        }
+
+        return builder.AppendQuery(queryBeforeTag)
+                .AddIfNotNullOrEmpty("Tag", tag)
+                .AppendQuery(queryAfterTag)
+                .Build();
+    }
+
+    public String getUrl(BaseItemDto item) {
+
+        if (item == null)
+        {
+            throw new IllegalArgumentException("item");
+        }
+
+        return getUrl(item.getId(), getImageTag(item, imageType, imageIndex));
+    }
+
+    /**
+     * Builds the url of every item in one pass, in the same order as the items.
+     */
+    public String[] getUrls(List<BaseItemDto> items) {
+
+        if (items == null)
+        {
+            throw new IllegalArgumentException("items");
+        }
+
+        String[] urls = new String[items.size()];
+
+        int index = 0;
+        for (BaseItemDto item : items) {
+            urls[index++] = getUrl(item);
+        }
+
+        return urls;
+    }
+
+    /**
+     * @return The tag of the item's image, or null if the item has no such image.
+     */
+    static String getImageTag(BaseItemDto item, ImageType imageType, Integer imageIndex) {
+
+        int index = (imageIndex != null) ? imageIndex : 0;
+
+        if (imageType == ImageType.Backdrop) {
+            return getAt(item.getBackdropImageTags(), index);
+        }
+
+        if (imageType == ImageType.Screenshot) {
+            return getAt(item.getScreenshotImageTags(), index);
+        }
+
+        if (imageType == ImageType.Chapter) {
+            ChapterInfoDto chapter = getAt(item.getChapters(), index);
+            return chapter == null ? null : chapter.getImageTag();
+        }
+
+        return item.getImageTags() == null ? null : item.getImageTags().get(imageType);
+    }
+
+    private static <T> T getAt(ArrayList<T> list, int index) {
+        return list == null || index < 0 || index >= list.size() ? null : list.get(index);
+    }
+}
@@ -0,0 +1,38 @@
+package mediabrowser.apiinteraction;
+
+import mediabrowser.model.dto.BaseItemDto;
+
+/**
+ * Receives items one at a time as they are parsed from an ItemsResult, rather than as a fully materialised array.
+ * onResponse is called once every requested item has been delivered, or after onItem has asked to stop.
+ */
+public class ItemStreamResponse extends EmptyResponse {
+
+    public ItemStreamResponse(IResponse innerResponse){
+        super(innerResponse);
+    }
+
+    public ItemStreamResponse(){
+
+    }
+
+    /**
+     * Called for each item in the order the server returned them.
+     *
+     * @param item The item.
+     * @return false to stop reading further items and pages.
+     */
+    public boolean onItem(BaseItemDto item)
+    {
+        return true;
+    }
+
+    /**
+     * Called when the total record count of the query is known. May be called once per page when auto-paging.
+     *
+     * @param totalRecordCount The total record count.
+     */
+    public void onTotalRecordCount(int totalRecordCount)
+    {
+    }
+}
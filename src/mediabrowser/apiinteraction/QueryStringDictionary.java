@@ -1,12 +1,16 @@
 package mediabrowser.apiinteraction;
 
-import java.net.URLEncoder;
+import mediabrowser.model.extensions.UrlBuilder;
+
 import java.util.ArrayList;
+import java.util.Map;
 
 /** 
  Class QueryStringDictionary
+
+ Parameters are kept in the order they were added, so the same query always produces the same url.
 */
-public class QueryStringDictionary extends java.util.HashMap<String, String>
+public class QueryStringDictionary extends java.util.LinkedHashMap<String, String>
 {
 	/** 
 	 Initializes a new instance of the <see cref="QueryStringDictionary" /> class.
@@ -24,7 +28,7 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 	*/
 	public final void Add(String name, int value)
 	{
-		this.put(name, (new Integer(value)).toString());
+		this.put(name, String.valueOf(value));
 	}
 
     /**
@@ -46,7 +50,7 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 	*/
 	public final void Add(String name, long value)
 	{
-		this.put(name, (new Long(value)).toString());
+		this.put(name, String.valueOf(value));
 	}
 
 	/** 
@@ -57,7 +61,7 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 	*/
 	public final void Add(String name, double value)
 	{
-		this.put(name, (new Double(value)).toString());
+		this.put(name, String.valueOf(value));
 	}
 
 	/** 
@@ -124,7 +128,7 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 	*/
 	public final void Add(String name, boolean value)
 	{
-		this.put(name, (new Boolean(value)).toString());
+		this.put(name, String.valueOf(value));
 	}
 
 	/** 
@@ -155,21 +159,17 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 			throw new IllegalArgumentException("value");
 		}
 
-        String attValue = tangible.DotNetToJavaStringHelper.join(",", GetStrings(value));
-
-        this.put(name, attValue);
-	}
-
-    private String[] GetStrings(Integer[] value)
-    {
-        String[] vals = new String[value.length];
+        StringBuilder builder = new StringBuilder(value.length * 4);
 
-        for (int i=0; i< value.length; i++) {
-            vals[i] = value[i].toString();
+        for (int i = 0; i < value.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(value[i]);
         }
 
-        return vals;
-    }
+        this.put(name, builder.toString());
+	}
 
     public final void Add(String name, int[] value)
     {
@@ -178,20 +178,16 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
             throw new IllegalArgumentException("value");
         }
 
-        String attValue = tangible.DotNetToJavaStringHelper.join(",", GetStrings(value));
+        StringBuilder builder = new StringBuilder(value.length * 4);
 
-        this.put(name, attValue);
-    }
-
-    private String[] GetStrings(int[] value)
-    {
-        String[] vals = new String[value.length];
-
-        for (int i=0; i< value.length; i++) {
-            vals[i] = new Integer(value[i]).toString();
+        for (int i = 0; i < value.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(value[i]);
         }
 
-        return vals;
+        this.put(name, builder.toString());
     }
 
     /**
@@ -286,9 +282,7 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 			throw new IllegalArgumentException("value");
 		}
 
-		String paramValue = tangible.DotNetToJavaStringHelper.join(delimiter, value);
-
-		this.put(name, paramValue);
+		this.put(name, Join(delimiter, value));
 	}
 
 	/** 
@@ -327,47 +321,58 @@ public class QueryStringDictionary extends java.util.HashMap<String, String>
 	*/
 	public final String GetQueryString()
 	{
-        int size = this.size();
-        String[] vals = new String[size];
+		UrlBuilder builder = new UrlBuilder();
 
-        int index = 0;
-        for(String key : this.keySet())
-        {
-            String paramValue = this.get(key);
-            vals[index] = String.format("%1$s=%2$s", key, GetEncodedValue(paramValue));
-            index++;
-        }
+		AppendTo(builder);
 
-        return tangible.DotNetToJavaStringHelper.join("&", vals);
+		return builder.Build();
 	}
 
 	/** 
-	 Gets the encoded value.
+	 Gets the URL.
 	 
-	 @param value The value.
+	 @param prefix The prefix.
 	 @return System.String.
 	*/
-	private String GetEncodedValue(String value)
+	public final String GetUrl(String prefix)
 	{
-		return URLEncoder.encode(value);
+		UrlBuilder builder = new UrlBuilder(prefix);
+
+		AppendTo(builder);
+
+		return builder.Build();
 	}
 
 	/** 
-	 Gets the URL.
+	 Adds each parameter to the builder, in the order they were added here.
 	 
-	 @param prefix The prefix.
-	 @return System.String.
+	 @param builder The builder.
 	*/
-	public final String GetUrl(String prefix)
+	public final void AppendTo(UrlBuilder builder)
+	{
+		for (Map.Entry<String, String> entry : this.entrySet())
+		{
+			builder.Add(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static String Join(String delimiter, String[] values)
 	{
-		String query = GetQueryString();
+		StringBuilder builder = new StringBuilder();
 
-		if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(query))
+		for (int i = 0; i < values.length; i++)
 		{
-			return prefix;
+			if (i > 0)
+			{
+				builder.append(delimiter);
+			}
+			if (values[i] != null)
+			{
+				builder.append(values[i]);
+			}
 		}
 
-		return prefix + "?" + query;
+		return builder.toString();
 	}
 
     public final <T extends Enum<T>> void Add(String name, T value)
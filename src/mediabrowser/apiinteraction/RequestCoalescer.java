@@ -0,0 +1,113 @@
+package mediabrowser.apiinteraction;
+
+import mediabrowser.model.logging.ILogger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Lets concurrent callers asking for the same resource share a single request.
+ * The first caller for a key sends the request; callers arriving while it is in flight are attached to it.
+ *
+ * Every caller attached to a request receives the very same result object, not a copy. Results are mutable DTOs, so
+ * a caller that changes one changes it for the others too; callers must treat results as read only, and copy one
+ * before modifying it.
+ *
+ * Callers are called back in the order they joined. A callback that throws is logged and does not stop the others
+ * from being called.
+ */
+public class RequestCoalescer {
+
+    private final HashMap<String, ArrayList<Response<?>>> inFlight = new HashMap<String, ArrayList<Response<?>>>();
+    private final ILogger logger;
+
+    public RequestCoalescer(ILogger logger) {
+
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+
+        this.logger = logger;
+    }
+
+    /**
+     * Registers a caller for the key. Callers joining with the same key must expect the same result type.
+     *
+     * @return The response to send the request with, or null if the caller joined a request already in flight.
+     */
+    public <T> Response<T> join(final String key, Response<T> response) {
+
+        synchronized (inFlight) {
+
+            ArrayList<Response<?>> waiting = inFlight.get(key);
+
+            if (waiting != null) {
+                waiting.add(response);
+                return null;
+            }
+
+            waiting = new ArrayList<Response<?>>();
+            waiting.add(response);
+            inFlight.put(key, waiting);
+        }
+
+        return new Response<T>() {
+
+            @Override
+            public void onResponse(T result) {
+
+                for (Response<?> waiting : complete(key)) {
+
+                    try {
+                        RequestCoalescer.<T>cast(waiting).onResponse(result);
+                    }
+                    catch (RuntimeException ex) {
+                        logger.ErrorException("Error in response callback for %s", ex, key);
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Exception exception) {
+
+                for (Response<?> waiting : complete(key)) {
+
+                    try {
+                        waiting.onError(exception);
+                    }
+                    catch (RuntimeException ex) {
+                        logger.ErrorException("Error in error callback for %s", ex, key);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the number of distinct requests currently in flight.
+     */
+    public int getInFlightCount() {
+
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+
+    private ArrayList<Response<?>> complete(String key) {
+
+        // Removed before the callbacks run so that a caller arriving now starts a fresh request
+        synchronized (inFlight) {
+            ArrayList<Response<?>> waiting = inFlight.remove(key);
+            return waiting == null ? new ArrayList<Response<?>>() : waiting;
+        }
+    }
+
+    /**
+     * Safe because every caller for a key joined with a Response of the key's result type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Response<T> cast(Response<?> response) {
+        return (Response<T>) response;
+    }
+}
@@ -1,10 +1,13 @@
 package mediabrowser.apiinteraction;
 
 import mediabrowser.apiinteraction.Response;
+import mediabrowser.apiinteraction.http.IResponseDeserializer;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.serialization.IJsonSerializer;
 
-public class SerializedResponse<T> extends Response<String> {
+import java.io.InputStream;
+
+public class SerializedResponse<T> extends Response<String> implements IResponseDeserializer<T> {
 
     private IJsonSerializer jsonSerializer;
     private Class type;
@@ -32,7 +35,7 @@ public class SerializedResponse<T> extends Response<String> {
     @Override
     public void onResponse(String result) {
 
-        if (url != null){
+        if (url != null && logger.isDebugEnabled()){
             logger.Debug("Received response from %s", url);
         }
 
@@ -41,6 +44,31 @@ public class SerializedResponse<T> extends Response<String> {
         onSerializedResponse(obj);
     }
 
+    @Override
+    public T deserialize(InputStream stream) throws Exception {
+        return (T) jsonSerializer.DeserializeFromStream(stream, type);
+    }
+
+    /**
+     * The response to pass to IAsyncHttpClient.SendDeserialized along with this deserializer, which receives the
+     * object already deserialized on the http client's thread.
+     */
+    public Response<T> getDeserializedResponse() {
+
+        return new Response<T>(this) {
+
+            @Override
+            public void onResponse(T obj) {
+
+                if (url != null && logger.isDebugEnabled()){
+                    logger.Debug("Received response from %s", url);
+                }
+
+                onSerializedResponse(obj);
+            }
+        };
+    }
+
     protected void onSerializedResponse(T obj){
         innerResponse.onResponse(obj);
     }
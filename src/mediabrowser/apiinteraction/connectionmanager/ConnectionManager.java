@@ -8,6 +8,10 @@ import mediabrowser.apiinteraction.http.HttpHeaders;
 import mediabrowser.apiinteraction.http.HttpRequest;
 import mediabrowser.apiinteraction.http.IAsyncHttpClient;
 import mediabrowser.apiinteraction.network.INetworkConnection;
+import mediabrowser.apiinteraction.tasks.BoundedIoExecutor;
+import mediabrowser.apiinteraction.tasks.IIoExecutor;
+import mediabrowser.apiinteraction.tasks.IoPool;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
 import mediabrowser.model.apiclient.*;
 import mediabrowser.model.connect.*;
 import mediabrowser.model.dto.IHasServerId;
@@ -44,6 +48,11 @@ public class ConnectionManager implements IConnectionManager {
     private ConnectService connectService;
     private ConnectUser connectUser;
 
+    private boolean enableConnectionRacing;
+    private TransferScheduler transferScheduler;
+    private IIoExecutor ioExecutor;
+    private int lastConnectionModeHeadStartMs = 500;
+
     public ConnectionManager(ICredentialProvider credentialProvider,
                              INetworkConnection networkConnectivity,
                              IJsonSerializer jsonSerializer,
@@ -107,6 +116,62 @@ public class ConnectionManager implements IConnectionManager {
         return this.device;
     }
 
+    public boolean getEnableConnectionRacing() {
+        return enableConnectionRacing;
+    }
+
+    /**
+     * When enabled, connecting to a server probes all of its addresses at once and uses whichever answers first,
+     * instead of trying each connection mode in turn.
+     */
+    public void setEnableConnectionRacing(boolean enableConnectionRacing) {
+        this.enableConnectionRacing = enableConnectionRacing;
+    }
+
+    public TransferScheduler getTransferScheduler() {
+        return transferScheduler;
+    }
+
+    /**
+     * Sets the scheduler shared by the api clients of every server, so that transfer limits apply across servers.
+     */
+    public void setTransferScheduler(TransferScheduler transferScheduler) {
+
+        this.transferScheduler = transferScheduler;
+
+        for (ApiClient apiClient : apiClients.values()) {
+            apiClient.setTransferScheduler(transferScheduler);
+        }
+    }
+
+    /**
+     * Gets the executor that discovery, wake on lan and the api clients' background transfers run on, which is
+     * BoundedIoExecutor.getShared() unless one has been set.
+     */
+    public IIoExecutor getIoExecutor() {
+        return ioExecutor == null ? BoundedIoExecutor.getShared() : ioExecutor;
+    }
+
+    public void setIoExecutor(IIoExecutor ioExecutor) {
+
+        this.ioExecutor = ioExecutor;
+
+        for (ApiClient apiClient : apiClients.values()) {
+            apiClient.setIoExecutor(ioExecutor);
+        }
+    }
+
+    public int getLastConnectionModeHeadStartMs() {
+        return lastConnectionModeHeadStartMs;
+    }
+
+    /**
+     * When racing, how long the last used connection mode is probed alone before the other addresses are tried.
+     */
+    public void setLastConnectionModeHeadStartMs(int lastConnectionModeHeadStartMs) {
+        this.lastConnectionModeHeadStartMs = lastConnectionModeHeadStartMs;
+    }
+
     void OnConnectUserSignIn(ConnectUser user){
 
         connectUser = user;
@@ -219,9 +284,40 @@ public class ConnectionManager implements IConnectionManager {
 
         long wakeOnLanSendTime = new Date().getTime();
 
+        if (enableConnectionRacing){
+            RaceConnectionModes(tests, isLocalNetworkAvailable, server, wakeOnLanSendTime, options, response);
+            return;
+        }
+
         TestNextConnectionMode(tests, 0, isLocalNetworkAvailable, server, wakeOnLanSendTime, options, response);
     }
 
+    private void RaceConnectionModes(final ArrayList<ConnectionMode> tests,
+                                     final boolean isLocalNetworkAvailable,
+                                     final ServerInfo server,
+                                     final long wakeOnLanSendTime,
+                                     final ConnectionOptions options,
+                                     final Response<ConnectionResult> response){
+
+        ConnectionModeRace race = new ConnectionModeRace(this, server, options, wakeOnLanSendTime, logger, response);
+
+        for (ConnectionMode mode : tests){
+
+            String address = server.GetAddress(mode);
+
+            if (!ShouldTestConnectionMode(mode, address, isLocalNetworkAvailable, server)){
+                continue;
+            }
+
+            // Only the last used mode gets a head start, the rest start together
+            int delay = mode == server.getLastConnectionMode() ? 0 : lastConnectionModeHeadStartMs;
+
+            race.AddCandidate(mode, address, GetConnectionTimeout(mode), mode == ConnectionMode.Local, delay);
+        }
+
+        race.Start();
+    }
+
     void TestNextConnectionMode(final ArrayList<ConnectionMode> tests,
                                         final int index,
                                         final boolean isLocalNetworkAvailable,
@@ -238,39 +334,46 @@ public class ConnectionManager implements IConnectionManager {
 
         final ConnectionMode mode = tests.get(index);
         final String address = server.GetAddress(mode);
-        boolean enableRetry = false;
-        boolean skipTest = false;
-        int timeout = 15000;
+        boolean enableRetry = mode == ConnectionMode.Local;
+        int timeout = GetConnectionTimeout(mode);
+
+        if (!ShouldTestConnectionMode(mode, address, isLocalNetworkAvailable, server))
+        {
+            TestNextConnectionMode(tests, index + 1, isLocalNetworkAvailable, server, wakeOnLanSendTime, options, response);
+            return;
+        }
+
+        TryConnect(address, timeout, new TestNextConnectionModeTryConnectResponse(this, server, tests, mode, address, timeout, options, index, isLocalNetworkAvailable, wakeOnLanSendTime, enableRetry, logger, response));
+    }
+
+    private boolean ShouldTestConnectionMode(ConnectionMode mode, String address, boolean isLocalNetworkAvailable, ServerInfo server){
 
         if (mode == ConnectionMode.Local){
 
             if (!isLocalNetworkAvailable){
                 logger.Debug("Skipping local connection test because local network is unavailable");
-                skipTest = true;
+                return false;
             }
-            enableRetry = true;
-            timeout = 10000;
         }
 
         else if (mode == ConnectionMode.Manual){
 
             if (StringHelper.EqualsIgnoreCase(address, server.getLocalAddress())){
                 logger.Debug("Skipping manual connection test because the address is the same as the local address");
-                skipTest = true;
+                return false;
             }
             else if (StringHelper.EqualsIgnoreCase(address, server.getRemoteAddress())){
                 logger.Debug("Skipping manual connection test because the address is the same as the remote address");
-                skipTest = true;
+                return false;
             }
         }
 
-        if (skipTest || tangible.DotNetToJavaStringHelper.isNullOrEmpty(address))
-        {
-            TestNextConnectionMode(tests, index + 1, isLocalNetworkAvailable, server, wakeOnLanSendTime, options, response);
-            return;
-        }
+        return !tangible.DotNetToJavaStringHelper.isNullOrEmpty(address);
+    }
 
-        TryConnect(address, timeout, new TestNextConnectionModeTryConnectResponse(this, server, tests, mode, address, timeout, options, index, isLocalNetworkAvailable, wakeOnLanSendTime, enableRetry, logger, response));
+    private int GetConnectionTimeout(ConnectionMode mode){
+
+        return mode == ConnectionMode.Local ? 10000 : 15000;
     }
 
     void OnSuccessfulConnection(final ServerInfo server,
@@ -432,6 +535,8 @@ public class ConnectionManager implements IConnectionManager {
             String address = server.GetAddress(connectionMode);
 
             apiClient = InstantiateApiClient(address);
+            apiClient.setTransferScheduler(transferScheduler);
+            apiClient.setIoExecutor(ioExecutor);
 
             apiClients.put(server.getId(), apiClient);
 
@@ -654,9 +759,7 @@ public class ConnectionManager implements IConnectionManager {
 
     private void BeginWakeServer(final ServerInfo info)
     {
-        Thread thread = new Thread(new BeginWakeServerRunnable(this, info));
-
-        thread.start();
+        getIoExecutor().execute(IoPool.Control, new BeginWakeServerRunnable(this, info));
     }
 
     void WakeServer(ServerInfo info, final EmptyResponse response)
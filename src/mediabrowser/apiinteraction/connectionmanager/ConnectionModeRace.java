@@ -0,0 +1,233 @@
+package mediabrowser.apiinteraction.connectionmanager;
+
+import mediabrowser.apiinteraction.ConnectionResult;
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.model.apiclient.ConnectionMode;
+import mediabrowser.model.apiclient.ConnectionOptions;
+import mediabrowser.model.apiclient.ServerInfo;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.system.PublicSystemInfo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Probes several addresses of a server at the same time and connects with whichever answers first.
+ *
+ * Probes that have not started yet are cancelled once there is a winner. Probes already in flight cannot be aborted
+ * through IAsyncHttpClient, so their results are simply ignored.
+ */
+public class ConnectionModeRace {
+
+    private ConnectionManager connectionManager;
+    private ServerInfo server;
+    private ConnectionOptions options;
+    private long wakeOnLanSendTime;
+    private ILogger logger;
+    private Response<ConnectionResult> response;
+
+    private final Object lock = new Object();
+    private ArrayList<Candidate> candidates = new ArrayList<Candidate>();
+    private Timer timer;
+    private int remaining;
+    private boolean completed;
+
+    public ConnectionModeRace(ConnectionManager connectionManager, ServerInfo server, ConnectionOptions options, long wakeOnLanSendTime, ILogger logger, Response<ConnectionResult> response) {
+        this.connectionManager = connectionManager;
+        this.server = server;
+        this.options = options;
+        this.wakeOnLanSendTime = wakeOnLanSendTime;
+        this.logger = logger;
+        this.response = response;
+    }
+
+    /**
+     * @param mode The connection mode the address belongs to.
+     * @param address The address to probe.
+     * @param timeout The request timeout.
+     * @param enableRetry Whether to probe once more after a failure, allowing time for wake on lan.
+     * @param delayMs How long to wait before the first probe.
+     */
+    public void AddCandidate(ConnectionMode mode, String address, int timeout, boolean enableRetry, int delayMs) {
+
+        candidates.add(new Candidate(mode, address, timeout, enableRetry, delayMs));
+    }
+
+    public void Start() {
+
+        synchronized (lock) {
+            remaining = candidates.size();
+        }
+
+        if (candidates.size() == 0) {
+            connectionManager.OnFailedConnection(response);
+            return;
+        }
+
+        // Delayed probes are scheduled first so that an immediate failure can bring them forward
+        for (Candidate candidate : candidates) {
+            if (candidate.delayMs > 0) {
+                Schedule(candidate, candidate.delayMs);
+            }
+        }
+
+        for (Candidate candidate : candidates) {
+            if (candidate.delayMs <= 0) {
+                TryConnect(candidate);
+            }
+        }
+    }
+
+    private void Schedule(final Candidate candidate, long delayMs) {
+
+        synchronized (lock) {
+
+            if (completed) {
+                return;
+            }
+
+            if (timer == null) {
+                timer = new Timer("ConnectionModeRace", true);
+            }
+
+            candidate.scheduled = true;
+
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    synchronized (lock) {
+                        if (!candidate.scheduled) {
+                            return;
+                        }
+                        candidate.scheduled = false;
+                    }
+                    TryConnect(candidate);
+                }
+            }, delayMs);
+        }
+    }
+
+    private void TryConnect(final Candidate candidate) {
+
+        synchronized (lock) {
+            if (completed) {
+                return;
+            }
+        }
+
+        logger.Debug("Racing %s connection to %s", candidate.mode, candidate.address);
+
+        connectionManager.TryConnect(candidate.address, candidate.timeout, new Response<PublicSystemInfo>() {
+
+            @Override
+            public void onResponse(PublicSystemInfo result) {
+
+                synchronized (lock) {
+
+                    if (completed) {
+                        return;
+                    }
+
+                    completed = true;
+
+                    if (timer != null) {
+                        timer.cancel();
+                    }
+                }
+
+                logger.Debug("%s connection to %s won the race", candidate.mode, candidate.address);
+
+                connectionManager.OnSuccessfulConnection(server, result, candidate.mode, options, response);
+            }
+
+            @Override
+            public void onError(Exception ex) {
+
+                OnCandidateFailed(candidate);
+            }
+        });
+    }
+
+    private void OnCandidateFailed(Candidate candidate) {
+
+        boolean failed = false;
+
+        synchronized (lock) {
+
+            if (completed) {
+                return;
+            }
+
+            if (candidate.enableRetry) {
+
+                // The server may still be waking up, so the retry waits until wake on lan has had time to work
+                candidate.enableRetry = false;
+                candidate.delayMs = 0;
+                long sleepTime = 10000 - (new Date().getTime() - wakeOnLanSendTime);
+                StartWaitingCandidates();
+                Schedule(candidate, Math.max(sleepTime, 0));
+                return;
+            }
+
+            remaining--;
+
+            if (remaining == 0) {
+                completed = true;
+                failed = true;
+
+                if (timer != null) {
+                    timer.cancel();
+                }
+            }
+            else {
+                StartWaitingCandidates();
+            }
+        }
+
+        if (failed) {
+            connectionManager.OnFailedConnection(response);
+        }
+    }
+
+    /**
+     * Once a probe has failed there is no reason to keep the others waiting out their head start.
+     */
+    private void StartWaitingCandidates() {
+
+        for (final Candidate candidate : candidates) {
+
+            if (candidate.scheduled && candidate.delayMs > 0) {
+
+                candidate.scheduled = false;
+                candidate.delayMs = 0;
+
+                timer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        TryConnect(candidate);
+                    }
+                }, 0);
+            }
+        }
+    }
+
+    private static class Candidate {
+
+        private ConnectionMode mode;
+        private String address;
+        private int timeout;
+        private boolean enableRetry;
+        private int delayMs;
+        private boolean scheduled;
+
+        private Candidate(ConnectionMode mode, String address, int timeout, boolean enableRetry, int delayMs) {
+            this.mode = mode;
+            this.address = address;
+            this.timeout = timeout;
+            this.enableRetry = enableRetry;
+            this.delayMs = delayMs;
+        }
+    }
+}
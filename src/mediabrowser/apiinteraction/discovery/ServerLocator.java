@@ -109,13 +109,13 @@ public class ServerLocator implements IServerLocator {
 
             SocketAddress remoteEndpoint = c.getRemoteSocketAddress();
 
-            // We have a response
-            logger.Debug(getClass().getName() + ">>> Broadcast response from server: " + receivePacket.getAddress().getHostAddress());
-
             // Check if the message is correct
             String message = new String(receivePacket.getData()).trim();
 
-            logger.Debug(getClass().getName() + ">>> Broadcast response from server: " + message);
+            if (logger.isDebugEnabled()) {
+                logger.Debug(getClass().getName() + ">>> Broadcast response from server: " + receivePacket.getAddress().getHostAddress());
+                logger.Debug(getClass().getName() + ">>> Broadcast response from server: " + message);
+            }
 
             ServerDiscoveryInfo serverInfo = jsonSerializer.DeserializeFromString(message, ServerDiscoveryInfo.class);
 
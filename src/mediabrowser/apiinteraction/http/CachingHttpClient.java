@@ -0,0 +1,457 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.apiinteraction.tasks.BoundedIoExecutor;
+import mediabrowser.apiinteraction.tasks.IIoExecutor;
+import mediabrowser.apiinteraction.tasks.IoPool;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.net.HttpException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wraps another IAsyncHttpClient and caches GET responses, keyed by url and access token so users never share entries.
+ *
+ * Cached entries are served directly while fresh, according to the server's Cache-Control max-age or the configured
+ * freshness, and revalidated with If-None-Match / If-Modified-Since afterwards. Revalidation needs response headers,
+ * so the wrapped client must report them through IResponseHeadersListener; PooledHttpClient does. Volley keeps its
+ * own http cache and does not need this wrapper.
+ *
+ * Callbacks never run on the calling thread. Fresh cached responses are delivered on the Control pool of the
+ * IIoExecutor, and everything else on the threads the wrapped client delivers on.
+ */
+public class CachingHttpClient implements IAsyncHttpClient {
+
+    private static final String ACCESS_TOKEN_HEADER = "X-MediaBrowser-Token";
+
+    private IAsyncHttpClient innerClient;
+    private IHttpCache cache;
+    private ILogger logger;
+    private long freshnessMs;
+    private int maxEntryBytes;
+    private IIoExecutor ioExecutor;
+
+    /**
+     * @param innerClient The client that performs the requests.
+     * @param cache The cache.
+     * @param logger The logger.
+     * @param freshnessMs How long an entry is served without revalidation when the server does not specify max-age.
+     * @param maxEntryBytes Responses larger than this are passed through without being cached.
+     * @param ioExecutor Delivers responses served from the cache.
+     */
+    public CachingHttpClient(IAsyncHttpClient innerClient, IHttpCache cache, ILogger logger, long freshnessMs, int maxEntryBytes, IIoExecutor ioExecutor) {
+
+        if (innerClient == null)
+        {
+            throw new IllegalArgumentException("innerClient");
+        }
+        if (cache == null)
+        {
+            throw new IllegalArgumentException("cache");
+        }
+        if (ioExecutor == null)
+        {
+            throw new IllegalArgumentException("ioExecutor");
+        }
+
+        this.innerClient = innerClient;
+        this.cache = cache;
+        this.logger = logger;
+        this.freshnessMs = freshnessMs;
+        this.maxEntryBytes = maxEntryBytes;
+        this.ioExecutor = ioExecutor;
+    }
+
+    public CachingHttpClient(IAsyncHttpClient innerClient, IHttpCache cache, ILogger logger, long freshnessMs, int maxEntryBytes) {
+        this(innerClient, cache, logger, freshnessMs, maxEntryBytes, BoundedIoExecutor.getShared());
+    }
+
+    public CachingHttpClient(IAsyncHttpClient innerClient, IHttpCache cache, ILogger logger) {
+        this(innerClient, cache, logger, 0, 1024 * 1024);
+    }
+
+    public IAsyncHttpClient getInnerClient() {
+        return innerClient;
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Drops cached responses whose url refers to the user.
+     */
+    public void invalidateUser(String userId) {
+
+        if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(userId)) {
+            cache.clear();
+            return;
+        }
+
+        cache.removeKeysContaining(userId);
+    }
+
+    @Override
+    public void Send(HttpRequest request, final Response<String> response) {
+
+        if (!isCacheable(request)) {
+            innerClient.Send(request, response);
+            return;
+        }
+
+        final String key = getCacheKey(request);
+        final HttpCacheEntry entry = cache.get(key);
+
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+            logger.Debug("Serving cached response for %s", request.getUrl());
+            ioExecutor.execute(IoPool.Control, new Runnable() {
+                @Override
+                public void run() {
+                    response.onResponse(decode(entry.getBody()));
+                }
+            });
+            return;
+        }
+
+        innerClient.Send(getConditionalRequest(request, entry), new CachingStringResponse(key, entry, response));
+    }
+
+    @Override
+    public void SendStream(HttpRequest request, final Response<InputStream> response) {
+
+        if (!isCacheable(request)) {
+            innerClient.SendStream(request, response);
+            return;
+        }
+
+        final String key = getCacheKey(request);
+        final HttpCacheEntry entry = cache.get(key);
+
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+            logger.Debug("Serving cached response for %s", request.getUrl());
+            ioExecutor.execute(IoPool.Control, new Runnable() {
+                @Override
+                public void run() {
+                    response.onResponse(new ByteArrayInputStream(entry.getBody()));
+                }
+            });
+            return;
+        }
+
+        innerClient.SendStream(getConditionalRequest(request, entry), new CachingStreamResponse(key, entry, response));
+    }
+
+    /**
+     * Requests that cannot be cached are deserialized by the inner client. Others go through SendStream so that the
+     * body can be cached, and are deserialized on whichever thread the inner client delivers streams.
+     */
+    @Override
+    public <T> void SendDeserialized(HttpRequest request, IResponseDeserializer<T> deserializer, Response<T> response) {
+
+        if (!isCacheable(request)) {
+            innerClient.SendDeserialized(request, deserializer, response);
+            return;
+        }
+
+        SendStream(request, new DeserializingResponse<T>(deserializer, response));
+    }
+
+    private boolean isCacheable(HttpRequest request) {
+        return request.getMethod() == null || "GET".equalsIgnoreCase(request.getMethod());
+    }
+
+    private String getCacheKey(HttpRequest request) {
+
+        String token = request.getRequestHeaders() == null ? null : request.getRequestHeaders().get(ACCESS_TOKEN_HEADER);
+
+        return (token == null ? "" : token) + " " + request.getUrl();
+    }
+
+    private HttpRequest getConditionalRequest(HttpRequest request, HttpCacheEntry entry) {
+
+        if (entry == null || !entry.canRevalidate()) {
+            return request;
+        }
+
+        // The request headers are usually ApiClient's shared instance, so they are copied rather than modified
+        HttpHeaders headers = new HttpHeaders();
+
+        if (request.getRequestHeaders() != null) {
+            headers.putAll(request.getRequestHeaders());
+            headers.setAuthorizationScheme(request.getRequestHeaders().getAuthorizationScheme());
+            headers.setAuthorizationParameter(request.getRequestHeaders().getAuthorizationParameter());
+        }
+
+        if (entry.getETag() != null) {
+            headers.put("If-None-Match", entry.getETag());
+        }
+        if (entry.getLastModified() != null) {
+            headers.put("If-Modified-Since", entry.getLastModified());
+        }
+
+        HttpRequest conditional = new HttpRequest();
+        conditional.setUrl(request.getUrl());
+        conditional.setMethod(request.getMethod());
+        conditional.setTimeout(request.getTimeout());
+        conditional.setRequestHeaders(headers);
+
+        return conditional;
+    }
+
+    /**
+     * Builds the entry to store for a response, or null if it must not be cached.
+     */
+    private HttpCacheEntry createEntry(Map<String, String> headers, byte[] body) {
+
+        if (headers == null || body.length > maxEntryBytes) {
+            return null;
+        }
+
+        String cacheControl = headers.get("Cache-Control");
+        long freshness = freshnessMs;
+
+        if (cacheControl != null) {
+
+            String lowerCacheControl = cacheControl.toLowerCase();
+
+            if (lowerCacheControl.contains("no-store")) {
+                return null;
+            }
+
+            if (lowerCacheControl.contains("no-cache")) {
+                freshness = 0;
+            }
+            else {
+                Long maxAge = getMaxAge(lowerCacheControl);
+                if (maxAge != null) {
+                    freshness = maxAge * 1000;
+                }
+            }
+        }
+
+        String eTag = headers.get("ETag");
+        String lastModified = headers.get("Last-Modified");
+
+        if (eTag == null && lastModified == null && freshness <= 0) {
+            return null;
+        }
+
+        return new HttpCacheEntry(body, eTag, lastModified, System.currentTimeMillis() + freshness);
+    }
+
+    private Long getMaxAge(String cacheControl) {
+
+        for (String directive : cacheControl.split(",")) {
+
+            directive = directive.trim();
+
+            if (directive.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(directive.substring(8).trim());
+                }
+                catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private HttpCacheEntry onNotModified(String key, HttpCacheEntry entry, Map<String, String> headers) {
+
+        HttpCacheEntry refreshed = createEntry(headers, entry.getBody());
+
+        if (refreshed == null) {
+            refreshed = entry.withExpires(System.currentTimeMillis() + freshnessMs);
+        }
+        else if (refreshed.getETag() == null && refreshed.getLastModified() == null) {
+            refreshed = new HttpCacheEntry(entry.getBody(), entry.getETag(), entry.getLastModified(), refreshed.getExpires());
+        }
+
+        cache.put(key, refreshed);
+
+        return refreshed;
+    }
+
+    private static boolean isNotModified(Exception ex) {
+
+        if (ex instanceof HttpException) {
+            Integer statusCode = ((HttpException) ex).getStatusCode();
+            return statusCode != null && statusCode == 304;
+        }
+
+        return false;
+    }
+
+    private static Map<String, String> toCaseInsensitive(Map<String, String> headers) {
+
+        Map<String, String> result = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey() != null) {
+                    result.put(header.getKey(), header.getValue());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static byte[] encode(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(byte[] value) {
+        try {
+            return new String(value, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class CachingStringResponse extends Response<String> implements IResponseHeadersListener {
+
+        private String key;
+        private HttpCacheEntry entry;
+        private Response<String> innerResponse;
+        private int statusCode;
+        private Map<String, String> headers;
+
+        public CachingStringResponse(String key, HttpCacheEntry entry, Response<String> innerResponse) {
+            super(innerResponse);
+            this.key = key;
+            this.entry = entry;
+            this.innerResponse = innerResponse;
+        }
+
+        @Override
+        public void onResponseHeaders(int statusCode, Map<String, String> headers) {
+            this.statusCode = statusCode;
+            this.headers = toCaseInsensitive(headers);
+        }
+
+        @Override
+        public void onResponse(String body) {
+
+            if (statusCode == 304 && entry != null) {
+                innerResponse.onResponse(decode(onNotModified(key, entry, headers).getBody()));
+                return;
+            }
+
+            byte[] bytes = encode(body);
+            HttpCacheEntry newEntry = createEntry(headers, bytes);
+
+            if (newEntry != null) {
+                cache.put(key, newEntry);
+            }
+
+            innerResponse.onResponse(body);
+        }
+
+        @Override
+        public void onError(Exception ex) {
+
+            if (entry != null && isNotModified(ex)) {
+                innerResponse.onResponse(decode(onNotModified(key, entry, headers).getBody()));
+                return;
+            }
+
+            super.onError(ex);
+        }
+    }
+
+    private class CachingStreamResponse extends Response<InputStream> implements IResponseHeadersListener {
+
+        private String key;
+        private HttpCacheEntry entry;
+        private Response<InputStream> innerResponse;
+        private int statusCode;
+        private Map<String, String> headers;
+
+        public CachingStreamResponse(String key, HttpCacheEntry entry, Response<InputStream> innerResponse) {
+            super(innerResponse);
+            this.key = key;
+            this.entry = entry;
+            this.innerResponse = innerResponse;
+        }
+
+        @Override
+        public void onResponseHeaders(int statusCode, Map<String, String> headers) {
+            this.statusCode = statusCode;
+            this.headers = toCaseInsensitive(headers);
+        }
+
+        @Override
+        public void onResponse(InputStream stream) {
+
+            if (statusCode == 304 && entry != null) {
+                innerResponse.onResponse(new ByteArrayInputStream(onNotModified(key, entry, headers).getBody()));
+                return;
+            }
+
+            if (headers == null) {
+                innerResponse.onResponse(stream);
+                return;
+            }
+
+            // Buffer up to the entry limit. Anything larger is handed on unbuffered and not cached.
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+
+            try {
+                int read;
+                while (buffer.size() <= maxEntryBytes && (read = stream.read(chunk)) != -1) {
+                    buffer.write(chunk, 0, read);
+                }
+            }
+            catch (IOException ex) {
+                super.onError(ex);
+                return;
+            }
+
+            byte[] bytes = buffer.toByteArray();
+
+            if (bytes.length > maxEntryBytes) {
+                innerResponse.onResponse(new SequenceInputStream(new ByteArrayInputStream(bytes), stream));
+                return;
+            }
+
+            HttpCacheEntry newEntry = createEntry(headers, bytes);
+
+            if (newEntry != null) {
+                cache.put(key, newEntry);
+            }
+
+            innerResponse.onResponse(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public void onError(Exception ex) {
+
+            if (entry != null && isNotModified(ex)) {
+                innerResponse.onResponse(new ByteArrayInputStream(onNotModified(key, entry, headers).getBody()));
+                return;
+            }
+
+            super.onError(ex);
+        }
+    }
+}
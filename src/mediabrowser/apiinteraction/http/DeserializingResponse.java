@@ -0,0 +1,36 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.apiinteraction.Response;
+
+import java.io.InputStream;
+
+/**
+ * Adapts a deserialized response to SendStream, for http clients that already call back on a worker thread.
+ */
+public class DeserializingResponse<T> extends Response<InputStream> {
+
+    private IResponseDeserializer<T> deserializer;
+    private Response<T> innerResponse;
+
+    public DeserializingResponse(IResponseDeserializer<T> deserializer, Response<T> innerResponse) {
+        super(innerResponse);
+        this.deserializer = deserializer;
+        this.innerResponse = innerResponse;
+    }
+
+    @Override
+    public void onResponse(InputStream stream) {
+
+        T obj;
+
+        try {
+            obj = deserializer.deserialize(stream);
+        }
+        catch (Exception ex) {
+            onError(ex);
+            return;
+        }
+
+        innerResponse.onResponse(obj);
+    }
+}
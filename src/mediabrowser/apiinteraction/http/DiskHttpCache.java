@@ -0,0 +1,357 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.model.logging.ILogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * Response cache stored as one file per entry in a directory, bounded by the total size of the files.
+ * When the bound is exceeded the least recently used files are deleted first.
+ *
+ * Keys hold access tokens, so they are never written out. Each file is named by and starts with the SHA-256 of its
+ * key, followed by hashes of the key's words, which is what removeKeysContaining matches against. On disk it therefore
+ * matches whole words of the key, such as a user id, rather than any substring.
+ */
+public class DiskHttpCache implements IHttpCache {
+
+    private static final String FILE_EXTENSION = ".cache";
+    // Files written before keys were hashed start with the key itself, and are discarded as unreadable
+    private static final int FORMAT_VERSION = 0x4d424332;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private final long maxBytes;
+    private final ILogger logger;
+    private final Object lock = new Object();
+    private long currentBytes = -1;
+
+    public DiskHttpCache(File directory, long maxBytes, ILogger logger) {
+
+        if (directory == null)
+        {
+            throw new IllegalArgumentException("directory");
+        }
+        if (maxBytes <= 0)
+        {
+            throw new IllegalArgumentException("maxBytes");
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.logger = logger;
+    }
+
+    @Override
+    public HttpCacheEntry get(String key) {
+
+        synchronized (lock) {
+
+            File file = getFile(key);
+
+            if (!file.exists()) {
+                return null;
+            }
+
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+                // A different key hashing to the same file is treated as a miss
+                if (!Arrays.equals(hash(key), readKeyHash(input))) {
+                    return null;
+                }
+
+                skipWordHashes(input);
+
+                String eTag = readNullableString(input);
+                String lastModified = readNullableString(input);
+                long expires = input.readLong();
+                byte[] body = new byte[input.readInt()];
+                input.readFully(body);
+
+                file.setLastModified(System.currentTimeMillis());
+
+                return new HttpCacheEntry(body, eTag, lastModified, expires);
+            }
+            catch (IOException ex) {
+                logger.ErrorException("Error reading http cache file %s", ex, file.getPath());
+                deleteFile(file);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void put(String key, HttpCacheEntry entry) {
+
+        if (entry.getBody().length > maxBytes) {
+            return;
+        }
+
+        synchronized (lock) {
+
+            ensureInitialized();
+
+            File file = getFile(key);
+            deleteFile(file);
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+                output.writeInt(FORMAT_VERSION);
+                output.write(hash(key));
+                writeWordHashes(output, key);
+                writeNullableString(output, entry.getETag());
+                writeNullableString(output, entry.getLastModified());
+                output.writeLong(entry.getExpires());
+                output.writeInt(entry.getBody().length);
+                output.write(entry.getBody());
+            }
+            catch (IOException ex) {
+                logger.ErrorException("Error writing http cache file %s", ex, file.getPath());
+                deleteFile(file);
+                return;
+            }
+
+            currentBytes += file.length();
+
+            trimToSize();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+
+        synchronized (lock) {
+            ensureInitialized();
+            deleteFile(getFile(key));
+        }
+    }
+
+    @Override
+    public void removeKeysContaining(String value) {
+
+        ArrayList<Long> valueWords = getWordHashes(value);
+
+        if (valueWords.isEmpty()) {
+            clear();
+            return;
+        }
+
+        synchronized (lock) {
+
+            ensureInitialized();
+
+            for (File file : listFiles()) {
+
+                try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+                    readKeyHash(input);
+
+                    if (!readWordHashes(input).containsAll(valueWords)) {
+                        continue;
+                    }
+                }
+                catch (IOException ex) {
+                    // Unreadable entries are dropped along with the matches
+                }
+
+                deleteFile(file);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        synchronized (lock) {
+
+            for (File file : listFiles()) {
+                file.delete();
+            }
+
+            currentBytes = 0;
+        }
+    }
+
+    private void ensureInitialized() {
+
+        if (currentBytes >= 0) {
+            return;
+        }
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.Error("Unable to create http cache directory %s", directory.getPath());
+        }
+
+        currentBytes = 0;
+
+        for (File file : listFiles()) {
+            currentBytes += file.length();
+        }
+
+        trimToSize();
+    }
+
+    private void trimToSize() {
+
+        if (currentBytes <= maxBytes) {
+            return;
+        }
+
+        File[] files = listFiles();
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long diff = lhs.lastModified() - rhs.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+
+        for (File file : files) {
+
+            if (currentBytes <= maxBytes) {
+                return;
+            }
+
+            deleteFile(file);
+        }
+    }
+
+    private void deleteFile(File file) {
+
+        long length = file.length();
+
+        if (file.delete() && currentBytes >= 0) {
+            currentBytes -= length;
+        }
+    }
+
+    private File[] listFiles() {
+
+        File[] files = directory.listFiles();
+
+        if (files == null) {
+            return new File[]{};
+        }
+
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(FILE_EXTENSION)) {
+                files[count++] = file;
+            }
+        }
+
+        return Arrays.copyOf(files, count);
+    }
+
+    private File getFile(String key) {
+
+        StringBuilder name = new StringBuilder(64);
+
+        for (byte b : hash(key)) {
+            name.append(String.format("%02x", b & 0xff));
+        }
+
+        return new File(directory, name + FILE_EXTENSION);
+    }
+
+    private static byte[] hash(String value) {
+
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(UTF8));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // Every JVM is required to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Hashes each run of letters and digits in the lower cased value, truncated to 64 bits. A collision only makes
+     * removeKeysContaining remove an extra entry.
+     */
+    private static ArrayList<Long> getWordHashes(String value) {
+
+        ArrayList<Long> hashes = new ArrayList<Long>();
+
+        for (String word : value.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+
+            if (!word.isEmpty()) {
+                hashes.add(ByteBuffer.wrap(hash(word)).getLong());
+            }
+        }
+
+        return hashes;
+    }
+
+    private static byte[] readKeyHash(DataInputStream input) throws IOException {
+
+        if (input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unrecognized http cache file format");
+        }
+
+        byte[] keyHash = new byte[32];
+        input.readFully(keyHash);
+
+        return keyHash;
+    }
+
+    private static void writeWordHashes(DataOutputStream output, String key) throws IOException {
+
+        ArrayList<Long> hashes = getWordHashes(key);
+
+        output.writeInt(hashes.size());
+
+        for (long hash : hashes) {
+            output.writeLong(hash);
+        }
+    }
+
+    private static HashSet<Long> readWordHashes(DataInputStream input) throws IOException {
+
+        int count = input.readInt();
+        HashSet<Long> hashes = new HashSet<Long>();
+
+        for (int i = 0; i < count; i++) {
+            hashes.add(input.readLong());
+        }
+
+        return hashes;
+    }
+
+    private static void skipWordHashes(DataInputStream input) throws IOException {
+
+        int count = input.readInt();
+
+        for (int i = 0; i < count; i++) {
+            input.readLong();
+        }
+    }
+
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream output, String value) throws IOException {
+
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+}
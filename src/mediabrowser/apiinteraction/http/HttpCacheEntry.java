@@ -0,0 +1,57 @@
+package mediabrowser.apiinteraction.http;
+
+/**
+ * A cached response body together with the validators needed to revalidate it.
+ */
+public class HttpCacheEntry
+{
+    private byte[] body;
+    public final byte[] getBody()
+    {
+        return body;
+    }
+
+    private String eTag;
+    public final String getETag()
+    {
+        return eTag;
+    }
+
+    private String lastModified;
+    public final String getLastModified()
+    {
+        return lastModified;
+    }
+
+    private long expires;
+    /**
+     Gets the time, in epoch milliseconds, until which the entry may be served without revalidation.
+     */
+    public final long getExpires()
+    {
+        return expires;
+    }
+
+    public HttpCacheEntry(byte[] body, String eTag, String lastModified, long expires)
+    {
+        this.body = body;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.expires = expires;
+    }
+
+    public final boolean isFresh(long now)
+    {
+        return now < expires;
+    }
+
+    public final boolean canRevalidate()
+    {
+        return eTag != null || lastModified != null;
+    }
+
+    public final HttpCacheEntry withExpires(long value)
+    {
+        return new HttpCacheEntry(body, eTag, lastModified, value);
+    }
+}
@@ -2,7 +2,28 @@ package mediabrowser.apiinteraction.http;
 
 import mediabrowser.apiinteraction.Response;
 
+import java.io.InputStream;
+
 public interface IAsyncHttpClient {
 
     public void Send(HttpRequest request, Response<String> response);
+
+    /**
+     * Sends the request and hands the response body to the callback as a stream, without buffering it into a String.
+     * The stream is only valid for the duration of onResponse and is closed by the client once it returns.
+     *
+     * @param request The request.
+     * @param response The response.
+     */
+    public void SendStream(HttpRequest request, Response<InputStream> response);
+
+    /**
+     * Sends the request and deserializes the response body before calling back. Deserialization happens on the
+     * client's own thread, so a client that delivers callbacks on a UI thread hands it only the finished object.
+     *
+     * @param request The request.
+     * @param deserializer The deserializer.
+     * @param response The response.
+     */
+    public <T> void SendDeserialized(HttpRequest request, IResponseDeserializer<T> deserializer, Response<T> response);
 }
@@ -0,0 +1,21 @@
+package mediabrowser.apiinteraction.http;
+
+/**
+ * Storage for cached http responses. Implementations must be thread safe.
+ */
+public interface IHttpCache {
+
+    HttpCacheEntry get(String key);
+
+    void put(String key, HttpCacheEntry entry);
+
+    void remove(String key);
+
+    /**
+     * Removes every entry whose key contains the value, ignoring case. Implementations that do not keep keys may
+     * instead match whole words, and may remove more than asked but never less.
+     */
+    void removeKeysContaining(String value);
+
+    void clear();
+}
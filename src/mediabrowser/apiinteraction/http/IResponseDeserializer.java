@@ -0,0 +1,12 @@
+package mediabrowser.apiinteraction.http;
+
+import java.io.InputStream;
+
+/**
+ * Turns a response body into the object handed to the callback of IAsyncHttpClient.SendDeserialized.
+ * It is called on the http client's own thread rather than the thread callbacks are delivered on.
+ */
+public interface IResponseDeserializer<T> {
+
+    T deserialize(InputStream stream) throws Exception;
+}
@@ -0,0 +1,12 @@
+package mediabrowser.apiinteraction.http;
+
+import java.util.Map;
+
+/**
+ * Implemented by responses that want the status line and headers of the http response.
+ * Http clients that support it call onResponseHeaders before onResponse or onError.
+ */
+public interface IResponseHeadersListener {
+
+    void onResponseHeaders(int statusCode, Map<String, String> headers);
+}
@@ -0,0 +1,146 @@
+package mediabrowser.apiinteraction.http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used in-memory response cache bounded by the total size of the cached bodies.
+ * An optional second tier, such as a DiskHttpCache, receives every entry and is consulted on a memory miss.
+ */
+public class MemoryHttpCache implements IHttpCache {
+
+    private final LinkedHashMap<String, HttpCacheEntry> entries = new LinkedHashMap<String, HttpCacheEntry>(64, 0.75f, true);
+    private final long maxBytes;
+    private final IHttpCache secondTier;
+    private long currentBytes;
+
+    public MemoryHttpCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    public MemoryHttpCache(long maxBytes, IHttpCache secondTier) {
+
+        if (maxBytes <= 0)
+        {
+            throw new IllegalArgumentException("maxBytes");
+        }
+
+        this.maxBytes = maxBytes;
+        this.secondTier = secondTier;
+    }
+
+    @Override
+    public HttpCacheEntry get(String key) {
+
+        synchronized (entries) {
+
+            HttpCacheEntry entry = entries.get(key);
+
+            if (entry != null || secondTier == null) {
+                return entry;
+            }
+        }
+
+        HttpCacheEntry entry = secondTier.get(key);
+
+        if (entry != null) {
+            putInMemory(key, entry);
+        }
+
+        return entry;
+    }
+
+    @Override
+    public void put(String key, HttpCacheEntry entry) {
+
+        putInMemory(key, entry);
+
+        if (secondTier != null) {
+            secondTier.put(key, entry);
+        }
+    }
+
+    private void putInMemory(String key, HttpCacheEntry entry) {
+
+        synchronized (entries) {
+
+            HttpCacheEntry previous = entries.remove(key);
+
+            if (previous != null) {
+                currentBytes -= previous.getBody().length;
+            }
+
+            // Entries larger than the whole cache are left to the second tier
+            if (entry.getBody().length > maxBytes) {
+                return;
+            }
+
+            entries.put(key, entry);
+            currentBytes += entry.getBody().length;
+
+            Iterator<Map.Entry<String, HttpCacheEntry>> iterator = entries.entrySet().iterator();
+
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+
+                currentBytes -= iterator.next().getValue().getBody().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+
+        synchronized (entries) {
+
+            HttpCacheEntry previous = entries.remove(key);
+
+            if (previous != null) {
+                currentBytes -= previous.getBody().length;
+            }
+        }
+
+        if (secondTier != null) {
+            secondTier.remove(key);
+        }
+    }
+
+    @Override
+    public void removeKeysContaining(String value) {
+
+        String lowerValue = value.toLowerCase();
+
+        synchronized (entries) {
+
+            Iterator<Map.Entry<String, HttpCacheEntry>> iterator = entries.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+
+                Map.Entry<String, HttpCacheEntry> entry = iterator.next();
+
+                if (entry.getKey().toLowerCase().contains(lowerValue)) {
+                    currentBytes -= entry.getValue().getBody().length;
+                    iterator.remove();
+                }
+            }
+        }
+
+        if (secondTier != null) {
+            secondTier.removeKeysContaining(value);
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        synchronized (entries) {
+            entries.clear();
+            currentBytes = 0;
+        }
+
+        if (secondTier != null) {
+            secondTier.clear();
+        }
+    }
+}
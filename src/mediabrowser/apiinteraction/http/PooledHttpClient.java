@@ -0,0 +1,544 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.apiinteraction.IResponse;
+import mediabrowser.apiinteraction.QueryStringDictionary;
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.net.HttpException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * IAsyncHttpClient for desktop and server JVMs, built on HttpURLConnection.
+ *
+ * Requests run on a fixed worker pool and are limited to a number of concurrent connections per server address.
+ * Requests beyond that limit wait in order in a queue for their server, and are only handed to the worker pool once a
+ * connection is free, so workers never sit blocked while requests to other servers are waiting.
+ *
+ * Response bodies are closed rather than disconnected, which lets the JDK return the socket to its keep-alive cache
+ * for the next request to the same server. The JDK keeps at most http.maxConnections idle sockets per server
+ * (5 by default), which is why maxConnectionsPerServer also defaults to 5. Raise that system property along with it.
+ */
+public class PooledHttpClient implements IAsyncHttpClient {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ILogger logger;
+    private ExecutorService executor;
+    private int maxConnectionsPerServer;
+    private ConcurrentHashMap<String, ServerQueue> serverQueues = new ConcurrentHashMap<String, ServerQueue>();
+
+    public PooledHttpClient(ILogger logger) {
+        this(logger, 16, 5);
+    }
+
+    public PooledHttpClient(ILogger logger, int workerThreads, int maxConnectionsPerServer) {
+
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+        if (workerThreads < 1)
+        {
+            throw new IllegalArgumentException("workerThreads");
+        }
+        if (maxConnectionsPerServer < 1)
+        {
+            throw new IllegalArgumentException("maxConnectionsPerServer");
+        }
+
+        this.logger = logger;
+        this.maxConnectionsPerServer = maxConnectionsPerServer;
+
+        executor = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+        ((ThreadPoolExecutor)executor).allowCoreThreadTimeOut(true);
+    }
+
+    public PooledHttpClient(ILogger logger, ExecutorService executor, int maxConnectionsPerServer) {
+
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor");
+        }
+        if (maxConnectionsPerServer < 1)
+        {
+            throw new IllegalArgumentException("maxConnectionsPerServer");
+        }
+
+        this.logger = logger;
+        this.executor = executor;
+        this.maxConnectionsPerServer = maxConnectionsPerServer;
+    }
+
+    @Override
+    public void Send(final HttpRequest request, final Response<String> response) {
+
+        Enqueue(request, response, new Runnable() {
+            @Override
+            public void run() {
+
+                String body;
+
+                try {
+                    body = Execute(request, response, new BodyReader<String>() {
+                        @Override
+                        public String read(HttpURLConnection conn, InputStream stream) throws IOException {
+                            return new String(readFully(stream), getCharset(conn));
+                        }
+                    });
+                }
+                catch (Exception ex) {
+                    onError(request, response, ex);
+                    return;
+                }
+
+                response.onResponse(body);
+            }
+        });
+    }
+
+    @Override
+    public void SendStream(final HttpRequest request, final Response<InputStream> response) {
+
+        Enqueue(request, response, new Runnable() {
+            @Override
+            public void run() {
+
+                final boolean[] delivered = new boolean[1];
+
+                try {
+                    Execute(request, response, new BodyReader<Void>() {
+                        @Override
+                        public Void read(HttpURLConnection conn, InputStream stream) throws IOException {
+                            delivered[0] = true;
+                            response.onResponse(stream);
+                            return null;
+                        }
+                    });
+                }
+                catch (Exception ex) {
+
+                    // Failures thrown by the callback itself are not reported back into it
+                    if (!delivered[0]) {
+                        onError(request, response, ex);
+                    }
+                    else {
+                        logger.ErrorException("Error processing response stream from %s", ex, request.getUrl());
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public <T> void SendDeserialized(HttpRequest request, IResponseDeserializer<T> deserializer, Response<T> response) {
+
+        // Streams are already delivered on the worker thread
+        SendStream(request, new DeserializingResponse<T>(deserializer, response));
+    }
+
+    /**
+     * Stops accepting requests. Requests already handed to the worker pool are still executed, and those still
+     * waiting for a connection fail.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private interface BodyReader<T> {
+        T read(HttpURLConnection conn, InputStream stream) throws IOException;
+    }
+
+    private <T> T Execute(HttpRequest request, IResponse response, BodyReader<T> bodyReader) throws IOException {
+        return ExecuteInternal(new URL(request.getUrl()), request, response, bodyReader);
+    }
+
+    /**
+     * Runs the task once its server has a free connection.
+     */
+    private void Enqueue(HttpRequest request, Response<?> response, Runnable task) {
+
+        ServerQueue queue;
+
+        try {
+            queue = getServerQueue(new URL(request.getUrl()));
+        }
+        catch (MalformedURLException ex) {
+            // Reported by the task itself, on a worker thread like any other failure
+            executor.execute(task);
+            return;
+        }
+
+        queue.submit(new QueuedRequest(request, response, task));
+    }
+
+    private <T> T ExecuteInternal(URL url, HttpRequest request, IResponse response, BodyReader<T> bodyReader) throws IOException {
+
+        logger.Debug("Sending %s request to %s", request.getMethod(), request.getUrl());
+
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+
+        String method = request.getMethod() == null ? "GET" : request.getMethod();
+
+        conn.setRequestMethod(method);
+        conn.setUseCaches(false);
+        conn.setDoInput(true);
+        conn.setConnectTimeout(Math.max(request.getTimeout(), 0));
+        conn.setReadTimeout(Math.max(request.getTimeout(), 0));
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+
+        AddHeaders(conn, request);
+
+        byte[] body = GetRequestBody(request);
+
+        if (body != null && request.getRequestContent() == null && tangible.DotNetToJavaStringHelper.isNullOrEmpty(request.getRequestContentType())) {
+            conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+        }
+
+        if (body != null) {
+
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(body.length);
+
+            OutputStream outputStream = conn.getOutputStream();
+            try {
+                outputStream.write(body);
+            }
+            finally {
+                outputStream.close();
+            }
+        }
+
+        int statusCode = conn.getResponseCode();
+
+        if (response instanceof IResponseHeadersListener) {
+            ((IResponseHeadersListener) response).onResponseHeaders(statusCode, GetResponseHeaders(conn));
+        }
+
+        if (statusCode < 200 || statusCode >= 300) {
+
+            drainAndClose(conn.getErrorStream());
+
+            HttpException ex = new HttpException(statusCode + " " + conn.getResponseMessage());
+            ex.setStatusCode(statusCode);
+            ex.setHeaders(GetResponseHeaders(conn));
+            throw ex;
+        }
+
+        InputStream rawStream = conn.getInputStream();
+        InputStream stream = rawStream;
+
+        try {
+            if ("gzip".equalsIgnoreCase(conn.getContentEncoding())) {
+                stream = new GZIPInputStream(rawStream, BUFFER_SIZE);
+            }
+
+            return bodyReader.read(conn, stream);
+        }
+        finally {
+            // Closing rather than disconnecting hands the socket back to the keep-alive cache. The JDK drains any
+            // small unread remainder in the background and only drops the connection when the remainder is large.
+            stream.close();
+        }
+    }
+
+    private void AddHeaders(HttpURLConnection conn, HttpRequest request) {
+
+        HttpHeaders requestHeaders = request.getRequestHeaders();
+
+        if (requestHeaders != null) {
+
+            for (String key : requestHeaders.keySet()) {
+                conn.setRequestProperty(key, requestHeaders.get(key));
+            }
+
+            String parameter = requestHeaders.getAuthorizationParameter();
+
+            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(parameter))
+            {
+                conn.setRequestProperty("Authorization", requestHeaders.getAuthorizationScheme() + " " + parameter);
+            }
+        }
+
+        if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(request.getRequestContentType()))
+        {
+            conn.setRequestProperty("Content-Type", request.getRequestContentType());
+        }
+    }
+
+    private byte[] GetRequestBody(HttpRequest request) throws IOException {
+
+        if (request.getRequestContent() != null) {
+            return request.getRequestContent().getBytes("UTF-8");
+        }
+
+        QueryStringDictionary postData = request.getPostData();
+
+        if (postData == null) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (String key : postData.keySet()) {
+
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+
+            builder.append(URLEncoder.encode(key, "UTF-8"))
+                    .append('=')
+                    .append(URLEncoder.encode(postData.get(key), "UTF-8"));
+        }
+
+        return builder.toString().getBytes("UTF-8");
+    }
+
+    private Map<String, String> GetResponseHeaders(HttpURLConnection conn) {
+
+        Map<String, String> headers = new HashMap<String, String>();
+
+        for (Map.Entry<String, List<String>> entry : conn.getHeaderFields().entrySet()) {
+
+            if (entry.getKey() != null && entry.getValue() != null && entry.getValue().size() > 0) {
+                headers.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+
+        return headers;
+    }
+
+    private void onError(HttpRequest request, Response<?> response, Exception ex) {
+
+        if (ex instanceof HttpException) {
+            logger.Debug("Request to %s failed with %s", request.getUrl(), ex.getMessage());
+            response.onError(ex);
+            return;
+        }
+
+        logger.ErrorException("Error sending request to %s", ex, request.getUrl());
+
+        HttpException httpException = new HttpException(ex.getMessage(), ex);
+
+        if (ex instanceof SocketTimeoutException) {
+            httpException.setIsTimedOut(true);
+        }
+
+        response.onError(httpException);
+    }
+
+    private ServerQueue getServerQueue(URL url) {
+
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        String key = url.getProtocol() + "://" + url.getHost() + ":" + port;
+
+        ServerQueue queue = serverQueues.get(key);
+
+        if (queue == null) {
+            ServerQueue newQueue = new ServerQueue(url.getHost());
+            queue = serverQueues.putIfAbsent(key, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+
+        return queue;
+    }
+
+    private static String getCharset(HttpURLConnection conn) {
+
+        String contentType = conn.getContentType();
+
+        if (contentType != null) {
+
+            for (String param : contentType.split(";")) {
+
+                param = param.trim();
+
+                if (param.toLowerCase().startsWith("charset=")) {
+                    return param.substring(8).replace("\"", "");
+                }
+            }
+        }
+
+        return "UTF-8";
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void drainAndClose(InputStream stream) {
+
+        if (stream == null) {
+            return;
+        }
+
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            while (stream.read(buffer) != -1) {
+            }
+        }
+        catch (IOException ignored) {
+        }
+        finally {
+            try {
+                stream.close();
+            }
+            catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static class QueuedRequest {
+
+        final HttpRequest request;
+        final Response<?> response;
+        final Runnable task;
+        final long queuedNanos = System.nanoTime();
+
+        QueuedRequest(HttpRequest request, Response<?> response, Runnable task) {
+            this.request = request;
+            this.response = response;
+            this.task = task;
+        }
+
+        /**
+         * The request timeout covers the wait for a connection, as it did when workers waited for one.
+         */
+        boolean hasTimedOut() {
+            int timeout = request.getTimeout();
+            return timeout > 0 && System.nanoTime() - queuedNanos > TimeUnit.MILLISECONDS.toNanos(timeout);
+        }
+    }
+
+    /**
+     * The requests to one server. At most maxConnectionsPerServer of them are in the worker pool at a time, and each
+     * one that finishes hands its place to the next one waiting.
+     */
+    private class ServerQueue {
+
+        private final String host;
+        private final ArrayDeque<QueuedRequest> waiting = new ArrayDeque<QueuedRequest>();
+        private int active;
+
+        ServerQueue(String host) {
+            this.host = host;
+        }
+
+        void submit(QueuedRequest request) {
+
+            synchronized (this) {
+
+                if (active >= maxConnectionsPerServer) {
+                    waiting.add(request);
+                    return;
+                }
+
+                active++;
+            }
+
+            start(request);
+        }
+
+        private void start(QueuedRequest request) {
+
+            while (request != null) {
+
+                final QueuedRequest current = request;
+
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                Run(current);
+                            }
+                            finally {
+                                start(next());
+                            }
+                        }
+                    });
+                    return;
+                }
+                catch (RejectedExecutionException ex) {
+                    onError(current.request, current.response, ex);
+                    request = next();
+                }
+            }
+        }
+
+        private void Run(QueuedRequest request) {
+
+            if (request.hasTimedOut()) {
+                onError(request.request, request.response, new SocketTimeoutException("Timed out waiting for a connection to " + host));
+                return;
+            }
+
+            request.task.run();
+        }
+
+        /**
+         * Takes the next waiting request into the place of one that finished, or frees the place if none are waiting.
+         */
+        private synchronized QueuedRequest next() {
+
+            QueuedRequest request = waiting.poll();
+
+            if (request == null) {
+                active--;
+            }
+
+            return request;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "PooledHttpClient-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
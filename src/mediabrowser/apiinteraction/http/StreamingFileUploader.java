@@ -0,0 +1,251 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.tasks.IProgress;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.net.HttpException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Posts a file as the request body without holding it in memory.
+ *
+ * The body is streamed in fixed length mode, or chunked when the file is too large for the int based fixed length
+ * api, so HttpURLConnection never buffers it. Bytes go from the FileChannel to the connection in chunks, which
+ * lets each chunk report progress, honour cancellation and be throttled. Failed attempts are retried from the
+ * start of the file, since the server takes the upload as a single request.
+ */
+public class StreamingFileUploader {
+
+    private static final int DefaultChunkSize = 256 * 1024;
+    private static final int DefaultMaxAttempts = 3;
+    private static final int RetryDelayMs = 2000;
+
+    private ILogger logger;
+    private int chunkSize = DefaultChunkSize;
+    private int maxAttempts = DefaultMaxAttempts;
+
+    public StreamingFileUploader(ILogger logger) {
+        this.logger = logger;
+    }
+
+    public void setChunkSize(int chunkSize) {
+
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize");
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+
+        if (maxAttempts < 1)
+        {
+            throw new IllegalArgumentException("maxAttempts");
+        }
+
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Uploads the file, reporting progress, completion, cancellation or failure through the progress.
+     * The input stream is closed when the upload has finished.
+     *
+     * @param scheduler Optional scheduler whose bandwidth limits apply to the upload.
+     * @param serverId The key the upload is throttled under when a scheduler is supplied.
+     */
+    public void upload(String url,
+                       HttpHeaders headers,
+                       String contentType,
+                       FileInputStream fileInputStream,
+                       IProgress<Double> progress,
+                       CancellationToken cancellationToken,
+                       TransferScheduler scheduler,
+                       String serverId) {
+
+        try (FileInputStream input = fileInputStream) {
+
+            FileChannel channel = input.getChannel();
+
+            for (int attempt = 1; ; attempt++) {
+
+                try {
+                    if (uploadAttempt(url, headers, contentType, channel, progress, cancellationToken, scheduler, serverId)) {
+                        progress.reportComplete();
+                    }
+                    else {
+                        progress.reportCancelled();
+                    }
+                    return;
+                }
+                catch (IOException | HttpException ex) {
+
+                    // Abandoning a fixed length body part way makes closing it fail, which is expected here
+                    if (isCancelled(cancellationToken)) {
+                        progress.reportCancelled();
+                        return;
+                    }
+
+                    if (attempt >= maxAttempts || !isRetryable(ex)) {
+                        throw ex;
+                    }
+
+                    logger.ErrorException("Error uploading to %s, retrying", ex, url);
+                    Thread.sleep(RetryDelayMs * attempt);
+                }
+            }
+        }
+        catch (HttpException ex) {
+            logger.ErrorException("Error uploading file", ex);
+            progress.reportError(ex);
+        }
+        catch (Exception ex) {
+            logger.ErrorException("Error uploading file", ex);
+            progress.reportError(new HttpException(ex.getMessage(), ex));
+        }
+    }
+
+    /**
+     * @return false if the upload was cancelled.
+     */
+    private boolean uploadAttempt(String url,
+                                  HttpHeaders headers,
+                                  String contentType,
+                                  FileChannel channel,
+                                  IProgress<Double> progress,
+                                  CancellationToken cancellationToken,
+                                  TransferScheduler scheduler,
+                                  String serverId) throws IOException {
+
+        long length = channel.size();
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+
+        try {
+            conn.setDoInput(true);
+            conn.setDoOutput(true);
+            conn.setUseCaches(false);
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", contentType);
+
+            AddHeaders(conn, headers);
+
+            if (length <= Integer.MAX_VALUE) {
+                conn.setFixedLengthStreamingMode((int) length);
+            }
+            else {
+                conn.setChunkedStreamingMode(chunkSize);
+            }
+
+            long position = 0;
+            int lastPercent = -1;
+
+            try (OutputStream outputStream = conn.getOutputStream()) {
+
+                WritableByteChannel target = Channels.newChannel(outputStream);
+
+                while (position < length) {
+
+                    if (isCancelled(cancellationToken)) {
+                        conn.disconnect();
+                        return false;
+                    }
+
+                    long count = Math.min(chunkSize, length - position);
+
+                    if (scheduler != null) {
+                        scheduler.throttle(serverId, (int) count);
+                    }
+
+                    long written = channel.transferTo(position, count, target);
+
+                    if (written <= 0) {
+                        throw new IOException("File ended at byte " + position + " of " + length);
+                    }
+
+                    position += written;
+
+                    int percent = (int) (position * 100 / length);
+
+                    if (percent != lastPercent) {
+                        lastPercent = percent;
+                        progress.report((double) percent);
+                    }
+                }
+            }
+
+            int responseCode = conn.getResponseCode();
+
+            if (responseCode < 200 || responseCode >= 300) {
+
+                drainAndClose(conn.getErrorStream());
+
+                HttpException ex = new HttpException(conn.getResponseMessage());
+                ex.setStatusCode(responseCode);
+                throw ex;
+            }
+
+            drainAndClose(conn.getInputStream());
+
+            return true;
+        }
+        catch (IOException ex) {
+            conn.disconnect();
+            throw ex;
+        }
+    }
+
+    private void AddHeaders(HttpURLConnection conn, HttpHeaders headers) {
+
+        for (String key : headers.keySet()) {
+            conn.setRequestProperty(key, headers.get(key));
+        }
+
+        String parameter = headers.getAuthorizationParameter();
+
+        if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(parameter))
+        {
+            conn.setRequestProperty("Authorization", headers.getAuthorizationScheme() + " " + parameter);
+        }
+    }
+
+    private static boolean isRetryable(Exception ex) {
+
+        if (ex instanceof HttpException) {
+            Integer statusCode = ((HttpException) ex).getStatusCode();
+            return statusCode == null || statusCode >= 500;
+        }
+
+        return true;
+    }
+
+    private static boolean isCancelled(CancellationToken cancellationToken) {
+        return cancellationToken != null && cancellationToken.isCancellationRequested();
+    }
+
+    private static void drainAndClose(InputStream stream) {
+
+        if (stream == null) {
+            return;
+        }
+
+        try (InputStream alias = stream) {
+            byte[] buffer = new byte[4096];
+            while (alias.read(buffer) != -1) {
+            }
+        }
+        catch (IOException ignored) {
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package mediabrowser.apiinteraction.playback;
 
-import android.media.session.MediaController;
 import mediabrowser.apiinteraction.Response;
 import mediabrowser.model.dlna.AudioOptions;
 import mediabrowser.model.dlna.StreamBuilder;
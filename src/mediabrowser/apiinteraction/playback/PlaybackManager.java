@@ -29,6 +29,7 @@ public class PlaybackManager {
     private ILogger logger;
     private IDevice device;
     private ILocalPlayer localPlayer;
+    private StreamInfoCache streamInfoCache = new StreamInfoCache(32);
 
     public PlaybackManager(ILocalAssetManager localAssetManager, IDevice device, ILogger logger, ILocalPlayer localPlayer)
     {
@@ -54,6 +55,10 @@ public class PlaybackManager {
         this.localPlayer = new LocalPlayer();
     }
 
+    public StreamInfoCache getStreamInfoCache() {
+        return streamInfoCache;
+    }
+
     public ArrayList<MediaStream> getPrePlaybackSelectableAudioStreams(String serverId, VideoOptions options)
     {
         Normalize(options);
@@ -191,14 +196,29 @@ public class PlaybackManager {
                 {
                     options.setMediaSources(localItem.getItem().getMediaSources());
 
-                    StreamInfo result = streamBuilder.BuildVideoItem(options);
+                    StreamInfo result = BuildVideoItem(streamBuilder, options);
                     result.setPlayMethod(PlayMethod.DirectPlay);
                     return result;
                 }
             }
         }
 
-        return streamBuilder.BuildVideoItem(options);
+        return BuildVideoItem(streamBuilder, options);
+    }
+
+    private StreamInfo BuildVideoItem(StreamBuilder streamBuilder, VideoOptions options)
+    {
+        StreamInfo[] cached = new StreamInfo[1];
+
+        if (streamInfoCache.tryGet(options, localPlayer, cached))
+        {
+            return cached[0];
+        }
+
+        StreamInfo result = streamBuilder.BuildVideoItem(options);
+        streamInfoCache.put(options, localPlayer, result);
+
+        return result;
     }
 
     public void reportPlaybackStart(PlaybackStartInfo info, boolean isOffline, ApiClient apiClient, EmptyResponse response)
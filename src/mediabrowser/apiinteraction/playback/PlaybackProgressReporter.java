@@ -0,0 +1,333 @@
+package mediabrowser.apiinteraction.playback;
+
+import mediabrowser.apiinteraction.ApiClient;
+import mediabrowser.apiinteraction.EmptyResponse;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.session.PlaybackProgressInfo;
+import mediabrowser.model.session.PlaybackStopInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits progress reports to one per interval for each playback, identified by its PlaySessionId or else its ItemId.
+ *
+ * A report arriving within the interval of the last one sent is held, replacing any report already held for the same
+ * playback, and sent when the interval is up. Replaced reports are completed straight away, since the server only
+ * needs the latest position. A report is sent immediately when the playback was paused or resumed, seeked, or moved
+ * to another item, so that the server never shows a stale state for long.
+ *
+ * When playback stops the held report is discarded, as the stop report carries the final position, unless the stop
+ * report has no position of its own.
+ */
+public class PlaybackProgressReporter {
+
+    public static final long DefaultIntervalMs = 10000;
+
+    // A position further than this from where steady playback would be is treated as a seek
+    private static final long SeekToleranceTicks = 5 * 10000000L;
+    private static final long IdleSessionTimeoutMs = 30 * 60 * 1000;
+
+    private final ApiClient apiClient;
+    private final ILogger logger;
+    private final HashMap<String, SessionState> sessions = new HashMap<String, SessionState>();
+
+    private long intervalMs = DefaultIntervalMs;
+    private ScheduledExecutorService scheduler;
+
+    public PlaybackProgressReporter(ApiClient apiClient, ILogger logger) {
+
+        if (apiClient == null)
+        {
+            throw new IllegalArgumentException("apiClient");
+        }
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+
+        this.apiClient = apiClient;
+        this.logger = logger;
+    }
+
+    public synchronized long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * Sets the minimum time between progress reports for a playback. 0 sends every report as it arrives.
+     */
+    public void setIntervalMs(long intervalMs) {
+
+        if (intervalMs < 0)
+        {
+            throw new IllegalArgumentException("intervalMs");
+        }
+
+        synchronized (this) {
+            this.intervalMs = intervalMs;
+        }
+
+        if (intervalMs == 0) {
+            flush();
+        }
+    }
+
+    public void report(PlaybackProgressInfo info, EmptyResponse response) {
+
+        String key = getKey(info.getPlaySessionId(), info.getItemId());
+
+        EmptyResponse superseded = null;
+        boolean sendNow;
+
+        synchronized (this) {
+
+            if (key == null || intervalMs == 0) {
+                sendNow = true;
+            }
+            else {
+                long now = now();
+                SessionState state = sessions.get(key);
+
+                if (state == null) {
+                    removeIdleSessions(now);
+                    state = new SessionState();
+                    sessions.put(key, state);
+                }
+
+                sendNow = !state.hasSent || now - state.lastSentMs >= intervalMs || state.isDiscontinuity(info, now);
+                state.observe(info, now);
+
+                superseded = state.pendingResponse;
+                state.pendingInfo = null;
+                state.pendingResponse = null;
+
+                if (sendNow) {
+                    state.hasSent = true;
+                    state.lastSentMs = now;
+                }
+                else {
+                    state.pendingInfo = info;
+                    state.pendingResponse = response;
+                    scheduleFlush(key, state, state.lastSentMs + intervalMs - now);
+                }
+            }
+        }
+
+        if (superseded != null) {
+            superseded.onResponse();
+        }
+
+        if (sendNow) {
+            apiClient.SendPlaybackProgressAsync(info, response);
+        }
+    }
+
+    /**
+     * Forgets the playback, discarding the report held for it unless the stop report lacks a position, in which case
+     * the held report is sent first.
+     */
+    public void onPlaybackStopped(PlaybackStopInfo info) {
+
+        String key = getKey(info.getPlaySessionId(), info.getItemId());
+
+        if (key == null) {
+            return;
+        }
+
+        SessionState state;
+
+        synchronized (this) {
+            state = sessions.remove(key);
+        }
+
+        if (state == null || state.pendingResponse == null) {
+            return;
+        }
+
+        if (info.getPositionTicks() == null) {
+            apiClient.SendPlaybackProgressAsync(state.pendingInfo, state.pendingResponse);
+        }
+        else {
+            state.pendingResponse.onResponse();
+        }
+    }
+
+    /**
+     * Sends every held report now, such as before logging out.
+     */
+    public void flush() {
+
+        ArrayList<SessionState> pending = new ArrayList<SessionState>();
+
+        synchronized (this) {
+
+            long now = now();
+
+            for (SessionState state : sessions.values()) {
+
+                if (state.pendingResponse != null) {
+                    pending.add(state.takePending(now));
+                }
+            }
+        }
+
+        for (SessionState report : pending) {
+            apiClient.SendPlaybackProgressAsync(report.pendingInfo, report.pendingResponse);
+        }
+    }
+
+    private void scheduleFlush(final String key, SessionState state, long delayMs) {
+
+        if (state.flushScheduled) {
+            return;
+        }
+
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "PlaybackProgressReporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        state.flushScheduled = true;
+
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                OnFlushDue(key);
+            }
+        }, Math.max(delayMs, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void OnFlushDue(String key) {
+
+        SessionState report;
+
+        synchronized (this) {
+
+            SessionState state = sessions.get(key);
+
+            if (state == null) {
+                return;
+            }
+
+            state.flushScheduled = false;
+
+            if (state.pendingResponse == null) {
+                return;
+            }
+
+            long now = now();
+            long remainingMs = state.lastSentMs + intervalMs - now;
+
+            // Something was sent immediately since this was scheduled, which restarted the interval
+            if (remainingMs > 0) {
+                scheduleFlush(key, state, remainingMs);
+                return;
+            }
+
+            report = state.takePending(now);
+        }
+
+        try {
+            apiClient.SendPlaybackProgressAsync(report.pendingInfo, report.pendingResponse);
+        }
+        catch (Exception ex) {
+            logger.ErrorException("Error sending playback progress", ex);
+        }
+    }
+
+    private void removeIdleSessions(long now) {
+
+        Iterator<Map.Entry<String, SessionState>> iterator = sessions.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+
+            SessionState state = iterator.next().getValue();
+
+            // Playbacks that never reported stopping, such as when the player crashed
+            if (state.pendingResponse == null && now - state.lastReceivedMs > IdleSessionTimeoutMs) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String getKey(String playSessionId, String itemId) {
+        return playSessionId != null ? playSessionId : itemId;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static class SessionState {
+
+        boolean hasSent;
+        long lastSentMs;
+        long lastReceivedMs;
+        String itemId;
+        boolean isPaused;
+        Long positionTicks;
+
+        PlaybackProgressInfo pendingInfo;
+        EmptyResponse pendingResponse;
+        boolean flushScheduled;
+
+        boolean isDiscontinuity(PlaybackProgressInfo info, long now) {
+
+            if (info.getIsPaused() != isPaused) {
+                return true;
+            }
+
+            if (info.getItemId() != null && !info.getItemId().equals(itemId)) {
+                return true;
+            }
+
+            if (info.getPositionTicks() == null || positionTicks == null) {
+                return false;
+            }
+
+            long expectedTicks = positionTicks;
+
+            if (!isPaused) {
+                expectedTicks += (now - lastReceivedMs) * 10000;
+            }
+
+            return Math.abs(info.getPositionTicks() - expectedTicks) > SeekToleranceTicks;
+        }
+
+        void observe(PlaybackProgressInfo info, long now) {
+            lastReceivedMs = now;
+            itemId = info.getItemId();
+            isPaused = info.getIsPaused();
+            positionTicks = info.getPositionTicks();
+        }
+
+        /**
+         * Marks the held report as sent and returns it, in a copy so that it can be sent outside the lock.
+         */
+        SessionState takePending(long now) {
+
+            SessionState report = new SessionState();
+            report.pendingInfo = pendingInfo;
+            report.pendingResponse = pendingResponse;
+
+            pendingInfo = null;
+            pendingResponse = null;
+            lastSentMs = now;
+
+            return report;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package mediabrowser.apiinteraction.playback;
+
+import mediabrowser.model.dlna.CompiledDeviceProfile;
+import mediabrowser.model.dlna.DeviceProfile;
+import mediabrowser.model.dlna.ILocalPlayer;
+import mediabrowser.model.dlna.StreamInfo;
+import mediabrowser.model.dlna.SubtitleProfile;
+import mediabrowser.model.dlna.VideoOptions;
+import mediabrowser.model.dto.MediaSourceInfo;
+import mediabrowser.model.entities.MediaStream;
+import mediabrowser.model.mediainfo.MediaProtocol;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers recent video playback decisions so that screens asking for the same item repeatedly, such as a details
+ * screen listing selectable audio and subtitle streams, do not rerun StreamBuilder each time.
+ *
+ * Entries are keyed by a fingerprint of the options and of every media source and stream that StreamBuilder looks at,
+ * including whether the local player can currently reach each source's file or url, so that a download finishing or
+ * a server becoming unreachable leads to a new decision. The whole cache is dropped when the device profile changes.
+ *
+ * Callers receive copies, since they go on to modify the StreamInfo they are given.
+ */
+public class StreamInfoCache {
+
+    private final int maxEntries;
+
+    private DeviceProfile profile;
+    private CompiledDeviceProfile compiledProfile;
+    private SubtitleProfile[] subtitleProfiles;
+
+    private final LinkedHashMap<String, CachedDecision> entries;
+
+    public StreamInfoCache(final int maxEntries) {
+
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries");
+        }
+
+        this.maxEntries = maxEntries;
+
+        entries = new LinkedHashMap<String, CachedDecision>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDecision> eldest) {
+                return size() > StreamInfoCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return true if a decision was cached for the options, in which case result[0] holds a copy of it, or null if
+     * no stream was compatible.
+     */
+    public synchronized boolean tryGet(VideoOptions options, ILocalPlayer localPlayer, StreamInfo[] result) {
+
+        if (!isCurrentProfile(options.getProfile())) {
+            return false;
+        }
+
+        CachedDecision decision = entries.get(getFingerprint(options, localPlayer));
+
+        if (decision == null) {
+            return false;
+        }
+
+        result[0] = decision.createStreamInfo(options.getMediaSources());
+        return true;
+    }
+
+    public synchronized void put(VideoOptions options, ILocalPlayer localPlayer, StreamInfo info) {
+
+        if (options.getProfile() == null) {
+            return;
+        }
+
+        if (!isCurrentProfile(options.getProfile())) {
+
+            entries.clear();
+
+            profile = options.getProfile();
+            compiledProfile = CompiledDeviceProfile.Get(profile);
+            subtitleProfiles = profile.getSubtitleProfiles();
+        }
+
+        entries.put(getFingerprint(options, localPlayer), new CachedDecision(info, options.getMediaSources()));
+    }
+
+    public synchronized void clear() {
+
+        entries.clear();
+        profile = null;
+        compiledProfile = null;
+        subtitleProfiles = null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isCurrentProfile(DeviceProfile current) {
+
+        if (current == null || current != profile) {
+            return false;
+        }
+
+        // The compiled profile is rebuilt whenever the profile's arrays are replaced or it is invalidated
+        return CompiledDeviceProfile.Get(current) == compiledProfile && current.getSubtitleProfiles() == subtitleProfiles;
+    }
+
+    private static String getFingerprint(VideoOptions options, ILocalPlayer localPlayer) {
+
+        StringBuilder builder = new StringBuilder(256);
+
+        append(builder, options.getItemId());
+        append(builder, options.getMediaSourceId());
+        append(builder, options.getDeviceId());
+        append(builder, options.getContext());
+        append(builder, options.GetMaxBitrate());
+        append(builder, options.getMaxAudioChannels());
+        append(builder, options.getAudioTranscodingBitrate());
+        append(builder, options.getAudioStreamIndex());
+        append(builder, options.getSubtitleStreamIndex());
+        append(builder, options.getProfile().getMaxStaticBitrate());
+
+        ArrayList<MediaSourceInfo> mediaSources = options.getMediaSources();
+
+        if (mediaSources != null) {
+
+            for (MediaSourceInfo mediaSource : mediaSources) {
+
+                builder.append('[');
+                append(builder, mediaSource.getId());
+                append(builder, mediaSource.getPath());
+                append(builder, mediaSource.getProtocol());
+                append(builder, mediaSource.getContainer());
+                append(builder, mediaSource.getBitrate());
+                append(builder, mediaSource.getRunTimeTicks());
+                append(builder, mediaSource.getSupportsDirectPlay());
+                append(builder, mediaSource.getSupportsDirectStream());
+                append(builder, mediaSource.getSupportsTranscoding());
+                append(builder, mediaSource.getTimestamp());
+                append(builder, mediaSource.getDefaultAudioStreamIndex());
+                append(builder, mediaSource.getDefaultSubtitleStreamIndex());
+                append(builder, mediaSource.getRequiredHttpHeaders() == null ? 0 : mediaSource.getRequiredHttpHeaders().size());
+                append(builder, canAccess(localPlayer, mediaSource));
+
+                if (mediaSource.getMediaStreams() != null) {
+
+                    for (MediaStream stream : mediaSource.getMediaStreams()) {
+
+                        builder.append('(');
+                        append(builder, stream.getType());
+                        append(builder, stream.getIndex());
+                        append(builder, stream.getCodec());
+                        append(builder, stream.getProfile());
+                        append(builder, stream.getLevel());
+                        append(builder, stream.getLanguage());
+                        append(builder, stream.getWidth());
+                        append(builder, stream.getHeight());
+                        append(builder, stream.getBitRate());
+                        append(builder, stream.getBitDepth());
+                        append(builder, stream.getRefFrames());
+                        append(builder, stream.getPacketLength());
+                        append(builder, stream.getChannels());
+                        append(builder, stream.getAverageFrameRate());
+                        append(builder, stream.getIsAnamorphic());
+                        append(builder, stream.getIsCabac());
+                        append(builder, stream.getIsDefault());
+                        append(builder, stream.getIsExternal());
+                        append(builder, stream.getSupportsExternalStream());
+                        append(builder, stream.getScore());
+                        builder.append(')');
+                    }
+                }
+
+                builder.append(']');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Asks the local player the same question StreamBuilder does before choosing direct play.
+     */
+    private static Boolean canAccess(ILocalPlayer localPlayer, MediaSourceInfo mediaSource) {
+
+        if (localPlayer == null) {
+            return null;
+        }
+
+        if (mediaSource.getProtocol() == MediaProtocol.File) {
+            return localPlayer.CanAccessFile(mediaSource.getPath());
+        }
+
+        if (mediaSource.getProtocol() == MediaProtocol.Http) {
+            boolean requiresHeaders = mediaSource.getRequiredHttpHeaders() != null && mediaSource.getRequiredHttpHeaders().size() > 0;
+            return localPlayer.CanAccessUrl(mediaSource.getPath(), requiresHeaders);
+        }
+
+        return null;
+    }
+
+    private static void append(StringBuilder builder, Object value) {
+
+        // Values such as paths may contain any character, so each is prefixed with its length
+        String text = value == null ? "" : value.toString();
+
+        builder.append(value == null ? -1 : text.length()).append(':').append(text);
+    }
+
+    private static class CachedDecision {
+
+        private StreamInfo info;
+        private int mediaSourceIndex = -1;
+
+        private CachedDecision(StreamInfo info, ArrayList<MediaSourceInfo> mediaSources) {
+
+            if (info != null) {
+                this.info = info.clone();
+
+                if (mediaSources != null) {
+                    mediaSourceIndex = mediaSources.indexOf(info.getMediaSource());
+                }
+            }
+        }
+
+        private StreamInfo createStreamInfo(ArrayList<MediaSourceInfo> mediaSources) {
+
+            if (info == null) {
+                return null;
+            }
+
+            StreamInfo copy = info.clone();
+
+            // The fingerprint matched, so the same position holds an equivalent media source. The caller's instance
+            // is used since it carries the current live stream and open token.
+            if (mediaSourceIndex >= 0 && mediaSources != null && mediaSourceIndex < mediaSources.size()) {
+                copy.setMediaSource(mediaSources.get(mediaSourceIndex));
+            }
+
+            return copy;
+        }
+    }
+}
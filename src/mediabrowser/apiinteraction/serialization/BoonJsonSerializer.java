@@ -7,11 +7,24 @@ import org.boon.json.JsonParserFactory;
 import org.boon.json.JsonSerializerFactory;
 
 import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.util.List;
 
 public class BoonJsonSerializer implements IJsonSerializer {
 
+    private static final Charset Utf8 = Charset.forName("UTF-8");
+
     private org.boon.json.JsonSerializer jsonSerializer;
-    private JsonParserAndMapper jsonParser;
+    private JsonParserFactory jsonParserFactory;
+
+    // Parsers hold per-parse state, and responses are deserialized on several threads at once
+    private final ThreadLocal<JsonParserAndMapper> stringParsers = new ThreadLocal<JsonParserAndMapper>() {
+        @Override
+        protected JsonParserAndMapper initialValue() {
+            return jsonParserFactory.create();
+        }
+    };
 
     public BoonJsonSerializer(){
         ConfigureOptions();
@@ -19,13 +32,12 @@ public class BoonJsonSerializer implements IJsonSerializer {
 
     private void ConfigureOptions(){
 
-        JsonParserFactory jsonParserFactory = new JsonParserFactory();
+        this.jsonParserFactory = new JsonParserFactory();
 
         JsonSerializerFactory jsonSerializerFactory = new JsonSerializerFactory()
                 .setCacheInstances( true ) //turns on caching for immutable objects
         ;
 
-        this.jsonParser = jsonParserFactory.create();
         this.jsonSerializer = jsonSerializerFactory.create();
     }
 
@@ -65,13 +77,42 @@ public class BoonJsonSerializer implements IJsonSerializer {
 
         //return (T)gsonBuilder.fromJson(json, listType);
 
-        return (T) jsonParser.parse(type, json);
+        JsonParserAndMapper parser = stringParsers.get();
+
+        if (type.isArray()) {
+            return (T) toArray(type.getComponentType(), parser.parseList(type.getComponentType(), json));
+        }
+
+        return (T) parser.parse(type, json);
     }
 
     @Override
     public Object DeserializeFromStream(InputStream stream, Class type) {
 
-        throw new UnsupportedOperationException();
+        // The mapping parser decodes the body into its own char buffer and maps it in place, with no String copy.
+        // That buffer grows to the size of the body, so each call gets a parser of its own rather than a pooled
+        // thread holding on to the largest body it has seen.
+        JsonParserAndMapper parser = jsonParserFactory.create();
+
+        if (type.isArray()) {
+            return toArray(type.getComponentType(), parser.parseList(type.getComponentType(), stream, Utf8));
+        }
+
+        return parser.parse(type, stream, Utf8);
+    }
+
+    /**
+     * Boon only maps objects, so a json array is mapped element by element when an array type is requested.
+     */
+    private static Object toArray(Class componentType, List<?> list) {
+
+        Object array = Array.newInstance(componentType, list.size());
+
+        for (int i = 0; i < list.size(); i++) {
+            Array.set(array, i, list.get(i));
+        }
+
+        return array;
     }
 
     @Override
@@ -0,0 +1,294 @@
+package mediabrowser.apiinteraction.serialization;
+
+import mediabrowser.apiinteraction.ItemStreamResponse;
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.serialization.IJsonSerializer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads an ItemsResult document incrementally, handing each element of the Items array to the serializer on its own.
+ * Only the text of the current item is held in memory, regardless of how many items the document contains.
+ */
+public class ItemsResultStreamReader {
+
+    private IJsonSerializer jsonSerializer;
+    private Reader reader;
+
+    private int peeked = -2;
+    private StringBuilder itemBuffer = new StringBuilder(4096);
+
+    private int itemCount;
+    private Integer totalRecordCount;
+    private boolean stopped;
+
+    public ItemsResultStreamReader(IJsonSerializer jsonSerializer, Reader reader) {
+        this.jsonSerializer = jsonSerializer;
+        this.reader = reader;
+    }
+
+    /**
+     * Gets the number of items delivered by the last call to read.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the TotalRecordCount property of the document, or null if it was absent.
+     */
+    public Integer getTotalRecordCount() {
+        return totalRecordCount;
+    }
+
+    /**
+     * Gets whether the listener asked to stop before the end of the document.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public void read(ItemStreamResponse response) throws IOException {
+
+        expect('{');
+
+        while (!stopped) {
+
+            int c = nextToken();
+
+            if (c == '}') {
+                return;
+            }
+            if (c == ',') {
+                continue;
+            }
+            if (c != '"') {
+                throw syntaxError(c);
+            }
+
+            String name = readString();
+
+            expect(':');
+
+            if ("Items".equals(name)) {
+                readItems(response);
+            }
+            else if ("TotalRecordCount".equals(name)) {
+                itemBuffer.setLength(0);
+                readValue(itemBuffer);
+                totalRecordCount = Integer.parseInt(itemBuffer.toString().trim());
+                response.onTotalRecordCount(totalRecordCount);
+            }
+            else {
+                readValue(null);
+            }
+        }
+    }
+
+    private void readItems(ItemStreamResponse response) throws IOException {
+
+        int c = nextToken();
+
+        if (c == 'n') {
+            // null
+            skipLiteral();
+            return;
+        }
+        if (c != '[') {
+            throw syntaxError(c);
+        }
+
+        while (true) {
+
+            c = peekToken();
+
+            if (c == ']') {
+                read();
+                return;
+            }
+            if (c == ',') {
+                read();
+                continue;
+            }
+
+            itemBuffer.setLength(0);
+            readValue(itemBuffer);
+
+            BaseItemDto item = jsonSerializer.DeserializeFromString(itemBuffer.toString(), BaseItemDto.class);
+            itemCount++;
+
+            if (!response.onItem(item)) {
+                stopped = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads one complete json value, copying its text into the buffer when one is supplied.
+     */
+    private void readValue(StringBuilder buffer) throws IOException {
+
+        int c = peekToken();
+
+        if (c != '{' && c != '[') {
+
+            // Scalar: string, number or literal
+            if (c == '"') {
+                read();
+                append(buffer, c);
+                copyString(buffer);
+                return;
+            }
+
+            while (true) {
+                c = peek();
+                if (c == -1 || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    return;
+                }
+                append(buffer, read());
+            }
+        }
+
+        int depth = 0;
+
+        while (true) {
+
+            c = read();
+
+            if (c == -1) {
+                throw new IOException("Unexpected end of json document");
+            }
+
+            append(buffer, c);
+
+            if (c == '"') {
+                copyString(buffer);
+            }
+            else if (c == '{' || c == '[') {
+                depth++;
+            }
+            else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the remainder of a string whose opening quote has already been consumed, escapes included.
+     */
+    private void copyString(StringBuilder buffer) throws IOException {
+
+        while (true) {
+
+            int c = read();
+
+            if (c == -1) {
+                throw new IOException("Unterminated json string");
+            }
+
+            append(buffer, c);
+
+            if (c == '\\') {
+                append(buffer, read());
+            }
+            else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+
+        StringBuilder name = new StringBuilder();
+
+        while (true) {
+
+            int c = read();
+
+            if (c == -1) {
+                throw new IOException("Unterminated json string");
+            }
+            if (c == '"') {
+                return name.toString();
+            }
+            if (c == '\\') {
+                c = read();
+                if (c == 'u') {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        hex[i] = (char) read();
+                    }
+                    c = Integer.parseInt(new String(hex), 16);
+                }
+            }
+
+            name.append((char) c);
+        }
+    }
+
+    private void skipLiteral() throws IOException {
+
+        while (Character.isLetter(peek())) {
+            read();
+        }
+    }
+
+    private void append(StringBuilder buffer, int c) {
+        if (buffer != null) {
+            buffer.append((char) c);
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+
+        int c = nextToken();
+
+        if (c != expected) {
+            throw syntaxError(c);
+        }
+    }
+
+    private IOException syntaxError(int c) {
+        return new IOException(c == -1 ? "Unexpected end of json document" : "Unexpected character '" + (char) c + "' in json document");
+    }
+
+    private int nextToken() throws IOException {
+
+        int c = peekToken();
+        read();
+        return c;
+    }
+
+    private int peekToken() throws IOException {
+
+        int c = peek();
+
+        while (c != -1 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+
+        return c;
+    }
+
+    private int peek() throws IOException {
+
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+
+        return peeked;
+    }
+
+    private int read() throws IOException {
+
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+}
@@ -4,6 +4,7 @@ import mediabrowser.apiinteraction.IConnectionManager;
 import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
 import mediabrowser.apiinteraction.sync.server.ServerSync;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.logging.ILogger;
 
@@ -14,6 +15,8 @@ public class MultiServerSync {
     private IConnectionManager connectionManager;
     private ILogger logger;
     private ILocalAssetManager localAssetManager;
+    private int maxConcurrentServers = 2;
+    private TransferPriority transferPriority = TransferPriority.Normal;
 
     public MultiServerSync(IConnectionManager connectionManager, ILogger logger, ILocalAssetManager localAssetManager) {
         this.connectionManager = connectionManager;
@@ -21,26 +24,52 @@ public class MultiServerSync {
         this.localAssetManager = localAssetManager;
     }
 
-    public void Sync(final CancellationToken cancellationToken, final SyncProgress progress){
+    public int getMaxConcurrentServers() {
+        return maxConcurrentServers;
+    }
 
-        connectionManager.GetAvailableServers(new MultiServerSyncGetServersResponse(this, progress, cancellationToken));
+    /**
+     * Sets how many servers are synced at the same time. Use 1 to sync one server after another.
+     */
+    public void setMaxConcurrentServers(int maxConcurrentServers) {
+
+        if (maxConcurrentServers < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentServers");
+        }
+
+        this.maxConcurrentServers = maxConcurrentServers;
     }
 
-    void SyncNext(final ArrayList<ServerInfo> servers, final int index, final CancellationToken cancellationToken, final SyncProgress progress){
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
 
-        if (index >= servers.size()){
+    /**
+     * Sets the priority sync job item downloads are queued with. Use UserRequested for a sync the user started
+     * themselves, so the items they picked start ahead of periodic sync work.
+     */
+    public void setTransferPriority(TransferPriority transferPriority) {
 
-            progress.reportComplete();
-            return;
+        if (transferPriority == null)
+        {
+            throw new IllegalArgumentException("transferPriority");
         }
 
-        if (cancellationToken.isCancellationRequested()){
-            progress.reportCancelled();
-        }
+        this.transferPriority = transferPriority;
+    }
+
+    public void Sync(final CancellationToken cancellationToken, final SyncProgress progress){
+
+        connectionManager.GetAvailableServers(new MultiServerSyncGetServersResponse(this, progress, cancellationToken));
+    }
+
+    void Sync(final ArrayList<ServerInfo> servers, final CancellationToken cancellationToken, final SyncProgress progress){
+
+        new MultiServerSyncOperation(this, servers, maxConcurrentServers, cancellationToken, progress).Start();
+    }
 
-        ServerInfo server = servers.get(index);
-        final int numServers = servers.size();
-        final double[] numComplete = {0};
+    void SyncServer(ServerInfo server, final CancellationToken cancellationToken, final SyncProgress progress){
 
         ServerInfo freshServerInfo = connectionManager.getServerInfo(server.getId());
 
@@ -48,6 +77,8 @@ public class MultiServerSync {
             server = freshServerInfo;
         }
 
-        new ServerSync(connectionManager, logger, localAssetManager).Sync(server, cancellationToken, new MultiServerSyncProgress(this, servers, cancellationToken, index, numServers, numComplete, progress));
+        ServerSync serverSync = new ServerSync(connectionManager, logger, localAssetManager);
+        serverSync.setTransferPriority(transferPriority);
+        serverSync.Sync(server, cancellationToken, progress);
     }
 }
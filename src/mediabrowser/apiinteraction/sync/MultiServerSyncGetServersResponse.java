@@ -21,7 +21,7 @@ public class MultiServerSyncGetServersResponse extends Response<ArrayList<Server
     @Override
     public void onResponse(ArrayList<ServerInfo> servers) {
 
-        multiServerSync.SyncNext(servers, 0, cancellationToken, progress);
+        multiServerSync.Sync(servers, cancellationToken, progress);
     }
 
     @Override
@@ -0,0 +1,129 @@
+package mediabrowser.apiinteraction.sync;
+
+import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.model.apiclient.ServerInfo;
+
+import java.util.ArrayList;
+
+/**
+ * A single run of MultiServerSync. Keeps up to a fixed number of servers syncing at once, starting the next server
+ * whenever one finishes, and reports overall progress as the average of every server's progress.
+ */
+public class MultiServerSyncOperation {
+
+    private MultiServerSync multiServerSync;
+    private ArrayList<ServerInfo> servers;
+    private int maxConcurrentServers;
+    private CancellationToken cancellationToken;
+    private SyncProgress outerProgress;
+
+    private final Object lock = new Object();
+    private double[] serverPercents;
+    private boolean[] serverDone;
+    private int nextIndex;
+    private int numComplete;
+
+    public MultiServerSyncOperation(MultiServerSync multiServerSync, ArrayList<ServerInfo> servers, int maxConcurrentServers, CancellationToken cancellationToken, SyncProgress outerProgress) {
+        this.multiServerSync = multiServerSync;
+        this.servers = servers;
+        this.maxConcurrentServers = maxConcurrentServers;
+        this.cancellationToken = cancellationToken;
+        this.outerProgress = outerProgress;
+
+        serverPercents = new double[servers.size()];
+        serverDone = new boolean[servers.size()];
+    }
+
+    public void Start(){
+
+        if (servers.size() == 0){
+            outerProgress.reportComplete();
+            return;
+        }
+
+        for (int i = 0; i < maxConcurrentServers; i++){
+            StartNext();
+        }
+    }
+
+    private void StartNext(){
+
+        int index;
+
+        synchronized (lock){
+
+            if (nextIndex >= servers.size()){
+                return;
+            }
+
+            index = nextIndex++;
+        }
+
+        if (cancellationToken.isCancellationRequested()){
+            OnServerDone(index, 100);
+            return;
+        }
+
+        multiServerSync.SyncServer(servers.get(index), cancellationToken, new MultiServerSyncProgress(this, index, outerProgress));
+    }
+
+    void OnServerProgress(int index, double percent){
+
+        double total;
+
+        synchronized (lock){
+
+            if (serverDone[index]){
+                return;
+            }
+
+            serverPercents[index] = percent;
+            total = GetTotalPercent();
+        }
+
+        outerProgress.report(total);
+    }
+
+    void OnServerDone(int index, double percent){
+
+        double total;
+        boolean allDone;
+
+        synchronized (lock){
+
+            // Guards against a server reporting completion more than once
+            if (serverDone[index]){
+                return;
+            }
+
+            serverDone[index] = true;
+            serverPercents[index] = percent;
+            numComplete++;
+            total = GetTotalPercent();
+            allDone = numComplete == servers.size();
+        }
+
+        outerProgress.report(total);
+
+        if (!allDone){
+            StartNext();
+        }
+        else if (cancellationToken.isCancellationRequested()){
+            outerProgress.reportCancelled();
+        }
+        else{
+            outerProgress.reportComplete();
+        }
+    }
+
+    private double GetTotalPercent(){
+
+        double sum = 0;
+
+        for (double percent : serverPercents){
+            sum += percent;
+        }
+
+        return sum / servers.size();
+    }
+}
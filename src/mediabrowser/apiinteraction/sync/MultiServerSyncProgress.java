@@ -1,52 +1,29 @@
 package mediabrowser.apiinteraction.sync;
 
-import mediabrowser.apiinteraction.tasks.CancellationToken;
-import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.devices.LocalFileInfo;
 
-import java.util.ArrayList;
-
 public class MultiServerSyncProgress extends SyncProgress {
 
-    private MultiServerSync multiServerSync;
-    private ArrayList<ServerInfo> servers;
-    private CancellationToken cancellationToken;
+    private MultiServerSyncOperation operation;
     private int index;
-    private double numServers;
-    private double[] numComplete;
     private SyncProgress outerProgress;
 
-    public MultiServerSyncProgress(MultiServerSync multiServerSync, ArrayList<ServerInfo> servers, CancellationToken cancellationToken, int index, double numServers, double[] numComplete, SyncProgress outerProgress) {
-        this.multiServerSync = multiServerSync;
-        this.servers = servers;
-        this.cancellationToken = cancellationToken;
+    public MultiServerSyncProgress(MultiServerSyncOperation operation, int index, SyncProgress outerProgress) {
+        this.operation = operation;
         this.index = index;
-        this.numServers = numServers;
-        this.numComplete = numComplete;
         this.outerProgress = outerProgress;
     }
 
-    private void OnServerDone(){
-
-        numComplete[0]++;
-        double percent = numComplete[0] / numServers;
-        outerProgress.report(percent * 100);
-
-        multiServerSync.SyncNext(servers, index + 1, cancellationToken, outerProgress);
-    }
-
     @Override
     public void onProgress(Double serverPercent) {
 
-        double percent = numComplete[0] / numServers;
-        percent += (serverPercent / 100);
-        outerProgress.report(percent * 100);
+        operation.OnServerProgress(index, serverPercent);
     }
 
     @Override
     public void onComplete() {
 
-        OnServerDone();
+        operation.OnServerDone(index, 100);
     }
 
     @Override
@@ -58,13 +35,13 @@ public class MultiServerSyncProgress extends SyncProgress {
     @Override
     public void onCancelled() {
 
-        OnServerDone();
+        operation.OnServerDone(index, 100);
     }
 
     @Override
     public void onError(Exception ex) {
 
-        OnServerDone();
+        operation.OnServerDone(index, 100);
     }
 
     @Override
@@ -12,6 +12,8 @@ import java.util.ArrayList;
  */
 public abstract class FileRepository implements IFileRepository {
 
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
     protected ILogger Logger;
 
     protected  FileRepository(ILogger logger){
@@ -26,19 +28,58 @@ public abstract class FileRepository implements IFileRepository {
     @Override
     public void saveFile(InputStream initialStream, String targetFile) throws IOException {
 
+        // Written to a temporary file and renamed, so an interrupted write never leaves a truncated file behind
+        String tempFile = targetFile + TEMP_FILE_EXTENSION;
+
+        try {
+            saveFile(initialStream, tempFile, false);
+        }
+        catch (IOException ex) {
+            new File(tempFile).delete();
+            throw ex;
+        }
+
+        moveFile(tempFile, targetFile);
+    }
+
+    @Override
+    public void saveFile(InputStream initialStream, String targetFile, boolean append) throws IOException {
+
         Files.createParentDirs(new File(targetFile));
 
-        try (OutputStream outStream = new FileOutputStream(targetFile)) {
+        try (OutputStream outStream = new FileOutputStream(targetFile, append)) {
 
-            byte[] buffer = new byte[8 * 1024];
+            byte[] buffer = new byte[64 * 1024];
             int bytesRead;
             while ((bytesRead = initialStream.read(buffer)) != -1) {
                 outStream.write(buffer, 0, bytesRead);
             }
-            outStream.close();
         }
     }
 
+    @Override
+    public long getFileLength(String path) {
+        return new File(path).length();
+    }
+
+    @Override
+    public void moveFile(String sourcePath, String targetPath) throws IOException {
+
+        File source = new File(sourcePath);
+        File target = new File(targetPath);
+
+        if (source.renameTo(target)) {
+            return;
+        }
+
+        // Some platforms will not rename over an existing file
+        if (target.exists() && target.delete() && source.renameTo(target)) {
+            return;
+        }
+
+        throw new IOException("Unable to move " + sourcePath + " to " + targetPath);
+    }
+
     @Override
     public void deleteFile(String path) {
         Logger.Info("Deleting file: %s", path);
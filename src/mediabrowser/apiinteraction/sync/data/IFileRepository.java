@@ -12,6 +12,21 @@ public interface IFileRepository {
 
     void saveFile(InputStream stream, String path) throws IOException;
 
+    /**
+     * Writes the stream straight to the path, appending to any existing content when append is true.
+     */
+    void saveFile(InputStream stream, String path, boolean append) throws IOException;
+
+    /**
+     * Gets the length of the file in bytes, or 0 if it does not exist.
+     */
+    long getFileLength(String path);
+
+    /**
+     * Moves a file, replacing any file already at the target path.
+     */
+    void moveFile(String sourcePath, String targetPath) throws IOException;
+
     void deleteFile(String path);
 
     void deleteDirectory(String path);
@@ -5,15 +5,31 @@ import mediabrowser.model.sync.LocalItemInfo;
 import mediabrowser.model.sync.LocalItemQuery;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface IItemRepository {
 
     void addOrUpdateItem(LocalItem item);
 
+    /**
+     * Saves all of the items in a single transaction.
+     */
+    void addOrUpdateItems(Collection<LocalItem> items);
+
     LocalItem getItem(String id);
 
+    /**
+     * Gets the items with the given ids. Ids with no item are skipped.
+     */
+    ArrayList<LocalItem> getItemsById(Collection<String> ids);
+
     void deleteItem(String id);
 
+    /**
+     * Deletes all of the items in a single transaction.
+     */
+    void deleteItems(Collection<String> ids);
+
     ArrayList<String> getServerItemIds(String serverId);
 
     ArrayList<String> getItemTypes(String serverId, String userId);
@@ -11,6 +11,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Created by Luke on 3/3/2015.
@@ -23,10 +25,31 @@ public interface ILocalAssetManager {
 
     void delete(LocalItem item);
 
+    /**
+     * Deletes the actions in a single transaction, for example once they have been reported to the server.
+     */
+    void deleteUserActions(Collection<UserAction> actions);
+
+    /**
+     * Deletes the records of all of the items in a single transaction. Their files are left in place.
+     */
+    void deleteItems(Collection<LocalItem> items);
+
     ArrayList<UserAction> getUserActions(String serverId);
 
     void addOrUpdate(LocalItem item);
 
+    /**
+     * Saves all of the items in a single transaction.
+     */
+    void addOrUpdateItems(Collection<LocalItem> items);
+
+    /**
+     * Sets which users can access each item, keyed by server item id. Items whose access changed are saved in a
+     * single transaction, and ids with no local item are skipped.
+     */
+    void updateUserAccess(String serverId, Map<String, ArrayList<String>> itemUserAccess);
+
     ArrayList<ItemFileInfo> getFiles(LocalItem item);
 
     void deleteFile(String path);
@@ -43,10 +66,32 @@ public interface ILocalAssetManager {
 
     LocalItem getLocalItem(String serverId, String itemId);
 
+    /**
+     * Gets the local items of the given server item ids, skipping ids that have not been synced.
+     */
+    ArrayList<LocalItem> getLocalItems(String serverId, Collection<String> itemIds);
+
     boolean fileExists(String path);
 
     void saveMedia(InputStream stream, LocalItem localItem, ServerInfo server) throws IOException;
 
+    /**
+     * Gets the number of bytes of the item's media already downloaded by an earlier, interrupted transfer.
+     */
+    long getPartialMediaLength(LocalItem localItem);
+
+    /**
+     * Writes media to the item's partial download file, appending when resuming a transfer.
+     */
+    void savePartialMedia(InputStream stream, LocalItem localItem, boolean append) throws IOException;
+
+    /**
+     * Moves the completed partial download into place at the item's local path.
+     */
+    void completePartialMedia(LocalItem localItem) throws IOException;
+
+    void deletePartialMedia(LocalItem localItem);
+
     ArrayList<String> getServerItemIds(String serverId);
 
     void saveOfflineUser(UserDto user);
@@ -2,6 +2,7 @@ package mediabrowser.apiinteraction.sync.data;
 
 import mediabrowser.model.users.UserAction;
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface IUserActionRepository {
 
@@ -9,6 +10,11 @@ public interface IUserActionRepository {
 
     void deleteUserAction(UserAction action);
 
+    /**
+     * Deletes all of the actions in a single transaction.
+     */
+    void deleteUserActions(Collection<UserAction> actions);
+
     ArrayList<UserAction> getUserActions(String serverId);
 
 }
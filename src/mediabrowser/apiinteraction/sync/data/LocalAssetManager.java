@@ -2,18 +2,17 @@ package mediabrowser.apiinteraction.sync.data;
 
 import com.google.common.io.Files;
 import mediabrowser.apiinteraction.cryptography.Md5;
-import mediabrowser.apiinteraction.sync.data.comparators.SortNameComparator;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.dto.BaseItemDto;
 import mediabrowser.model.dto.MediaSourceInfo;
 import mediabrowser.model.dto.UserDto;
 import mediabrowser.model.entities.CollectionType;
-import mediabrowser.model.entities.ImageType;
 import mediabrowser.model.entities.MediaType;
 import mediabrowser.model.extensions.ListHelper;
 import mediabrowser.model.extensions.StringHelper;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.mediainfo.MediaProtocol;
+import mediabrowser.model.serialization.IJsonSerializer;
 import mediabrowser.model.sync.*;
 import mediabrowser.model.users.UserAction;
 
@@ -33,14 +32,16 @@ public class LocalAssetManager implements ILocalAssetManager {
     private IUserRepository userRepository;
     private IImageRepository imageRepository;
     private ILogger logger;
+    private OfflineBrowseIndex browseIndex;
 
-    public LocalAssetManager(IUserActionRepository userActionRepository, IItemRepository itemRepository, IFileRepository fileRepository, IUserRepository userRepository, IImageRepository imageRepository, ILogger logger) {
+    public LocalAssetManager(IUserActionRepository userActionRepository, IItemRepository itemRepository, IFileRepository fileRepository, IUserRepository userRepository, IImageRepository imageRepository, ILogger logger, IJsonSerializer jsonSerializer) {
         this.userActionRepository = userActionRepository;
         this.itemRepository = itemRepository;
         this.fileRepository = fileRepository;
         this.userRepository = userRepository;
         this.imageRepository = imageRepository;
         this.logger = logger;
+        this.browseIndex = new OfflineBrowseIndex(itemRepository, jsonSerializer);
     }
 
     @Override
@@ -59,6 +60,25 @@ public class LocalAssetManager implements ILocalAssetManager {
     @Override
     public void delete(LocalItem item) {
         itemRepository.deleteItem(item.getId());
+        browseIndex.remove(Collections.singletonList(item));
+    }
+
+    @Override
+    public void deleteUserActions(Collection<UserAction> actions) {
+        userActionRepository.deleteUserActions(actions);
+    }
+
+    @Override
+    public void deleteItems(Collection<LocalItem> items) {
+
+        ArrayList<String> ids = new ArrayList<String>(items.size());
+
+        for (LocalItem item : items) {
+            ids.add(item.getId());
+        }
+
+        itemRepository.deleteItems(ids);
+        browseIndex.remove(items);
     }
 
     @Override
@@ -69,6 +89,32 @@ public class LocalAssetManager implements ILocalAssetManager {
     @Override
     public void addOrUpdate(LocalItem item) {
         itemRepository.addOrUpdateItem(item);
+        browseIndex.addOrUpdate(Collections.singletonList(item));
+    }
+
+    @Override
+    public void addOrUpdateItems(Collection<LocalItem> items) {
+        itemRepository.addOrUpdateItems(items);
+        browseIndex.addOrUpdate(items);
+    }
+
+    @Override
+    public void updateUserAccess(String serverId, Map<String, ArrayList<String>> itemUserAccess) {
+
+        ArrayList<LocalItem> changed = new ArrayList<LocalItem>();
+
+        for (LocalItem localItem : getLocalItems(serverId, itemUserAccess.keySet())) {
+
+            ArrayList<String> userIdsWithAccess = itemUserAccess.get(localItem.getItemId());
+
+            if (userIdsWithAccess != null && !userIdsWithAccess.equals(localItem.getUserIdsWithAccess())) {
+                localItem.setUserIdsWithAccess(userIdsWithAccess);
+                changed.add(localItem);
+            }
+        }
+
+        logger.Debug("Updating user access of %s items", changed.size());
+        addOrUpdateItems(changed);
     }
 
     @Override
@@ -88,6 +134,9 @@ public class LocalAssetManager implements ILocalAssetManager {
             if (StringHelper.IndexOfIgnoreCase(file.getName(), name) == -1){
                 continue;
             }
+            if (file.getName().endsWith(PartialMediaExtension)){
+                continue;
+            }
             ItemFileInfo itemFile = new ItemFileInfo();
             itemFile.setPath(file.getPath());
             itemFile.setName(file.getName());
@@ -111,9 +160,38 @@ public class LocalAssetManager implements ILocalAssetManager {
     public void saveMedia(InputStream stream, LocalItem localItem, ServerInfo server) throws IOException {
 
         logger.Debug("Saving media to " + localItem.getLocalPath());
-        fileRepository.saveFile(stream, localItem.getLocalPath());
+        savePartialMedia(stream, localItem, false);
+        completePartialMedia(localItem);
+    }
+
+    @Override
+    public long getPartialMediaLength(LocalItem localItem) {
+        return fileRepository.getFileLength(getPartialMediaPath(localItem));
+    }
+
+    @Override
+    public void savePartialMedia(InputStream stream, LocalItem localItem, boolean append) throws IOException {
+
+        fileRepository.saveFile(stream, getPartialMediaPath(localItem), append);
     }
 
+    @Override
+    public void completePartialMedia(LocalItem localItem) throws IOException {
+
+        fileRepository.moveFile(getPartialMediaPath(localItem), localItem.getLocalPath());
+    }
+
+    @Override
+    public void deletePartialMedia(LocalItem localItem) {
+        fileRepository.deleteFile(getPartialMediaPath(localItem));
+    }
+
+    private String getPartialMediaPath(LocalItem localItem) {
+        return localItem.getLocalPath() + PartialMediaExtension;
+    }
+
+    private static String PartialMediaExtension = ".partial";
+
     private static String[] SupportedImageExtensions = { ".png", ".jpg", ".jpeg", ".webp" };
     private boolean isImageFile(String path)
     {
@@ -270,6 +348,18 @@ public class LocalAssetManager implements ILocalAssetManager {
         return getLocalItem(getLocalId(serverId, itemId));
     }
 
+    @Override
+    public ArrayList<LocalItem> getLocalItems(String serverId, Collection<String> itemIds) {
+
+        ArrayList<String> localIds = new ArrayList<String>(itemIds.size());
+
+        for (String itemId : itemIds) {
+            localIds.add(getLocalId(serverId, itemId));
+        }
+
+        return itemRepository.getItemsById(localIds);
+    }
+
     @Override
     public boolean fileExists(String path) {
         return fileRepository.fileExists(path);
@@ -327,7 +417,7 @@ public class LocalAssetManager implements ILocalAssetManager {
 
         ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
 
-        ArrayList<String> types = itemRepository.getItemTypes(serverId, userId);
+        ArrayList<String> types = browseIndex.getItemTypes(serverId, userId);
 
         if (ListHelper.ContainsIgnoreCase(types, "Audio"))
         {
@@ -383,315 +473,40 @@ public class LocalAssetManager implements ILocalAssetManager {
 
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "MusicView"))
         {
-            return getMusicArtists(user, parentItem);
+            return browseIndex.getMusicArtists(user.getServerId(), user.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "MusicArtist"))
         {
-            return getMusicAlbums(user, parentItem);
+            return browseIndex.getMusicAlbums(user.getServerId(), user.getId(), parentItem.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "MusicAlbum"))
         {
-            return getAlbumSongs(user, parentItem);
+            return browseIndex.getAlbumSongs(user.getServerId(), user.getId(), parentItem.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "PhotosView"))
         {
-            return getPhotoAlbums(user, parentItem);
+            return browseIndex.getPhotoAlbums(user.getServerId(), user.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "PhotoAlbum"))
         {
-            return getPhotos(user, parentItem);
+            return browseIndex.getPhotos(user.getServerId(), user.getId(), parentItem.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "VideosView"))
         {
-            return getVideos(user, parentItem);
+            return browseIndex.getVideos(user.getServerId(), user.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "TVView"))
         {
-            return getTvSeries(user, parentItem);
+            return browseIndex.getTvSeries(user.getServerId(), user.getId());
         }
         if (StringHelper.EqualsIgnoreCase(parentItem.getType(), "Series"))
         {
-            return getTvEpisodes(user, parentItem);
+            return browseIndex.getTvEpisodes(user.getServerId(), user.getId(), parentItem.getId());
         }
 
         return new ArrayList<BaseItemDto>();
     }
 
-    private ArrayList<BaseItemDto> getMusicArtists(UserDto user, BaseItemDto parentItem)
-    {
-        ArrayList<LocalItemInfo> artists = itemRepository.getAlbumArtists(user.getServerId(), user.getId());
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItemInfo item : artists){
-
-            BaseItemDto showItem = new BaseItemDto();
-            showItem.setId(item.getId());
-            showItem.setName(item.getName());
-            showItem.setSortName(item.getName());
-            showItem.setType("MusicArtist");
-            showItem.setServerId(item.getServerId());
-
-            showItem.setImageTags(new HashMap<ImageType, String>());
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(item.getPrimaryImageTag())) {
-                showItem.getImageTags().put(ImageType.Primary, item.getPrimaryImageTag());
-            }
-
-            newList.add(showItem);
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getMusicAlbums(UserDto user, BaseItemDto parentItem)
-    {
-        LocalItemQuery query = new LocalItemQuery();
-        query.setServerId(user.getServerId());
-        query.setAlbumArtistId(parentItem.getId());
-        query.setType("Audio");
-
-        ArrayList<LocalItem> items = itemRepository.getItems(query);
-
-        items = filterByUserAccess(items, user);
-
-        HashMap<String, List<BaseItemDto>> dict = new HashMap<>();
-
-        for (LocalItem item : items)
-        {
-            String albumId = item.getItem().getAlbumId();
-
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(albumId))
-            {
-                ArrayList<BaseItemDto> subItems;
-                if (dict.containsValue(albumId))
-                {
-                    subItems = (ArrayList<BaseItemDto>)dict.get(albumId);
-                }
-                else{
-                    subItems = new ArrayList<BaseItemDto>();
-                    dict.put(albumId, subItems);
-                }
-                subItems.add(item.getItem());
-            }
-        }
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (String albumId : dict.keySet()){
-
-            ArrayList<BaseItemDto> subItems = (ArrayList<BaseItemDto>)dict.get(albumId);
-
-            BaseItemDto showItem = new BaseItemDto();
-            showItem.setId(albumId);
-            showItem.setName(subItems.get(0).getAlbum());
-            showItem.setSortName(showItem.getName());
-            showItem.setType("MusicAlbum");
-            showItem.setServerId(user.getServerId());
-
-            showItem.setSongCount(subItems.size());
-            showItem.setChildCount(showItem.getSongCount());
-
-            showItem.setAlbumPrimaryImageTag(subItems.get(0).getAlbumPrimaryImageTag());
-
-            showItem.setImageTags(new HashMap<ImageType, String>());
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(showItem.getAlbumPrimaryImageTag()))
-            {
-                showItem.getImageTags().put(ImageType.Primary, showItem.getAlbumPrimaryImageTag());
-            }
-
-            ArrayList<String> genres = new ArrayList<>();
-            ArrayList<String> artists = new ArrayList<>();
-
-            for (BaseItemDto subItem : subItems){
-                for (String text : subItem.getGenres()){
-                    if (!ListHelper.ContainsIgnoreCase(genres, text)){
-                        genres.add(text);
-                    }
-                }
-                for (String text : subItem.getArtists()){
-                    if (!ListHelper.ContainsIgnoreCase(artists, text)){
-                        artists.add(text);
-                    }
-                }
-            }
-
-            showItem.setGenres(genres);
-            showItem.setArtists(artists);
-
-            newList.add(showItem);
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getAlbumSongs(UserDto user, BaseItemDto parentItem)
-    {
-        LocalItemQuery query = new LocalItemQuery();
-        query.setServerId(user.getServerId());
-        query.setAlbumId(parentItem.getId());
-        query.setMediaType("Audio");
-
-        ArrayList<LocalItem> items = itemRepository.getItems(query);
-
-        items = filterByUserAccess(items, user);
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItem item : items){
-
-            newList.add(item.getItem());
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getPhotoAlbums(UserDto user, BaseItemDto parentItem)
-    {
-        ArrayList<LocalItemInfo> shows = itemRepository.getPhotoAlbums(user.getServerId(), user.getId());
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItemInfo item : shows){
-
-            BaseItemDto showItem = new BaseItemDto();
-            showItem.setId(item.getId());
-            showItem.setName(item.getName());
-            showItem.setSortName(item.getName());
-            showItem.setType("PhotoAlbum");
-            showItem.setServerId(item.getServerId());
-
-            showItem.setImageTags(new HashMap<ImageType, String>());
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(item.getPrimaryImageTag()))
-            {
-                showItem.getImageTags().put(ImageType.Primary, item.getPrimaryImageTag());
-            }
-
-            newList.add(showItem);
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getPhotos(UserDto user, BaseItemDto parentItem)
-    {
-        LocalItemQuery query = new LocalItemQuery();
-        query.setServerId(user.getServerId());
-        query.setAlbumId(parentItem.getId());
-        query.setMediaType("Photo");
-
-        ArrayList<LocalItem> items = itemRepository.getItems(query);
-
-        items = filterByUserAccess(items, user);
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItem item : items){
-
-            newList.add(item.getItem());
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getTvSeries(UserDto user, BaseItemDto parentItem)
-    {
-        ArrayList<LocalItemInfo> shows = itemRepository.getTvSeries(user.getServerId(), user.getId());
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItemInfo item : shows){
-
-            BaseItemDto showItem = new BaseItemDto();
-            showItem.setId(item.getId());
-            showItem.setName(item.getName());
-            showItem.setSortName(item.getName());
-            showItem.setType("Series");
-            showItem.setServerId(item.getServerId());
-
-            showItem.setImageTags(new HashMap<ImageType, String>());
-            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(item.getPrimaryImageTag()))
-            {
-                showItem.getImageTags().put(ImageType.Primary, item.getPrimaryImageTag());
-            }
-
-            newList.add(showItem);
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getTvEpisodes(UserDto user, BaseItemDto parentItem)
-    {
-        LocalItemQuery query = new LocalItemQuery();
-        query.setServerId(user.getServerId());
-        query.setSeriesId(parentItem.getId());
-        query.setMediaType("Video");
-        query.setType("Episode");
-
-        ArrayList<LocalItem> items = itemRepository.getItems(query);
-
-        items = filterByUserAccess(items, user);
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItem item : items){
-
-            newList.add(item.getItem());
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<BaseItemDto> getVideos(UserDto user, BaseItemDto parentItem)
-    {
-        LocalItemQuery query = new LocalItemQuery();
-        query.setServerId(user.getServerId());
-        query.setMediaType("Video");
-        query.setExcludeTypes(new String[] { "Episode" });
-
-        ArrayList<LocalItem> items = itemRepository.getItems(query);
-
-        items = filterByUserAccess(items, user);
-
-        ArrayList<BaseItemDto> newList = new ArrayList<>();
-
-        for (LocalItem item : items){
-
-            newList.add(item.getItem());
-        }
-
-        Collections.sort(newList, new SortNameComparator());
-
-        return newList;
-    }
-
-    private ArrayList<LocalItem> filterByUserAccess(ArrayList<LocalItem> items, UserDto user)
-    {
-        ArrayList<LocalItem> newList = new ArrayList<>();
-
-        for (LocalItem item : items){
-
-            if (ListHelper.ContainsIgnoreCase(item.getUserIdsWithAccess(), user.getId())) {
-                newList.add(item);
-            }
-        }
-        return newList;
-    }
-
     @Override
     public UserDto getUser(String id) {
         return userRepository.getUser(id);
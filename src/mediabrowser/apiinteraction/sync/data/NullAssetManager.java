@@ -9,6 +9,8 @@ import mediabrowser.model.users.UserAction;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 
 public class NullAssetManager implements ILocalAssetManager {
 
@@ -28,6 +30,16 @@ public class NullAssetManager implements ILocalAssetManager {
 
     }
 
+    @Override
+    public void deleteUserActions(Collection<UserAction> actions) {
+
+    }
+
+    @Override
+    public void deleteItems(Collection<LocalItem> items) {
+
+    }
+
     @Override
     public ArrayList<UserAction> getUserActions(String serverId) {
         return new ArrayList<UserAction>();
@@ -38,6 +50,16 @@ public class NullAssetManager implements ILocalAssetManager {
 
     }
 
+    @Override
+    public void addOrUpdateItems(Collection<LocalItem> items) {
+
+    }
+
+    @Override
+    public void updateUserAccess(String serverId, Map<String, ArrayList<String>> itemUserAccess) {
+
+    }
+
     @Override
     public ArrayList<ItemFileInfo> getFiles(LocalItem item) {
         return new ArrayList<ItemFileInfo>();
@@ -73,6 +95,11 @@ public class NullAssetManager implements ILocalAssetManager {
         return null;
     }
 
+    @Override
+    public ArrayList<LocalItem> getLocalItems(String serverId, Collection<String> itemIds) {
+        return new ArrayList<LocalItem>();
+    }
+
     @Override
     public boolean fileExists(String path) {
         return false;
@@ -94,6 +121,26 @@ public class NullAssetManager implements ILocalAssetManager {
 
     }
 
+    @Override
+    public long getPartialMediaLength(LocalItem localItem) {
+        return 0;
+    }
+
+    @Override
+    public void savePartialMedia(InputStream stream, LocalItem localItem, boolean append) {
+
+    }
+
+    @Override
+    public void completePartialMedia(LocalItem localItem) {
+
+    }
+
+    @Override
+    public void deletePartialMedia(LocalItem localItem) {
+
+    }
+
     @Override
     public void deleteOfflineUser(String id) {
 
@@ -0,0 +1,582 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import mediabrowser.apiinteraction.sync.data.comparators.SortNameComparator;
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.dto.NameIdPair;
+import mediabrowser.model.entities.ImageType;
+import mediabrowser.model.extensions.StringHelper;
+import mediabrowser.model.serialization.IJsonSerializer;
+import mediabrowser.model.sync.LocalItem;
+import mediabrowser.model.sync.LocalItemQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the synced items of each server in memory, grouped the way the offline screens browse them.
+ *
+ * A server's items are read from the repository the first time one of its users browses, and each user's groupings
+ * by type, album, series and artist are built the first time that user browses. The groupings are kept sorted by
+ * name and are updated in place as items are saved and deleted, so they are never rebuilt from the repository.
+ * Each screen's list is cached until an item it could contain changes.
+ *
+ * The index's items are shared by every call, so callers are given copies they are free to modify.
+ */
+class OfflineBrowseIndex {
+
+    private static final SortNameComparator NameComparator = new SortNameComparator();
+
+    private static final int MusicArtists = 0;
+    private static final int MusicAlbums = 1;
+    private static final int AlbumSongs = 2;
+    private static final int PhotoAlbums = 3;
+    private static final int Photos = 4;
+    private static final int TvSeries = 5;
+    private static final int TvEpisodes = 6;
+    private static final int Videos = 7;
+
+    private final IItemRepository itemRepository;
+    private final IJsonSerializer jsonSerializer;
+    private final HashMap<String, ServerIndex> servers = new HashMap<String, ServerIndex>();
+
+    OfflineBrowseIndex(IItemRepository itemRepository, IJsonSerializer jsonSerializer) {
+        this.itemRepository = itemRepository;
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    synchronized ArrayList<String> getItemTypes(String serverId, String userId) {
+        return new ArrayList<String>(getUserIndex(serverId, userId).typeCounts.keySet());
+    }
+
+    ArrayList<BaseItemDto> getMusicArtists(String serverId, String userId) {
+        return getView(serverId, userId, MusicArtists, null);
+    }
+
+    ArrayList<BaseItemDto> getMusicAlbums(String serverId, String userId, String artistId) {
+        return getView(serverId, userId, MusicAlbums, artistId);
+    }
+
+    ArrayList<BaseItemDto> getAlbumSongs(String serverId, String userId, String albumId) {
+        return getView(serverId, userId, AlbumSongs, albumId);
+    }
+
+    ArrayList<BaseItemDto> getPhotoAlbums(String serverId, String userId) {
+        return getView(serverId, userId, PhotoAlbums, null);
+    }
+
+    ArrayList<BaseItemDto> getPhotos(String serverId, String userId, String albumId) {
+        return getView(serverId, userId, Photos, albumId);
+    }
+
+    ArrayList<BaseItemDto> getTvSeries(String serverId, String userId) {
+        return getView(serverId, userId, TvSeries, null);
+    }
+
+    ArrayList<BaseItemDto> getTvEpisodes(String serverId, String userId, String seriesId) {
+        return getView(serverId, userId, TvEpisodes, seriesId);
+    }
+
+    ArrayList<BaseItemDto> getVideos(String serverId, String userId) {
+        return getView(serverId, userId, Videos, null);
+    }
+
+    /**
+     * Applies items that were just saved to the repository. Servers that have not been browsed yet are left alone,
+     * since they will read the saved items when they are.
+     */
+    synchronized void addOrUpdate(Collection<LocalItem> items) {
+
+        for (LocalItem item : items) {
+
+            ServerIndex server = servers.get(item.getServerId());
+
+            if (server != null) {
+                server.put(item);
+            }
+        }
+    }
+
+    synchronized void remove(Collection<LocalItem> items) {
+
+        for (LocalItem item : items) {
+
+            ServerIndex server = servers.get(item.getServerId());
+
+            if (server != null) {
+                server.remove(item.getId());
+            }
+        }
+    }
+
+    private ArrayList<BaseItemDto> getView(String serverId, String userId, int viewType, String parentId) {
+
+        ArrayList<BaseItemDto> view;
+
+        synchronized (this) {
+            view = new ArrayList<BaseItemDto>(getUserIndex(serverId, userId).getView(viewType, parentId));
+        }
+
+        // Indexed items are replaced rather than changed when they are saved, so they can be copied outside the lock
+        ArrayList<BaseItemDto> copies = new ArrayList<BaseItemDto>(view.size());
+
+        for (BaseItemDto item : view) {
+            copies.add((BaseItemDto) jsonSerializer.DeserializeFromString(jsonSerializer.SerializeToString(item), BaseItemDto.class));
+        }
+
+        return copies;
+    }
+
+    private UserIndex getUserIndex(String serverId, String userId) {
+
+        ServerIndex server = servers.get(serverId);
+
+        if (server == null) {
+
+            LocalItemQuery query = new LocalItemQuery();
+            query.setServerId(serverId);
+
+            server = new ServerIndex(serverId, itemRepository.getItems(query));
+            servers.put(serverId, server);
+        }
+
+        return server.getUserIndex(userId);
+    }
+
+    private static class ServerIndex {
+
+        private final String serverId;
+        private final HashMap<String, LocalItem> items = new HashMap<String, LocalItem>();
+        private final HashMap<String, UserIndex> users = new HashMap<String, UserIndex>();
+
+        private ServerIndex(String serverId, ArrayList<LocalItem> items) {
+
+            this.serverId = serverId;
+
+            for (LocalItem item : items) {
+                this.items.put(item.getId(), item);
+            }
+        }
+
+        private UserIndex getUserIndex(String userId) {
+
+            // User access is matched ignoring case
+            String key = userId.toLowerCase(Locale.US);
+            UserIndex user = users.get(key);
+
+            if (user == null) {
+
+                user = new UserIndex(serverId, userId);
+
+                for (LocalItem item : items.values()) {
+                    user.add(item);
+                }
+
+                users.put(key, user);
+            }
+
+            return user;
+        }
+
+        private void put(LocalItem item) {
+
+            LocalItem previous = items.put(item.getId(), item);
+
+            for (UserIndex user : users.values()) {
+
+                if (previous != null) {
+                    user.remove(previous);
+                }
+                user.add(item);
+            }
+        }
+
+        private void remove(String id) {
+
+            LocalItem previous = items.remove(id);
+
+            if (previous != null) {
+                for (UserIndex user : users.values()) {
+                    user.remove(previous);
+                }
+            }
+        }
+    }
+
+    private static class UserIndex {
+
+        private final String serverId;
+        private final String userId;
+
+        private final HashMap<String, Integer> typeCounts = new HashMap<String, Integer>();
+        private final HashMap<String, ArrayList<BaseItemDto>> byArtist = new HashMap<String, ArrayList<BaseItemDto>>();
+        private final HashMap<String, ArrayList<BaseItemDto>> byAlbum = new HashMap<String, ArrayList<BaseItemDto>>();
+        private final HashMap<String, ArrayList<BaseItemDto>> bySeries = new HashMap<String, ArrayList<BaseItemDto>>();
+        private final ArrayList<BaseItemDto> videos = new ArrayList<BaseItemDto>();
+
+        private final HashMap<String, ArrayList<BaseItemDto>> views = new HashMap<String, ArrayList<BaseItemDto>>();
+
+        private UserIndex(String serverId, String userId) {
+            this.serverId = serverId;
+            this.userId = userId;
+        }
+
+        private boolean hasAccess(LocalItem item) {
+
+            if (item.getUserIdsWithAccess() == null) {
+                return false;
+            }
+
+            for (String id : item.getUserIdsWithAccess()) {
+                if (userId.equalsIgnoreCase(id)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void add(LocalItem localItem) {
+
+            BaseItemDto item = localItem.getItem();
+
+            if (item == null || !hasAccess(localItem)) {
+                return;
+            }
+
+            views.clear();
+
+            String type = item.getType();
+            if (type != null) {
+                Integer count = typeCounts.get(type);
+                typeCounts.put(type, count == null ? 1 : count + 1);
+            }
+
+            if (item.getAlbumArtists() != null) {
+                for (NameIdPair artist : item.getAlbumArtists()) {
+                    insert(getBucket(byArtist, artist.getId()), item);
+                }
+            }
+
+            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(item.getAlbumId())) {
+                insert(getBucket(byAlbum, item.getAlbumId()), item);
+            }
+
+            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(item.getSeriesId())) {
+                insert(getBucket(bySeries, item.getSeriesId()), item);
+            }
+
+            if (isVideo(item) && !isEpisode(item)) {
+                insert(videos, item);
+            }
+        }
+
+        private void remove(LocalItem localItem) {
+
+            BaseItemDto item = localItem.getItem();
+
+            if (item == null || !hasAccess(localItem)) {
+                return;
+            }
+
+            views.clear();
+
+            String type = item.getType();
+            if (type != null) {
+                Integer count = typeCounts.get(type);
+                if (count != null && count > 1) {
+                    typeCounts.put(type, count - 1);
+                } else {
+                    typeCounts.remove(type);
+                }
+            }
+
+            if (item.getAlbumArtists() != null) {
+                for (NameIdPair artist : item.getAlbumArtists()) {
+                    removeFromBucket(byArtist, artist.getId(), item);
+                }
+            }
+
+            removeFromBucket(byAlbum, item.getAlbumId(), item);
+            removeFromBucket(bySeries, item.getSeriesId(), item);
+            removeByIdentity(videos, item);
+        }
+
+        private ArrayList<BaseItemDto> getView(int viewType, String parentId) {
+
+            String key = viewType + ":" + parentId;
+            ArrayList<BaseItemDto> view = views.get(key);
+
+            if (view == null) {
+                view = buildView(viewType, parentId);
+                views.put(key, view);
+            }
+
+            return view;
+        }
+
+        private ArrayList<BaseItemDto> buildView(int viewType, String parentId) {
+
+            switch (viewType) {
+                case MusicArtists:
+                    return getMusicArtists();
+                case MusicAlbums:
+                    return getMusicAlbums(parentId);
+                case AlbumSongs:
+                    return filter(byAlbum.get(parentId), "Audio", null);
+                case PhotoAlbums:
+                    return getPhotoAlbums();
+                case Photos:
+                    return filter(byAlbum.get(parentId), "Photo", null);
+                case TvSeries:
+                    return getTvSeries();
+                case TvEpisodes:
+                    return filter(bySeries.get(parentId), "Video", "Episode");
+                default:
+                    return videos;
+            }
+        }
+
+        private ArrayList<BaseItemDto> getMusicArtists() {
+
+            ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
+
+            for (Map.Entry<String, ArrayList<BaseItemDto>> entry : byArtist.entrySet()) {
+
+                String name = null;
+
+                for (NameIdPair artist : entry.getValue().get(0).getAlbumArtists()) {
+                    if (entry.getKey().equals(artist.getId())) {
+                        name = artist.getName();
+                        break;
+                    }
+                }
+
+                list.add(createFolder(entry.getKey(), name, "MusicArtist", null));
+            }
+
+            Collections.sort(list, NameComparator);
+
+            return list;
+        }
+
+        private ArrayList<BaseItemDto> getMusicAlbums(String artistId) {
+
+            LinkedHashMap<String, ArrayList<BaseItemDto>> albums = new LinkedHashMap<String, ArrayList<BaseItemDto>>();
+
+            for (BaseItemDto item : filter(byArtist.get(artistId), null, "Audio")) {
+
+                String albumId = item.getAlbumId();
+
+                if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(albumId)) {
+
+                    ArrayList<BaseItemDto> songs = albums.get(albumId);
+
+                    if (songs == null) {
+                        songs = new ArrayList<BaseItemDto>();
+                        albums.put(albumId, songs);
+                    }
+                    songs.add(item);
+                }
+            }
+
+            ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
+
+            for (Map.Entry<String, ArrayList<BaseItemDto>> entry : albums.entrySet()) {
+
+                ArrayList<BaseItemDto> songs = entry.getValue();
+                BaseItemDto first = songs.get(0);
+
+                BaseItemDto album = createFolder(entry.getKey(), first.getAlbum(), "MusicAlbum", first.getAlbumPrimaryImageTag());
+                album.setSongCount(songs.size());
+                album.setChildCount(album.getSongCount());
+                album.setAlbumPrimaryImageTag(first.getAlbumPrimaryImageTag());
+
+                ArrayList<String> genres = new ArrayList<String>();
+                ArrayList<String> artists = new ArrayList<String>();
+                TreeSet<String> seenGenres = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+                TreeSet<String> seenArtists = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+                for (BaseItemDto song : songs) {
+                    addDistinct(genres, seenGenres, song.getGenres());
+                    addDistinct(artists, seenArtists, song.getArtists());
+                }
+
+                album.setGenres(genres);
+                album.setArtists(artists);
+
+                list.add(album);
+            }
+
+            Collections.sort(list, NameComparator);
+
+            return list;
+        }
+
+        private ArrayList<BaseItemDto> getPhotoAlbums() {
+
+            ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
+
+            for (Map.Entry<String, ArrayList<BaseItemDto>> entry : byAlbum.entrySet()) {
+
+                BaseItemDto first = null;
+                String imageTag = null;
+
+                for (BaseItemDto item : entry.getValue()) {
+
+                    if (StringHelper.EqualsIgnoreCase(item.getMediaType(), "Photo")) {
+
+                        if (first == null) {
+                            first = item;
+                        }
+                        if (imageTag == null) {
+                            imageTag = item.getAlbumPrimaryImageTag();
+                        }
+                    }
+                }
+
+                if (first != null) {
+                    list.add(createFolder(entry.getKey(), first.getAlbum(), "PhotoAlbum", imageTag));
+                }
+            }
+
+            Collections.sort(list, NameComparator);
+
+            return list;
+        }
+
+        private ArrayList<BaseItemDto> getTvSeries() {
+
+            ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
+
+            for (Map.Entry<String, ArrayList<BaseItemDto>> entry : bySeries.entrySet()) {
+
+                String name = null;
+                String imageTag = null;
+
+                for (BaseItemDto item : entry.getValue()) {
+
+                    if (name == null) {
+                        name = item.getSeriesName();
+                    }
+                    if (imageTag == null) {
+                        imageTag = item.getSeriesPrimaryImageTag();
+                    }
+                }
+
+                list.add(createFolder(entry.getKey(), name, "Series", imageTag));
+            }
+
+            Collections.sort(list, NameComparator);
+
+            return list;
+        }
+
+        private BaseItemDto createFolder(String id, String name, String type, String primaryImageTag) {
+
+            BaseItemDto item = new BaseItemDto();
+            item.setId(id);
+            item.setName(name);
+            item.setSortName(name);
+            item.setType(type);
+            item.setServerId(serverId);
+
+            item.setImageTags(new HashMap<ImageType, String>());
+            if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(primaryImageTag)) {
+                item.getImageTags().put(ImageType.Primary, primaryImageTag);
+            }
+
+            return item;
+        }
+    }
+
+    private static boolean isVideo(BaseItemDto item) {
+        return StringHelper.EqualsIgnoreCase(item.getMediaType(), "Video");
+    }
+
+    private static boolean isEpisode(BaseItemDto item) {
+        return StringHelper.EqualsIgnoreCase(item.getType(), "Episode");
+    }
+
+    /**
+     * @return The items of the sorted bucket with the media type and type, either of which may be null to match any.
+     */
+    private static ArrayList<BaseItemDto> filter(ArrayList<BaseItemDto> bucket, String mediaType, String type) {
+
+        ArrayList<BaseItemDto> list = new ArrayList<BaseItemDto>();
+
+        if (bucket != null) {
+            for (BaseItemDto item : bucket) {
+
+                if ((mediaType == null || StringHelper.EqualsIgnoreCase(item.getMediaType(), mediaType)) &&
+                        (type == null || StringHelper.EqualsIgnoreCase(item.getType(), type))) {
+                    list.add(item);
+                }
+            }
+        }
+
+        return list;
+    }
+
+    private static void addDistinct(ArrayList<String> list, TreeSet<String> seen, ArrayList<String> values) {
+
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && seen.add(value)) {
+                    list.add(value);
+                }
+            }
+        }
+    }
+
+    private static ArrayList<BaseItemDto> getBucket(HashMap<String, ArrayList<BaseItemDto>> buckets, String key) {
+
+        ArrayList<BaseItemDto> bucket = buckets.get(key);
+
+        if (bucket == null) {
+            bucket = new ArrayList<BaseItemDto>();
+            buckets.put(key, bucket);
+        }
+
+        return bucket;
+    }
+
+    private static void removeFromBucket(HashMap<String, ArrayList<BaseItemDto>> buckets, String key, BaseItemDto item) {
+
+        ArrayList<BaseItemDto> bucket = buckets.get(key);
+
+        if (bucket != null) {
+            removeByIdentity(bucket, item);
+
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private static void insert(ArrayList<BaseItemDto> list, BaseItemDto item) {
+
+        int index = Collections.binarySearch(list, item, NameComparator);
+
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        list.add(index, item);
+    }
+
+    private static void removeByIdentity(ArrayList<BaseItemDto> list, BaseItemDto item) {
+
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) {
+                list.remove(i);
+                return;
+            }
+        }
+    }
+}
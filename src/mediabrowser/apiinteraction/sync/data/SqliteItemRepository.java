@@ -0,0 +1,608 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import com.almworks.sqlite4java.SQLiteConnection;
+import com.almworks.sqlite4java.SQLiteException;
+import com.almworks.sqlite4java.SQLiteJob;
+import com.almworks.sqlite4java.SQLiteQueue;
+import com.almworks.sqlite4java.SQLiteStatement;
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.dto.NameIdPair;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.serialization.IJsonSerializer;
+import mediabrowser.model.sync.LocalItem;
+import mediabrowser.model.sync.LocalItemInfo;
+import mediabrowser.model.sync.LocalItemQuery;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Item repository backed by SQLite through sqlite4java, for use outside of Android.
+ *
+ * Connections stay open for the life of the repository. sqlite4java confines a connection to one thread, so each
+ * connection is owned by a queue thread: one for writes and a small pool for reads, which run alongside writes
+ * since the database is in WAL mode. Statements are prepared once per connection and reused from its cache.
+ *
+ * Which users can see an item, and an item's album artists, are kept in their own indexed tables, so the browse
+ * queries for artists, series and photo albums read only the columns they return and never parse item json.
+ *
+ * The sqlite4java native library must be on java.library.path or set with SQLite.setLibraryPath.
+ */
+public class SqliteItemRepository implements IItemRepository {
+
+    private static final int SchemaVersion = 1;
+    private static final int DefaultReaderCount = 2;
+    // Stays under SQLite's default limit of 999 bound parameters per statement
+    private static final int MaxIdsPerStatement = 500;
+    private static final long BusyTimeoutMs = 5000;
+
+    private static final String[] Schema = new String[] {
+            "create table if not exists Items (Id text primary key, ItemId text not null, ItemType text not null, MediaType text, ServerId text not null, LocalPath text not null, UserIdsWithAccess text, AlbumId text, AlbumName text, AlbumPrimaryImageTag text, SeriesId text, SeriesName text, SeriesPrimaryImageTag text, Json text not null)",
+            "create index if not exists Items_ServerId_ItemType on Items (ServerId, ItemType)",
+            "create index if not exists Items_ServerId_MediaType on Items (ServerId, MediaType)",
+            "create index if not exists Items_AlbumId on Items (AlbumId)",
+            "create index if not exists Items_SeriesId on Items (SeriesId)",
+            "create table if not exists ItemUsers (ItemId text not null, UserId text not null, primary key (UserId, ItemId))",
+            "create index if not exists ItemUsers_ItemId on ItemUsers (ItemId)",
+            "create table if not exists AlbumArtists (ItemId text not null, Id text not null, Name text, primary key (ItemId, Id))",
+            "create index if not exists AlbumArtists_Id on AlbumArtists (Id)"
+    };
+
+    private static final String ReplaceItemSql = "replace into Items (Id, ItemId, ItemType, MediaType, ServerId, LocalPath, UserIdsWithAccess, AlbumId, AlbumName, AlbumPrimaryImageTag, SeriesId, SeriesName, SeriesPrimaryImageTag, Json) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String InsertItemUserSql = "insert or ignore into ItemUsers (ItemId, UserId) values (?, ?)";
+    private static final String InsertAlbumArtistSql = "insert or ignore into AlbumArtists (ItemId, Id, Name) values (?, ?, ?)";
+    private static final String DeleteItemSql = "delete from Items where Id=?";
+    private static final String DeleteItemUsersSql = "delete from ItemUsers where ItemId=?";
+    private static final String DeleteAlbumArtistsSql = "delete from AlbumArtists where ItemId=?";
+
+    private static final String ItemJsonSql = "select Json from Items where Id=?";
+    private static final String ItemJsonInSql = "select Json from Items where Id in ";
+    private static final String ServerItemIdsSql = "select ItemId from Items where ServerId=?";
+    private static final String ItemTypesSql = "select distinct i.ItemType from Items i join ItemUsers u on u.ItemId=i.Id where u.UserId=? and i.ServerId=?";
+    private static final String AlbumArtistsSql = "select a.Id, max(a.Name), null from AlbumArtists a join ItemUsers u on u.ItemId=a.ItemId join Items i on i.Id=a.ItemId where u.UserId=? and i.ServerId=? group by a.Id";
+    private static final String TvSeriesSql = "select i.SeriesId, max(i.SeriesName), max(i.SeriesPrimaryImageTag) from Items i join ItemUsers u on u.ItemId=i.Id where u.UserId=? and i.ServerId=? and i.SeriesId is not null group by i.SeriesId";
+    private static final String PhotoAlbumsSql = "select i.AlbumId, max(i.AlbumName), max(i.AlbumPrimaryImageTag) from Items i join ItemUsers u on u.ItemId=i.Id where u.UserId=? and i.ServerId=? and i.AlbumId is not null and i.MediaType='Photo' group by i.AlbumId";
+
+    private IJsonSerializer jsonSerializer;
+    private ILogger logger;
+
+    private SQLiteQueue writer;
+    private SQLiteQueue[] readers;
+    private AtomicInteger nextReader = new AtomicInteger();
+
+    public SqliteItemRepository(File databaseFile, IJsonSerializer jsonSerializer, ILogger logger) {
+        this(databaseFile, jsonSerializer, logger, DefaultReaderCount);
+    }
+
+    public SqliteItemRepository(File databaseFile, IJsonSerializer jsonSerializer, ILogger logger, int readerCount) {
+
+        if (databaseFile == null)
+        {
+            throw new IllegalArgumentException("databaseFile");
+        }
+        if (jsonSerializer == null)
+        {
+            throw new IllegalArgumentException("jsonSerializer");
+        }
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+        if (readerCount < 1)
+        {
+            throw new IllegalArgumentException("readerCount");
+        }
+
+        this.jsonSerializer = jsonSerializer;
+        this.logger = logger;
+
+        // The schema has to exist before readers open, so the writer runs the migration first
+        writer = new ItemQueue(databaseFile, true).start();
+        run(writer, new SQLiteJob<Void>() {
+            @Override
+            protected Void job(SQLiteConnection connection) throws Throwable {
+                return null;
+            }
+        });
+
+        readers = new SQLiteQueue[readerCount];
+        for (int i = 0; i < readerCount; i++) {
+            readers[i] = new ItemQueue(databaseFile, false).start();
+        }
+    }
+
+    @Override
+    public void addOrUpdateItem(LocalItem item) {
+
+        if (item == null)
+        {
+            throw new IllegalArgumentException("item");
+        }
+
+        addOrUpdateItems(Collections.singletonList(item));
+    }
+
+    @Override
+    public void addOrUpdateItems(final Collection<LocalItem> items) {
+
+        if (items == null)
+        {
+            throw new IllegalArgumentException("items");
+        }
+
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // Serialize before entering the write queue so the writer thread only does database work
+        final ArrayList<String> jsonValues = new ArrayList<String>(items.size());
+        for (LocalItem item : items) {
+            jsonValues.add(jsonSerializer.SerializeToString(item));
+        }
+
+        write(new WriteAction() {
+            @Override
+            public void run(SQLiteConnection connection) throws SQLiteException {
+
+                int index = 0;
+                for (LocalItem item : items) {
+                    saveItem(connection, item, jsonValues.get(index++));
+                }
+            }
+        });
+    }
+
+    private void saveItem(SQLiteConnection connection, LocalItem item, String json) throws SQLiteException {
+
+        BaseItemDto dto = item.getItem();
+        ArrayList<String> userIds = item.getUserIdsWithAccess();
+
+        SQLiteStatement statement = connection.prepare(ReplaceItemSql);
+        try {
+            statement.bind(1, item.getId());
+            statement.bind(2, item.getItemId());
+            statement.bind(3, dto.getType());
+            statement.bind(4, dto.getMediaType());
+            statement.bind(5, item.getServerId());
+            statement.bind(6, item.getLocalPath());
+            statement.bind(7, userIds == null ? null : tangible.DotNetToJavaStringHelper.join(",", userIds.toArray(new String[userIds.size()])));
+            statement.bind(8, dto.getAlbumId());
+            statement.bind(9, dto.getAlbum());
+            statement.bind(10, dto.getAlbumPrimaryImageTag());
+            statement.bind(11, dto.getSeriesId());
+            statement.bind(12, dto.getSeriesName());
+            statement.bind(13, dto.getSeriesPrimaryImageTag());
+            statement.bind(14, json);
+            statement.stepThrough();
+        }
+        finally {
+            statement.dispose();
+        }
+
+        execute(connection, DeleteItemUsersSql, item.getId());
+        execute(connection, DeleteAlbumArtistsSql, item.getId());
+
+        if (userIds != null) {
+
+            statement = connection.prepare(InsertItemUserSql);
+            try {
+                for (String userId : userIds) {
+                    statement.reset(true);
+                    statement.bind(1, item.getId());
+                    statement.bind(2, userId);
+                    statement.stepThrough();
+                }
+            }
+            finally {
+                statement.dispose();
+            }
+        }
+
+        if (dto.getAlbumArtists() != null) {
+
+            statement = connection.prepare(InsertAlbumArtistSql);
+            try {
+                for (NameIdPair artist : dto.getAlbumArtists()) {
+
+                    if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(artist.getId())) {
+                        continue;
+                    }
+
+                    statement.reset(true);
+                    statement.bind(1, item.getId());
+                    statement.bind(2, artist.getId());
+                    statement.bind(3, artist.getName());
+                    statement.stepThrough();
+                }
+            }
+            finally {
+                statement.dispose();
+            }
+        }
+    }
+
+    @Override
+    public LocalItem getItem(final String id) {
+
+        String json = read(new SQLiteJob<String>() {
+            @Override
+            protected String job(SQLiteConnection connection) throws Throwable {
+
+                ArrayList<String> values = queryStrings(connection, ItemJsonSql, id);
+                return values.isEmpty() ? null : values.get(0);
+            }
+        });
+
+        return json == null ? null : (LocalItem) jsonSerializer.DeserializeFromString(json, LocalItem.class);
+    }
+
+    @Override
+    public ArrayList<LocalItem> getItemsById(Collection<String> ids) {
+
+        if (ids == null)
+        {
+            throw new IllegalArgumentException("ids");
+        }
+
+        final String[] idArray = ids.toArray(new String[ids.size()]);
+
+        ArrayList<String> jsonValues = read(new SQLiteJob<ArrayList<String>>() {
+            @Override
+            protected ArrayList<String> job(SQLiteConnection connection) throws Throwable {
+
+                ArrayList<String> list = new ArrayList<String>(idArray.length);
+
+                for (int start = 0; start < idArray.length; start += MaxIdsPerStatement) {
+
+                    int count = Math.min(MaxIdsPerStatement, idArray.length - start);
+                    String[] args = new String[count];
+                    System.arraycopy(idArray, start, args, 0, count);
+
+                    list.addAll(queryStrings(connection, getInClauseSql(ItemJsonInSql, count), args));
+                }
+
+                return list;
+            }
+        });
+
+        ArrayList<LocalItem> list = new ArrayList<LocalItem>(jsonValues.size());
+        for (String json : jsonValues) {
+            list.add((LocalItem) jsonSerializer.DeserializeFromString(json, LocalItem.class));
+        }
+
+        return list;
+    }
+
+    @Override
+    public void deleteItems(final Collection<String> ids) {
+
+        if (ids == null)
+        {
+            throw new IllegalArgumentException("ids");
+        }
+
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        write(new WriteAction() {
+            @Override
+            public void run(SQLiteConnection connection) throws SQLiteException {
+
+                for (String id : ids) {
+                    execute(connection, DeleteItemSql, id);
+                    execute(connection, DeleteItemUsersSql, id);
+                    execute(connection, DeleteAlbumArtistsSql, id);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void deleteItem(final String id) {
+
+        write(new WriteAction() {
+            @Override
+            public void run(SQLiteConnection connection) throws SQLiteException {
+
+                execute(connection, DeleteItemSql, id);
+                execute(connection, DeleteItemUsersSql, id);
+                execute(connection, DeleteAlbumArtistsSql, id);
+            }
+        });
+    }
+
+    @Override
+    public ArrayList<String> getServerItemIds(final String serverId) {
+
+        return read(new SQLiteJob<ArrayList<String>>() {
+            @Override
+            protected ArrayList<String> job(SQLiteConnection connection) throws Throwable {
+                return queryStrings(connection, ServerItemIdsSql, serverId);
+            }
+        });
+    }
+
+    @Override
+    public ArrayList<String> getItemTypes(final String serverId, final String userId) {
+
+        return read(new SQLiteJob<ArrayList<String>>() {
+            @Override
+            protected ArrayList<String> job(SQLiteConnection connection) throws Throwable {
+                return queryStrings(connection, ItemTypesSql, userId, serverId);
+            }
+        });
+    }
+
+    @Override
+    public ArrayList<LocalItem> getItems(LocalItemQuery query) {
+
+        if (query == null)
+        {
+            throw new IllegalArgumentException("query");
+        }
+
+        final ArrayList<String> args = new ArrayList<String>();
+        StringBuilder sql = new StringBuilder("select Json from Items");
+
+        appendCondition(sql, args, "ServerId=?", query.getServerId());
+        appendCondition(sql, args, "AlbumId=?", query.getAlbumId());
+        appendCondition(sql, args, "SeriesId=?", query.getSeriesId());
+        appendCondition(sql, args, "MediaType=?", query.getMediaType());
+        appendCondition(sql, args, "ItemType=?", query.getType());
+        appendCondition(sql, args, "Id in (select ItemId from AlbumArtists where Id=?)", query.getAlbumArtistId());
+
+        String[] excludeTypes = query.getExcludeTypes();
+        if (excludeTypes != null && excludeTypes.length > 0) {
+
+            sql.append(args.isEmpty() ? " where " : " and ").append("ItemType not in (");
+            for (int i = 0; i < excludeTypes.length; i++) {
+                sql.append(i == 0 ? "?" : ",?");
+                args.add(excludeTypes[i]);
+            }
+            sql.append(')');
+        }
+
+        final String sqlText = sql.toString();
+
+        ArrayList<String> jsonValues = read(new SQLiteJob<ArrayList<String>>() {
+            @Override
+            protected ArrayList<String> job(SQLiteConnection connection) throws Throwable {
+                return queryStrings(connection, sqlText, args.toArray(new String[args.size()]));
+            }
+        });
+
+        // Parsing happens on the calling thread so the reader is free for the next query
+        ArrayList<LocalItem> list = new ArrayList<LocalItem>(jsonValues.size());
+        for (String json : jsonValues) {
+            list.add((LocalItem) jsonSerializer.DeserializeFromString(json, LocalItem.class));
+        }
+
+        return list;
+    }
+
+    @Override
+    public ArrayList<LocalItemInfo> getAlbumArtists(String serverId, String userId) {
+        return queryItemInfos(AlbumArtistsSql, serverId, userId);
+    }
+
+    @Override
+    public ArrayList<LocalItemInfo> getTvSeries(String serverId, String userId) {
+        return queryItemInfos(TvSeriesSql, serverId, userId);
+    }
+
+    @Override
+    public ArrayList<LocalItemInfo> getPhotoAlbums(String serverId, String userId) {
+        return queryItemInfos(PhotoAlbumsSql, serverId, userId);
+    }
+
+    /**
+     * Stops the queue threads and closes their connections, waiting for queued work to finish.
+     */
+    public void close() {
+
+        writer.stop(true);
+        for (SQLiteQueue reader : readers) {
+            reader.stop(true);
+        }
+
+        try {
+            writer.join();
+            for (SQLiteQueue reader : readers) {
+                reader.join();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ArrayList<LocalItemInfo> queryItemInfos(final String sql, final String serverId, final String userId) {
+
+        return read(new SQLiteJob<ArrayList<LocalItemInfo>>() {
+            @Override
+            protected ArrayList<LocalItemInfo> job(SQLiteConnection connection) throws Throwable {
+
+                ArrayList<LocalItemInfo> list = new ArrayList<LocalItemInfo>();
+
+                SQLiteStatement statement = connection.prepare(sql);
+                try {
+                    statement.bind(1, userId);
+                    statement.bind(2, serverId);
+
+                    while (statement.step()) {
+
+                        LocalItemInfo info = new LocalItemInfo();
+                        info.setServerId(serverId);
+                        info.setId(statement.columnString(0));
+                        info.setName(statement.columnString(1));
+                        info.setPrimaryImageTag(statement.columnString(2));
+                        list.add(info);
+                    }
+                }
+                finally {
+                    statement.dispose();
+                }
+
+                return list;
+            }
+        });
+    }
+
+    /**
+     * Batches are mostly full, so the few distinct statements this produces stay in the statement cache.
+     */
+    private static String getInClauseSql(String prefix, int count) {
+
+        StringBuilder sql = new StringBuilder(prefix.length() + count * 2 + 2).append(prefix).append('(');
+
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+
+        return sql.append(')').toString();
+    }
+
+    private static void appendCondition(StringBuilder sql, ArrayList<String> args, String condition, String value) {
+
+        if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(value)) {
+            return;
+        }
+
+        sql.append(args.isEmpty() ? " where " : " and ").append(condition);
+        args.add(value);
+    }
+
+    private static ArrayList<String> queryStrings(SQLiteConnection connection, String sql, String... args) throws SQLiteException {
+
+        ArrayList<String> list = new ArrayList<String>();
+
+        SQLiteStatement statement = connection.prepare(sql);
+        try {
+            for (int i = 0; i < args.length; i++) {
+                statement.bind(i + 1, args[i]);
+            }
+
+            while (statement.step()) {
+                list.add(statement.columnString(0));
+            }
+        }
+        finally {
+            statement.dispose();
+        }
+
+        return list;
+    }
+
+    private static void execute(SQLiteConnection connection, String sql, String arg) throws SQLiteException {
+
+        SQLiteStatement statement = connection.prepare(sql);
+        try {
+            statement.bind(1, arg);
+            statement.stepThrough();
+        }
+        finally {
+            statement.dispose();
+        }
+    }
+
+    private <T> T read(SQLiteJob<T> job) {
+
+        int index = (nextReader.getAndIncrement() & Integer.MAX_VALUE) % readers.length;
+        return run(readers[index], job);
+    }
+
+    /**
+     * Runs the job on the writer inside a transaction, which is rolled back if the job fails.
+     */
+    private void write(final WriteAction action) {
+
+        run(writer, new SQLiteJob<Void>() {
+            @Override
+            protected Void job(SQLiteConnection connection) throws Throwable {
+
+                connection.exec("begin immediate");
+                try {
+                    action.run(connection);
+                    connection.exec("commit");
+                }
+                catch (SQLiteException | RuntimeException ex) {
+                    connection.exec("rollback");
+                    throw ex;
+                }
+
+                return null;
+            }
+        });
+    }
+
+    private <T> T run(SQLiteQueue queue, SQLiteJob<T> job) {
+
+        T result = queue.execute(job).complete();
+
+        Throwable error = job.getError();
+        if (error != null) {
+            RuntimeException ex = new RuntimeException("Error accessing item database", error);
+            logger.ErrorException("Error accessing item database", ex);
+            throw ex;
+        }
+
+        return result;
+    }
+
+    private interface WriteAction {
+        void run(SQLiteConnection connection) throws SQLiteException;
+    }
+
+    private static class ItemQueue extends SQLiteQueue {
+
+        private boolean isWriter;
+
+        private ItemQueue(File databaseFile, boolean isWriter) {
+            super(databaseFile);
+            this.isWriter = isWriter;
+        }
+
+        @Override
+        protected void initConnection(SQLiteConnection connection) throws SQLiteException {
+
+            connection.setBusyTimeout(BusyTimeoutMs);
+
+            if (!isWriter) {
+                return;
+            }
+
+            connection.exec("pragma journal_mode=WAL");
+            connection.exec("pragma synchronous=NORMAL");
+
+            SQLiteStatement statement = connection.prepare("pragma user_version", false);
+            int version;
+            try {
+                statement.step();
+                version = statement.columnInt(0);
+            }
+            finally {
+                statement.dispose();
+            }
+
+            if (version < SchemaVersion) {
+
+                connection.exec("begin immediate");
+                try {
+                    for (String sql : Schema) {
+                        connection.exec(sql);
+                    }
+                    connection.exec("pragma user_version=" + SchemaVersion);
+                    connection.exec("commit");
+                }
+                catch (SQLiteException ex) {
+                    connection.exec("rollback");
+                    throw ex;
+                }
+            }
+        }
+    }
+}
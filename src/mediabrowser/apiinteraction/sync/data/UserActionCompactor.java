@@ -0,0 +1,79 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import mediabrowser.model.users.UserAction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+
+/**
+ * Drops offline user actions that a later action makes redundant, so that a long time offline does not mean
+ * reporting every position the user stopped at.
+ *
+ * Only the latest action of each type is kept for an item and user, since the server applies each one as the item's
+ * new play state. Actions with the same date are ordered as given, the later one winning.
+ */
+public final class UserActionCompactor {
+
+    private UserActionCompactor() {
+    }
+
+    public static String getKey(UserAction action) {
+        return action.getServerId() + "|" + action.getUserId() + "|" + action.getItemId() + "|" + action.getType();
+    }
+
+    /**
+     * @return true if the candidate should replace the current action with the same key.
+     */
+    public static boolean supersedes(UserAction candidate, UserAction current) {
+        return getTime(candidate) >= getTime(current);
+    }
+
+    /**
+     * @param superseded Receives the actions that were dropped.
+     * @return The remaining actions, oldest first.
+     */
+    public static ArrayList<UserAction> compact(Collection<UserAction> actions, Collection<UserAction> superseded) {
+
+        LinkedHashMap<String, UserAction> latest = new LinkedHashMap<String, UserAction>();
+
+        for (UserAction action : actions) {
+
+            String key = getKey(action);
+            UserAction current = latest.get(key);
+
+            if (current == null) {
+                latest.put(key, action);
+            }
+            else if (supersedes(action, current)) {
+                latest.put(key, action);
+                superseded.add(current);
+            }
+            else {
+                superseded.add(action);
+            }
+        }
+
+        ArrayList<UserAction> list = new ArrayList<UserAction>(latest.values());
+
+        // Stable, so equal dates keep the order they were recorded in
+        Collections.sort(list, new Comparator<UserAction>() {
+            @Override
+            public int compare(UserAction x, UserAction y) {
+
+                long xTime = getTime(x);
+                long yTime = getTime(y);
+
+                return xTime < yTime ? -1 : (xTime == yTime ? 0 : 1);
+            }
+        });
+
+        return list;
+    }
+
+    private static long getTime(UserAction action) {
+        return action.getDate() == null ? 0 : action.getDate().getTime();
+    }
+}
@@ -0,0 +1,349 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.serialization.IJsonSerializer;
+import mediabrowser.model.users.UserAction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * User action repository kept in an append-only journal file, for use outside of Android.
+ *
+ * Each record is one line holding a checksum, then either an action that was recorded as json or the comma separated
+ * ids of actions that were deleted together, and is flushed to disk before the call returns. A record cut short by a
+ * crash fails its checksum or lacks its newline when the journal is next opened, and it and anything after it are
+ * truncated away. A record that is intact but cannot be read is logged and skipped.
+ *
+ * Actions are compacted as they are recorded, using UserActionCompactor, so only the latest action for an item and
+ * user is returned. Once most of the file is made up of superseded and deleted actions it is rewritten with just the
+ * live ones, into a temporary file that then replaces the journal.
+ */
+public class UserActionJournal implements IUserActionRepository {
+
+    private static final Charset Utf8 = Charset.forName("UTF-8");
+    private static final char AddRecord = 'A';
+    private static final char DeleteRecord = 'D';
+    // Ids are UUIDs, so they never contain the separator
+    private static final String IdSeparator = ",";
+    // Small journals are not worth rewriting
+    private static final int MinRecordsBeforeRewrite = 256;
+
+    private final File file;
+    private final File tempFile;
+    private final IJsonSerializer jsonSerializer;
+    private final ILogger logger;
+
+    // Live actions in the order they were recorded, by compaction key
+    private final LinkedHashMap<String, UserAction> actions = new LinkedHashMap<String, UserAction>();
+    private final HashMap<String, String> keysById = new HashMap<String, String>();
+
+    private FileOutputStream output;
+    private int recordCount;
+
+    public UserActionJournal(File file, IJsonSerializer jsonSerializer, ILogger logger) {
+
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file");
+        }
+        if (jsonSerializer == null)
+        {
+            throw new IllegalArgumentException("jsonSerializer");
+        }
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+
+        this.file = file;
+        this.tempFile = new File(file.getPath() + ".tmp");
+        this.jsonSerializer = jsonSerializer;
+        this.logger = logger;
+
+        try {
+            load();
+            output = new FileOutputStream(file, true);
+        }
+        catch (IOException ex) {
+            throw fail(ex);
+        }
+    }
+
+    @Override
+    public synchronized void createUserAction(UserAction action) {
+
+        if (action == null)
+        {
+            throw new IllegalArgumentException("action");
+        }
+
+        String json = jsonSerializer.SerializeToString(action);
+
+        append(AddRecord + json);
+        applyAdd(action);
+    }
+
+    @Override
+    public void deleteUserAction(UserAction action) {
+        deleteUserActions(Collections.singletonList(action));
+    }
+
+    @Override
+    public synchronized void deleteUserActions(Collection<UserAction> actions) {
+
+        if (actions == null)
+        {
+            throw new IllegalArgumentException("actions");
+        }
+
+        ArrayList<String> ids = new ArrayList<String>(actions.size());
+
+        for (UserAction action : actions) {
+
+            if (keysById.containsKey(action.getId())) {
+                ids.add(action.getId());
+            }
+        }
+
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        append(DeleteRecord + join(ids));
+        applyDelete(ids);
+
+        if (recordCount >= MinRecordsBeforeRewrite && recordCount > this.actions.size() * 2) {
+            rewrite();
+        }
+    }
+
+    @Override
+    public synchronized ArrayList<UserAction> getUserActions(String serverId) {
+
+        ArrayList<UserAction> list = new ArrayList<UserAction>();
+
+        for (UserAction action : actions.values()) {
+
+            if (serverId == null || serverId.equals(action.getServerId())) {
+                list.add(action);
+            }
+        }
+
+        return list;
+    }
+
+    public synchronized void close() {
+
+        try {
+            output.close();
+        }
+        catch (IOException ex) {
+            logger.ErrorException("Error closing user action journal", ex);
+        }
+    }
+
+    private void applyAdd(UserAction action) {
+
+        String key = UserActionCompactor.getKey(action);
+        UserAction current = actions.get(key);
+
+        if (current != null) {
+
+            if (!UserActionCompactor.supersedes(action, current)) {
+                return;
+            }
+
+            actions.remove(key);
+            keysById.remove(current.getId());
+        }
+
+        actions.put(key, action);
+        keysById.put(action.getId(), key);
+    }
+
+    private void applyDelete(Collection<String> ids) {
+
+        for (String id : ids) {
+
+            String key = keysById.remove(id);
+
+            if (key != null) {
+                actions.remove(key);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+
+        if (!file.exists()) {
+            return;
+        }
+
+        byte[] data = Files.readAllBytes(file.toPath());
+
+        int start = 0;
+
+        while (start < data.length) {
+
+            int end = start;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+
+            if (end == data.length || !readRecord(new String(data, start, end - start, Utf8))) {
+                break;
+            }
+
+            recordCount++;
+            start = end + 1;
+        }
+
+        if (start < data.length) {
+
+            logger.Warn("Truncating %s bytes of incomplete records from user action journal %s", data.length - start, file.getPath());
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(start);
+                raf.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * @return false if the record is damaged, in which case it and everything after it are discarded.
+     */
+    private boolean readRecord(String line) {
+
+        int separator = line.indexOf(' ');
+
+        if (separator != 8 || line.length() < 10) {
+            return false;
+        }
+
+        String payload = line.substring(separator + 1);
+
+        if (!line.substring(0, separator).equals(getChecksum(payload))) {
+            return false;
+        }
+
+        String body = payload.substring(1);
+
+        try {
+            if (payload.charAt(0) == AddRecord) {
+                UserAction action = jsonSerializer.DeserializeFromString(body, UserAction.class);
+                applyAdd(action);
+            }
+            else if (payload.charAt(0) == DeleteRecord) {
+                applyDelete(Arrays.asList(body.split(IdSeparator)));
+            }
+            else {
+                logger.Error("Skipping user action journal record of unknown type %s", payload.charAt(0));
+            }
+        }
+        catch (RuntimeException ex) {
+            // The record was written completely, so the ones after it are still good
+            logger.ErrorException("Skipping unreadable user action journal record", ex);
+        }
+
+        return true;
+    }
+
+    private void append(String payload) {
+
+        try {
+            output.write(formatRecord(payload));
+            output.getFD().sync();
+            recordCount++;
+        }
+        catch (IOException ex) {
+            throw fail(ex);
+        }
+    }
+
+    /**
+     * The journal stays valid if this fails part way, since it is only replaced once the new file is complete.
+     */
+    private void rewrite() {
+
+        try (FileOutputStream temp = new FileOutputStream(tempFile, false)) {
+
+            for (UserAction action : actions.values()) {
+                temp.write(formatRecord(AddRecord + jsonSerializer.SerializeToString(action)));
+            }
+
+            temp.getFD().sync();
+        }
+        catch (IOException ex) {
+            logger.ErrorException("Error rewriting user action journal", ex);
+            tempFile.delete();
+            return;
+        }
+
+        try {
+            output.close();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.Debug("Rewrote user action journal, %s records reduced to %s", recordCount, actions.size());
+            recordCount = actions.size();
+        }
+        catch (IOException ex) {
+            logger.ErrorException("Error replacing user action journal", ex);
+            tempFile.delete();
+        }
+
+        try {
+            output = new FileOutputStream(file, true);
+        }
+        catch (IOException ex) {
+            throw fail(ex);
+        }
+    }
+
+    private static String join(Collection<String> ids) {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (String id : ids) {
+
+            if (builder.length() > 0) {
+                builder.append(IdSeparator);
+            }
+
+            builder.append(id);
+        }
+
+        return builder.toString();
+    }
+
+    private static byte[] formatRecord(String payload) {
+        return (getChecksum(payload) + " " + payload + "\n").getBytes(Utf8);
+    }
+
+    private static String getChecksum(String payload) {
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(Utf8));
+
+        return String.format("%08x", crc.getValue());
+    }
+
+    private RuntimeException fail(IOException ex) {
+
+        RuntimeException error = new RuntimeException("Error accessing user action journal " + file.getPath(), ex);
+        logger.ErrorException("Error accessing user action journal", error);
+        return error;
+    }
+}
@@ -4,6 +4,7 @@ import mediabrowser.apiinteraction.ApiClient;
 import mediabrowser.apiinteraction.sync.SyncProgress;
 import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.devices.LocalFileInfo;
 import mediabrowser.model.logging.ILogger;
@@ -21,8 +22,9 @@ public class CameraUploadProgress extends SyncProgress {
     private ILocalAssetManager localAssetManager;
     private CancellationToken cancellationToken;
     private double maxPercentage;
+    private TransferPriority transferPriority;
 
-    public CameraUploadProgress(ILogger logger, ServerInfo server, SyncProgress progress, ApiClient apiClient, ClientCapabilities clientCapabilities, ILocalAssetManager localAssetManager, CancellationToken cancellationToken, double maxPercentage) {
+    public CameraUploadProgress(ILogger logger, ServerInfo server, SyncProgress progress, ApiClient apiClient, ClientCapabilities clientCapabilities, ILocalAssetManager localAssetManager, CancellationToken cancellationToken, double maxPercentage, TransferPriority transferPriority) {
         this.logger = logger;
         this.server = server;
         this.progress = progress;
@@ -31,6 +33,7 @@ public class CameraUploadProgress extends SyncProgress {
         this.localAssetManager = localAssetManager;
         this.cancellationToken = cancellationToken;
         this.maxPercentage = maxPercentage;
+        this.transferPriority = transferPriority;
     }
 
     @Override
@@ -76,7 +79,7 @@ public class CameraUploadProgress extends SyncProgress {
 
     public void onAnyComplete() {
 
-        UpdateOfflineUsersResponse offlineUserResponse = new UpdateOfflineUsersResponse(progress, apiClient, server, localAssetManager, logger, cancellationToken, maxPercentage);
+        UpdateOfflineUsersResponse offlineUserResponse = new UpdateOfflineUsersResponse(progress, apiClient, server, localAssetManager, logger, cancellationToken, maxPercentage, transferPriority);
 
         if (cancellationToken.isCancellationRequested()){
             progress.reportCancelled();
@@ -5,6 +5,10 @@ import mediabrowser.apiinteraction.device.IDevice;
 import mediabrowser.apiinteraction.sync.SyncProgress;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
 import mediabrowser.apiinteraction.tasks.IProgress;
+import mediabrowser.apiinteraction.transfers.ITransfer;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
+import mediabrowser.apiinteraction.transfers.TransferTicket;
 import mediabrowser.model.devices.ContentUploadHistory;
 import mediabrowser.model.devices.LocalFileInfo;
 import mediabrowser.model.extensions.StringHelper;
@@ -74,7 +78,24 @@ public class ContentUploader {
 
         logger.Debug("ContentUploader will upload file %s", file.getName());
 
-        UploadFile(file, device, new FileUploadProgress(this, device, files, index, progress, cancellationToken), cancellationToken);
+        TransferScheduler scheduler = apiClient.getTransferScheduler();
+
+        if (scheduler == null) {
+            UploadFile(file, device, new FileUploadProgress(this, device, files, index, progress, cancellationToken), cancellationToken);
+            return;
+        }
+
+        // Camera uploads are background work and yield to downloads queued at a higher priority
+        scheduler.enqueue(apiClient.getTransferServerId(), TransferPriority.Background, new ITransfer() {
+            @Override
+            public void start(TransferTicket ticket) {
+
+                FileUploadProgress fileProgress = new FileUploadProgress(ContentUploader.this, device, files, index, progress, cancellationToken);
+                fileProgress.setTicket(ticket);
+
+                UploadFile(file, device, fileProgress, cancellationToken);
+            }
+        });
     }
 
     private ArrayList<LocalFileInfo> GetFilesToUpload(ContentUploadHistory history,
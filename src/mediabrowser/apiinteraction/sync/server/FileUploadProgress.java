@@ -4,6 +4,7 @@ import mediabrowser.apiinteraction.device.IDevice;
 import mediabrowser.apiinteraction.sync.SyncProgress;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
 import mediabrowser.apiinteraction.tasks.Progress;
+import mediabrowser.apiinteraction.transfers.TransferTicket;
 import mediabrowser.model.devices.LocalFileInfo;
 
 import java.util.ArrayList;
@@ -17,6 +18,7 @@ public class FileUploadProgress extends Progress<Double> {
     private SyncProgress progress;
     private CancellationToken cancellationToken;
     private LocalFileInfo file;
+    private TransferTicket ticket;
 
     public FileUploadProgress(ContentUploader contentUploader, IDevice device, ArrayList<LocalFileInfo> files, int index, SyncProgress progress, CancellationToken cancellationToken) {
         this.contentUploader = contentUploader;
@@ -29,8 +31,19 @@ public class FileUploadProgress extends Progress<Double> {
         file = files.get(index);
     }
 
+    /**
+     * Sets the scheduler ticket to complete once the file is done, when the upload was queued on a TransferScheduler.
+     */
+    public void setTicket(TransferTicket ticket) {
+        this.ticket = ticket;
+    }
+
     private void GoNext() {
 
+        if (ticket != null) {
+            ticket.complete();
+        }
+
         double numComplete = index+ 1;
         numComplete /= files.size();
         progress.report(numComplete * 100);
@@ -4,12 +4,13 @@ import mediabrowser.apiinteraction.*;
 import mediabrowser.apiinteraction.sync.*;
 import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.model.apiclient.ConnectionOptions;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.session.ClientCapabilities;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 
 public class ServerSync {
@@ -17,6 +18,7 @@ public class ServerSync {
     private ILogger logger;
     private IConnectionManager connectionManager;
     private ILocalAssetManager localAssetManager;
+    private TransferPriority transferPriority = TransferPriority.Normal;
 
     public ServerSync(IConnectionManager connectionManager, ILogger logger, ILocalAssetManager localAssetManager) {
         this.logger = logger;
@@ -24,12 +26,40 @@ public class ServerSync {
         this.localAssetManager = localAssetManager;
     }
 
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    /**
+     * Sets the priority the server's sync job item downloads are queued with. Camera uploads stay in the background.
+     */
+    public void setTransferPriority(TransferPriority transferPriority) {
+
+        if (transferPriority == null)
+        {
+            throw new IllegalArgumentException("transferPriority");
+        }
+
+        this.transferPriority = transferPriority;
+    }
+
     public void Sync(final ServerInfo server, final CancellationToken cancellationToken, final SyncProgress progress){
 
         if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(server.getAccessToken()) &&
                 tangible.DotNetToJavaStringHelper.isNullOrEmpty(server.getExchangeToken()))
         {
             LogNoAuthentication(server);
+            progress.reportComplete();
+            return;
+        }
+
+        // Only one sync may run against a server at a time. A sync requested while one is running is skipped
+        // rather than queued, since the running sync will pick up the same work.
+        final Semaphore semaphore = GetLock(server.getId());
+
+        if (!semaphore.tryAcquire()){
+            logger.Info("Skipping sync process for server " + server.getName() + ". A sync is already in progress.");
+            progress.reportComplete();
             return;
         }
 
@@ -38,7 +68,9 @@ public class ServerSync {
         options.setReportCapabilities(false);
         options.setUpdateDateLastAccessed(false);
 
-        connectionManager.Connect(server, options, new ServerSyncConnectionResponse(this, server, connectionManager.getClientCapabilities(), cancellationToken, progress));
+        SyncProgress lockProgress = new ServerSyncLockProgress(semaphore, progress);
+
+        connectionManager.Connect(server, options, new ServerSyncConnectionResponse(this, server, connectionManager.getClientCapabilities(), cancellationToken, lockProgress));
     }
 
     void LogNoAuthentication(ServerInfo server){
@@ -48,22 +80,6 @@ public class ServerSync {
 
     void Sync(final ServerInfo server, ApiClient apiClient, ClientCapabilities clientCapabilities, CancellationToken cancellationToken, final SyncProgress progress){
 
-        Semaphore semaphore = GetLock(server.getId());
-
-        // TODO: Implement with semaphore
-/*        try {
-
-            semaphore.acquire();
-
-            SyncInternal(server, apiClient, clientCapabilities, cancellationToken, progress);
-
-        }
-        catch (InterruptedException e) {
-
-            logger.ErrorException("InterruptedException in ServerSync", e);
-            progress.reportError(e);
-        }*/
-
         SyncInternal(server, apiClient, clientCapabilities, cancellationToken, progress);
     }
 
@@ -75,17 +91,25 @@ public class ServerSync {
 
         final double cameraUploadTotalPercentage = .25;
 
-        new ContentUploader(apiClient, logger).UploadImages(new CameraUploadProgress(logger, server, progress, apiClient, clientCapabilities, localAssetManager, cancellationToken, cameraUploadTotalPercentage), cancellationToken);
+        new ContentUploader(apiClient, logger).UploadImages(new CameraUploadProgress(logger, server, progress, apiClient, clientCapabilities, localAssetManager, cancellationToken, cameraUploadTotalPercentage, transferPriority), cancellationToken);
     }
 
-    private static HashMap<String, Semaphore> SemaphoreLocks = new HashMap<String, Semaphore>();
+    private static ConcurrentHashMap<String, Semaphore> SemaphoreLocks = new ConcurrentHashMap<String, Semaphore>();
     private static Semaphore GetLock(String serverId)
     {
-        if (!SemaphoreLocks.containsKey(serverId))
+        Semaphore semaphore = SemaphoreLocks.get(serverId);
+
+        if (semaphore == null)
         {
-            SemaphoreLocks.put(serverId, new Semaphore(1));
+            Semaphore newSemaphore = new Semaphore(1);
+            semaphore = SemaphoreLocks.putIfAbsent(serverId, newSemaphore);
+
+            if (semaphore == null)
+            {
+                semaphore = newSemaphore;
+            }
         }
 
-        return SemaphoreLocks.get(serverId);
+        return semaphore;
     }
 }
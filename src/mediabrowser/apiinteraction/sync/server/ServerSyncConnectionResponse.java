@@ -39,4 +39,10 @@ public class ServerSyncConnectionResponse extends Response<ConnectionResult> {
             progress.reportComplete();
         }
     }
+
+    @Override
+    public void onError(Exception ex) {
+
+        progress.reportError(ex);
+    }
 }
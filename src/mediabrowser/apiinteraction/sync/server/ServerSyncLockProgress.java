@@ -0,0 +1,68 @@
+package mediabrowser.apiinteraction.sync.server;
+
+import mediabrowser.apiinteraction.sync.SyncProgress;
+import mediabrowser.model.devices.LocalFileInfo;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forwards sync progress and releases the server's sync lock once the sync has finished, however it finished.
+ */
+public class ServerSyncLockProgress extends SyncProgress {
+
+    private Semaphore semaphore;
+    private SyncProgress progress;
+    private AtomicBoolean released = new AtomicBoolean();
+
+    public ServerSyncLockProgress(Semaphore semaphore, SyncProgress progress) {
+        this.semaphore = semaphore;
+        this.progress = progress;
+    }
+
+    private void release(){
+
+        if (released.compareAndSet(false, true)){
+            semaphore.release();
+        }
+    }
+
+    @Override
+    public void onProgress(Double percent) {
+
+        progress.report(percent);
+    }
+
+    @Override
+    public void onComplete() {
+
+        release();
+        progress.reportComplete();
+    }
+
+    @Override
+    public void onCancelled() {
+
+        release();
+        progress.reportCancelled();
+    }
+
+    @Override
+    public void onError(Exception ex) {
+
+        release();
+        progress.reportError(ex);
+    }
+
+    @Override
+    public void onFileUploaded(LocalFileInfo file) {
+
+        progress.onFileUploaded(file);
+    }
+
+    @Override
+    public void onFileUploadError(LocalFileInfo file, Exception ex) {
+
+        progress.onFileUploadError(file, ex);
+    }
+}
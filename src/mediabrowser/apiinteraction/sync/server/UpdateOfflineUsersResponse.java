@@ -7,6 +7,7 @@ import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
 import mediabrowser.apiinteraction.sync.server.mediasync.MediaSync;
 import mediabrowser.apiinteraction.sync.server.mediasync.MediaSyncProgress;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.logging.ILogger;
 
@@ -23,8 +24,9 @@ public class UpdateOfflineUsersResponse extends EmptyResponse {
 
     private CancellationToken cancellationToken;
     private double initialProgressPercent;
+    private TransferPriority transferPriority;
 
-    public UpdateOfflineUsersResponse(SyncProgress progress, ApiClient apiClient, ServerInfo server, ILocalAssetManager localAssetManager, ILogger logger, CancellationToken cancellationToken, double initialProgressPercent) {
+    public UpdateOfflineUsersResponse(SyncProgress progress, ApiClient apiClient, ServerInfo server, ILocalAssetManager localAssetManager, ILogger logger, CancellationToken cancellationToken, double initialProgressPercent, TransferPriority transferPriority) {
 
         this.progress = progress;
         this.apiClient = apiClient;
@@ -33,6 +35,7 @@ public class UpdateOfflineUsersResponse extends EmptyResponse {
         this.logger = logger;
         this.cancellationToken = cancellationToken;
         this.initialProgressPercent = initialProgressPercent;
+        this.transferPriority = transferPriority;
     }
 
     @Override
@@ -49,6 +52,8 @@ public class UpdateOfflineUsersResponse extends EmptyResponse {
 
     public void startMediaSync(){
 
-        new MediaSync(localAssetManager, logger).sync(apiClient, server, new MediaSyncProgress(progress, initialProgressPercent), cancellationToken);
+        MediaSync mediaSync = new MediaSync(localAssetManager, logger);
+        mediaSync.setTransferPriority(transferPriority);
+        mediaSync.sync(apiClient, server, new MediaSyncProgress(progress, initialProgressPercent), cancellationToken);
     }
 }
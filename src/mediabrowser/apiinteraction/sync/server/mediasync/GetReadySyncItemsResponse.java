@@ -36,7 +36,7 @@ public class GetReadySyncItemsResponse extends Response<ReadySyncItemsResult> {
 
         logger.Debug("Ready sync items response returned %s items", jobItems.size());
 
-        mediaSync.GetNextItem(jobItems, 0, apiClient, serverInfo, cancellationToken, progress);
+        mediaSync.GetItems(jobItems, apiClient, serverInfo, cancellationToken, progress);
     }
 
     @Override
@@ -0,0 +1,231 @@
+package mediabrowser.apiinteraction.sync.server.mediasync;
+
+import mediabrowser.apiinteraction.ApiClient;
+import mediabrowser.apiinteraction.EmptyResponse;
+import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.tasks.IProgress;
+import mediabrowser.apiinteraction.transfers.ITransfer;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
+import mediabrowser.apiinteraction.transfers.TransferTicket;
+import mediabrowser.model.apiclient.ServerInfo;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.sync.SyncedItem;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the ready sync job items of one sync, keeping a fixed number of items transferring at a time.
+ * An item's images and subtitles are fetched by the same worker right after its media file.
+ *
+ * When the api client has a TransferScheduler the items are queued on it instead of a private worker pool, so they
+ * share its priorities and bandwidth limits with other transfers.
+ */
+public class MediaDownloadQueue {
+
+    private MediaSync mediaSync;
+    private ArrayList<SyncedItem> jobItems;
+    private ApiClient apiClient;
+    private ServerInfo serverInfo;
+    private CancellationToken cancellationToken;
+    private IProgress<Double> progress;
+    private ILogger logger;
+    private int maxConcurrentDownloads;
+    private TransferPriority transferPriority;
+
+    private final Object lock = new Object();
+    private ExecutorService executor;
+    private int nextIndex;
+    private int numComplete;
+
+    public MediaDownloadQueue(MediaSync mediaSync, ArrayList<SyncedItem> jobItems, ApiClient apiClient, ServerInfo serverInfo, CancellationToken cancellationToken, IProgress<Double> progress, ILogger logger, int maxConcurrentDownloads, TransferPriority transferPriority) {
+        this.mediaSync = mediaSync;
+        this.jobItems = jobItems;
+        this.apiClient = apiClient;
+        this.serverInfo = serverInfo;
+        this.cancellationToken = cancellationToken;
+        this.progress = progress;
+        this.logger = logger;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        this.transferPriority = transferPriority;
+    }
+
+    public void start() {
+
+        if (jobItems.size() == 0) {
+            logger.Debug("GetNewMedia complete");
+            progress.reportComplete();
+            return;
+        }
+
+        int numWorkers = Math.min(maxConcurrentDownloads, jobItems.size());
+
+        if (apiClient.getTransferScheduler() != null) {
+
+            for (int i = 0; i < numWorkers; i++) {
+                startNext();
+            }
+            return;
+        }
+
+        // Transfers block their thread in the core ApiClient, so each one gets a worker of its own
+        executor = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "MediaSync-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        for (int i = 0; i < numWorkers; i++) {
+            startNext();
+        }
+    }
+
+    private void startNext() {
+
+        int index;
+
+        // Once cancelled the remaining items are all counted as done here, without starting them
+        while (true) {
+
+            synchronized (lock) {
+
+                if (nextIndex >= jobItems.size()) {
+                    return;
+                }
+
+                index = nextIndex++;
+            }
+
+            if (!cancellationToken.isCancellationRequested()) {
+                break;
+            }
+
+            if (markItemDone()) {
+                onAllDone();
+                return;
+            }
+        }
+
+        final SyncedItem jobItem = jobItems.get(index);
+        TransferScheduler scheduler = apiClient.getTransferScheduler();
+
+        if (scheduler != null) {
+
+            scheduler.enqueue(apiClient.getTransferServerId(), transferPriority, new ITransfer() {
+                @Override
+                public void start(TransferTicket ticket) {
+                    getItem(jobItem, ticket);
+                }
+            });
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                getItem(jobItem, null);
+            }
+        });
+    }
+
+    private void getItem(SyncedItem jobItem, final TransferTicket ticket) {
+
+        // Retries continue on the thread kind the item started on, while it keeps its place in the queue
+        Executor retryExecutor = ticket == null ? executor : new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                ticket.execute(task);
+            }
+        };
+
+        if (cancellationToken.isCancellationRequested()) {
+            completeTicket(ticket);
+            onItemDone();
+            return;
+        }
+
+        mediaSync.GetItem(apiClient, serverInfo, jobItem, cancellationToken, retryExecutor, new EmptyResponse() {
+
+            @Override
+            public void onResponse() {
+
+                completeTicket(ticket);
+                onItemDone();
+            }
+
+            @Override
+            public void onError(Exception ex) {
+
+                logger.ErrorException("Error getting synced item", ex);
+                completeTicket(ticket);
+                onItemDone();
+            }
+        });
+    }
+
+    private static void completeTicket(TransferTicket ticket) {
+
+        if (ticket != null) {
+            ticket.complete();
+        }
+    }
+
+    private void onItemDone() {
+
+        if (markItemDone()) {
+            onAllDone();
+        }
+        else {
+            startNext();
+        }
+    }
+
+    /**
+     * @return true if that was the last item.
+     */
+    private boolean markItemDone() {
+
+        double percent;
+        boolean allDone;
+
+        synchronized (lock) {
+
+            numComplete++;
+            percent = numComplete;
+            percent /= jobItems.size();
+            percent *= 100;
+            allDone = numComplete == jobItems.size();
+        }
+
+        progress.report(percent);
+
+        return allDone;
+    }
+
+    private void onAllDone() {
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        if (cancellationToken.isCancellationRequested()) {
+            progress.reportCancelled();
+        }
+        else {
+            logger.Debug("GetNewMedia complete");
+            progress.reportComplete();
+        }
+    }
+}
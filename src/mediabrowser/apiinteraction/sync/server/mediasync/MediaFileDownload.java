@@ -0,0 +1,262 @@
+package mediabrowser.apiinteraction.sync.server.mediasync;
+
+import mediabrowser.apiinteraction.ApiClient;
+import mediabrowser.apiinteraction.EmptyResponse;
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.apiinteraction.http.IResponseHeadersListener;
+import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
+import mediabrowser.apiinteraction.tasks.CancellationToken;
+import mediabrowser.apiinteraction.transfers.TransferScheduler;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.net.HttpException;
+import mediabrowser.model.sync.LocalItem;
+import mediabrowser.model.sync.SyncedItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Downloads the media file of a sync job item into a partial file and moves it into place once complete.
+ *
+ * A transfer that fails part way keeps what it received. The next attempt, whether a retry here or a later sync,
+ * asks the server for the remainder with a Range request and appends to the partial file.
+ */
+public class MediaFileDownload {
+
+    private static final int MaxAttempts = 3;
+    private static final int RetryDelayMs = 2000;
+
+    // Only waits out retry delays, which must not block the callback thread, a shared download pool thread
+    private static final Timer RetryTimer = new Timer("MediaFileDownload-Retry", true);
+
+    private ApiClient apiClient;
+    private ILocalAssetManager localAssetManager;
+    private ILogger logger;
+    private SyncedItem jobItem;
+    private LocalItem localItem;
+    private CancellationToken cancellationToken;
+    private Executor retryExecutor;
+    private EmptyResponse response;
+    private int attempt;
+
+    public MediaFileDownload(ApiClient apiClient, ILocalAssetManager localAssetManager, ILogger logger, SyncedItem jobItem, LocalItem localItem, CancellationToken cancellationToken, Executor retryExecutor, EmptyResponse response) {
+        this.apiClient = apiClient;
+        this.localAssetManager = localAssetManager;
+        this.logger = logger;
+        this.jobItem = jobItem;
+        this.localItem = localItem;
+        this.cancellationToken = cancellationToken;
+        this.retryExecutor = retryExecutor;
+        this.response = response;
+    }
+
+    public void start() {
+
+        attempt++;
+
+        long offset = localAssetManager.getPartialMediaLength(localItem);
+
+        if (offset > 0) {
+            logger.Debug("Resuming download of %s at byte %s", localItem.getLocalPath(), offset);
+        }
+
+        apiClient.GetSyncJobItemFile(jobItem.getSyncJobItemId(), offset, new AttemptResponse(offset));
+    }
+
+    private void onAttemptFailed(final Exception ex) {
+
+        if (attempt >= MaxAttempts || cancellationToken.isCancellationRequested() || !isRetryable(ex)) {
+            response.onError(ex);
+            return;
+        }
+
+        logger.ErrorException("Error downloading %s, retrying", ex, localItem.getLocalPath());
+
+        RetryTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                resubmit(ex);
+            }
+        }, RetryDelayMs * attempt);
+    }
+
+    /**
+     * Runs on the timer thread, so the attempt itself, which may copy the whole file, is handed to the executor.
+     */
+    private void resubmit(final Exception lastError) {
+
+        if (cancellationToken.isCancellationRequested()) {
+            response.onError(lastError);
+            return;
+        }
+
+        try {
+            retryExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    retry(lastError);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            response.onError(lastError);
+        }
+    }
+
+    private void retry(Exception lastError) {
+
+        if (cancellationToken.isCancellationRequested()) {
+            response.onError(lastError);
+            return;
+        }
+
+        try {
+            start();
+        }
+        catch (RuntimeException ex) {
+            response.onError(ex);
+        }
+    }
+
+    private static boolean isRetryable(Exception ex) {
+
+        if (ex instanceof HttpException) {
+            Integer statusCode = ((HttpException) ex).getStatusCode();
+            return statusCode == null || statusCode >= 500 || statusCode == 408 || statusCode == 416;
+        }
+
+        return ex instanceof IOException;
+    }
+
+    /**
+     * Checks that a Content-Range header of the form "bytes start-end/total" starts at the offset.
+     */
+    private static boolean isRangeAt(String contentRange, long offset) {
+
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return false;
+        }
+
+        int dash = contentRange.indexOf('-');
+
+        if (dash == -1) {
+            return false;
+        }
+
+        try {
+            return Long.parseLong(contentRange.substring(6, dash).trim()) == offset;
+        }
+        catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private class AttemptResponse extends Response<InputStream> implements IResponseHeadersListener {
+
+        private long offset;
+        private int statusCode;
+        private String contentRange;
+        private long contentLength = -1;
+
+        public AttemptResponse(long offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void onResponseHeaders(int statusCode, Map<String, String> headers) {
+
+            this.statusCode = statusCode;
+
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if ("Content-Range".equalsIgnoreCase(header.getKey())) {
+                    contentRange = header.getValue();
+                }
+                else if ("Content-Length".equalsIgnoreCase(header.getKey())) {
+                    try {
+                        contentLength = Long.parseLong(header.getValue().trim());
+                    }
+                    catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onResponse(InputStream stream) {
+
+            boolean append = offset > 0 && statusCode == 206;
+
+            if (append && !isRangeAt(contentRange, offset)) {
+
+                logger.Error("Unexpected Content-Range %s when resuming %s. Restarting download.", contentRange, localItem.getLocalPath());
+                closeQuietly(stream);
+                localAssetManager.deletePartialMedia(localItem);
+                onAttemptFailed(new IOException("Unexpected Content-Range " + contentRange));
+                return;
+            }
+
+            if (offset > 0 && !append) {
+                logger.Debug("Server ignored the range request for %s. Downloading from the start.", localItem.getLocalPath());
+            }
+
+            TransferScheduler scheduler = apiClient.getTransferScheduler();
+
+            try (InputStream copy = scheduler == null ? stream : scheduler.throttle(apiClient.getTransferServerId(), stream)) {
+
+                localAssetManager.savePartialMedia(copy, localItem, append);
+            }
+            catch (IOException ioException) {
+                onAttemptFailed(ioException);
+                return;
+            }
+
+            // A connection that drops mid-body can look like a normal end of stream, so the length is checked
+            long expectedLength = contentLength < 0 ? -1 : (append ? offset : 0) + contentLength;
+
+            if (expectedLength >= 0 && localAssetManager.getPartialMediaLength(localItem) < expectedLength) {
+                onAttemptFailed(new IOException("Transfer of " + localItem.getLocalPath() + " ended before " + expectedLength + " bytes"));
+                return;
+            }
+
+            try {
+                localAssetManager.completePartialMedia(localItem);
+            }
+            catch (IOException ioException) {
+                response.onError(ioException);
+                return;
+            }
+
+            response.onResponse();
+        }
+
+        @Override
+        public void onError(Exception ex) {
+
+            if (ex instanceof HttpException) {
+
+                Integer status = ((HttpException) ex).getStatusCode();
+
+                // The partial file does not match the server's copy, most likely because it changed
+                if (status != null && status == 416) {
+                    localAssetManager.deletePartialMedia(localItem);
+                }
+            }
+
+            onAttemptFailed(ex);
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+
+        try {
+            stream.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+}
@@ -4,9 +4,11 @@ import mediabrowser.apiinteraction.ApiClient;
 import mediabrowser.apiinteraction.EmptyResponse;
 import mediabrowser.apiinteraction.Response;
 import mediabrowser.apiinteraction.sync.data.ILocalAssetManager;
+import mediabrowser.apiinteraction.sync.data.UserActionCompactor;
 import mediabrowser.apiinteraction.tasks.CancellationToken;
 import mediabrowser.apiinteraction.tasks.IProgress;
 import mediabrowser.apiinteraction.tasks.Progress;
+import mediabrowser.apiinteraction.transfers.TransferPriority;
 import mediabrowser.model.apiclient.ServerInfo;
 import mediabrowser.model.apiclient.ServerUserInfo;
 import mediabrowser.model.dto.BaseItemDto;
@@ -22,6 +24,7 @@ import mediabrowser.model.users.UserAction;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Luke on 3/11/2015.
@@ -30,12 +33,67 @@ public class MediaSync {
 
     private ILocalAssetManager localAssetManager;
     private ILogger logger;
+    private int maxConcurrentDownloads = 2;
+    private int maxOfflineActionsPerRequest = 200;
+    private TransferPriority transferPriority = TransferPriority.Normal;
 
     public MediaSync(ILocalAssetManager localAssetManager, ILogger logger) {
         this.localAssetManager = localAssetManager;
         this.logger = logger;
     }
 
+    public int getMaxConcurrentDownloads() {
+        return maxConcurrentDownloads;
+    }
+
+    /**
+     * Sets how many sync job items are downloaded at the same time.
+     */
+    public void setMaxConcurrentDownloads(int maxConcurrentDownloads) {
+
+        if (maxConcurrentDownloads < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentDownloads");
+        }
+
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+    }
+
+    public int getMaxOfflineActionsPerRequest() {
+        return maxOfflineActionsPerRequest;
+    }
+
+    /**
+     * Sets how many offline user actions are reported to the server in one request.
+     */
+    public void setMaxOfflineActionsPerRequest(int maxOfflineActionsPerRequest) {
+
+        if (maxOfflineActionsPerRequest < 1)
+        {
+            throw new IllegalArgumentException("maxOfflineActionsPerRequest");
+        }
+
+        this.maxOfflineActionsPerRequest = maxOfflineActionsPerRequest;
+    }
+
+    public TransferPriority getTransferPriority() {
+        return transferPriority;
+    }
+
+    /**
+     * Sets the priority sync job item downloads are queued with on the api client's TransferScheduler.
+     * Use UserRequested when the user asked for this sync, so its items start ahead of routine transfers.
+     */
+    public void setTransferPriority(TransferPriority transferPriority) {
+
+        if (transferPriority == null)
+        {
+            throw new IllegalArgumentException("transferPriority");
+        }
+
+        this.transferPriority = transferPriority;
+    }
+
     public void sync(final ApiClient apiClient,
                      final ServerInfo serverInfo,
                      final Progress<Double> progress,
@@ -128,52 +186,16 @@ public class MediaSync {
         apiClient.getReadySyncItems(apiClient.getDeviceId(), new GetReadySyncItemsResponse(logger, apiClient, serverInfo, cancellationToken, progress, this));
     }
 
-    void GetNextItem(final ArrayList<SyncedItem> jobItems, final int index, final ApiClient apiClient, final ServerInfo serverInfo, final CancellationToken cancellationToken, final IProgress<Double> progress){
-
-        if (index >= jobItems.size()){
-            logger.Debug("GetNewMedia complete");
-            progress.reportComplete();
-            return;
-        }
-
-        if (cancellationToken.isCancellationRequested()){
-            progress.reportCancelled();
-            return;
-        }
-
-        SyncedItem jobItem = jobItems.get(index);
-
-        GetItem(apiClient, serverInfo, jobItem, cancellationToken, new EmptyResponse() {
-
-            private void onAny() {
-
-                int numComplete = index + 1;
-                double startingPercent = numComplete;
-                startingPercent /= jobItems.size();
-                startingPercent *= 100;
-                progress.report(startingPercent);
-
-                GetNextItem(jobItems, index + 1, apiClient, serverInfo, cancellationToken, progress);
-            }
-
-            @Override
-            public void onResponse() {
+    void GetItems(final ArrayList<SyncedItem> jobItems, final ApiClient apiClient, final ServerInfo serverInfo, final CancellationToken cancellationToken, final IProgress<Double> progress){
 
-                onAny();
-            }
-
-            @Override
-            public void onError(Exception ex) {
-                logger.ErrorException("Error getting synced item", ex);
-                onAny();
-            }
-        });
+        new MediaDownloadQueue(this, jobItems, apiClient, serverInfo, cancellationToken, progress, logger, maxConcurrentDownloads, transferPriority).start();
     }
 
-    private void GetItem(final ApiClient apiClient,
+    void GetItem(final ApiClient apiClient,
                          final ServerInfo server,
                          final SyncedItem jobItem,
                          final CancellationToken cancellationToken,
+                         Executor retryExecutor,
                          final EmptyResponse response){
 
         BaseItemDto libraryItem = jobItem.getItem();
@@ -182,21 +204,12 @@ public class MediaSync {
 
         final LocalItem localItem = localAssetManager.createLocalItem(libraryItem, server, jobItem.getOriginalFileName());
 
-        apiClient.GetSyncJobItemFile(jobItem.getSyncJobItemId(), new Response<InputStream>(response){
+        new MediaFileDownload(apiClient, localAssetManager, logger, jobItem, localItem, cancellationToken, retryExecutor, new EmptyResponse(response){
 
             @Override
-            public void onResponse(InputStream stream) {
-
-                logger.Debug("Got item file response stream");
+            public void onResponse() {
 
-                try (InputStream copy = stream){
-
-                    localAssetManager.saveMedia(copy, localItem, server);
-                }
-                catch (IOException ioException){
-                    response.onError(ioException);
-                    return;
-                }
+                logger.Debug("Saved item file to %s", localItem.getLocalPath());
 
                 // Create db record
                 localAssetManager.addOrUpdate(localItem);
@@ -241,7 +254,7 @@ public class MediaSync {
                     }
                 });
             }
-        });
+        }).start();
     }
 
     private void GetNextImage(final int index, final ApiClient apiClient, final LocalItem item, final CancellationToken cancellationToken, final IProgress<Double> progress) {
@@ -392,6 +405,7 @@ public class MediaSync {
 
         if (jobItem.getItem().getMediaSources().size() == 0){
             logger.Error("Cannot download subtitles because video has no media source info.");
+            progress.reportComplete();
             return;
         }
 
@@ -445,18 +459,43 @@ public class MediaSync {
                                       ServerInfo serverInfo,
                                       final EmptyResponse response){
 
-        final ArrayList<UserAction> actions = localAssetManager.getUserActions(serverInfo.getId());
+        ArrayList<UserAction> superseded = new ArrayList<UserAction>();
+        ArrayList<UserAction> actions = UserActionCompactor.compact(localAssetManager.getUserActions(serverInfo.getId()), superseded);
 
-        logger.Debug("Reporting "+actions.size()+" offline actions to server " + serverInfo.getId());
+        if (superseded.size() > 0) {
+            localAssetManager.deleteUserActions(superseded);
+        }
 
-        EmptyResponse onUserActionsReported = new UserActionsReportedResponse(response, actions, localAssetManager);
+        logger.Debug("Reporting %s offline actions to server %s, %s superseded actions were dropped", actions.size(), serverInfo.getId(), superseded.size());
 
-        if (actions.size() > 0)
-        {
-            apiClient.ReportOfflineActions(actions, onUserActionsReported);
-        }
-        else{
-            onUserActionsReported.onResponse();
+        ReportOfflineActions(apiClient, actions, 0, response);
+    }
+
+    /**
+     * Reports the actions from the given index on, a batch at a time. Each batch is deleted once the server has
+     * acknowledged it, so a failure part way only leaves the unreported batches to be sent next time.
+     */
+    private void ReportOfflineActions(final ApiClient apiClient,
+                                      final ArrayList<UserAction> actions,
+                                      int index,
+                                      final EmptyResponse response){
+
+        if (index >= actions.size()) {
+            response.onResponse();
+            return;
         }
+
+        final int end = Math.min(index + maxOfflineActionsPerRequest, actions.size());
+        ArrayList<UserAction> batch = new ArrayList<UserAction>(actions.subList(index, end));
+
+        EmptyResponse onBatchReported = new EmptyResponse(response) {
+
+            @Override
+            public void onResponse() {
+                ReportOfflineActions(apiClient, actions, end, response);
+            }
+        };
+
+        apiClient.ReportOfflineActions(batch, new UserActionsReportedResponse(onBatchReported, batch, localAssetManager));
     }
 }
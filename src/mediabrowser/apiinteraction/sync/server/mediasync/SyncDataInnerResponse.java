@@ -34,53 +34,43 @@ public class SyncDataInnerResponse extends Response<SyncDataResponse>
     @Override
     public void onResponse(SyncDataResponse result) {
 
-        for(String itemIdToRemove : result.getItemIdsToRemove())
-        {
-            removeItem(serverInfo.getId(), itemIdToRemove);
-        }
+        removeItems(serverInfo.getId(), result.getItemIdsToRemove());
 
         if (syncUserItemAccess)
         {
             logger.Debug("Syncing users with access");
 
-            for (String itemId : result.getItemUserAccess().keySet())
-            {
-                LocalItem localItem = localAssetManager.getLocalItem(serverInfo.getId(), itemId);
-
-                ArrayList<String> userIdsWithAccess = result.getItemUserAccess().get(itemId);
-
-                if (!userIdsWithAccess.equals(localItem.getUserIdsWithAccess()))
-                {
-                    localItem.setUserIdsWithAccess(userIdsWithAccess);
-                    localAssetManager.addOrUpdate(localItem);
-                }
-            }
+            localAssetManager.updateUserAccess(serverInfo.getId(), result.getItemUserAccess());
         }
 
         logger.Debug("Calling SyncDataInnerResponse.triggerInnerResponse");
         triggerInnerResponse();
     }
 
-    private void removeItem(String serverId, String itemId)
+    private void removeItems(String serverId, ArrayList<String> itemIds)
     {
-        logger.Debug("Removing item. ServerId: %s, ItemId: %s", serverId, itemId);
-        LocalItem localItem = localAssetManager.getLocalItem(serverId, itemId);
-
-        if (localItem == null)
+        if (itemIds.isEmpty())
         {
             return;
         }
 
-        ArrayList<String> additionalFiles = localItem.getAdditionalFiles();
-        String localPath = localItem.getLocalPath();
+        logger.Debug("Removing %s items. ServerId: %s", itemIds.size(), serverId);
 
-        localAssetManager.delete(localItem);
+        // Look up and delete the records together, then remove the files once the database no longer refers to them
+        ArrayList<LocalItem> localItems = localAssetManager.getLocalItems(serverId, itemIds);
 
-        for (String file : additionalFiles)
+        localAssetManager.deleteItems(localItems);
+
+        for (LocalItem localItem : localItems)
         {
-            localAssetManager.deleteFile(file);
-        }
+            logger.Debug("Removing item. ServerId: %s, ItemId: %s", serverId, localItem.getItemId());
+
+            for (String file : localItem.getAdditionalFiles())
+            {
+                localAssetManager.deleteFile(file);
+            }
 
-        localAssetManager.deleteFile(localPath);
+            localAssetManager.deleteFile(localItem.getLocalPath());
+        }
     }
 }
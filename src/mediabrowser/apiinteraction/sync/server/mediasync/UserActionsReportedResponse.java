@@ -24,10 +24,7 @@ public class UserActionsReportedResponse extends EmptyResponse {
 
     @Override
     public  void onResponse(){
-        for (UserAction action : actions)
-        {
-            localAssetManager.delete(action);
-        }
+        localAssetManager.deleteUserActions(actions);
         triggerInnerResponse();
     }
 }
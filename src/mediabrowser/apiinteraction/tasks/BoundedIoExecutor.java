@@ -0,0 +1,113 @@
+package mediabrowser.apiinteraction.tasks;
+
+import java.util.EnumMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IIoExecutor with a fixed size thread pool per IoPool. Idle threads exit after a minute, so an app that is not
+ * transferring anything holds no threads.
+ */
+public class BoundedIoExecutor implements IIoExecutor {
+
+    private static BoundedIoExecutor shared;
+
+    private final EnumMap<IoPool, ThreadPoolExecutor> executors = new EnumMap<IoPool, ThreadPoolExecutor>(IoPool.class);
+
+    public BoundedIoExecutor() {
+        this(4, 2, 4);
+    }
+
+    public BoundedIoExecutor(int downloadThreads, int uploadThreads, int controlThreads) {
+
+        if (downloadThreads < 1)
+        {
+            throw new IllegalArgumentException("downloadThreads");
+        }
+        if (uploadThreads < 1)
+        {
+            throw new IllegalArgumentException("uploadThreads");
+        }
+        if (controlThreads < 1)
+        {
+            throw new IllegalArgumentException("controlThreads");
+        }
+
+        executors.put(IoPool.Download, createExecutor(IoPool.Download, downloadThreads));
+        executors.put(IoPool.Upload, createExecutor(IoPool.Upload, uploadThreads));
+        executors.put(IoPool.Control, createExecutor(IoPool.Control, controlThreads));
+    }
+
+    /**
+     * Gets the executor used by api clients and connection managers that have not been given one, created with the
+     * default pool sizes the first time it is needed.
+     */
+    public static synchronized BoundedIoExecutor getShared() {
+
+        if (shared == null) {
+            shared = new BoundedIoExecutor();
+        }
+
+        return shared;
+    }
+
+    private static ThreadPoolExecutor createExecutor(IoPool pool, int threads) {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new IoThreadFactory(pool));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void execute(IoPool pool, Runnable task) {
+
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task");
+        }
+
+        executors.get(pool).execute(task);
+    }
+
+    @Override
+    public IoPoolMetrics getMetrics(IoPool pool) {
+
+        ThreadPoolExecutor executor = executors.get(pool);
+
+        return new IoPoolMetrics(pool,
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                executor.getCompletedTaskCount());
+    }
+
+    @Override
+    public void shutdown() {
+
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    private static class IoThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        IoThreadFactory(IoPool pool) {
+            namePrefix = "Io" + pool + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
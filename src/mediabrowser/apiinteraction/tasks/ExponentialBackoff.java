@@ -0,0 +1,50 @@
+package mediabrowser.apiinteraction.tasks;
+
+import java.util.Random;
+
+/**
+ * Delays between retries that double with each attempt up to a maximum.
+ *
+ * Half of each delay is fixed and the other half is random, so that clients disconnected at the same moment, such as
+ * when a server restarts, do not all retry at the same moment either.
+ */
+public final class ExponentialBackoff {
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final Random random = new Random();
+
+    public ExponentialBackoff(long initialDelayMs, long maxDelayMs) {
+
+        if (initialDelayMs <= 0)
+        {
+            throw new IllegalArgumentException("initialDelayMs");
+        }
+        if (maxDelayMs < initialDelayMs)
+        {
+            throw new IllegalArgumentException("maxDelayMs");
+        }
+
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempt The number of retries made so far, starting from zero.
+     * @return The delay before the next retry.
+     */
+    public long getDelayMs(int attempt) {
+
+        long delay = initialDelayMs;
+
+        for (int i = 0; i < attempt && delay < maxDelayMs; i++) {
+            delay *= 2;
+        }
+
+        delay = Math.min(delay, maxDelayMs);
+
+        long half = delay / 2;
+
+        return delay - half + (long) (random.nextDouble() * half);
+    }
+}
@@ -0,0 +1,20 @@
+package mediabrowser.apiinteraction.tasks;
+
+/**
+ * Runs blocking network and file work in the background, on a bounded number of threads per pool rather than a new
+ * thread per call.
+ */
+public interface IIoExecutor {
+
+    /**
+     * Runs the task once the pool has room for it. Tasks beyond the pool's limit wait in order.
+     */
+    void execute(IoPool pool, Runnable task);
+
+    IoPoolMetrics getMetrics(IoPool pool);
+
+    /**
+     * Stops accepting tasks. Tasks already running or queued are allowed to finish.
+     */
+    void shutdown();
+}
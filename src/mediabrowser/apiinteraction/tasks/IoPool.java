@@ -0,0 +1,23 @@
+package mediabrowser.apiinteraction.tasks;
+
+/**
+ * The pools of an IIoExecutor. Each pool has its own concurrency limit, so that a long queue of one kind of work
+ * cannot hold up the others.
+ */
+public enum IoPool {
+
+    /**
+     * Streaming downloads, such as images and synced media.
+     */
+    Download,
+
+    /**
+     * File uploads, such as camera uploads.
+     */
+    Upload,
+
+    /**
+     * Short calls the app waits on, such as server discovery and wake on lan.
+     */
+    Control
+}
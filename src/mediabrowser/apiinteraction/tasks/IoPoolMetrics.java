@@ -0,0 +1,49 @@
+package mediabrowser.apiinteraction.tasks;
+
+/**
+ * A snapshot of the work in one pool of an IIoExecutor.
+ */
+public final class IoPoolMetrics {
+
+    private final IoPool pool;
+    private final int maxConcurrency;
+    private final int activeTasks;
+    private final int queuedTasks;
+    private final long completedTasks;
+
+    public IoPoolMetrics(IoPool pool, int maxConcurrency, int activeTasks, int queuedTasks, long completedTasks) {
+        this.pool = pool;
+        this.maxConcurrency = maxConcurrency;
+        this.activeTasks = activeTasks;
+        this.queuedTasks = queuedTasks;
+        this.completedTasks = completedTasks;
+    }
+
+    public IoPool getPool() {
+        return pool;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+
+    /**
+     * The number of tasks waiting for the pool to have room.
+     */
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    @Override
+    public String toString() {
+        return pool + ": " + activeTasks + "/" + maxConcurrency + " active, " + queuedTasks + " queued, " + completedTasks + " completed";
+    }
+}
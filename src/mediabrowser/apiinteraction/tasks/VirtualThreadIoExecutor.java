@@ -0,0 +1,150 @@
+package mediabrowser.apiinteraction.tasks;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IIoExecutor that runs every task on its own virtual thread, for JVMs that have them (Java 21 and later). Waiting
+ * tasks hold a parked virtual thread rather than a platform thread, and each pool's limit is kept by a semaphore.
+ *
+ * Virtual threads are looked up by reflection so that the library still builds for, and runs on, older JVMs and
+ * Android. Check isSupported before creating one, or use BoundedIoExecutor.
+ */
+public class VirtualThreadIoExecutor implements IIoExecutor {
+
+    private final ExecutorService executor;
+    private final EnumMap<IoPool, PoolState> pools = new EnumMap<IoPool, PoolState>(IoPool.class);
+
+    public VirtualThreadIoExecutor(int maxDownloads, int maxUploads, int maxControlTasks) {
+
+        if (maxDownloads < 1)
+        {
+            throw new IllegalArgumentException("maxDownloads");
+        }
+        if (maxUploads < 1)
+        {
+            throw new IllegalArgumentException("maxUploads");
+        }
+        if (maxControlTasks < 1)
+        {
+            throw new IllegalArgumentException("maxControlTasks");
+        }
+
+        executor = createVirtualThreadExecutor();
+
+        if (executor == null)
+        {
+            throw new UnsupportedOperationException("Virtual threads are not available on this JVM");
+        }
+
+        pools.put(IoPool.Download, new PoolState(maxDownloads));
+        pools.put(IoPool.Upload, new PoolState(maxUploads));
+        pools.put(IoPool.Control, new PoolState(maxControlTasks));
+    }
+
+    public static boolean isSupported() {
+        return getFactoryMethod() != null;
+    }
+
+    private static Method getFactoryMethod() {
+
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        Method method = getFactoryMethod();
+
+        if (method == null) {
+            return null;
+        }
+
+        try {
+            return (ExecutorService) method.invoke(null);
+        }
+        catch (Exception ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(IoPool pool, final Runnable task) {
+
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task");
+        }
+
+        final PoolState state = pools.get(pool);
+
+        state.queued.incrementAndGet();
+
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    state.run(task);
+                }
+            });
+        }
+        catch (RuntimeException ex) {
+            state.queued.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    @Override
+    public IoPoolMetrics getMetrics(IoPool pool) {
+
+        PoolState state = pools.get(pool);
+
+        return new IoPoolMetrics(pool, state.maxConcurrency, state.active.get(), state.queued.get(), state.completed.get());
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class PoolState {
+
+        private final int maxConcurrency;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+
+        PoolState(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            // Fair, so that waiting tasks start in the order they were queued
+            permits = new Semaphore(maxConcurrency, true);
+        }
+
+        void run(Runnable task) {
+
+            permits.acquireUninterruptibly();
+            queued.decrementAndGet();
+            active.incrementAndGet();
+
+            try {
+                task.run();
+            }
+            finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+                permits.release();
+            }
+        }
+    }
+}
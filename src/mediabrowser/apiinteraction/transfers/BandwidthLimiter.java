@@ -0,0 +1,46 @@
+package mediabrowser.apiinteraction.transfers;
+
+/**
+ * Token bucket limiting the rate at which bytes may be transferred. Up to one second of unused allowance can be
+ * spent in a burst.
+ */
+public class BandwidthLimiter {
+
+    private static final long BurstMs = 1000;
+
+    private long bytesPerSecond;
+    private long nextFreeTime;
+
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @param bytesPerSecond The limit, or 0 for no limit.
+     */
+    public synchronized void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Accounts for bytes about to be transferred.
+     *
+     * @return How long the caller should wait, in milliseconds, to stay within the limit.
+     */
+    public synchronized long reserve(int byteCount) {
+
+        if (bytesPerSecond <= 0) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+
+        nextFreeTime = Math.max(nextFreeTime, now - BurstMs) + (byteCount * 1000L / bytesPerSecond);
+
+        return Math.max(nextFreeTime - now, 0);
+    }
+}
@@ -0,0 +1,13 @@
+package mediabrowser.apiinteraction.transfers;
+
+/**
+ * A unit of work run by the TransferScheduler.
+ */
+public interface ITransfer {
+
+    /**
+     * Starts the transfer. It may finish asynchronously, but must call ticket.complete() once it has, whether it
+     * succeeded or not, so that the next transfer can start.
+     */
+    void start(TransferTicket ticket);
+}
@@ -0,0 +1,47 @@
+package mediabrowser.apiinteraction.transfers;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that holds reads to the bandwidth limits of a TransferScheduler.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+    private static final int MaxReadSize = 64 * 1024;
+
+    private TransferScheduler scheduler;
+    private String serverId;
+
+    public ThrottledInputStream(InputStream stream, TransferScheduler scheduler, String serverId) {
+        super(stream);
+        this.scheduler = scheduler;
+        this.serverId = serverId;
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        int value = super.read();
+
+        if (value != -1) {
+            scheduler.throttle(serverId, 1);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+
+        // Reads are kept small so the limit is applied smoothly rather than in large bursts
+        int read = super.read(buffer, offset, Math.min(length, MaxReadSize));
+
+        if (read > 0) {
+            scheduler.throttle(serverId, read);
+        }
+
+        return read;
+    }
+}
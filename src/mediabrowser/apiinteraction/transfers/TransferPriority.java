@@ -0,0 +1,22 @@
+package mediabrowser.apiinteraction.transfers;
+
+/**
+ * Order in which queued transfers are started. Transfers of equal priority start in the order they were queued.
+ */
+public enum TransferPriority {
+
+    /**
+     * Something the user is waiting on, such as an item they asked to download.
+     */
+    UserRequested,
+
+    /**
+     * Regular sync downloads.
+     */
+    Normal,
+
+    /**
+     * Work nobody is waiting on, such as camera uploads.
+     */
+    Background
+}
@@ -0,0 +1,316 @@
+package mediabrowser.apiinteraction.transfers;
+
+import mediabrowser.apiinteraction.network.INetworkConnection;
+import mediabrowser.model.apiclient.NetworkStatus;
+import mediabrowser.model.logging.ILogger;
+
+import java.io.InputStream;
+import java.util.PriorityQueue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared queue for background downloads and uploads.
+ *
+ * Transfers start in priority order, no more than a fixed number at once. The bytes they move are held to an
+ * optional global limit and to optional per-server limits, so background sync leaves room for playback. New
+ * transfers are held back while the scheduler is paused, or while the network is metered if so configured.
+ */
+public class TransferScheduler {
+
+    private static final long NetworkRecheckMs = 30000;
+
+    private INetworkConnection networkConnection;
+    private ILogger logger;
+    private int maxConcurrentTransfers;
+
+    private final Object lock = new Object();
+    private PriorityQueue<QueuedTransfer> queue = new PriorityQueue<QueuedTransfer>();
+    private long nextSequence;
+    private int activeTransfers;
+    private boolean paused;
+    private boolean pauseOnMeteredNetwork = true;
+    private TimerTask recheckTask;
+    private Timer timer;
+
+    private BandwidthLimiter globalLimiter = new BandwidthLimiter(0);
+    private ConcurrentHashMap<String, BandwidthLimiter> serverLimiters = new ConcurrentHashMap<String, BandwidthLimiter>();
+
+    private ExecutorService executor;
+
+    public TransferScheduler(INetworkConnection networkConnection, ILogger logger, int maxConcurrentTransfers) {
+
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+        if (maxConcurrentTransfers < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentTransfers");
+        }
+
+        this.networkConnection = networkConnection;
+        this.logger = logger;
+        this.maxConcurrentTransfers = maxConcurrentTransfers;
+
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+
+                Thread thread = new Thread(runnable, "TransferScheduler-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Sets the limit for all transfers combined, in bytes per second. 0 removes the limit.
+     */
+    public void setMaxBytesPerSecond(long bytesPerSecond) {
+        globalLimiter.setBytesPerSecond(bytesPerSecond);
+    }
+
+    public long getMaxBytesPerSecond() {
+        return globalLimiter.getBytesPerSecond();
+    }
+
+    /**
+     * Sets the limit for transfers to and from one server, in bytes per second. 0 removes the limit.
+     */
+    public void setMaxBytesPerSecond(String serverId, long bytesPerSecond) {
+        getServerLimiter(serverId).setBytesPerSecond(bytesPerSecond);
+    }
+
+    public boolean getPauseOnMeteredNetwork() {
+        return pauseOnMeteredNetwork;
+    }
+
+    public void setPauseOnMeteredNetwork(boolean pauseOnMeteredNetwork) {
+
+        this.pauseOnMeteredNetwork = pauseOnMeteredNetwork;
+        startQueued();
+    }
+
+    /**
+     * Stops new transfers from starting, for example while the user is streaming. Running transfers carry on.
+     */
+    public void pause() {
+
+        synchronized (lock) {
+            paused = true;
+        }
+    }
+
+    public void resume() {
+
+        synchronized (lock) {
+            paused = false;
+        }
+
+        startQueued();
+    }
+
+    public boolean isPaused() {
+
+        synchronized (lock) {
+            return paused;
+        }
+    }
+
+    /**
+     * Call when connectivity changes so that transfers held back by a metered network can start promptly.
+     */
+    public void onNetworkChanged() {
+        startQueued();
+    }
+
+    public void enqueue(String serverId, TransferPriority priority, ITransfer transfer) {
+
+        synchronized (lock) {
+            queue.add(new QueuedTransfer(serverId, priority, nextSequence++, transfer));
+        }
+
+        startQueued();
+    }
+
+    /**
+     * Blocks the calling thread for as long as needed to keep the transfer of byteCount bytes within the limits.
+     */
+    public void throttle(String serverId, int byteCount) {
+
+        long wait = globalLimiter.reserve(byteCount);
+
+        if (serverId != null) {
+
+            BandwidthLimiter serverLimiter = serverLimiters.get(serverId);
+
+            if (serverLimiter != null) {
+                wait = Math.max(wait, serverLimiter.reserve(byteCount));
+            }
+        }
+
+        if (wait <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wraps a stream so that reading from it is held to the limits.
+     */
+    public InputStream throttle(String serverId, InputStream stream) {
+        return new ThrottledInputStream(stream, this, serverId);
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    void onTransferComplete() {
+
+        synchronized (lock) {
+            activeTransfers--;
+        }
+
+        startQueued();
+    }
+
+    private void startQueued() {
+
+        while (true) {
+
+            final QueuedTransfer next;
+
+            synchronized (lock) {
+
+                if (queue.isEmpty() || paused || activeTransfers >= maxConcurrentTransfers) {
+                    return;
+                }
+
+                if (isNetworkRestricted()) {
+                    scheduleNetworkRecheck();
+                    return;
+                }
+
+                next = queue.poll();
+                activeTransfers++;
+            }
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+
+                    TransferTicket ticket = new TransferTicket(TransferScheduler.this, next.serverId);
+
+                    try {
+                        next.transfer.start(ticket);
+                    }
+                    catch (RuntimeException ex) {
+                        logger.ErrorException("Error starting transfer", ex);
+                        ticket.complete();
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean isNetworkRestricted() {
+
+        if (!pauseOnMeteredNetwork || networkConnection == null) {
+            return false;
+        }
+
+        NetworkStatus status = networkConnection.getNetworkStatus();
+
+        if (status.getIsMetered()) {
+            logger.Debug("Holding back %s transfers while the network is metered", queue.size());
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Not every platform reports connectivity changes, so a metered network is checked again after a while.
+     */
+    private void scheduleNetworkRecheck() {
+
+        if (recheckTask != null) {
+            return;
+        }
+
+        if (timer == null) {
+            timer = new Timer("TransferScheduler", true);
+        }
+
+        recheckTask = new TimerTask() {
+            @Override
+            public void run() {
+
+                synchronized (lock) {
+                    recheckTask = null;
+                }
+
+                startQueued();
+            }
+        };
+
+        timer.schedule(recheckTask, NetworkRecheckMs);
+    }
+
+    private BandwidthLimiter getServerLimiter(String serverId) {
+
+        BandwidthLimiter limiter = serverLimiters.get(serverId);
+
+        if (limiter == null) {
+            BandwidthLimiter newLimiter = new BandwidthLimiter(0);
+            limiter = serverLimiters.putIfAbsent(serverId, newLimiter);
+            if (limiter == null) {
+                limiter = newLimiter;
+            }
+        }
+
+        return limiter;
+    }
+
+    private static class QueuedTransfer implements Comparable<QueuedTransfer> {
+
+        private String serverId;
+        private TransferPriority priority;
+        private long sequence;
+        private ITransfer transfer;
+
+        private QueuedTransfer(String serverId, TransferPriority priority, long sequence, ITransfer transfer) {
+            this.serverId = serverId;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.transfer = transfer;
+        }
+
+        @Override
+        public int compareTo(QueuedTransfer other) {
+
+            int result = priority.compareTo(other.priority);
+
+            if (result != 0) {
+                return result;
+            }
+
+            return sequence < other.sequence ? -1 : (sequence > other.sequence ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package mediabrowser.apiinteraction.transfers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handed to a running transfer. Completing it frees the transfer's slot in the scheduler.
+ */
+public class TransferTicket {
+
+    private TransferScheduler scheduler;
+    private String serverId;
+    private AtomicBoolean completed = new AtomicBoolean();
+
+    TransferTicket(TransferScheduler scheduler, String serverId) {
+        this.scheduler = scheduler;
+        this.serverId = serverId;
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    /**
+     * Runs more work for this transfer, such as a retry, on the scheduler's threads. The transfer keeps its slot, so
+     * the work starts straight away rather than queueing behind other transfers.
+     */
+    public void execute(Runnable task) {
+        scheduler.execute(task);
+    }
+
+    /**
+     * Marks the transfer as finished. Calls after the first are ignored.
+     */
+    public void complete() {
+
+        if (completed.compareAndSet(false, true)) {
+            scheduler.onTransferComplete();
+        }
+    }
+}
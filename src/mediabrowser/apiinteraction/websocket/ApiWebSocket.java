@@ -3,12 +3,10 @@ package mediabrowser.apiinteraction.websocket;
 import mediabrowser.apiinteraction.ApiClient;
 import mediabrowser.apiinteraction.ApiEventListener;
 import mediabrowser.apiinteraction.EmptyResponse;
+import mediabrowser.apiinteraction.tasks.ExponentialBackoff;
 import mediabrowser.model.apiclient.GeneralCommandEventArgs;
-import mediabrowser.model.apiclient.SessionUpdatesEventArgs;
-import mediabrowser.model.dto.UserDto;
 import mediabrowser.model.extensions.IntHelper;
 import mediabrowser.model.extensions.LongHelper;
-import mediabrowser.model.extensions.StringHelper;
 import mediabrowser.model.logging.ILogger;
 import mediabrowser.model.net.WebSocketMessage;
 import mediabrowser.model.serialization.IJsonSerializer;
@@ -17,14 +15,41 @@ import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
 import java.net.URLEncoder;
-
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The web socket connection to a server.
+ *
+ * Once opened the connection is supervised until Close is called. A dropped or failed connection is retried with
+ * jittered exponential backoff, and the server is pinged periodically so that a connection which has silently died
+ * is noticed and replaced rather than waited on. Messages sent while reconnecting are held in a bounded buffer,
+ * where a newer progress report replaces an older one for the same playback, and are sent once the connection is back.
+ */
 public class ApiWebSocket implements ISocketListener {
 
+    private static final long HeartbeatIntervalMs = 30000;
+    // A connection that has received nothing, not even a pong, for this long is considered dead
+    private static final long HeartbeatTimeoutMs = HeartbeatIntervalMs * 5 / 2;
+    private static final int MaxBufferedMessages = 50;
+
     private IJsonSerializer jsonSerializer;
     private ILogger logger;
     private ApiEventListener apiEventListener;
     private ApiClient apiClient;
     private boolean enableReconnection;
+    private boolean hasConnected;
+    private int reconnectAttempts;
+    private volatile long lastReceivedNanos;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> reconnectFuture;
+    private final ExponentialBackoff reconnectBackoff = new ExponentialBackoff(1000, 60000);
+    private final OutboundMessageBuffer outboundBuffer = new OutboundMessageBuffer(MaxBufferedMessages);
+    private WebSocketMessageRouter messageRouter;
 
     public ApiWebSocket(IJsonSerializer jsonSerializer, ILogger logger, ApiEventListener apiEventListener, ApiClient apiClient){
 
@@ -32,6 +57,9 @@ public class ApiWebSocket implements ISocketListener {
         this.logger = logger;
         this.apiEventListener = apiEventListener;
         this.apiClient = apiClient;
+
+        messageRouter = new WebSocketMessageRouter(jsonSerializer, logger);
+        RegisterMessageHandlers();
     }
 
     public void OpenWebSocket() {
@@ -39,7 +67,13 @@ public class ApiWebSocket implements ISocketListener {
         EnsureWebSocket();
     }
 
-    public void EnsureWebSocket(){
+    public synchronized void EnsureWebSocket(){
+
+        if (!enableReconnection){
+
+            enableReconnection = true;
+            StartHeartbeat();
+        }
 
         if (!IsWebSocketOpenOrConnecting()){
             OpenInternal();
@@ -50,18 +84,34 @@ public class ApiWebSocket implements ISocketListener {
 
         String address = getWebSocketServerAddress();
 
-        URI uri = URI.create(address);
+        try {
+            URI uri = URI.create(address);
 
-        logger.Debug("Connecting to web socket url: " + address);
+            logger.Debug("Connecting to web socket url: " + address);
 
-        socketClient = new JavaWebSocketClient(logger, uri, this);
+            ConnectionListener listener = new ConnectionListener();
+            socketClient = new JavaWebSocketClient(logger, uri, listener);
+            listener.client = socketClient;
 
-        socketClient.connect();
+            socketClient.connect();
+        }
+        catch (RuntimeException ex){
+
+            logger.ErrorException("Error connecting to web socket url: %s", ex, address);
+            ScheduleReconnect();
+        }
     }
 
     public void onOpen(){
 
-        enableReconnection = true;
+        synchronized (this){
+
+            hasConnected = true;
+            reconnectAttempts = 0;
+            lastReceivedNanos = System.nanoTime();
+        }
+
+        FlushOutboundBuffer();
     }
 
     private String getWebSocketServerAddress(){
@@ -71,23 +121,45 @@ public class ApiWebSocket implements ISocketListener {
 
     public void CloseWebSocket(){
 
-        if (IsWebSocketOpen()){
+        Close();
+    }
 
-            socketClient.close();
-        }
+    public synchronized void onClose(){
+
+        ScheduleReconnect();
     }
 
-    public void onClose(){
+    public void onPong(){
 
-        if (enableReconnection) {
-            EnsureWebSocket();
-            enableReconnection = false;
-        }
+        lastReceivedNanos = System.nanoTime();
     }
 
+    /**
+     * Closes the connection and stops reconnecting. Messages still waiting to be sent fail.
+     */
     public void Close(){
-        enableReconnection = false;
-        socketClient.close();
+
+        JavaWebSocketClient client;
+
+        synchronized (this){
+
+            enableReconnection = false;
+            hasConnected = false;
+
+            if (scheduler != null){
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+            reconnectFuture = null;
+
+            client = socketClient;
+        }
+
+        if (client != null){
+            client.close();
+        }
+
+        CompleteMessages(outboundBuffer.clear());
     }
 
     public void SendWebSocketMessage(String name, EmptyResponse response){
@@ -97,7 +169,10 @@ public class ApiWebSocket implements ISocketListener {
 
     public void SendWebSocketMessage(String name, Object data, EmptyResponse response){
 
-        logger.Debug("Sending web socket message: " + name);
+        if (logger.isDebugEnabled()) {
+            logger.Debug("Sending web socket message: " + name);
+        }
+
         WebSocketMessage msg = new ObjectWebSocketMessage();
 
         msg.setMessageType(name);
@@ -105,168 +180,337 @@ public class ApiWebSocket implements ISocketListener {
 
         String json = jsonSerializer.SerializeToString(msg);
 
-        SendMessageInternal(json, response);
+        SendMessageInternal(json, GetCoalescingKey(name, data), response);
     }
 
-    private void SendMessageInternal(String message, EmptyResponse response){
+    private void SendMessageInternal(String message, String coalescingKey, EmptyResponse response){
+
         if (IsWebSocketOpen()){
 
-            socketClient.send(message);
-            response.onResponse();
+            // Anything still buffered from before the reconnect goes first
+            FlushOutboundBuffer();
+
+            if (TrySend(message)){
+                response.onResponse();
+                return;
+            }
+        }
+
+        boolean buffer;
+        synchronized (this){
+            buffer = enableReconnection;
+        }
+
+        if (buffer){
+
+            logger.Debug("Web socket is not open. Holding message until it reconnects.");
+            CompleteMessages(outboundBuffer.add(message, coalescingKey, response));
+
+            // The connection may have opened and flushed the buffer in the meantime
+            if (IsWebSocketOpen()){
+                FlushOutboundBuffer();
+            }
         }
         else{
             response.onError(null);
         }
     }
 
-    private JavaWebSocketClient socketClient;
-    public boolean IsWebSocketOpen(){
+    private boolean TrySend(String message){
+
+        JavaWebSocketClient client = socketClient;
 
-        if (socketClient != null){
-            return  socketClient.IsWebSocketOpen();
+        if (client == null || !client.IsWebSocketOpen()){
+            return false;
         }
 
-        return false;
+        try {
+            client.send(message);
+            return true;
+        }
+        catch (RuntimeException ex){
+
+            // The connection closed after it was checked
+            logger.ErrorException("Error sending web socket message", ex);
+            return false;
+        }
     }
 
-    public boolean IsWebSocketOpenOrConnecting(){
+    private void FlushOutboundBuffer(){
 
-        if (socketClient != null){
-            return  socketClient.IsWebSocketOpenOrConnecting();
-        }
+        OutboundMessageBuffer.PendingMessage message;
 
-        return false;
-    }
+        while ((message = outboundBuffer.poll()) != null){
 
-    public void StartReceivingSessionUpdates(int intervalMs)
-    {
-        SendWebSocketMessage("SessionsStart", intervalMs + "," + intervalMs, new EmptyResponse());
-    }
+            if (!TrySend(message.json)){
+                outboundBuffer.putBack(message);
+                return;
+            }
 
-    public void StopReceivingSessionUpdates()
-    {
-        SendWebSocketMessage("SessionsStop", "", new EmptyResponse());
+            message.response.onResponse();
+        }
     }
 
-    public void onMessage(String message){
+    private void CompleteMessages(ArrayList<OutboundMessageBuffer.PendingMessage> messages){
 
-        String messageType = GetMessageType(message);
+        if (messages == null){
+            return;
+        }
 
-        logger.Info("Received web socket message: %s", messageType);
+        for (OutboundMessageBuffer.PendingMessage message : messages){
 
-        if (StringHelper.EqualsIgnoreCase(messageType, "LibraryChanged"))
-        {
+            if (message.superseded){
+                message.response.onResponse();
+            }
+            else{
+                logger.Warn("Dropping web socket message that could not be sent");
+                message.response.onError(null);
+            }
+        }
+    }
 
+    private static String GetCoalescingKey(String name, Object data){
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "RestartRequired"))
-        {
+        if (data instanceof PlaybackProgressInfo){
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "ServerRestarting"))
-        {
+            PlaybackProgressInfo info = (PlaybackProgressInfo)data;
+            String playbackId = info.getPlaySessionId() != null ? info.getPlaySessionId() : info.getItemId();
 
+            return name + "|" + playbackId;
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "ServerShuttingDown"))
-        {
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "UserDeleted"))
-        {
+        return null;
+    }
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "ScheduledTaskEnded"))
-        {
+    private void StartHeartbeat(){
 
+        if (scheduler == null){
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ApiWebSocket");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PackageInstalling"))
-        {
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PackageInstallationFailed"))
-        {
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                OnHeartbeat();
+            }
+        }, HeartbeatIntervalMs, HeartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PackageInstallationCompleted"))
-        {
+    private void OnHeartbeat(){
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PackageInstallationCancelled"))
-        {
+        JavaWebSocketClient client;
+        boolean isDead = false;
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "UserUpdated"))
-        {
-            UserDtoMessage obj = jsonSerializer.DeserializeFromString(message, UserDtoMessage.class);
-            apiEventListener.onUserUpdated(apiClient, obj.getData());
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "UserConfigurationUpdated"))
-        {
-            UserDtoMessage obj = jsonSerializer.DeserializeFromString(message, UserDtoMessage.class);
-            apiEventListener.onUserConfigurationUpdated(apiClient, obj.getData());
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PluginUninstalled"))
-        {
+        synchronized (this){
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "Play"))
-        {
-            PlayRequestMessage obj = jsonSerializer.DeserializeFromString(message, PlayRequestMessage.class);
-            apiEventListener.onPlayCommand(apiClient, obj.getData());
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "Playstate"))
-        {
-            PlaystateRequestMessage obj = jsonSerializer.DeserializeFromString(message, PlaystateRequestMessage.class);
-            apiEventListener.onPlaystateCommand(apiClient, obj.getData());
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "NotificationAdded"))
-        {
+            if (!enableReconnection){
+                return;
+            }
 
-        }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "NotificationUpdated"))
-        {
+            client = socketClient;
+
+            if (client == null || !client.IsWebSocketOpenOrConnecting()){
+
+                // In case a failed connection attempt did not report that it closed
+                ScheduleReconnect();
+                return;
+            }
+
+            if (!client.IsWebSocketOpen()){
+                return;
+            }
+
+            long silentMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceivedNanos);
 
+            if (silentMs >= HeartbeatTimeoutMs){
+
+                logger.Warn("Web socket has received nothing for %s ms. Reconnecting.", silentMs);
+
+                // Anything the abandoned connection reports from now on is ignored
+                socketClient = null;
+                isDead = true;
+                ScheduleReconnect();
+            }
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "NotificationsMarkedRead"))
-        {
 
+        if (isDead){
+            client.close();
+            return;
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "GeneralCommand"))
-        {
-            OnGeneralCommand(message);
+
+        try {
+            client.SendPing();
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "Sessions"))
-        {
-            SessionUpdatesEventMessage obj = jsonSerializer.DeserializeFromString(message, SessionUpdatesEventMessage.class);
-            apiEventListener.onSessionsUpdated(apiClient, obj.getData());
+        catch (RuntimeException ex){
+            logger.ErrorException("Error sending web socket ping", ex);
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "UserDataChanged"))
-        {
-            UserDataChangeMessage obj = jsonSerializer.DeserializeFromString(message, UserDataChangeMessage.class);
-            apiEventListener.onUserDataChanged(apiClient, obj.getData());
+    }
+
+    private void ScheduleReconnect(){
+
+        if (!enableReconnection || reconnectFuture != null || scheduler == null){
+            return;
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "SessionEnded"))
-        {
-            SessionInfoMessage obj = jsonSerializer.DeserializeFromString(message, SessionInfoMessage.class);
-            apiEventListener.onSessionEnded(apiClient, obj.getData());
+
+        long delayMs = reconnectBackoff.getDelayMs(reconnectAttempts++);
+
+        logger.Info("Reconnecting web socket in %s ms", delayMs);
+
+        reconnectFuture = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                OnReconnect();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void OnReconnect(){
+
+        reconnectFuture = null;
+
+        if (enableReconnection && !IsWebSocketOpenOrConnecting()){
+            OpenInternal();
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PlaybackStart"))
-        {
-            SessionInfoMessage obj = jsonSerializer.DeserializeFromString(message, SessionInfoMessage.class);
-            apiEventListener.onPlaybackStart(apiClient, obj.getData());
+    }
+
+    private volatile JavaWebSocketClient socketClient;
+    public boolean IsWebSocketOpen(){
+
+        JavaWebSocketClient client = socketClient;
+
+        if (client != null){
+            return  client.IsWebSocketOpen();
         }
-        else if (StringHelper.EqualsIgnoreCase(messageType, "PlaybackStopped"))
-        {
-            SessionInfoMessage obj = jsonSerializer.DeserializeFromString(message, SessionInfoMessage.class);
-            apiEventListener.onPlaybackStopped(apiClient, obj.getData());
+
+        return false;
+    }
+
+    public boolean IsWebSocketOpenOrConnecting(){
+
+        JavaWebSocketClient client = socketClient;
+
+        if (client != null){
+            return  client.IsWebSocketOpenOrConnecting();
         }
+
+        return false;
     }
 
-    private void OnGeneralCommand(String json)
+    /**
+     * @return true if the socket is open, or was open and is being reconnected, in which case messages sent now are
+     * delivered once it reconnects.
+     */
+    public synchronized boolean IsWebSocketOpenOrReconnecting(){
+
+        return IsWebSocketOpen() || (enableReconnection && hasConnected);
+    }
+
+    public void StartReceivingSessionUpdates(int intervalMs)
+    {
+        SendWebSocketMessage("SessionsStart", intervalMs + "," + intervalMs, new EmptyResponse());
+    }
+
+    public void StopReceivingSessionUpdates()
+    {
+        SendWebSocketMessage("SessionsStop", "", new EmptyResponse());
+    }
+
+    public void onMessage(String message){
+
+        lastReceivedNanos = System.nanoTime();
+        messageRouter.route(message);
+    }
+
+    /**
+     * @return The router that received messages are dispatched through, which further handlers can be added to.
+     */
+    public WebSocketMessageRouter getMessageRouter(){
+
+        return messageRouter;
+    }
+
+    private void RegisterMessageHandlers(){
+
+        messageRouter.register("LibraryChanged", new IWebSocketMessageHandler() {
+            @Override
+            public void onMessage(WebSocketMessageEnvelope message) {
+                apiClient.InvalidateResponseCache(null);
+            }
+        });
+        messageRouter.register("UserUpdated", new TypedMessageHandler<UserDtoMessage>(UserDtoMessage.class) {
+            @Override
+            protected void onMessage(UserDtoMessage message) {
+                apiEventListener.onUserUpdated(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("UserConfigurationUpdated", new TypedMessageHandler<UserDtoMessage>(UserDtoMessage.class) {
+            @Override
+            protected void onMessage(UserDtoMessage message) {
+                apiEventListener.onUserConfigurationUpdated(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("Play", new TypedMessageHandler<PlayRequestMessage>(PlayRequestMessage.class) {
+            @Override
+            protected void onMessage(PlayRequestMessage message) {
+                apiEventListener.onPlayCommand(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("Playstate", new TypedMessageHandler<PlaystateRequestMessage>(PlaystateRequestMessage.class) {
+            @Override
+            protected void onMessage(PlaystateRequestMessage message) {
+                apiEventListener.onPlaystateCommand(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("GeneralCommand", new TypedMessageHandler<GeneralCommandMessage>(GeneralCommandMessage.class) {
+            @Override
+            protected void onMessage(GeneralCommandMessage message) {
+                OnGeneralCommand(message);
+            }
+        });
+        messageRouter.register("Sessions", new TypedMessageHandler<SessionUpdatesEventMessage>(SessionUpdatesEventMessage.class) {
+            @Override
+            protected void onMessage(SessionUpdatesEventMessage message) {
+                apiEventListener.onSessionsUpdated(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("UserDataChanged", new TypedMessageHandler<UserDataChangeMessage>(UserDataChangeMessage.class) {
+            @Override
+            protected void onMessage(UserDataChangeMessage message) {
+                apiClient.InvalidateResponseCache(message.getData() == null ? null : message.getData().getUserId());
+                apiEventListener.onUserDataChanged(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("SessionEnded", new TypedMessageHandler<SessionInfoMessage>(SessionInfoMessage.class) {
+            @Override
+            protected void onMessage(SessionInfoMessage message) {
+                apiEventListener.onSessionEnded(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("PlaybackStart", new TypedMessageHandler<SessionInfoMessage>(SessionInfoMessage.class) {
+            @Override
+            protected void onMessage(SessionInfoMessage message) {
+                apiEventListener.onPlaybackStart(apiClient, message.getData());
+            }
+        });
+        messageRouter.register("PlaybackStopped", new TypedMessageHandler<SessionInfoMessage>(SessionInfoMessage.class) {
+            @Override
+            protected void onMessage(SessionInfoMessage message) {
+                apiEventListener.onPlaybackStopped(apiClient, message.getData());
+            }
+        });
+    }
+
+    private void OnGeneralCommand(GeneralCommandMessage obj)
     {
         GeneralCommandEventArgs args = new GeneralCommandEventArgs();
 
-        GeneralCommandMessage obj = jsonSerializer.DeserializeFromString(json, GeneralCommandMessage.class);
         args.setCommand(obj.getData());
 
         if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(args.getCommand().getName()))
@@ -366,9 +610,43 @@ public class ApiWebSocket implements ISocketListener {
         apiEventListener.onGeneralCommand(apiClient, args.getCommand());
     }
 
-    private String GetMessageType(String json)
-    {
-        BasicWebSocketMessage message = jsonSerializer.DeserializeFromString(json, BasicWebSocketMessage.class);
-        return message.getMessageType();
+    /**
+     * Passes on the events of one connection for as long as it is the current one.
+     */
+    private class ConnectionListener implements ISocketListener {
+
+        private JavaWebSocketClient client;
+
+        private boolean isCurrent() {
+            return client != null && client == socketClient;
+        }
+
+        @Override
+        public void onOpen() {
+            if (isCurrent()) {
+                ApiWebSocket.this.onOpen();
+            }
+        }
+
+        @Override
+        public void onClose() {
+            if (isCurrent()) {
+                ApiWebSocket.this.onClose();
+            }
+        }
+
+        @Override
+        public void onMessage(String message) {
+            if (isCurrent()) {
+                ApiWebSocket.this.onMessage(message);
+            }
+        }
+
+        @Override
+        public void onPong() {
+            if (isCurrent()) {
+                ApiWebSocket.this.onPong();
+            }
+        }
     }
 }
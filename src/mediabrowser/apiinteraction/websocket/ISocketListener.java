@@ -5,4 +5,5 @@ public interface ISocketListener {
     void onOpen();
     void onClose();
     void onMessage(String message);
+    void onPong();
 }
@@ -0,0 +1,6 @@
+package mediabrowser.apiinteraction.websocket;
+
+public interface IWebSocketMessageHandler {
+
+    void onMessage(WebSocketMessageEnvelope message);
+}
@@ -4,6 +4,8 @@ import mediabrowser.model.logging.ILogger;
 import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.drafts.*;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.FramedataImpl1;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
@@ -47,6 +49,25 @@ public class JavaWebSocketClient extends WebSocketClient {
         _logger.ErrorException("Web socket error.", e);
     }
 
+    @Override
+    public void onWebsocketPong(WebSocket conn, Framedata f) {
+
+        super.onWebsocketPong(conn, f);
+        listener.onPong();
+    }
+
+    /**
+     * Sends a ping frame, which the server answers with a pong whether or not it has anything else to send.
+     */
+    public void SendPing(){
+
+        FramedataImpl1 frame = new FramedataImpl1(Framedata.Opcode.PING);
+        frame.setFin(true);
+
+        // WebSocketClient only sends text and binary messages itself, so control frames go through its connection
+        getConnection().sendFrame(frame);
+    }
+
     public boolean IsWebSocketOpen(){
 
         WebSocket.READYSTATE state = getReadyState();
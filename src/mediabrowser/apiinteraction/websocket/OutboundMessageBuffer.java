@@ -0,0 +1,106 @@
+package mediabrowser.apiinteraction.websocket;
+
+import mediabrowser.apiinteraction.EmptyResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Messages waiting for the web socket to reconnect, in the order they were sent.
+ *
+ * A message with a coalescing key replaces the waiting message with the same key, such as an earlier progress report
+ * for the same playback, since only the latest one is of any use to the server. When the buffer is full the oldest
+ * message is dropped. Replaced and dropped messages are returned so their responses can be completed outside any lock,
+ * the replaced ones marked as superseded.
+ */
+class OutboundMessageBuffer {
+
+    private final int capacity;
+    private final ArrayDeque<PendingMessage> messages = new ArrayDeque<PendingMessage>();
+
+    OutboundMessageBuffer(int capacity) {
+
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity");
+        }
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param coalescingKey The key of messages that supersede each other, or null if the message must be kept.
+     * @return The messages removed to make room, either replaced or dropped, or null if there were none.
+     */
+    synchronized ArrayList<PendingMessage> add(String json, String coalescingKey, EmptyResponse response) {
+
+        ArrayList<PendingMessage> removed = null;
+
+        if (coalescingKey != null) {
+
+            Iterator<PendingMessage> iterator = messages.iterator();
+
+            while (iterator.hasNext()) {
+
+                PendingMessage message = iterator.next();
+
+                if (coalescingKey.equals(message.coalescingKey)) {
+                    iterator.remove();
+                    message.superseded = true;
+                    removed = new ArrayList<PendingMessage>(1);
+                    removed.add(message);
+                    break;
+                }
+            }
+        }
+
+        if (messages.size() >= capacity) {
+
+            if (removed == null) {
+                removed = new ArrayList<PendingMessage>(1);
+            }
+            removed.add(messages.removeFirst());
+        }
+
+        messages.addLast(new PendingMessage(json, coalescingKey, response));
+
+        return removed;
+    }
+
+    synchronized PendingMessage poll() {
+        return messages.pollFirst();
+    }
+
+    /**
+     * Puts back a message that could not be sent after it was taken, ahead of the others.
+     */
+    synchronized void putBack(PendingMessage message) {
+        messages.addFirst(message);
+    }
+
+    synchronized ArrayList<PendingMessage> clear() {
+
+        ArrayList<PendingMessage> list = new ArrayList<PendingMessage>(messages);
+        messages.clear();
+        return list;
+    }
+
+    synchronized int size() {
+        return messages.size();
+    }
+
+    static class PendingMessage {
+
+        final String json;
+        final String coalescingKey;
+        final EmptyResponse response;
+        boolean superseded;
+
+        private PendingMessage(String json, String coalescingKey, EmptyResponse response) {
+            this.json = json;
+            this.coalescingKey = coalescingKey;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package mediabrowser.apiinteraction.websocket;
+
+/**
+ * A handler that receives the message deserialized into the message class it was created with.
+ */
+public abstract class TypedMessageHandler<T> implements IWebSocketMessageHandler {
+
+    private final Class<T> messageClass;
+
+    protected TypedMessageHandler(Class<T> messageClass) {
+
+        if (messageClass == null)
+        {
+            throw new IllegalArgumentException("messageClass");
+        }
+
+        this.messageClass = messageClass;
+    }
+
+    @Override
+    public final void onMessage(WebSocketMessageEnvelope message) {
+        onMessage(message.getMessage(messageClass));
+    }
+
+    protected abstract void onMessage(T message);
+}
@@ -0,0 +1,43 @@
+package mediabrowser.apiinteraction.websocket;
+
+import mediabrowser.model.serialization.IJsonSerializer;
+
+/**
+ * A received message whose type has been read but whose data has not been deserialized yet.
+ *
+ * The message is deserialized the first time a handler asks for it, and handlers asking for the same message class
+ * share the result.
+ */
+public final class WebSocketMessageEnvelope {
+
+    private final String messageType;
+    private final String json;
+    private final IJsonSerializer jsonSerializer;
+
+    private Class<?> messageClass;
+    private Object message;
+
+    WebSocketMessageEnvelope(String messageType, String json, IJsonSerializer jsonSerializer) {
+        this.messageType = messageType;
+        this.json = json;
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public <T> T getMessage(Class<T> type) {
+
+        if (type != messageClass) {
+            message = jsonSerializer.DeserializeFromString(json, type);
+            messageClass = type;
+        }
+
+        return type.cast(message);
+    }
+}
@@ -0,0 +1,218 @@
+package mediabrowser.apiinteraction.websocket;
+
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.serialization.IJsonSerializer;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dispatches received web socket messages to the handlers registered for their message type.
+ *
+ * Message types are matched ignoring case. The type is read by scanning the top level of the message for its
+ * MessageType property, without deserializing anything, so messages nobody handles are discarded almost for free.
+ * A handled message is deserialized once, by the first handler that asks for it.
+ *
+ * Handlers may be registered and unregistered from any thread while messages are being routed.
+ */
+public class WebSocketMessageRouter {
+
+    private static final String MessageTypeProperty = "MessageType";
+
+    private final IJsonSerializer jsonSerializer;
+    private final ILogger logger;
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<IWebSocketMessageHandler>> handlers = new ConcurrentHashMap<String, CopyOnWriteArrayList<IWebSocketMessageHandler>>();
+
+    public WebSocketMessageRouter(IJsonSerializer jsonSerializer, ILogger logger) {
+
+        if (jsonSerializer == null)
+        {
+            throw new IllegalArgumentException("jsonSerializer");
+        }
+        if (logger == null)
+        {
+            throw new IllegalArgumentException("logger");
+        }
+
+        this.jsonSerializer = jsonSerializer;
+        this.logger = logger;
+    }
+
+    public void register(String messageType, IWebSocketMessageHandler handler) {
+
+        if (messageType == null)
+        {
+            throw new IllegalArgumentException("messageType");
+        }
+        if (handler == null)
+        {
+            throw new IllegalArgumentException("handler");
+        }
+
+        String key = getKey(messageType);
+        CopyOnWriteArrayList<IWebSocketMessageHandler> list = handlers.get(key);
+
+        if (list == null) {
+            CopyOnWriteArrayList<IWebSocketMessageHandler> newList = new CopyOnWriteArrayList<IWebSocketMessageHandler>();
+            list = handlers.putIfAbsent(key, newList);
+
+            if (list == null) {
+                list = newList;
+            }
+        }
+
+        list.add(handler);
+    }
+
+    public void unregister(String messageType, IWebSocketMessageHandler handler) {
+
+        if (messageType == null)
+        {
+            throw new IllegalArgumentException("messageType");
+        }
+
+        CopyOnWriteArrayList<IWebSocketMessageHandler> list = handlers.get(getKey(messageType));
+
+        if (list != null) {
+            list.remove(handler);
+        }
+    }
+
+    /**
+     * @return The message type, or null if the message does not have one.
+     */
+    public String route(String json) {
+
+        String messageType = readMessageType(json);
+
+        if (messageType == null) {
+            // Not in the form the scanner expects, such as a type containing escapes, so parse it properly
+            BasicWebSocketMessage message = jsonSerializer.DeserializeFromString(json, BasicWebSocketMessage.class);
+            messageType = message == null ? null : message.getMessageType();
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.Info("Received web socket message: %s", messageType);
+        }
+
+        if (messageType == null) {
+            return null;
+        }
+
+        CopyOnWriteArrayList<IWebSocketMessageHandler> list = handlers.get(getKey(messageType));
+
+        if (list == null || list.isEmpty()) {
+            return messageType;
+        }
+
+        WebSocketMessageEnvelope envelope = new WebSocketMessageEnvelope(messageType, json, jsonSerializer);
+
+        for (IWebSocketMessageHandler handler : list) {
+
+            try {
+                handler.onMessage(envelope);
+            }
+            catch (Exception ex) {
+                logger.ErrorException("Error handling web socket message %s", ex, messageType);
+            }
+        }
+
+        return messageType;
+    }
+
+    private static String getKey(String messageType) {
+        return messageType.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Reads the MessageType property of the top level object, skipping over the values of other properties.
+     *
+     * @return The message type, or null if it is missing, is not a string, or contains escapes.
+     */
+    static String readMessageType(String json) {
+
+        int length = json.length();
+        int depth = 0;
+
+        for (int i = 0; i < length; i++) {
+
+            char c = json.charAt(i);
+
+            if (c == '"') {
+
+                int end = findStringEnd(json, i + 1);
+
+                if (end == -1) {
+                    return null;
+                }
+
+                if (depth == 1 && end - i - 1 == MessageTypeProperty.length() && json.startsWith(MessageTypeProperty, i + 1)) {
+
+                    int valueStart = skipWhitespace(json, end + 1);
+
+                    if (valueStart < length && json.charAt(valueStart) == ':') {
+                        return readString(json, skipWhitespace(json, valueStart + 1));
+                    }
+                }
+
+                i = end;
+            }
+            else if (c == '{' || c == '[') {
+                depth++;
+            }
+            else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+
+        return null;
+    }
+
+    private static String readString(String json, int start) {
+
+        if (start >= json.length() || json.charAt(start) != '"') {
+            return null;
+        }
+
+        int end = findStringEnd(json, start + 1);
+
+        if (end == -1) {
+            return null;
+        }
+
+        String value = json.substring(start + 1, end);
+        return value.indexOf('\\') == -1 ? value : null;
+    }
+
+    private static int findStringEnd(String json, int start) {
+
+        int length = json.length();
+
+        for (int i = start; i < length; i++) {
+
+            char c = json.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '"') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int skipWhitespace(String json, int start) {
+
+        int length = json.length();
+        int i = start;
+
+        while (i < length && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+}
@@ -0,0 +1,340 @@
+package mediabrowser.logging;
+
+import mediabrowser.model.logging.ILogMessageSupplier;
+import mediabrowser.model.logging.ILogger;
+import mediabrowser.model.logging.LogSeverity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ILogger that hands messages to another logger on a background thread, so that formatting and writing them costs
+ * the calling thread no more than copying its arguments into a slot of a fixed size ring buffer.
+ *
+ * Messages are written in the order they were logged. When the buffer is full new messages are dropped rather than
+ * blocking the caller, and the number dropped is written once there is room again. Arguments are formatted after the
+ * call returns, so they should not be objects the caller goes on to change. Level checks are answered by the inner
+ * logger, and messages it would discard are never queued.
+ */
+public class AsyncLogger implements ILogger {
+
+    private final ILogger innerLogger;
+    private final Entry[] slots;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+
+    private int head;
+    private int count;
+    private long dropped;
+    private boolean writing;
+    private boolean closed;
+
+    private final Thread writer;
+
+    public AsyncLogger(ILogger innerLogger) {
+        this(innerLogger, 1024);
+    }
+
+    public AsyncLogger(ILogger innerLogger, int capacity) {
+
+        if (innerLogger == null)
+        {
+            throw new IllegalArgumentException("innerLogger");
+        }
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity");
+        }
+
+        this.innerLogger = innerLogger;
+
+        slots = new Entry[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Entry();
+        }
+
+        writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                WriteEntries();
+            }
+        }, "AsyncLogger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return innerLogger.isDebugEnabled();
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return innerLogger.isInfoEnabled();
+    }
+
+    @Override
+    public void Info(String message, Object... paramList) {
+
+        if (innerLogger.isInfoEnabled()) {
+            Enqueue(LogSeverity.Info, message, null, null, paramList);
+        }
+    }
+
+    @Override
+    public void Info(ILogMessageSupplier supplier) {
+
+        if (innerLogger.isInfoEnabled()) {
+            Enqueue(LogSeverity.Info, null, supplier, null, null);
+        }
+    }
+
+    @Override
+    public void Error(String message, Object... paramList) {
+        Enqueue(LogSeverity.Error, message, null, null, paramList);
+    }
+
+    @Override
+    public void Warn(String message, Object... paramList) {
+        Enqueue(LogSeverity.Warn, message, null, null, paramList);
+    }
+
+    @Override
+    public void Debug(String message, Object... paramList) {
+
+        if (innerLogger.isDebugEnabled()) {
+            Enqueue(LogSeverity.Debug, message, null, null, paramList);
+        }
+    }
+
+    @Override
+    public void Debug(ILogMessageSupplier supplier) {
+
+        if (innerLogger.isDebugEnabled()) {
+            Enqueue(LogSeverity.Debug, null, supplier, null, null);
+        }
+    }
+
+    @Override
+    public void Fatal(String message, Object... paramList) {
+        Enqueue(LogSeverity.Fatal, message, null, null, paramList);
+    }
+
+    @Override
+    public void FatalException(String message, Exception exception, Object... paramList) {
+        Enqueue(LogSeverity.Fatal, message, null, exception, paramList);
+    }
+
+    @Override
+    public void ErrorException(String message, Exception exception, Object... paramList) {
+        Enqueue(LogSeverity.Error, message, null, exception, paramList);
+    }
+
+    /**
+     * Waits until every message logged so far has been written.
+     *
+     * @return false if the timeout elapsed first.
+     */
+    public boolean flush(long timeoutMs) throws InterruptedException {
+
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        lock.lock();
+        try {
+            while (count > 0 || writing) {
+
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+
+                remainingNanos = drained.awaitNanos(remainingNanos);
+            }
+
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting messages. Messages already logged are still written.
+     */
+    public void close() {
+
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void Enqueue(LogSeverity severity, String message, ILogMessageSupplier supplier, Exception exception, Object[] paramList) {
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            if (count == slots.length) {
+                dropped++;
+                return;
+            }
+
+            Entry entry = slots[(head + count) % slots.length];
+            entry.severity = severity;
+            entry.message = message;
+            entry.supplier = supplier;
+            entry.exception = exception;
+            entry.paramList = paramList;
+
+            if (count++ == 0) {
+                notEmpty.signal();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void WriteEntries() {
+
+        // Entries are copied out of the ring so that callers can reuse their slots while these are being written
+        Entry[] batch = new Entry[Math.min(slots.length, 64)];
+
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Entry();
+        }
+
+        while (true) {
+
+            int batchSize;
+            long droppedCount;
+
+            lock.lock();
+            try {
+                writing = false;
+
+                while (count == 0) {
+
+                    drained.signalAll();
+
+                    if (closed) {
+                        return;
+                    }
+
+                    notEmpty.awaitUninterruptibly();
+                }
+
+                batchSize = Math.min(count, batch.length);
+
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i].moveFrom(slots[head]);
+                    head = (head + 1) % slots.length;
+                }
+
+                count -= batchSize;
+
+                droppedCount = dropped;
+                dropped = 0;
+                writing = true;
+            }
+            finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < batchSize; i++) {
+                Write(batch[i]);
+                batch[i].clear();
+            }
+
+            if (droppedCount > 0) {
+                innerLogger.Warn("AsyncLogger buffer was full, %s messages were dropped", droppedCount);
+            }
+        }
+    }
+
+    private void Write(Entry entry) {
+
+        try {
+            if (entry.supplier != null) {
+
+                if (entry.severity == LogSeverity.Debug) {
+                    innerLogger.Debug(entry.supplier);
+                }
+                else {
+                    innerLogger.Info(entry.supplier);
+                }
+                return;
+            }
+
+            switch (entry.severity) {
+                case Debug:
+                    innerLogger.Debug(entry.message, entry.paramList);
+                    break;
+                case Info:
+                    innerLogger.Info(entry.message, entry.paramList);
+                    break;
+                case Warn:
+                    innerLogger.Warn(entry.message, entry.paramList);
+                    break;
+                case Error:
+                    if (entry.exception == null) {
+                        innerLogger.Error(entry.message, entry.paramList);
+                    }
+                    else {
+                        innerLogger.ErrorException(entry.message, entry.exception, entry.paramList);
+                    }
+                    break;
+                case Fatal:
+                    if (entry.exception == null) {
+                        innerLogger.Fatal(entry.message, entry.paramList);
+                    }
+                    else {
+                        innerLogger.FatalException(entry.message, entry.exception, entry.paramList);
+                    }
+                    break;
+            }
+        }
+        catch (RuntimeException ex) {
+            // A bad format string must not stop the writer thread
+            System.err.println("AsyncLogger could not write message " + entry.message + ": " + ex);
+        }
+    }
+
+    private static class Entry {
+
+        LogSeverity severity;
+        String message;
+        ILogMessageSupplier supplier;
+        Exception exception;
+        Object[] paramList;
+
+        void moveFrom(Entry other) {
+
+            severity = other.severity;
+            message = other.message;
+            supplier = other.supplier;
+            exception = other.exception;
+            paramList = other.paramList;
+
+            other.clear();
+        }
+
+        void clear() {
+            message = null;
+            supplier = null;
+            exception = null;
+            paramList = null;
+        }
+    }
+}
@@ -1,14 +1,36 @@
 package mediabrowser.logging;
 
+import mediabrowser.model.logging.ILogMessageSupplier;
 import mediabrowser.model.logging.ILogger;
 
 public class ConsoleLogger implements ILogger {
 
+    private volatile boolean debugEnabled = true;
+
+    @Override
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    public void setDebugEnabled(boolean debugEnabled) {
+        this.debugEnabled = debugEnabled;
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
     @Override
     public void Info(String message, Object... paramList) {
         System.out.println(String.format(message, paramList));
     }
 
+    @Override
+    public void Info(ILogMessageSupplier supplier) {
+        System.out.println(supplier.getMessage());
+    }
+
     @Override
     public void Error(String message, Object... paramList) {
         System.out.println(String.format(message, paramList));
@@ -21,7 +43,18 @@ public class ConsoleLogger implements ILogger {
 
     @Override
     public void Debug(String message, Object... paramList) {
-        System.out.println(String.format(message, paramList));
+
+        if (debugEnabled) {
+            System.out.println(String.format(message, paramList));
+        }
+    }
+
+    @Override
+    public void Debug(ILogMessageSupplier supplier) {
+
+        if (debugEnabled) {
+            System.out.println(supplier.getMessage());
+        }
     }
 
     @Override
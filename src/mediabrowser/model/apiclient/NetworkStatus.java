@@ -30,6 +30,20 @@ public class NetworkStatus
 	{
 		IsLocalNetworkAvailable = value;
 	}
+	/** 
+	 Gets or sets a value indicating whether the active network is metered, such as a mobile data connection.
+	 
+	 <value><c>true</c> if the active network is metered; otherwise, <c>false</c>.</value>
+	*/
+	private boolean IsMetered;
+	public final boolean getIsMetered()
+	{
+		return IsMetered;
+	}
+	public final void setIsMetered(boolean value)
+	{
+		IsMetered = value;
+	}
 	/** 
 	 Gets the is any local network available.
 	 
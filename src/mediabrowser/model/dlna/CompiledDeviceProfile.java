@@ -0,0 +1,352 @@
+package mediabrowser.model.dlna;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ A DeviceProfile indexed for repeated playback decisions.
+
+ Container and codec lists are split into hashed sets and condition values are parsed once, so deciding how to
+ play an item no longer scans and re-parses the whole profile. Lookups are memoised per container and codec, which
+ makes evaluating a long list of items close to constant per item.
+
+ Compiled profiles are cached per DeviceProfile instance and rebuilt when one of its profile arrays is replaced.
+ Code that edits the entries of a profile in place must call Invalidate afterwards.
+*/
+public final class CompiledDeviceProfile
+{
+	private static final int MaxMemoizedLookups = 1024;
+
+	private static final java.util.Map<DeviceProfile, CompiledDeviceProfile> cache = new java.util.WeakHashMap<DeviceProfile, CompiledDeviceProfile>();
+
+	private static final CompiledProfileCondition[] NoConditions = new CompiledProfileCondition[] { };
+
+	// Stands in for "no profile" in the memo, which cannot hold nulls
+	private static final DirectPlayProfile NotFound = new DirectPlayProfile();
+
+	private DirectPlayProfile[] directPlaySource;
+	private ContainerProfile[] containerSource;
+	private CodecProfile[] codecSource;
+	private TranscodingProfile[] transcodingSource;
+
+	private java.util.EnumMap<DlnaProfileType, CompiledDirectPlayProfile[]> directPlayProfiles = new java.util.EnumMap<DlnaProfileType, CompiledDirectPlayProfile[]>(DlnaProfileType.class);
+	private java.util.EnumMap<DlnaProfileType, CompiledProfileEntry[]> containerProfiles = new java.util.EnumMap<DlnaProfileType, CompiledProfileEntry[]>(DlnaProfileType.class);
+	private java.util.EnumMap<CodecType, CompiledProfileEntry[]> codecProfiles = new java.util.EnumMap<CodecType, CompiledProfileEntry[]>(CodecType.class);
+	private java.util.EnumMap<DlnaProfileType, java.util.EnumMap<EncodingContext, TranscodingProfile>> transcodingProfiles = new java.util.EnumMap<DlnaProfileType, java.util.EnumMap<EncodingContext, TranscodingProfile>>(DlnaProfileType.class);
+
+	private ConcurrentHashMap<String, DirectPlayProfile> directPlayLookups = new ConcurrentHashMap<String, DirectPlayProfile>();
+	private ConcurrentHashMap<String, CompiledProfileCondition[]> conditionLookups = new ConcurrentHashMap<String, CompiledProfileCondition[]>();
+
+	/**
+	 Gets the compiled form of a profile, compiling it on first use.
+	*/
+	public static CompiledDeviceProfile Get(DeviceProfile profile)
+	{
+		if (profile == null)
+		{
+			throw new IllegalArgumentException("profile");
+		}
+
+		synchronized (cache)
+		{
+			CompiledDeviceProfile compiled = cache.get(profile);
+
+			if (compiled == null || !compiled.IsCompiledFrom(profile))
+			{
+				compiled = new CompiledDeviceProfile(profile);
+				cache.put(profile, compiled);
+			}
+
+			return compiled;
+		}
+	}
+
+	/**
+	 Discards the compiled form of a profile whose entries have been edited in place.
+	*/
+	public static void Invalidate(DeviceProfile profile)
+	{
+		synchronized (cache)
+		{
+			cache.remove(profile);
+		}
+	}
+
+	public CompiledDeviceProfile(DeviceProfile profile)
+	{
+		directPlaySource = profile.getDirectPlayProfiles();
+		containerSource = profile.getContainerProfiles();
+		codecSource = profile.getCodecProfiles();
+		transcodingSource = profile.getTranscodingProfiles();
+
+		for (DlnaProfileType type : DlnaProfileType.values())
+		{
+			java.util.ArrayList<CompiledDirectPlayProfile> directPlay = new java.util.ArrayList<CompiledDirectPlayProfile>();
+			for (DirectPlayProfile i : AsList(directPlaySource))
+			{
+				if (i.getType() == type)
+				{
+					directPlay.add(new CompiledDirectPlayProfile(i));
+				}
+			}
+			directPlayProfiles.put(type, directPlay.toArray(new CompiledDirectPlayProfile[directPlay.size()]));
+
+			java.util.ArrayList<CompiledProfileEntry> containers = new java.util.ArrayList<CompiledProfileEntry>();
+			for (ContainerProfile i : AsList(containerSource))
+			{
+				if (i.getType() == type)
+				{
+					containers.add(new CompiledProfileEntry(i.GetContainers(), false, i.getConditions()));
+				}
+			}
+			containerProfiles.put(type, containers.toArray(new CompiledProfileEntry[containers.size()]));
+
+			java.util.EnumMap<EncodingContext, TranscodingProfile> transcoding = new java.util.EnumMap<EncodingContext, TranscodingProfile>(EncodingContext.class);
+			for (TranscodingProfile i : AsList(transcodingSource))
+			{
+				// The first matching profile wins
+				if (i.getType() == type && i.getContext() != null && !transcoding.containsKey(i.getContext()))
+				{
+					transcoding.put(i.getContext(), i);
+				}
+			}
+			transcodingProfiles.put(type, transcoding);
+		}
+
+		for (CodecType type : CodecType.values())
+		{
+			java.util.ArrayList<CompiledProfileEntry> codecs = new java.util.ArrayList<CompiledProfileEntry>();
+			for (CodecProfile i : AsList(codecSource))
+			{
+				if (i.getType() == type)
+				{
+					// A codec profile without codecs applies to every codec
+					codecs.add(new CompiledProfileEntry(i.GetCodecs(), true, i.getConditions()));
+				}
+			}
+			codecProfiles.put(type, codecs.toArray(new CompiledProfileEntry[codecs.size()]));
+		}
+	}
+
+	private boolean IsCompiledFrom(DeviceProfile profile)
+	{
+		return directPlaySource == profile.getDirectPlayProfiles() && containerSource == profile.getContainerProfiles() && codecSource == profile.getCodecProfiles() && transcodingSource == profile.getTranscodingProfiles();
+	}
+
+	/**
+	 Gets the first audio direct play profile supporting the container.
+	*/
+	public final DirectPlayProfile GetAudioDirectPlayProfile(String container)
+	{
+		return GetDirectPlayProfile(DlnaProfileType.Audio, container, null, null, false);
+	}
+
+	/**
+	 Gets the first video direct play profile supporting the container and codecs.
+	*/
+	public final DirectPlayProfile GetVideoDirectPlayProfile(String container, String videoCodec, String audioCodec)
+	{
+		return GetDirectPlayProfile(DlnaProfileType.Video, container, videoCodec, audioCodec, true);
+	}
+
+	private DirectPlayProfile GetDirectPlayProfile(DlnaProfileType type, String container, String videoCodec, String audioCodec, boolean checkCodecs)
+	{
+		String containerKey = CompiledProfileCondition.ToKey((container != null) ? container : "");
+		String videoCodecKey = CompiledProfileCondition.ToKey((videoCodec != null) ? videoCodec : "");
+		String audioCodecKey = CompiledProfileCondition.ToKey((audioCodec != null) ? audioCodec : "");
+
+		String key = type + "|" + containerKey + "|" + videoCodecKey + "|" + audioCodecKey;
+
+		DirectPlayProfile result = directPlayLookups.get(key);
+
+		if (result != null)
+		{
+			return result == NotFound ? null : result;
+		}
+
+		result = NotFound;
+		for (CompiledDirectPlayProfile i : directPlayProfiles.get(type))
+		{
+			if (i.Supports(containerKey, videoCodecKey, audioCodecKey, checkCodecs))
+			{
+				result = i.profile;
+				break;
+			}
+		}
+
+		Memoize(directPlayLookups, key, result);
+
+		return result == NotFound ? null : result;
+	}
+
+	/**
+	 Gets the conditions of every container profile of the type that lists the container.
+	*/
+	public final CompiledProfileCondition[] GetContainerConditions(DlnaProfileType type, String container)
+	{
+		return GetConditions("container|" + type, containerProfiles.get(type), container, false);
+	}
+
+	/**
+	 Gets the conditions of every codec profile of the type that applies to the codec.
+	*/
+	public final CompiledProfileCondition[] GetCodecConditions(CodecType type, String codec)
+	{
+		return GetConditions("codec|" + type, codecProfiles.get(type), codec, false);
+	}
+
+	/**
+	 Gets the conditions of the first codec profile of the type that applies to the codec.
+	*/
+	public final CompiledProfileCondition[] GetFirstCodecConditions(CodecType type, String codec)
+	{
+		return GetConditions("firstcodec|" + type, codecProfiles.get(type), codec, true);
+	}
+
+	public final TranscodingProfile GetTranscodingProfile(DlnaProfileType type, EncodingContext context)
+	{
+		return transcodingProfiles.get(type).get(context);
+	}
+
+	private CompiledProfileCondition[] GetConditions(String prefix, CompiledProfileEntry[] entries, String value, boolean firstOnly)
+	{
+		if (entries.length == 0)
+		{
+			return NoConditions;
+		}
+
+		// Unknown values are not memoised, the entries decide whether they are acceptable
+		if (value == null)
+		{
+			return CollectConditions(entries, null, firstOnly);
+		}
+
+		String valueKey = CompiledProfileCondition.ToKey(value);
+		String key = prefix + "|" + valueKey;
+
+		CompiledProfileCondition[] result = conditionLookups.get(key);
+
+		if (result == null)
+		{
+			result = CollectConditions(entries, valueKey, firstOnly);
+			Memoize(conditionLookups, key, result);
+		}
+
+		return result;
+	}
+
+	private static CompiledProfileCondition[] CollectConditions(CompiledProfileEntry[] entries, String valueKey, boolean firstOnly)
+	{
+		java.util.ArrayList<CompiledProfileCondition> list = new java.util.ArrayList<CompiledProfileCondition>();
+
+		for (CompiledProfileEntry i : entries)
+		{
+			if (i.Matches(valueKey))
+			{
+				java.util.Collections.addAll(list, i.conditions);
+
+				if (firstOnly)
+				{
+					break;
+				}
+			}
+		}
+
+		return list.isEmpty() ? NoConditions : list.toArray(new CompiledProfileCondition[list.size()]);
+	}
+
+	private static <T> void Memoize(ConcurrentHashMap<String, T> lookups, String key, T value)
+	{
+		// Keys come from media metadata, so the memo is capped rather than trusted to stay small
+		if (lookups.size() < MaxMemoizedLookups)
+		{
+			lookups.put(key, value);
+		}
+	}
+
+	private static <T> java.util.List<T> AsList(T[] array)
+	{
+		return array == null ? java.util.Collections.<T>emptyList() : java.util.Arrays.asList(array);
+	}
+
+	private static java.util.HashSet<String> ToKeys(java.util.ArrayList<String> values)
+	{
+		java.util.HashSet<String> keys = new java.util.HashSet<String>();
+		for (String i : values)
+		{
+			keys.add(CompiledProfileCondition.ToKey(i));
+		}
+		return keys;
+	}
+
+	private static final class CompiledDirectPlayProfile
+	{
+		private DirectPlayProfile profile;
+		private boolean checkContainer;
+		private java.util.HashSet<String> containers;
+		private java.util.HashSet<String> videoCodecs;
+		private java.util.HashSet<String> audioCodecs;
+
+		private CompiledDirectPlayProfile(DirectPlayProfile profile)
+		{
+			this.profile = profile;
+			checkContainer = !tangible.DotNetToJavaStringHelper.isNullOrEmpty(profile.getContainer());
+			containers = ToKeys(profile.GetContainers());
+			videoCodecs = ToKeys(profile.GetVideoCodecs());
+			audioCodecs = ToKeys(profile.GetAudioCodecs());
+		}
+
+		private boolean Supports(String container, String videoCodec, String audioCodec, boolean checkCodecs)
+		{
+			if (checkContainer && !containers.contains(container))
+			{
+				return false;
+			}
+
+			if (!checkCodecs)
+			{
+				return true;
+			}
+
+			if (videoCodecs.size() > 0 && (videoCodec.length() == 0 || !videoCodecs.contains(videoCodec)))
+			{
+				return false;
+			}
+
+			if (audioCodecs.size() > 0 && (audioCodec.length() == 0 || !audioCodecs.contains(audioCodec)))
+			{
+				return false;
+			}
+
+			return true;
+		}
+	}
+
+	private static final class CompiledProfileEntry
+	{
+		private java.util.HashSet<String> values;
+		private boolean matchesAllWhenEmpty;
+		private CompiledProfileCondition[] conditions;
+
+		private CompiledProfileEntry(java.util.ArrayList<String> values, boolean matchesAllWhenEmpty, ProfileCondition[] conditions)
+		{
+			this.values = ToKeys(values);
+			this.matchesAllWhenEmpty = matchesAllWhenEmpty;
+			this.conditions = CompiledProfileCondition.Compile(conditions);
+		}
+
+		private boolean Matches(String valueKey)
+		{
+			if (matchesAllWhenEmpty && values.isEmpty())
+			{
+				return true;
+			}
+
+			if (valueKey == null)
+			{
+				throw new IllegalArgumentException("value");
+			}
+
+			return values.contains(valueKey);
+		}
+	}
+}
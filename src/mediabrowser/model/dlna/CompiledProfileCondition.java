@@ -0,0 +1,147 @@
+package mediabrowser.model.dlna;
+
+import mediabrowser.model.mediainfo.TransportStreamTimestamp;
+
+/**
+ A ProfileCondition whose value has been parsed once into each of the types it may be compared as.
+*/
+public final class CompiledProfileCondition
+{
+	private ProfileCondition Condition;
+	public final ProfileCondition getCondition()
+	{
+		return Condition;
+	}
+
+	private Integer IntValue;
+	/**
+	 The value as an integer, or null if it is not one.
+	*/
+	public final Integer getIntValue()
+	{
+		return IntValue;
+	}
+
+	private Float FloatValue;
+	public final Float getFloatValue()
+	{
+		return FloatValue;
+	}
+
+	private Double DoubleValue;
+	public final Double getDoubleValue()
+	{
+		return DoubleValue;
+	}
+
+	private boolean BoolValue;
+	public final boolean getBoolValue()
+	{
+		return BoolValue;
+	}
+
+	private TransportStreamTimestamp TimestampValue;
+	public final TransportStreamTimestamp getTimestampValue()
+	{
+		return TimestampValue;
+	}
+
+	private java.util.HashSet<String> AnyValues = new java.util.HashSet<String>();
+
+	public CompiledProfileCondition(ProfileCondition condition)
+	{
+		if (condition == null)
+		{
+			throw new IllegalArgumentException("condition");
+		}
+
+		Condition = condition;
+
+		String value = condition.getValue();
+
+		if (value == null)
+		{
+			return;
+		}
+
+		try
+		{
+			IntValue = Integer.parseInt(value);
+		}
+		catch (NumberFormatException ex)
+		{
+		}
+
+		try
+		{
+			FloatValue = Float.parseFloat(value);
+			DoubleValue = Double.parseDouble(value);
+		}
+		catch (NumberFormatException ex)
+		{
+		}
+
+		BoolValue = Boolean.parseBoolean(value);
+
+		try
+		{
+			TimestampValue = TransportStreamTimestamp.valueOf(value);
+		}
+		catch (IllegalArgumentException ex)
+		{
+		}
+
+		for (String i : value.split("[|]", -1))
+		{
+			AnyValues.add(ToKey(i));
+		}
+	}
+
+	public final ProfileConditionType getConditionType()
+	{
+		return Condition.getCondition();
+	}
+
+	public final ProfileConditionValue getProperty()
+	{
+		return Condition.getProperty();
+	}
+
+	public final String getValue()
+	{
+		return Condition.getValue();
+	}
+
+	public final boolean getIsRequired()
+	{
+		return Condition.getIsRequired();
+	}
+
+	/**
+	 Whether the value is one of the pipe separated values, ignoring case.
+	*/
+	public final boolean EqualsAny(String value)
+	{
+		return AnyValues.contains(ToKey(value));
+	}
+
+	public static CompiledProfileCondition[] Compile(ProfileCondition[] conditions)
+	{
+		if (conditions == null)
+		{
+			return new CompiledProfileCondition[] { };
+		}
+
+		CompiledProfileCondition[] list = new CompiledProfileCondition[conditions.length];
+		for (int i = 0; i < conditions.length; i++)
+		{
+			list[i] = new CompiledProfileCondition(conditions[i]);
+		}
+		return list;
+	}
+
+	static String ToKey(String value)
+	{
+		return value.toLowerCase(java.util.Locale.ROOT);
+	}
+}
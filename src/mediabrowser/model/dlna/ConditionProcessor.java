@@ -6,6 +6,11 @@ import mediabrowser.model.mediainfo.*;
 public class ConditionProcessor
 {
 	public final boolean IsVideoConditionSatisfied(ProfileCondition condition, Integer audioBitrate, Integer audioChannels, Integer width, Integer height, Integer bitDepth, Integer videoBitrate, String videoProfile, Double videoLevel, Float videoFramerate, Integer packetLength, TransportStreamTimestamp timestamp, Boolean isAnamorphic, Boolean isCabac, Integer refFrames, Integer numVideoStreams, Integer numAudioStreams)
+	{
+		return IsVideoConditionSatisfied(new CompiledProfileCondition(condition), audioBitrate, audioChannels, width, height, bitDepth, videoBitrate, videoProfile, videoLevel, videoFramerate, packetLength, timestamp, isAnamorphic, isCabac, refFrames, numVideoStreams, numAudioStreams);
+	}
+
+	public final boolean IsVideoConditionSatisfied(CompiledProfileCondition condition, Integer audioBitrate, Integer audioChannels, Integer width, Integer height, Integer bitDepth, Integer videoBitrate, String videoProfile, Double videoLevel, Float videoFramerate, Integer packetLength, TransportStreamTimestamp timestamp, Boolean isAnamorphic, Boolean isCabac, Integer refFrames, Integer numVideoStreams, Integer numAudioStreams)
 	{
 		switch (condition.getProperty())
 		{
@@ -53,6 +58,11 @@ public class ConditionProcessor
 	}
 
 	public final boolean IsImageConditionSatisfied(ProfileCondition condition, Integer width, Integer height)
+	{
+		return IsImageConditionSatisfied(new CompiledProfileCondition(condition), width, height);
+	}
+
+	public final boolean IsImageConditionSatisfied(CompiledProfileCondition condition, Integer width, Integer height)
 	{
 		switch (condition.getProperty())
 		{
@@ -66,6 +76,11 @@ public class ConditionProcessor
 	}
 
 	public final boolean IsAudioConditionSatisfied(ProfileCondition condition, Integer audioChannels, Integer audioBitrate)
+	{
+		return IsAudioConditionSatisfied(new CompiledProfileCondition(condition), audioChannels, audioBitrate);
+	}
+
+	public final boolean IsAudioConditionSatisfied(CompiledProfileCondition condition, Integer audioChannels, Integer audioBitrate)
 	{
 		switch (condition.getProperty())
 		{
@@ -79,6 +94,11 @@ public class ConditionProcessor
 	}
 
 	public final boolean IsVideoAudioConditionSatisfied(ProfileCondition condition, Integer audioChannels, Integer audioBitrate, String audioProfile, Boolean isSecondaryTrack)
+	{
+		return IsVideoAudioConditionSatisfied(new CompiledProfileCondition(condition), audioChannels, audioBitrate, audioProfile, isSecondaryTrack);
+	}
+
+	public final boolean IsVideoAudioConditionSatisfied(CompiledProfileCondition condition, Integer audioChannels, Integer audioBitrate, String audioProfile, Boolean isSecondaryTrack)
 	{
 		switch (condition.getProperty())
 		{
@@ -95,7 +115,7 @@ public class ConditionProcessor
 		}
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, Integer currentValue)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, Integer currentValue)
 	{
 		if (currentValue == null)
 		{
@@ -103,13 +123,10 @@ public class ConditionProcessor
 			return !condition.getIsRequired();
 		}
 
-		int expected = 0;
-		tangible.RefObject<Integer> tempRef_expected = new tangible.RefObject<Integer>(expected);
-		boolean tempVar = IntHelper.TryParseCultureInvariant(condition.getValue(), tempRef_expected);
-			expected = tempRef_expected.argValue;
-		if (tempVar)
+		Integer expected = condition.getIntValue();
+		if (expected != null)
 		{
-			switch (condition.getCondition())
+			switch (condition.getConditionType())
 			{
 				case Equals:
 					return currentValue.equals(expected);
@@ -127,7 +144,7 @@ public class ConditionProcessor
 		return false;
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, String currentValue)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, String currentValue)
 	{
 		if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(currentValue))
 		{
@@ -137,11 +154,11 @@ public class ConditionProcessor
 
 		String expected = condition.getValue();
 
-		switch (condition.getCondition())
+		switch (condition.getConditionType())
 		{
 			case EqualsAny:
 			{
-				return ListHelper.ContainsIgnoreCase(expected.split("[|]", -1), currentValue);
+				return condition.EqualsAny(currentValue);
 			}
 			case Equals:
 				return StringHelper.EqualsIgnoreCase(currentValue, expected);
@@ -152,7 +169,7 @@ public class ConditionProcessor
 		}
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, Boolean currentValue)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, Boolean currentValue)
 	{
 		if (currentValue == null)
 		{
@@ -160,27 +177,20 @@ public class ConditionProcessor
 			return !condition.getIsRequired();
 		}
 
-		boolean expected = false;
-		tangible.RefObject<Boolean> tempRef_expected = new tangible.RefObject<Boolean>(expected);
-		boolean tempVar = BoolHelper.TryParseCultureInvariant(condition.getValue(), tempRef_expected);
-			expected = tempRef_expected.argValue;
-		if (tempVar)
+		boolean expected = condition.getBoolValue();
+
+		switch (condition.getConditionType())
 		{
-			switch (condition.getCondition())
-			{
-				case Equals:
-					return currentValue == expected;
-				case NotEquals:
-					return currentValue != expected;
-				default:
-					throw new IllegalStateException("Unexpected ProfileConditionType");
-			}
+			case Equals:
+				return currentValue == expected;
+			case NotEquals:
+				return currentValue != expected;
+			default:
+				throw new IllegalStateException("Unexpected ProfileConditionType");
 		}
-
-		return false;
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, Float currentValue)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, Float currentValue)
 	{
 		if (currentValue == null)
 		{
@@ -188,13 +198,10 @@ public class ConditionProcessor
 			return !condition.getIsRequired();
 		}
 
-		float expected = 0F;
-		tangible.RefObject<Float> tempRef_expected = new tangible.RefObject<Float>(expected);
-		boolean tempVar = FloatHelper.TryParseCultureInvariant(condition.getValue(), tempRef_expected);
-			expected = tempRef_expected.argValue;
-		if (tempVar)
+		Float expected = condition.getFloatValue();
+		if (expected != null)
 		{
-			switch (condition.getCondition())
+			switch (condition.getConditionType())
 			{
 				case Equals:
 					return currentValue.equals(expected);
@@ -212,7 +219,7 @@ public class ConditionProcessor
 		return false;
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, Double currentValue)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, Double currentValue)
 	{
 		if (currentValue == null)
 		{
@@ -220,13 +227,10 @@ public class ConditionProcessor
 			return !condition.getIsRequired();
 		}
 
-		double expected = 0;
-		tangible.RefObject<Double> tempRef_expected = new tangible.RefObject<Double>(expected);
-		boolean tempVar = DoubleHelper.TryParseCultureInvariant(condition.getValue(), tempRef_expected);
-			expected = tempRef_expected.argValue;
-		if (tempVar)
+		Double expected = condition.getDoubleValue();
+		if (expected != null)
 		{
-			switch (condition.getCondition())
+			switch (condition.getConditionType())
 			{
 				case Equals:
 					return currentValue.equals(expected);
@@ -244,7 +248,7 @@ public class ConditionProcessor
 		return false;
 	}
 
-	private boolean IsConditionSatisfied(ProfileCondition condition, TransportStreamTimestamp timestamp)
+	private boolean IsConditionSatisfied(CompiledProfileCondition condition, TransportStreamTimestamp timestamp)
 	{
 		if (timestamp == null)
 		{
@@ -252,11 +256,13 @@ public class ConditionProcessor
 			return !condition.getIsRequired();
 		}
 
-//C# TO JAVA CONVERTER WARNING: Java does not have an 'ignoreCase' parameter for the static 'valueOf' method of enum types:
-//ORIGINAL LINE: TransportStreamTimestamp expected = (TransportStreamTimestamp)Enum.Parse(typeof(TransportStreamTimestamp), condition.Value, true);
-		TransportStreamTimestamp expected = TransportStreamTimestamp.valueOf(condition.getValue());
+		TransportStreamTimestamp expected = condition.getTimestampValue();
+		if (expected == null)
+		{
+			throw new IllegalArgumentException("Unrecognized TransportStreamTimestamp: " + condition.getValue());
+		}
 
-		switch (condition.getCondition())
+		switch (condition.getConditionType())
 		{
 			case Equals:
 				return timestamp == expected;
@@ -266,4 +272,4 @@ public class ConditionProcessor
 				throw new IllegalStateException("Unexpected ProfileConditionType");
 		}
 	}
-}
\ No newline at end of file
+}
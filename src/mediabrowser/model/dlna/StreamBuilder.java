@@ -123,23 +123,13 @@ public class StreamBuilder
 			{
 				ConditionProcessor conditionProcessor = new ConditionProcessor();
 
-				java.util.ArrayList<ProfileCondition> conditions = new java.util.ArrayList<ProfileCondition>();
-				for (CodecProfile i : options.getProfile().getCodecProfiles())
-				{
-					if (i.getType() == CodecType.Audio && i.ContainsCodec(audioCodec))
-					{
-						for (ProfileCondition c : i.getConditions())
-						{
-							conditions.add(c);
-						}
-					}
-				}
+				CompiledProfileCondition[] conditions = CompiledDeviceProfile.Get(options.getProfile()).GetCodecConditions(CodecType.Audio, audioCodec);
 
 				Integer audioChannels = audioStream.getChannels();
 				Integer audioBitrate = audioStream.getBitRate();
 
 				boolean all = true;
-				for (ProfileCondition c : conditions)
+				for (CompiledProfileCondition c : conditions)
 				{
 					if (!conditionProcessor.IsAudioConditionSatisfied(c, audioChannels, audioBitrate))
 					{
@@ -170,15 +160,7 @@ public class StreamBuilder
 			}
 		}
 
-		TranscodingProfile transcodingProfile = null;
-		for (TranscodingProfile i : options.getProfile().getTranscodingProfiles())
-		{
-			if (i.getType() == playlistItem.getMediaType() && i.getContext() == options.getContext())
-			{
-				transcodingProfile = i;
-				break;
-			}
-		}
+		TranscodingProfile transcodingProfile = CompiledDeviceProfile.Get(options.getProfile()).GetTranscodingProfile(playlistItem.getMediaType(), options.getContext());
 
 		if (transcodingProfile != null)
 		{
@@ -194,28 +176,7 @@ public class StreamBuilder
 			playlistItem.setAudioCodec(transcodingProfile.getAudioCodec());
 			playlistItem.setSubProtocol(transcodingProfile.getProtocol());
 
-			java.util.ArrayList<CodecProfile> audioCodecProfiles = new java.util.ArrayList<CodecProfile>();
-			for (CodecProfile i : options.getProfile().getCodecProfiles())
-			{
-				if (i.getType() == CodecType.Audio && i.ContainsCodec(transcodingProfile.getAudioCodec()))
-				{
-					audioCodecProfiles.add(i);
-				}
-
-				if (audioCodecProfiles.size() >= 1)
-				{
-					break;
-				}
-			}
-
-			java.util.ArrayList<ProfileCondition> audioTranscodingConditions = new java.util.ArrayList<ProfileCondition>();
-			for (CodecProfile i : audioCodecProfiles)
-			{
-				for (ProfileCondition c : i.getConditions())
-				{
-					audioTranscodingConditions.add(c);
-				}
-			}
+			CompiledProfileCondition[] audioTranscodingConditions = CompiledDeviceProfile.Get(options.getProfile()).GetFirstCodecConditions(CodecType.Audio, transcodingProfile.getAudioCodec());
 
 			ApplyTranscodingConditions(playlistItem, audioTranscodingConditions);
 
@@ -250,15 +211,7 @@ public class StreamBuilder
 
 	private java.util.ArrayList<PlayMethod> GetAudioDirectPlayMethods(MediaSourceInfo item, MediaStream audioStream, AudioOptions options)
 	{
-		DirectPlayProfile directPlayProfile = null;
-		for (DirectPlayProfile i : options.getProfile().getDirectPlayProfiles())
-		{
-			if (i.getType() == DlnaProfileType.Audio && IsAudioDirectPlaySupported(i, item, audioStream))
-			{
-				directPlayProfile = i;
-				break;
-			}
-		}
+		DirectPlayProfile directPlayProfile = CompiledDeviceProfile.Get(options.getProfile()).GetAudioDirectPlayProfile(item.getContainer());
 
 		java.util.ArrayList<PlayMethod> playMethods = new java.util.ArrayList<PlayMethod>();
 
@@ -380,15 +333,7 @@ public class StreamBuilder
 		}
 
 		// Can't direct play, find the transcoding profile
-		TranscodingProfile transcodingProfile = null;
-		for (TranscodingProfile i : options.getProfile().getTranscodingProfiles())
-		{
-			if (i.getType() == playlistItem.getMediaType() && i.getContext() == options.getContext())
-			{
-				transcodingProfile = i;
-				break;
-			}
-		}
+		TranscodingProfile transcodingProfile = CompiledDeviceProfile.Get(options.getProfile()).GetTranscodingProfile(playlistItem.getMediaType(), options.getContext());
 
 		if (transcodingProfile != null)
 		{
@@ -414,32 +359,12 @@ public class StreamBuilder
 			playlistItem.setSubProtocol(transcodingProfile.getProtocol());
 			playlistItem.setAudioStreamIndex(audioStreamIndex);
 
-			java.util.ArrayList<ProfileCondition> videoTranscodingConditions = new java.util.ArrayList<ProfileCondition>();
-			for (CodecProfile i : options.getProfile().getCodecProfiles())
-			{
-				if (i.getType() == CodecType.Video && i.ContainsCodec(transcodingProfile.getVideoCodec()))
-				{
-					for (ProfileCondition c : i.getConditions())
-					{
-						videoTranscodingConditions.add(c);
-					}
-					break;
-				}
-			}
+			CompiledDeviceProfile compiledProfile = CompiledDeviceProfile.Get(options.getProfile());
+
+			CompiledProfileCondition[] videoTranscodingConditions = compiledProfile.GetFirstCodecConditions(CodecType.Video, transcodingProfile.getVideoCodec());
 			ApplyTranscodingConditions(playlistItem, videoTranscodingConditions);
 
-			java.util.ArrayList<ProfileCondition> audioTranscodingConditions = new java.util.ArrayList<ProfileCondition>();
-			for (CodecProfile i : options.getProfile().getCodecProfiles())
-			{
-				if (i.getType() == CodecType.VideoAudio && i.ContainsCodec(transcodingProfile.getAudioCodec()))
-				{
-					for (ProfileCondition c : i.getConditions())
-					{
-						audioTranscodingConditions.add(c);
-					}
-					break;
-				}
-			}
+			CompiledProfileCondition[] audioTranscodingConditions = compiledProfile.GetFirstCodecConditions(CodecType.VideoAudio, transcodingProfile.getAudioCodec());
 			ApplyTranscodingConditions(playlistItem, audioTranscodingConditions);
 
 			// Honor requested max channels
@@ -509,16 +434,10 @@ public class StreamBuilder
 
 	private PlayMethod GetVideoDirectPlayProfile(DeviceProfile profile, MediaSourceInfo mediaSource, MediaStream videoStream, MediaStream audioStream, boolean isEligibleForDirectPlay, boolean isEligibleForDirectStream)
 	{
+		CompiledDeviceProfile compiledProfile = CompiledDeviceProfile.Get(profile);
+
 		// See if it can be direct played
-		DirectPlayProfile directPlay = null;
-		for (DirectPlayProfile i : profile.getDirectPlayProfiles())
-		{
-			if (i.getType() == DlnaProfileType.Video && IsVideoDirectPlaySupported(i, mediaSource, videoStream, audioStream))
-			{
-				directPlay = i;
-				break;
-			}
-		}
+		DirectPlayProfile directPlay = compiledProfile.GetVideoDirectPlayProfile(mediaSource.getContainer(), videoStream == null ? null : videoStream.getCodec(), audioStream == null ? null : audioStream.getCodec());
 
 		if (directPlay == null)
 		{
@@ -531,17 +450,7 @@ public class StreamBuilder
 
 		String container = mediaSource.getContainer();
 
-		java.util.ArrayList<ProfileCondition> conditions = new java.util.ArrayList<ProfileCondition>();
-		for (ContainerProfile i : profile.getContainerProfiles())
-		{
-			if (i.getType() == DlnaProfileType.Video && ListHelper.ContainsIgnoreCase(i.GetContainers(), container))
-			{
-				for (ProfileCondition c : i.getConditions())
-				{
-					conditions.add(c);
-				}
-			}
-		}
+		CompiledProfileCondition[] conditions = compiledProfile.GetContainerConditions(DlnaProfileType.Video, container);
 
 		ConditionProcessor conditionProcessor = new ConditionProcessor();
 
@@ -568,7 +477,7 @@ public class StreamBuilder
 		Integer numVideoStreams = mediaSource.GetStreamCount(MediaStreamType.Video);
 
 		// Check container conditions
-		for (ProfileCondition i : conditions)
+		for (CompiledProfileCondition i : conditions)
 		{
 			if (!conditionProcessor.IsVideoConditionSatisfied(i, audioBitrate, audioChannels, width, height, bitDepth, videoBitrate, videoProfile, videoLevel, videoFramerate, packetLength, timestamp, isAnamorphic, isCabac, refFrames, numVideoStreams, numAudioStreams))
 			{
@@ -589,19 +498,9 @@ public class StreamBuilder
 			return null;
 		}
 
-		conditions = new java.util.ArrayList<ProfileCondition>();
-		for (CodecProfile i : profile.getCodecProfiles())
-		{
-			if (i.getType() == CodecType.Video && i.ContainsCodec(videoCodec))
-			{
-				for (ProfileCondition c : i.getConditions())
-				{
-					conditions.add(c);
-				}
-			}
-		}
+		conditions = compiledProfile.GetCodecConditions(CodecType.Video, videoCodec);
 
-		for (ProfileCondition i : conditions)
+		for (CompiledProfileCondition i : conditions)
 		{
 			if (!conditionProcessor.IsVideoConditionSatisfied(i, audioBitrate, audioChannels, width, height, bitDepth, videoBitrate, videoProfile, videoLevel, videoFramerate, packetLength, timestamp, isAnamorphic, isCabac, refFrames, numVideoStreams, numAudioStreams))
 			{
@@ -624,19 +523,9 @@ public class StreamBuilder
 				return null;
 			}
 
-			conditions = new java.util.ArrayList<ProfileCondition>();
-			for (CodecProfile i : profile.getCodecProfiles())
-			{
-				if (i.getType() == CodecType.VideoAudio && i.ContainsCodec(audioCodec))
-				{
-					for (ProfileCondition c : i.getConditions())
-					{
-						conditions.add(c);
-					}
-				}
-			}
+			conditions = compiledProfile.GetCodecConditions(CodecType.VideoAudio, audioCodec);
 
-			for (ProfileCondition i : conditions)
+			for (CompiledProfileCondition i : conditions)
 			{
 				Boolean isSecondaryAudio = audioStream == null ? null : mediaSource.IsSecondaryAudio(audioStream);
 				if (!conditionProcessor.IsVideoAudioConditionSatisfied(i, audioChannels, audioBitrate, audioProfile, isSecondaryAudio))
@@ -675,12 +564,12 @@ public class StreamBuilder
 		return null;
 	}
 
-	private void LogConditionFailure(DeviceProfile profile, String type, ProfileCondition condition, MediaSourceInfo mediaSource)
+	private void LogConditionFailure(DeviceProfile profile, String type, CompiledProfileCondition condition, MediaSourceInfo mediaSource)
 	{
 		String tempVar = profile.getName();
 		String tempVar2 = condition.getValue();
 		String tempVar3 = mediaSource.getPath();
-		_logger.Debug("Profile: %s, DirectPlay=false. Reason=%s.%s Condition: %s. ConditionValue: %s. IsRequired: %s. Path: %s", type, (tempVar != null) ? tempVar : "Unknown Profile", condition.getProperty(), condition.getCondition(), (tempVar2 != null) ? tempVar2 : "", condition.getIsRequired(), (tempVar3 != null) ? tempVar3 : "Unknown path");
+		_logger.Debug("Profile: %s, DirectPlay=false. Reason=%s.%s Condition: %s. ConditionValue: %s. IsRequired: %s. Path: %s", type, (tempVar != null) ? tempVar : "Unknown Profile", condition.getProperty(), condition.getConditionType(), (tempVar2 != null) ? tempVar2 : "", condition.getIsRequired(), (tempVar3 != null) ? tempVar3 : "Unknown path");
 	}
 
 	private boolean IsEligibleForDirectPlay(MediaSourceInfo item, Integer maxBitrate, MediaStream subtitleStream, VideoOptions options)
@@ -797,9 +686,9 @@ public class StreamBuilder
 		}
 	}
 
-	private void ApplyTranscodingConditions(StreamInfo item, Iterable<ProfileCondition> conditions)
+	private void ApplyTranscodingConditions(StreamInfo item, CompiledProfileCondition[] conditions)
 	{
-		for (ProfileCondition condition : conditions)
+		for (CompiledProfileCondition condition : conditions)
 		{
 			String value = condition.getValue();
 
@@ -809,7 +698,7 @@ public class StreamBuilder
 			}
 
 			// No way to express this
-			if (condition.getCondition() == ProfileConditionType.GreaterThanEqual)
+			if (condition.getConditionType() == ProfileConditionType.GreaterThanEqual)
 			{
 				continue;
 			}
@@ -818,11 +707,8 @@ public class StreamBuilder
 			{
 				case AudioBitrate:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num = new tangible.RefObject<Integer>(num);
-						boolean tempVar = IntHelper.TryParseCultureInvariant(value, tempRef_num);
-							num = tempRef_num.argValue;
-						if (tempVar)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setAudioBitrate(num);
 						}
@@ -830,11 +716,8 @@ public class StreamBuilder
 				}
 				case AudioChannels:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num2 = new tangible.RefObject<Integer>(num);
-						boolean tempVar2 = IntHelper.TryParseCultureInvariant(value, tempRef_num2);
-							num = tempRef_num2.argValue;
-						if (tempVar2)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setMaxAudioChannels(num);
 						}
@@ -842,20 +725,14 @@ public class StreamBuilder
 				}
 				case IsCabac:
 				{
-						boolean val = false;
-						tangible.RefObject<Boolean> tempRef_val = new tangible.RefObject<Boolean>(val);
-						boolean tempVar3 = BoolHelper.TryParseCultureInvariant(value, tempRef_val);
-							val = tempRef_val.argValue;
-						if (tempVar3)
+						boolean val = condition.getBoolValue();
+						if (condition.getConditionType() == ProfileConditionType.Equals)
+						{
+							item.setCabac(val);
+						}
+						else if (condition.getConditionType() == ProfileConditionType.NotEquals)
 						{
-							if (condition.getCondition() == ProfileConditionType.Equals)
-							{
-								item.setCabac(val);
-							}
-							else if (condition.getCondition() == ProfileConditionType.NotEquals)
-							{
-								item.setCabac(!val);
-							}
+							item.setCabac(!val);
 						}
 						break;
 				}
@@ -873,11 +750,8 @@ public class StreamBuilder
 				}
 				case RefFrames:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num3 = new tangible.RefObject<Integer>(num);
-						boolean tempVar4 = IntHelper.TryParseCultureInvariant(value, tempRef_num3);
-							num = tempRef_num3.argValue;
-						if (tempVar4)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setMaxRefFrames(num);
 						}
@@ -885,11 +759,8 @@ public class StreamBuilder
 				}
 				case VideoBitDepth:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num4 = new tangible.RefObject<Integer>(num);
-						boolean tempVar5 = IntHelper.TryParseCultureInvariant(value, tempRef_num4);
-							num = tempRef_num4.argValue;
-						if (tempVar5)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setMaxVideoBitDepth(num);
 						}
@@ -902,11 +773,8 @@ public class StreamBuilder
 				}
 				case Height:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num5 = new tangible.RefObject<Integer>(num);
-						boolean tempVar6 = IntHelper.TryParseCultureInvariant(value, tempRef_num5);
-							num = tempRef_num5.argValue;
-						if (tempVar6)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setMaxHeight(num);
 						}
@@ -914,11 +782,8 @@ public class StreamBuilder
 				}
 				case VideoBitrate:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num6 = new tangible.RefObject<Integer>(num);
-						boolean tempVar7 = IntHelper.TryParseCultureInvariant(value, tempRef_num6);
-							num = tempRef_num6.argValue;
-						if (tempVar7)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setVideoBitrate(num);
 						}
@@ -926,11 +791,8 @@ public class StreamBuilder
 				}
 				case VideoFramerate:
 				{
-						float num = 0F;
-						tangible.RefObject<Float> tempRef_num7 = new tangible.RefObject<Float>(num);
-						boolean tempVar8 = FloatHelper.TryParseCultureInvariant(value, tempRef_num7);
-							num = tempRef_num7.argValue;
-						if (tempVar8)
+						Float num = condition.getFloatValue();
+						if (num != null)
 						{
 							item.setMaxFramerate(num);
 						}
@@ -938,11 +800,8 @@ public class StreamBuilder
 				}
 				case VideoLevel:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num8 = new tangible.RefObject<Integer>(num);
-						boolean tempVar9 = IntHelper.TryParseCultureInvariant(value, tempRef_num8);
-							num = tempRef_num8.argValue;
-						if (tempVar9)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setVideoLevel(num);
 						}
@@ -950,11 +809,8 @@ public class StreamBuilder
 				}
 				case Width:
 				{
-						int num = 0;
-						tangible.RefObject<Integer> tempRef_num9 = new tangible.RefObject<Integer>(num);
-						boolean tempVar10 = IntHelper.TryParseCultureInvariant(value, tempRef_num9);
-							num = tempRef_num9.argValue;
-						if (tempVar10)
+						Integer num = condition.getIntValue();
+						if (num != null)
 						{
 							item.setMaxWidth(num);
 						}
@@ -965,76 +821,4 @@ public class StreamBuilder
 			}
 		}
 	}
-
-	private boolean IsAudioDirectPlaySupported(DirectPlayProfile profile, MediaSourceInfo item, MediaStream audioStream)
-	{
-		if (profile.getContainer().length() > 0)
-		{
-			// Check container type
-			String tempVar = item.getContainer();
-			String mediaContainer = (tempVar != null) ? tempVar : "";
-			boolean any = false;
-			for (String i : profile.GetContainers())
-			{
-				if (StringHelper.EqualsIgnoreCase(i, mediaContainer))
-				{
-					any = true;
-					break;
-				}
-			}
-			if (!any)
-			{
-				return false;
-			}
-		}
-
-		return true;
-	}
-
-	private boolean IsVideoDirectPlaySupported(DirectPlayProfile profile, MediaSourceInfo item, MediaStream videoStream, MediaStream audioStream)
-	{
-		if (profile.getContainer().length() > 0)
-		{
-			// Check container type
-			String tempVar = item.getContainer();
-			String mediaContainer = (tempVar != null) ? tempVar : "";
-			boolean any = false;
-			for (String i : profile.GetContainers())
-			{
-				if (StringHelper.EqualsIgnoreCase(i, mediaContainer))
-				{
-					any = true;
-					break;
-				}
-			}
-			if (!any)
-			{
-				return false;
-			}
-		}
-
-		// Check video codec
-		java.util.ArrayList<String> videoCodecs = profile.GetVideoCodecs();
-		if (videoCodecs.size() > 0)
-		{
-			String videoCodec = videoStream == null ? null : videoStream.getCodec();
-			if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(videoCodec) || !ListHelper.ContainsIgnoreCase(videoCodecs, videoCodec))
-			{
-				return false;
-			}
-		}
-
-		java.util.ArrayList<String> audioCodecs = profile.GetAudioCodecs();
-		if (audioCodecs.size() > 0)
-		{
-			// Check audio codecs
-			String audioCodec = audioStream == null ? null : audioStream.getCodec();
-			if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(audioCodec) || !ListHelper.ContainsIgnoreCase(audioCodecs, audioCodec))
-			{
-				return false;
-			}
-		}
-
-		return true;
-	}
-}
\ No newline at end of file
+}
@@ -333,6 +333,50 @@ public class StreamInfo
 		AllMediaSources = value;
 	}
 
+	/**
+	 Creates a shallow copy, sharing the media source and profile.
+	*/
+	public StreamInfo clone()
+	{
+		StreamInfo varCopy = new StreamInfo();
+
+		varCopy.ItemId = this.ItemId;
+		varCopy.PlayMethod = this.PlayMethod;
+		varCopy.Context = this.Context;
+		varCopy.MediaType = this.MediaType;
+		varCopy.Container = this.Container;
+		varCopy.SubProtocol = this.SubProtocol;
+		varCopy.StartPositionTicks = this.StartPositionTicks;
+		varCopy.VideoCodec = this.VideoCodec;
+		varCopy.VideoProfile = this.VideoProfile;
+		varCopy.Cabac = this.Cabac;
+		varCopy.AudioCodec = this.AudioCodec;
+		varCopy.AudioStreamIndex = this.AudioStreamIndex;
+		varCopy.SubtitleStreamIndex = this.SubtitleStreamIndex;
+		varCopy.MaxAudioChannels = this.MaxAudioChannels;
+		varCopy.AudioBitrate = this.AudioBitrate;
+		varCopy.VideoBitrate = this.VideoBitrate;
+		varCopy.VideoLevel = this.VideoLevel;
+		varCopy.MaxWidth = this.MaxWidth;
+		varCopy.MaxHeight = this.MaxHeight;
+		varCopy.MaxVideoBitDepth = this.MaxVideoBitDepth;
+		varCopy.MaxRefFrames = this.MaxRefFrames;
+		varCopy.MaxFramerate = this.MaxFramerate;
+		varCopy.DeviceProfile = this.DeviceProfile;
+		varCopy.DeviceProfileId = this.DeviceProfileId;
+		varCopy.DeviceId = this.DeviceId;
+		varCopy.RunTimeTicks = this.RunTimeTicks;
+		varCopy.TranscodeSeekInfo = this.TranscodeSeekInfo;
+		varCopy.EstimateContentLength = this.EstimateContentLength;
+		varCopy.MediaSource = this.MediaSource;
+		varCopy.SubtitleDeliveryMethod = this.SubtitleDeliveryMethod;
+		varCopy.SubtitleFormat = this.SubtitleFormat;
+		varCopy.PlaySessionId = this.PlaySessionId;
+		varCopy.AllMediaSources = this.AllMediaSources;
+
+		return varCopy;
+	}
+
 	public final String getMediaSourceId()
 	{
 		return getMediaSource() == null ? null : getMediaSource().getId();
@@ -355,34 +399,11 @@ public class StreamInfo
 			throw new IllegalArgumentException(baseUrl);
 		}
 
-		java.util.ArrayList<String> list = new java.util.ArrayList<String>();
-		for (NameValuePair pair : BuildParams(this, accessToken, false))
-		{
-			if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(pair.getValue()))
-			{
-				continue;
-			}
-
-			// Try to keep the url clean by omitting defaults
-			if (StringHelper.EqualsIgnoreCase(pair.getName(), "StartTimeTicks") && StringHelper.EqualsIgnoreCase(pair.getValue(), "0"))
-			{
-				continue;
-			}
-			if (StringHelper.EqualsIgnoreCase(pair.getName(), "SubtitleStreamIndex") && StringHelper.EqualsIgnoreCase(pair.getValue(), "-1"))
-			{
-				continue;
-			}
-			if (StringHelper.EqualsIgnoreCase(pair.getName(), "Static") && StringHelper.EqualsIgnoreCase(pair.getValue(), "false"))
-			{
-				continue;
-			}
-
-			list.add(String.format("%1$s=%2$s", pair.getName(), pair.getValue()));
-		}
+		UrlBuilder builder = GetUrlBuilder(baseUrl);
 
-		String queryString = tangible.DotNetToJavaStringHelper.join("&", list.toArray(new String[0]));
+		AppendParams(builder, accessToken);
 
-		return GetUrl(baseUrl, queryString);
+		return builder.Build();
 	}
 
 	public final String ToDlnaUrl(String baseUrl, String accessToken)
@@ -397,27 +418,101 @@ public class StreamInfo
 	}
 
 	private String GetUrl(String baseUrl, String queryString)
+	{
+		return GetUrlBuilder(baseUrl).Append('?').Append(queryString).Build();
+	}
+
+	private UrlBuilder GetUrlBuilder(String baseUrl)
 	{
 		if (tangible.DotNetToJavaStringHelper.isNullOrEmpty(baseUrl))
 		{
 			throw new IllegalArgumentException(baseUrl);
 		}
 
-		String extension = tangible.DotNetToJavaStringHelper.isNullOrEmpty(getContainer()) ? "" : "." + getContainer();
-
 		baseUrl = tangible.DotNetToJavaStringHelper.trimEnd(baseUrl, '/');
 
 		if (getMediaType() == DlnaProfileType.Audio)
 		{
-			return String.format("%1$s/audio/%2$s/stream%3$s?%4$s", baseUrl, getItemId(), extension, queryString);
+			return AppendExtension(new UrlBuilder(baseUrl).Append("/audio/").Append(getItemId()).Append("/stream"));
 		}
 
 		if (StringHelper.EqualsIgnoreCase(getSubProtocol(), "hls"))
 		{
-			return String.format("%1$s/videos/%2$s/master.m3u8?%3$s", baseUrl, getItemId(), queryString);
+			return new UrlBuilder(baseUrl).Append("/videos/").Append(getItemId()).Append("/master.m3u8");
+		}
+
+		return AppendExtension(new UrlBuilder(baseUrl).Append("/videos/").Append(getItemId()).Append("/stream"));
+	}
+
+	private UrlBuilder AppendExtension(UrlBuilder builder)
+	{
+		if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(getContainer()))
+		{
+			builder.Append('.').Append(getContainer());
 		}
 
-		return String.format("%1$s/videos/%2$s/stream%3$s?%4$s", baseUrl, getItemId(), extension, queryString);
+		return builder;
+	}
+
+	/**
+	 Writes the same parameters as BuildParams, in the same order, straight into the url. Empty values are left out,
+	 as are defaults, to keep the url clean. Values are not encoded, matching the dlna form.
+	*/
+	private void AppendParams(UrlBuilder builder, String accessToken)
+	{
+		AddIfNotNullOrEmpty(builder, "DeviceProfileId", getDeviceProfileId());
+		AddIfNotNullOrEmpty(builder, "DeviceId", getDeviceId());
+		AddIfNotNullOrEmpty(builder, "MediaSourceId", getMediaSourceId());
+		if (getIsDirectStream())
+		{
+			builder.Add("Static", true);
+		}
+		AddIfNotNullOrEmpty(builder, "VideoCodec", getVideoCodec());
+		AddIfNotNullOrEmpty(builder, "AudioCodec", getAudioCodec());
+		builder.AddIfNotNull("AudioStreamIndex", getAudioStreamIndex());
+		if (getSubtitleStreamIndex() != null && getSubtitleStreamIndex() != -1 && getSubtitleDeliveryMethod() != mediabrowser.model.dlna.SubtitleDeliveryMethod.External)
+		{
+			builder.Add("SubtitleStreamIndex", getSubtitleStreamIndex().intValue());
+		}
+		builder.AddIfNotNull("VideoBitrate", getVideoBitrate());
+		builder.AddIfNotNull("AudioBitrate", getAudioBitrate());
+		builder.AddIfNotNull("MaxAudioChannels", getMaxAudioChannels());
+		if (getMaxFramerate() != null)
+		{
+			builder.Add("MaxFramerate", (double)getMaxFramerate());
+		}
+		builder.AddIfNotNull("MaxWidth", getMaxWidth());
+		builder.AddIfNotNull("MaxHeight", getMaxHeight());
+
+		if (!StringHelper.EqualsIgnoreCase(getSubProtocol(), "hls") && getStartPositionTicks() != 0)
+		{
+			builder.Add("StartTimeTicks", getStartPositionTicks());
+		}
+
+		builder.AddIfNotNull("Level", getVideoLevel());
+
+		if (!getIsDirectStream())
+		{
+			builder.Add("ClientTime", new java.util.Date().getTime());
+		}
+
+		builder.AddIfNotNull("MaxRefFrames", getMaxRefFrames());
+		builder.AddIfNotNull("MaxVideoBitDepth", getMaxVideoBitDepth());
+		AddIfNotNullOrEmpty(builder, "Profile", getVideoProfile());
+		builder.AddIfNotNull("Cabac", getCabac());
+
+		AddIfNotNullOrEmpty(builder, "PlaySessionId", getPlaySessionId());
+		AddIfNotNullOrEmpty(builder, "api_key", accessToken);
+
+		AddIfNotNullOrEmpty(builder, "LiveStreamId", getMediaSource() == null ? null : getMediaSource().getLiveStreamId());
+	}
+
+	private static void AddIfNotNullOrEmpty(UrlBuilder builder, String name, String value)
+	{
+		if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(value))
+		{
+			builder.AddRaw(name, value);
+		}
 	}
 
 	private static String BuildDlnaParam(StreamInfo item, String accessToken)
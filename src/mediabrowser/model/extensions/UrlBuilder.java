@@ -0,0 +1,362 @@
+package mediabrowser.model.extensions;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ Builds a url and its query string in a single buffer.
+
+ Parameters are written in the order they are added, so the same calls always produce the same url and the
+ result can be used as a cache key. Numbers and booleans are appended directly rather than boxed and converted.
+ Parameter names are written as given and must already be url safe, which holds for the constant names used
+ throughout the api. Values are encoded unless added with AddRaw.
+
+ Each thread reuses one buffer, which is taken by a new builder and handed back by Build. A builder created while
+ the buffer is taken, or after one was abandoned without being built, allocates its own and hands that back instead.
+*/
+public final class UrlBuilder
+{
+	private static final int MaxPooledCapacity = 4096;
+
+	private static final ThreadLocal<PooledBuffer> Pool = new ThreadLocal<PooledBuffer>()
+	{
+		@Override
+		protected PooledBuffer initialValue()
+		{
+			return new PooledBuffer();
+		}
+	};
+
+	private StringBuilder Builder;
+	private boolean HasQuery;
+
+	/**
+	 Creates a builder for a query string on its own, without a leading question mark.
+	*/
+	public UrlBuilder()
+	{
+		this("");
+	}
+
+	/**
+	 Creates a builder for a url starting with the specified base. Parameters are appended with an ampersand if the
+	 base already has a query string.
+
+	 @param baseUrl The base url.
+	*/
+	public UrlBuilder(String baseUrl)
+	{
+		if (baseUrl == null)
+		{
+			throw new IllegalArgumentException("baseUrl");
+		}
+
+		PooledBuffer buffer = Pool.get();
+
+		if (buffer.Builder == null)
+		{
+			Builder = new StringBuilder(baseUrl.length() + 128);
+		}
+		else
+		{
+			Builder = buffer.Builder;
+			Builder.setLength(0);
+			buffer.Builder = null;
+		}
+
+		Builder.append(baseUrl);
+		HasQuery = baseUrl.indexOf('?') != -1;
+	}
+
+	/**
+	 Appends text to the path. This must be done before any parameters are added.
+
+	 @param value The text, which is written as given.
+	 @return This builder.
+	*/
+	public final UrlBuilder Append(String value)
+	{
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder Append(char value)
+	{
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder Append(int value)
+	{
+		Builder.append(value);
+		return this;
+	}
+
+	/**
+	 Adds a parameter, encoding the value.
+
+	 @param name The name.
+	 @param value The value.
+	 @return This builder.
+	*/
+	public final UrlBuilder Add(String name, String value)
+	{
+		AppendName(name);
+		AppendEncoded(Builder, value);
+		return this;
+	}
+
+	/**
+	 Adds a parameter whose value is known to be url safe, or that the server expects unencoded.
+
+	 @param name The name.
+	 @param value The value.
+	 @return This builder.
+	*/
+	public final UrlBuilder AddRaw(String name, String value)
+	{
+		AppendName(name);
+		Builder.append(value);
+		return this;
+	}
+
+	/**
+	 Appends parameters that are already encoded, such as a query string built earlier and shared between urls.
+
+	 @param query The parameters, separated by ampersands, without a leading question mark.
+	 @return This builder.
+	*/
+	public final UrlBuilder AppendQuery(String query)
+	{
+		if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(query))
+		{
+			AppendSeparator();
+			Builder.append(query);
+		}
+		return this;
+	}
+
+	public final UrlBuilder Add(String name, int value)
+	{
+		AppendName(name);
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder Add(String name, long value)
+	{
+		AppendName(name);
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder Add(String name, double value)
+	{
+		AppendName(name);
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder Add(String name, boolean value)
+	{
+		AppendName(name);
+		Builder.append(value);
+		return this;
+	}
+
+	public final UrlBuilder AddIfNotNullOrEmpty(String name, String value)
+	{
+		if (!tangible.DotNetToJavaStringHelper.isNullOrEmpty(value))
+		{
+			Add(name, value);
+		}
+		return this;
+	}
+
+	public final UrlBuilder AddIfNotNull(String name, Integer value)
+	{
+		if (value != null)
+		{
+			Add(name, value.intValue());
+		}
+		return this;
+	}
+
+	public final UrlBuilder AddIfNotNull(String name, Long value)
+	{
+		if (value != null)
+		{
+			Add(name, value.longValue());
+		}
+		return this;
+	}
+
+	public final UrlBuilder AddIfNotNull(String name, Double value)
+	{
+		if (value != null)
+		{
+			Add(name, value.doubleValue());
+		}
+		return this;
+	}
+
+	public final UrlBuilder AddIfNotNull(String name, Boolean value)
+	{
+		if (value != null)
+		{
+			Add(name, value.booleanValue());
+		}
+		return this;
+	}
+
+	/**
+	 Adds a parameter whose value is the list of values joined by the delimiter, each value encoded.
+
+	 @param name The name.
+	 @param values The values.
+	 @param delimiter The delimiter, which is encoded as well.
+	 @return This builder.
+	*/
+	public final UrlBuilder Add(String name, String[] values, String delimiter)
+	{
+		if (values == null)
+		{
+			throw new IllegalArgumentException("values");
+		}
+
+		AppendName(name);
+
+		for (int i = 0; i < values.length; i++)
+		{
+			if (i > 0)
+			{
+				AppendEncoded(Builder, delimiter);
+			}
+			if (values[i] != null)
+			{
+				AppendEncoded(Builder, values[i]);
+			}
+		}
+		return this;
+	}
+
+	public final UrlBuilder Add(String name, int[] values)
+	{
+		if (values == null)
+		{
+			throw new IllegalArgumentException("values");
+		}
+
+		AppendName(name);
+
+		for (int i = 0; i < values.length; i++)
+		{
+			if (i > 0)
+			{
+				// An encoded comma
+				Builder.append("%2C");
+			}
+			Builder.append(values[i]);
+		}
+		return this;
+	}
+
+	public final int length()
+	{
+		return Builder.length();
+	}
+
+	/**
+	 Returns the url and hands the buffer back to the pool. The builder cannot be used afterwards.
+
+	 @return The url.
+	*/
+	public final String Build()
+	{
+		String url = Builder.toString();
+
+		// Don't let a single long url keep a large buffer alive
+		if (Builder.capacity() <= MaxPooledCapacity)
+		{
+			Pool.get().Builder = Builder;
+		}
+
+		Builder = null;
+		return url;
+	}
+
+	@Override
+	public String toString()
+	{
+		return Builder == null ? "" : Builder.toString();
+	}
+
+	private void AppendName(String name)
+	{
+		AppendSeparator();
+		Builder.append(name).append('=');
+	}
+
+	private void AppendSeparator()
+	{
+		if (HasQuery)
+		{
+			Builder.append('&');
+		}
+		else
+		{
+			HasQuery = true;
+
+			if (Builder.length() > 0)
+			{
+				Builder.append('?');
+			}
+		}
+	}
+
+	/**
+	 Appends the value as URLEncoder would encode it, without allocating when nothing needs encoding.
+
+	 @param builder The builder.
+	 @param value The value.
+	*/
+	public static void AppendEncoded(StringBuilder builder, String value)
+	{
+		int length = value.length();
+
+		for (int i = 0; i < length; i++)
+		{
+			if (!IsUnreserved(value.charAt(i)))
+			{
+				builder.append(value, 0, i);
+				builder.append(Encode(value.substring(i)));
+				return;
+			}
+		}
+
+		builder.append(value);
+	}
+
+	private static boolean IsUnreserved(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '*';
+	}
+
+	private static String Encode(String value)
+	{
+		try
+		{
+			return URLEncoder.encode(value, "UTF-8");
+		}
+		catch (UnsupportedEncodingException ex)
+		{
+			// Every platform supports UTF-8
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static final class PooledBuffer
+	{
+		private StringBuilder Builder = new StringBuilder(256);
+	}
+}
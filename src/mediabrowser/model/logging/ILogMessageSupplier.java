@@ -0,0 +1,14 @@
+package mediabrowser.model.logging;
+
+/**
+ Builds a log message only when it is going to be written.
+ */
+public interface ILogMessageSupplier
+{
+    /**
+     Gets the message.
+
+     @return The message.
+     */
+    String getMessage();
+}
@@ -5,6 +5,20 @@ package mediabrowser.model.logging;
  */
 public interface ILogger
 {
+    /**
+     Gets whether debug messages are written. Callers can check this before building the arguments of a message.
+
+     @return true if debug messages are written.
+     */
+    boolean isDebugEnabled();
+
+    /**
+     Gets whether info messages are written.
+
+     @return true if info messages are written.
+     */
+    boolean isInfoEnabled();
+
     /**
      Infoes the specified message.
 
@@ -37,6 +51,20 @@ public interface ILogger
      */
     void Debug(String message, Object... paramList);
 
+    /**
+     Debugs the message built by the supplier, which is only called if debug messages are written.
+
+     @param supplier The message supplier.
+     */
+    void Debug(ILogMessageSupplier supplier);
+
+    /**
+     Infoes the message built by the supplier, which is only called if info messages are written.
+
+     @param supplier The message supplier.
+     */
+    void Info(ILogMessageSupplier supplier);
+
     /**
      Fatals the specified message.
 
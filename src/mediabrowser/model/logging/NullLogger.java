@@ -2,6 +2,16 @@ package mediabrowser.model.logging;
 
 public class NullLogger implements ILogger
 {
+    public final boolean isDebugEnabled()
+    {
+        return false;
+    }
+
+    public final boolean isInfoEnabled()
+    {
+        return false;
+    }
+
     public final void Info(String message, Object... paramList)
     {
     }
@@ -18,6 +28,14 @@ public class NullLogger implements ILogger
     {
     }
 
+    public final void Debug(ILogMessageSupplier supplier)
+    {
+    }
+
+    public final void Info(ILogMessageSupplier supplier)
+    {
+    }
+
     public final void Fatal(String message, Object... paramList)
     {
     }
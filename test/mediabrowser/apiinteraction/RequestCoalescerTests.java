@@ -0,0 +1,108 @@
+package mediabrowser.apiinteraction;
+
+import mediabrowser.model.logging.NullLogger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RequestCoalescerTests {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new NullLogger());
+
+    @Test
+    public void Join_SharesOneRequestPerKey() {
+
+        RecordingResponse first = new RecordingResponse();
+        RecordingResponse second = new RecordingResponse();
+
+        Response<ArrayList<String>> shared = coalescer.join("key", first);
+
+        assertNotNull(shared);
+        assertNull(coalescer.join("key", second));
+        assertNotNull(coalescer.join("other", new RecordingResponse()));
+        assertEquals(2, coalescer.getInFlightCount());
+
+        ArrayList<String> result = new ArrayList<String>();
+        shared.onResponse(result);
+
+        assertSame(result, first.result);
+        assertSame(result, second.result);
+        assertEquals(1, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void Join_StartsNewRequestAfterCompletion() {
+
+        Response<ArrayList<String>> shared = coalescer.join("key", new RecordingResponse());
+        shared.onError(new Exception("failed"));
+
+        assertNotNull(coalescer.join("key", new RecordingResponse()));
+    }
+
+    @Test
+    public void Complete_CallsEveryCallbackWhenOneThrows() {
+
+        RecordingResponse before = new RecordingResponse();
+        RecordingResponse after = new RecordingResponse();
+
+        Response<ArrayList<String>> shared = coalescer.join("key", before);
+        coalescer.join("key", new Response<ArrayList<String>>() {
+            @Override
+            public void onResponse(ArrayList<String> response) {
+                throw new IllegalStateException("callback failed");
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                throw new IllegalStateException("callback failed");
+            }
+        });
+        coalescer.join("key", after);
+
+        ArrayList<String> result = new ArrayList<String>();
+        shared.onResponse(result);
+
+        assertSame(result, before.result);
+        assertSame(result, after.result);
+    }
+
+    @Test
+    public void Error_CallsEveryCallbackWhenOneThrows() {
+
+        RecordingResponse after = new RecordingResponse();
+
+        Response<ArrayList<String>> shared = coalescer.join("key", new Response<ArrayList<String>>() {
+            @Override
+            public void onError(Exception exception) {
+                throw new IllegalStateException("callback failed");
+            }
+        });
+        coalescer.join("key", after);
+
+        Exception error = new Exception("failed");
+        shared.onError(error);
+
+        assertSame(error, after.error);
+    }
+
+    private static class RecordingResponse extends Response<ArrayList<String>> {
+
+        ArrayList<String> result;
+        Exception error;
+
+        @Override
+        public void onResponse(ArrayList<String> response) {
+            result = response;
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            error = exception;
+        }
+    }
+}
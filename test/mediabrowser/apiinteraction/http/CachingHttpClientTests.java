@@ -0,0 +1,259 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.apiinteraction.tasks.IIoExecutor;
+import mediabrowser.apiinteraction.tasks.IoPool;
+import mediabrowser.apiinteraction.tasks.IoPoolMetrics;
+import mediabrowser.model.logging.NullLogger;
+import mediabrowser.model.net.HttpException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingHttpClientTests {
+
+    private FakeHttpClient innerClient;
+    private QueuedIoExecutor ioExecutor;
+    private CachingHttpClient client;
+
+    @Before
+    public void setUp() {
+
+        innerClient = new FakeHttpClient();
+        ioExecutor = new QueuedIoExecutor();
+        client = new CachingHttpClient(innerClient, new MemoryHttpCache(1024 * 1024), new NullLogger(), 0, 1024, ioExecutor);
+    }
+
+    @Test
+    public void Send_ServesFreshEntryWithoutRequest() {
+
+        RecordingResponse first = send("token1");
+        innerClient.complete(200, headers("Cache-Control", "max-age=60"), "body");
+        assertEquals("body", first.body);
+
+        RecordingResponse second = send("token1");
+
+        assertEquals(1, innerClient.requests.size());
+        // Fresh hits are delivered through the executor, never on the calling thread
+        assertNull(second.body);
+
+        ioExecutor.runAll();
+        assertEquals("body", second.body);
+    }
+
+    @Test
+    public void Send_DoesNotShareEntriesBetweenTokens() {
+
+        send("token1");
+        innerClient.complete(200, headers("Cache-Control", "max-age=60"), "body");
+
+        send("token2");
+
+        assertEquals(2, innerClient.requests.size());
+    }
+
+    @Test
+    public void Send_RevalidatesStaleEntry() {
+
+        send("token1");
+        innerClient.complete(200, headers("ETag", "\"v1\"", "Last-Modified", "yesterday"), "body");
+
+        RecordingResponse second = send("token1");
+
+        HttpRequest conditional = innerClient.requests.get(1);
+        assertEquals("\"v1\"", conditional.getRequestHeaders().get("If-None-Match"));
+        assertEquals("yesterday", conditional.getRequestHeaders().get("If-Modified-Since"));
+        assertEquals("token1", conditional.getRequestHeaders().get("X-MediaBrowser-Token"));
+
+        innerClient.complete(304, headers("Cache-Control", "max-age=60"), "");
+        assertEquals("body", second.body);
+
+        // The 304 refreshed the entry, so the next request is served from the cache
+        RecordingResponse third = send("token1");
+        ioExecutor.runAll();
+
+        assertEquals(2, innerClient.requests.size());
+        assertEquals("body", third.body);
+    }
+
+    @Test
+    public void Send_ServesCachedBodyWhenNotModifiedIsReportedAsError() {
+
+        send("token1");
+        innerClient.complete(200, headers("ETag", "\"v1\""), "body");
+
+        RecordingResponse second = send("token1");
+
+        HttpException notModified = new HttpException("Not modified");
+        notModified.setStatusCode(304);
+        innerClient.fail(headers(), notModified);
+
+        assertEquals("body", second.body);
+        assertNull(second.error);
+    }
+
+    @Test
+    public void Send_DoesNotCacheNoStore() {
+
+        send("token1");
+        innerClient.complete(200, headers("Cache-Control", "no-store", "ETag", "\"v1\""), "body");
+
+        send("token1");
+
+        assertEquals(2, innerClient.requests.size());
+        assertNull(innerClient.requests.get(1).getRequestHeaders().get("If-None-Match"));
+    }
+
+    @Test
+    public void Send_PassesThroughPost() {
+
+        HttpRequest request = createRequest("token1");
+        request.setMethod("POST");
+
+        client.Send(request, new RecordingResponse());
+        innerClient.complete(200, headers("Cache-Control", "max-age=60"), "body");
+
+        client.Send(request, new RecordingResponse());
+
+        assertEquals(2, innerClient.requests.size());
+        assertTrue(ioExecutor.tasks.isEmpty());
+    }
+
+    @Test
+    public void InvalidateUser_DropsMatchingEntries() {
+
+        send("token1");
+        innerClient.complete(200, headers("Cache-Control", "max-age=60"), "body");
+
+        client.invalidateUser("user1");
+        send("token1");
+
+        assertEquals(2, innerClient.requests.size());
+    }
+
+    private RecordingResponse send(String token) {
+
+        RecordingResponse response = new RecordingResponse();
+        client.Send(createRequest(token), response);
+        return response;
+    }
+
+    private static HttpRequest createRequest(String token) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.put("X-MediaBrowser-Token", token);
+
+        HttpRequest request = new HttpRequest();
+        request.setUrl("http://server/Users/user1/Items");
+        request.setMethod("GET");
+        request.setRequestHeaders(headers);
+
+        return request;
+    }
+
+    private static Map<String, String> headers(String... namesAndValues) {
+
+        HashMap<String, String> headers = new HashMap<String, String>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return headers;
+    }
+
+    private static class RecordingResponse extends Response<String> {
+
+        String body;
+        Exception error;
+
+        @Override
+        public void onResponse(String response) {
+            body = response;
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            error = exception;
+        }
+    }
+
+    /**
+     * Records requests and completes the latest one when told to.
+     */
+    private static class FakeHttpClient implements IAsyncHttpClient {
+
+        final ArrayList<HttpRequest> requests = new ArrayList<HttpRequest>();
+        private Response<String> pending;
+
+        @Override
+        public void Send(HttpRequest request, Response<String> response) {
+            requests.add(request);
+            pending = response;
+        }
+
+        @Override
+        public void SendStream(HttpRequest request, Response<InputStream> response) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> void SendDeserialized(HttpRequest request, IResponseDeserializer<T> deserializer, Response<T> response) {
+            throw new UnsupportedOperationException();
+        }
+
+        void complete(int statusCode, Map<String, String> headers, String body) {
+            reportHeaders(statusCode, headers);
+            pending.onResponse(body);
+        }
+
+        void fail(Map<String, String> headers, Exception ex) {
+            reportHeaders(304, headers);
+            pending.onError(ex);
+        }
+
+        private void reportHeaders(int statusCode, Map<String, String> headers) {
+
+            if (pending instanceof IResponseHeadersListener) {
+                ((IResponseHeadersListener) pending).onResponseHeaders(statusCode, headers);
+            }
+        }
+    }
+
+    private static class QueuedIoExecutor implements IIoExecutor {
+
+        final ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(IoPool pool, Runnable task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public IoPoolMetrics getMetrics(IoPool pool) {
+            return new IoPoolMetrics(pool, 1, 0, tasks.size(), 0);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        void runAll() {
+
+            ArrayList<Runnable> toRun = new ArrayList<Runnable>(tasks);
+            tasks.clear();
+
+            for (Runnable task : toRun) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package mediabrowser.apiinteraction.http;
+
+import mediabrowser.model.logging.NullLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DiskHttpCacheTests {
+
+    private static final String KEY = "secrettoken123 http://server/Users/user1/Items";
+
+    private File directory;
+    private DiskHttpCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("httpcache").toFile();
+        cache = new DiskHttpCache(directory, 1024 * 1024, new NullLogger());
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+        directory.delete();
+    }
+
+    @Test
+    public void Put_DoesNotWriteKey() throws IOException {
+
+        cache.put(KEY, createEntry());
+
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+
+        String contents = new String(Files.readAllBytes(files[0].toPath()), Charset.forName("ISO-8859-1"));
+        assertFalse(contents.contains("secrettoken123"));
+        assertFalse(files[0].getName().contains("secrettoken123"));
+    }
+
+    @Test
+    public void Get_ReturnsStoredEntry() {
+
+        cache.put(KEY, createEntry());
+
+        HttpCacheEntry entry = cache.get(KEY);
+
+        assertEquals("body", new String(entry.getBody(), Charset.forName("UTF-8")));
+        assertEquals("\"v1\"", entry.getETag());
+        assertNull(entry.getLastModified());
+        assertEquals(1234, entry.getExpires());
+        assertNull(cache.get("othertoken http://server/Users/user1/Items"));
+    }
+
+    @Test
+    public void RemoveKeysContaining_MatchesWords() {
+
+        cache.put(KEY, createEntry());
+        cache.put("secrettoken123 http://server/Users/user2/Items", createEntry());
+
+        cache.removeKeysContaining("USER1");
+
+        assertNull(cache.get(KEY));
+        assertNotNull(cache.get("secrettoken123 http://server/Users/user2/Items"));
+    }
+
+    private static HttpCacheEntry createEntry() {
+        return new HttpCacheEntry("body".getBytes(Charset.forName("UTF-8")), "\"v1\"", null, 1234);
+    }
+}
@@ -0,0 +1,172 @@
+package mediabrowser.apiinteraction.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import mediabrowser.apiinteraction.Response;
+import mediabrowser.model.logging.NullLogger;
+import mediabrowser.model.net.HttpException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PooledHttpClientTests {
+
+    private HttpServer slowServer;
+    private HttpServer fastServer;
+    private CountDownLatch releaseSlow = new CountDownLatch(1);
+    private AtomicInteger slowActive = new AtomicInteger();
+    private AtomicInteger slowMaxActive = new AtomicInteger();
+    private PooledHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+
+        slowServer = startServer(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+
+                int active = slowActive.incrementAndGet();
+
+                synchronized (slowMaxActive) {
+                    slowMaxActive.set(Math.max(slowMaxActive.get(), active));
+                }
+
+                try {
+                    releaseSlow.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+
+                slowActive.decrementAndGet();
+                respond(exchange, "slow");
+            }
+        });
+
+        fastServer = startServer(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, "fast");
+            }
+        });
+
+        client = new PooledHttpClient(new NullLogger(), 4, 2);
+    }
+
+    @After
+    public void tearDown() {
+        releaseSlow.countDown();
+        client.shutdown();
+        slowServer.stop(0);
+        fastServer.stop(0);
+    }
+
+    @Test
+    public void Send_DoesNotHoldWorkersForBusyServer() throws InterruptedException {
+
+        CountDownLatch slowDone = new CountDownLatch(6);
+
+        for (int i = 0; i < 6; i++) {
+            client.Send(createRequest(slowServer, 0), new LatchResponse(slowDone));
+        }
+
+        // Four workers and six slow requests, but only two of them hold a worker, so the fast server is reachable
+        CountDownLatch fastDone = new CountDownLatch(1);
+        LatchResponse fastResponse = new LatchResponse(fastDone);
+        client.Send(createRequest(fastServer, 0), fastResponse);
+
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        assertEquals("fast", fastResponse.body);
+
+        releaseSlow.countDown();
+
+        assertTrue(slowDone.await(10, TimeUnit.SECONDS));
+        assertEquals(2, slowMaxActive.get());
+    }
+
+    @Test
+    public void Send_TimesOutWaitingForConnection() throws InterruptedException {
+
+        CountDownLatch slowDone = new CountDownLatch(2);
+
+        for (int i = 0; i < 2; i++) {
+            client.Send(createRequest(slowServer, 0), new LatchResponse(slowDone));
+        }
+
+        CountDownLatch queuedDone = new CountDownLatch(1);
+        LatchResponse queuedResponse = new LatchResponse(queuedDone);
+        client.Send(createRequest(slowServer, 50), queuedResponse);
+
+        Thread.sleep(200);
+        releaseSlow.countDown();
+
+        assertTrue(queuedDone.await(10, TimeUnit.SECONDS));
+        assertTrue(((HttpException) queuedResponse.error).getIsTimedOut());
+    }
+
+    private static HttpServer startServer(HttpHandler handler) throws IOException {
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+
+        byte[] bytes = body.getBytes(Charset.forName("UTF-8"));
+        exchange.sendResponseHeaders(200, bytes.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static HttpRequest createRequest(HttpServer server, int timeout) {
+
+        HttpRequest request = new HttpRequest();
+        request.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        request.setMethod("GET");
+        request.setTimeout(timeout);
+
+        return request;
+    }
+
+    private static class LatchResponse extends Response<String> {
+
+        private final CountDownLatch latch;
+        volatile String body;
+        volatile Exception error;
+
+        LatchResponse(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onResponse(String response) {
+            body = response;
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(Exception exception) {
+            error = exception;
+            latch.countDown();
+        }
+    }
+}
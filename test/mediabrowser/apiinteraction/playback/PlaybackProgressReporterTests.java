@@ -0,0 +1,230 @@
+package mediabrowser.apiinteraction.playback;
+
+import mediabrowser.apiinteraction.ApiClient;
+import mediabrowser.apiinteraction.ApiEventListener;
+import mediabrowser.apiinteraction.EmptyResponse;
+import mediabrowser.apiinteraction.device.Device;
+import mediabrowser.apiinteraction.http.PooledHttpClient;
+import mediabrowser.apiinteraction.serialization.BoonJsonSerializer;
+import mediabrowser.model.logging.NullLogger;
+import mediabrowser.model.session.PlaybackProgressInfo;
+import mediabrowser.model.session.PlaybackStopInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlaybackProgressReporterTests {
+
+    private RecordingApiClient apiClient;
+    private PlaybackProgressReporter reporter;
+
+    @Before
+    public void setUp() {
+
+        apiClient = new RecordingApiClient();
+        reporter = new PlaybackProgressReporter(apiClient, new NullLogger());
+        reporter.setIntervalMs(60000);
+    }
+
+    @Test
+    public void Report_HoldsReportsWithinInterval() {
+
+        PlaybackProgressInfo first = createInfo("session1", 0, false);
+        PlaybackProgressInfo second = createInfo("session1", 1, false);
+
+        reporter.report(first, new RecordingResponse());
+        reporter.report(second, new RecordingResponse());
+
+        assertEquals(1, apiClient.sent.size());
+        assertSame(first, apiClient.sent.get(0));
+    }
+
+    @Test
+    public void Report_CompletesReplacedReport() {
+
+        RecordingResponse replaced = new RecordingResponse();
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 1, false), replaced);
+        reporter.report(createInfo("session1", 2, false), new RecordingResponse());
+
+        assertTrue(replaced.completed);
+        assertEquals(1, apiClient.sent.size());
+    }
+
+    @Test
+    public void Report_SendsHeldReportWhenIntervalIsUp() throws InterruptedException {
+
+        reporter.setIntervalMs(100);
+
+        PlaybackProgressInfo latest = createInfo("session1", 0, false);
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(latest, new RecordingResponse());
+
+        assertTrue(apiClient.awaitSent(2, 5000));
+        assertSame(latest, apiClient.sent.get(1));
+    }
+
+    @Test
+    public void Report_SendsPauseImmediately() {
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 0, true), new RecordingResponse());
+
+        assertEquals(2, apiClient.sent.size());
+    }
+
+    @Test
+    public void Report_SendsSeekImmediately() {
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 600, false), new RecordingResponse());
+
+        assertEquals(2, apiClient.sent.size());
+    }
+
+    @Test
+    public void Report_LimitsEachSessionSeparately() {
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session2", 0, false), new RecordingResponse());
+
+        assertEquals(2, apiClient.sent.size());
+    }
+
+    @Test
+    public void OnPlaybackStopped_DiscardsHeldReport() {
+
+        RecordingResponse held = new RecordingResponse();
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 1, false), held);
+
+        reporter.onPlaybackStopped(createStopInfo("session1", 1L));
+
+        assertTrue(held.completed);
+        assertEquals(1, apiClient.sent.size());
+    }
+
+    @Test
+    public void OnPlaybackStopped_SendsHeldReportWhenStopHasNoPosition() {
+
+        PlaybackProgressInfo held = createInfo("session1", 1, false);
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(held, new RecordingResponse());
+
+        reporter.onPlaybackStopped(createStopInfo("session1", null));
+
+        assertEquals(2, apiClient.sent.size());
+        assertSame(held, apiClient.sent.get(1));
+    }
+
+    @Test
+    public void Flush_SendsHeldReports() {
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 1, false), new RecordingResponse());
+
+        reporter.flush();
+
+        assertEquals(2, apiClient.sent.size());
+
+        reporter.flush();
+
+        assertEquals(2, apiClient.sent.size());
+    }
+
+    @Test
+    public void SetIntervalMs_ZeroSendsEveryReport() {
+
+        reporter.setIntervalMs(0);
+
+        reporter.report(createInfo("session1", 0, false), new RecordingResponse());
+        reporter.report(createInfo("session1", 1, false), new RecordingResponse());
+
+        assertEquals(2, apiClient.sent.size());
+    }
+
+    private static PlaybackProgressInfo createInfo(String playSessionId, long positionSeconds, boolean isPaused) {
+
+        PlaybackProgressInfo info = new PlaybackProgressInfo();
+        info.setItemId("item1");
+        info.setPlaySessionId(playSessionId);
+        info.setPositionTicks(positionSeconds * 10000000L);
+        info.setIsPaused(isPaused);
+
+        return info;
+    }
+
+    private static PlaybackStopInfo createStopInfo(String playSessionId, Long positionTicks) {
+
+        PlaybackStopInfo info = new PlaybackStopInfo();
+        info.setItemId("item1");
+        info.setPlaySessionId(playSessionId);
+        info.setPositionTicks(positionTicks);
+
+        return info;
+    }
+
+    private static class RecordingResponse extends EmptyResponse {
+
+        volatile boolean completed;
+
+        @Override
+        public void onResponse() {
+            completed = true;
+        }
+    }
+
+    /**
+     * Records progress reports instead of sending them.
+     */
+    private static class RecordingApiClient extends ApiClient {
+
+        final ArrayList<PlaybackProgressInfo> sent = new ArrayList<PlaybackProgressInfo>();
+
+        RecordingApiClient() {
+            super(new PooledHttpClient(new NullLogger()), new BoonJsonSerializer(), new NullLogger(), "http://localhost:8096", "Tests", "1.0", new Device("device1", "Tests"), new ApiEventListener());
+        }
+
+        @Override
+        public void SendPlaybackProgressAsync(PlaybackProgressInfo info, EmptyResponse response) {
+
+            synchronized (sent) {
+                sent.add(info);
+                sent.notifyAll();
+            }
+
+            response.onResponse();
+        }
+
+        boolean awaitSent(int count, long timeoutMs) throws InterruptedException {
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+            synchronized (sent) {
+
+                while (sent.size() < count) {
+
+                    long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+                    if (remainingMs <= 0) {
+                        return false;
+                    }
+
+                    sent.wait(remainingMs);
+                }
+
+                return true;
+            }
+        }
+    }
+}
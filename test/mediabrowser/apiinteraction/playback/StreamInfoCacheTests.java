@@ -0,0 +1,129 @@
+package mediabrowser.apiinteraction.playback;
+
+import mediabrowser.model.dlna.DeviceProfile;
+import mediabrowser.model.dlna.ILocalPlayer;
+import mediabrowser.model.dlna.StreamInfo;
+import mediabrowser.model.dlna.VideoOptions;
+import mediabrowser.model.dto.MediaSourceInfo;
+import mediabrowser.model.mediainfo.MediaProtocol;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class StreamInfoCacheTests {
+
+    private final StreamInfoCache cache = new StreamInfoCache(8);
+    private final DeviceProfile profile = new DeviceProfile();
+
+    @Test
+    public void TryGet_ReturnsCopyOfDecision() {
+
+        VideoOptions options = createOptions(MediaProtocol.File);
+        FakeLocalPlayer player = new FakeLocalPlayer(true);
+
+        StreamInfo info = new StreamInfo();
+        info.setItemId("item1");
+        info.setMediaSource(options.getMediaSources().get(0));
+        cache.put(options, player, info);
+
+        StreamInfo[] result = new StreamInfo[1];
+
+        assertTrue(cache.tryGet(createOptions(MediaProtocol.File), player, result));
+        assertNotSame(info, result[0]);
+        assertEquals("item1", result[0].getItemId());
+    }
+
+    @Test
+    public void TryGet_MissesWhenFileAccessChanges() {
+
+        VideoOptions options = createOptions(MediaProtocol.File);
+        FakeLocalPlayer player = new FakeLocalPlayer(false);
+
+        cache.put(options, player, null);
+
+        StreamInfo[] result = new StreamInfo[1];
+        assertTrue(cache.tryGet(options, player, result));
+
+        // The file finished downloading, so direct play may now be possible
+        player.canAccess = true;
+
+        assertFalse(cache.tryGet(options, player, result));
+    }
+
+    @Test
+    public void TryGet_MissesWhenUrlAccessChanges() {
+
+        VideoOptions options = createOptions(MediaProtocol.Http);
+        FakeLocalPlayer player = new FakeLocalPlayer(true);
+
+        cache.put(options, player, null);
+
+        player.canAccess = false;
+
+        assertFalse(cache.tryGet(options, player, new StreamInfo[1]));
+        assertEquals(2, player.urlChecks);
+    }
+
+    @Test
+    public void TryGet_MissesWhenProfileChanges() {
+
+        VideoOptions options = createOptions(MediaProtocol.File);
+        FakeLocalPlayer player = new FakeLocalPlayer(true);
+
+        cache.put(options, player, null);
+        options.setProfile(new DeviceProfile());
+
+        assertFalse(cache.tryGet(options, player, new StreamInfo[1]));
+    }
+
+    private VideoOptions createOptions(MediaProtocol protocol) {
+
+        MediaSourceInfo mediaSource = new MediaSourceInfo();
+        mediaSource.setId("source1");
+        mediaSource.setPath(protocol == MediaProtocol.File ? "/media/movie.mkv" : "http://server/movie.mkv");
+        mediaSource.setProtocol(protocol);
+        mediaSource.setContainer("mkv");
+
+        ArrayList<MediaSourceInfo> mediaSources = new ArrayList<MediaSourceInfo>();
+        mediaSources.add(mediaSource);
+
+        VideoOptions options = new VideoOptions();
+        options.setItemId("item1");
+        options.setDeviceId("device1");
+        options.setProfile(profile);
+        options.setMediaSources(mediaSources);
+
+        return options;
+    }
+
+    private static class FakeLocalPlayer implements ILocalPlayer {
+
+        boolean canAccess;
+        int urlChecks;
+
+        FakeLocalPlayer(boolean canAccess) {
+            this.canAccess = canAccess;
+        }
+
+        @Override
+        public boolean CanAccessFile(String path) {
+            return canAccess;
+        }
+
+        @Override
+        public boolean CanAccessDirectory(String path) {
+            return canAccess;
+        }
+
+        @Override
+        public boolean CanAccessUrl(String url, boolean requiresCustomRequestHeaders) {
+            urlChecks++;
+            return canAccess;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package mediabrowser.apiinteraction.serialization;
+
+import mediabrowser.model.dto.BaseItemDto;
+import mediabrowser.model.dto.BaseItemPerson;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoonJsonSerializerTests {
+
+    private final BoonJsonSerializer serializer = new BoonJsonSerializer();
+
+    @Test
+    public void DeserializeFromStream_FillsArrayFields() {
+
+        BaseItemDto item = createItem("1", "Movie é");
+
+        BaseItemDto result = (BaseItemDto) serializer.DeserializeFromStream(toStream(serializer.SerializeToString(item)), BaseItemDto.class);
+
+        assertEquals("Movie é", result.getName());
+        assertNotNull(result.getPeople());
+        assertEquals(2, result.getPeople().length);
+        assertEquals("Actor 1", result.getPeople()[1].getName());
+    }
+
+    @Test
+    public void DeserializeFromStream_CreatesArrayResults() {
+
+        BaseItemDto[] items = new BaseItemDto[] { createItem("1", "First"), createItem("2", "Second") };
+
+        BaseItemDto[] result = (BaseItemDto[]) serializer.DeserializeFromStream(toStream(serializer.SerializeToString(items)), BaseItemDto[].class);
+
+        assertEquals(2, result.length);
+        assertEquals("Second", result[1].getName());
+        assertEquals("Actor 0", result[1].getPeople()[0].getName());
+    }
+
+    @Test
+    public void DeserializeFromStream_MatchesDeserializeFromString() {
+
+        String json = serializer.SerializeToString(createItem("1", "Movie"));
+
+        BaseItemDto fromString = serializer.DeserializeFromString(json, BaseItemDto.class);
+        BaseItemDto fromStream = (BaseItemDto) serializer.DeserializeFromStream(toStream(json), BaseItemDto.class);
+
+        assertEquals(serializer.SerializeToString(fromString), serializer.SerializeToString(fromStream));
+    }
+
+    @Test
+    public void DeserializeFromStream_ReadsBodiesLargerThanBuffer() {
+
+        BaseItemDto[] items = new BaseItemDto[2000];
+
+        for (int i = 0; i < items.length; i++) {
+            items[i] = createItem(String.valueOf(i), "Item " + i);
+        }
+
+        BaseItemDto[] result = (BaseItemDto[]) serializer.DeserializeFromStream(toStream(serializer.SerializeToString(items)), BaseItemDto[].class);
+
+        assertEquals(2000, result.length);
+        assertEquals("Item 1999", result[1999].getName());
+        assertEquals("Actor 1", result[1999].getPeople()[1].getName());
+    }
+
+    @Test
+    public void DeserializeFromString_IsSafeAcrossThreads() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+            for (int i = 0; i < 400; i++) {
+
+                final String name = "Item " + i;
+                final String json = serializer.SerializeToString(createItem(String.valueOf(i), name));
+
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        BaseItemDto item = serializer.DeserializeFromString(json, BaseItemDto.class);
+                        return name.equals(item.getName()) && item.getPeople().length == 2;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static BaseItemDto createItem(String id, String name) {
+
+        BaseItemDto item = new BaseItemDto();
+        item.setId(id);
+        item.setName(name);
+
+        BaseItemPerson[] people = new BaseItemPerson[2];
+
+        for (int i = 0; i < people.length; i++) {
+            people[i] = new BaseItemPerson();
+            people[i].setId("person" + i);
+            people[i].setName("Actor " + i);
+            people[i].setRole("Role " + i);
+        }
+
+        item.setPeople(people);
+
+        return item;
+    }
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8")));
+    }
+}
@@ -0,0 +1,96 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import mediabrowser.model.users.UserAction;
+import mediabrowser.model.users.UserActionType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UserActionCompactorTests {
+
+    @Test
+    public void Compact_KeepsLatestActionPerItem() {
+
+        UserAction first = createAction("1", "item1", 1000);
+        UserAction other = createAction("2", "item2", 1500);
+        UserAction latest = createAction("3", "item1", 2000);
+
+        ArrayList<UserAction> superseded = new ArrayList<UserAction>();
+        ArrayList<UserAction> result = UserActionCompactor.compact(Arrays.asList(first, other, latest), superseded);
+
+        assertEquals(Arrays.asList(other, latest), result);
+        assertEquals(Arrays.asList(first), superseded);
+    }
+
+    @Test
+    public void Compact_DropsOlderActionRecordedLater() {
+
+        UserAction newer = createAction("1", "item1", 2000);
+        UserAction older = createAction("2", "item1", 1000);
+
+        ArrayList<UserAction> superseded = new ArrayList<UserAction>();
+        ArrayList<UserAction> result = UserActionCompactor.compact(Arrays.asList(newer, older), superseded);
+
+        assertEquals(Arrays.asList(newer), result);
+        assertEquals(Arrays.asList(older), superseded);
+    }
+
+    @Test
+    public void Compact_LaterActionWinsOnEqualDates() {
+
+        UserAction first = createAction("1", "item1", 1000);
+        UserAction second = createAction("2", "item1", 1000);
+
+        ArrayList<UserAction> result = UserActionCompactor.compact(Arrays.asList(first, second), new ArrayList<UserAction>());
+
+        assertEquals(1, result.size());
+        assertSame(second, result.get(0));
+    }
+
+    @Test
+    public void Compact_KeepsActionsForDifferentUsersAndServers() {
+
+        UserAction action = createAction("1", "item1", 1000);
+        UserAction otherUser = createAction("2", "item1", 2000);
+        otherUser.setUserId("user2");
+        UserAction otherServer = createAction("3", "item1", 3000);
+        otherServer.setServerId("server2");
+
+        ArrayList<UserAction> superseded = new ArrayList<UserAction>();
+        ArrayList<UserAction> result = UserActionCompactor.compact(Arrays.asList(action, otherUser, otherServer), superseded);
+
+        assertEquals(Arrays.asList(action, otherUser, otherServer), result);
+        assertTrue(superseded.isEmpty());
+    }
+
+    @Test
+    public void Supersedes_TreatsMissingDateAsOldest() {
+
+        UserAction undated = createAction("1", "item1", 0);
+        undated.setDate(null);
+        UserAction dated = createAction("2", "item1", 1000);
+
+        assertTrue(UserActionCompactor.supersedes(dated, undated));
+        assertFalse(UserActionCompactor.supersedes(undated, dated));
+    }
+
+    private static UserAction createAction(String id, String itemId, long time) {
+
+        UserAction action = new UserAction();
+        action.setId(id);
+        action.setServerId("server");
+        action.setUserId("user");
+        action.setItemId(itemId);
+        action.setType(UserActionType.PlayedItem);
+        action.setDate(new Date(time));
+
+        return action;
+    }
+}
@@ -0,0 +1,199 @@
+package mediabrowser.apiinteraction.sync.data;
+
+import mediabrowser.apiinteraction.serialization.BoonJsonSerializer;
+import mediabrowser.model.logging.NullLogger;
+import mediabrowser.model.users.UserAction;
+import mediabrowser.model.users.UserActionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+
+public class UserActionJournalTests {
+
+    private File directory;
+    private File file;
+    private UserActionJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+
+        directory = Files.createTempDirectory("journal").toFile();
+        file = new File(directory, "useractions.journal");
+        journal = open();
+    }
+
+    @After
+    public void tearDown() {
+
+        journal.close();
+
+        for (File child : directory.listFiles()) {
+            child.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void Reopen_KeepsDeletes() {
+
+        UserAction first = createAction("item1", 1000);
+        UserAction second = createAction("item2", 2000);
+        UserAction third = createAction("item3", 3000);
+
+        journal.createUserAction(first);
+        journal.createUserAction(second);
+        journal.deleteUserActions(Arrays.asList(first, second));
+        journal.createUserAction(third);
+
+        reopen();
+
+        assertEquals(ids(third), ids(journal.getUserActions("server")));
+    }
+
+    @Test
+    public void Reopen_KeepsLatestActionPerItem() {
+
+        UserAction older = createAction("item1", 1000);
+        UserAction newer = createAction("item1", 2000);
+        UserAction other = createAction("item2", 1500);
+
+        journal.createUserAction(older);
+        journal.createUserAction(newer);
+        journal.createUserAction(other);
+        journal.deleteUserAction(other);
+
+        reopen();
+
+        assertEquals(ids(newer), ids(journal.getUserActions(null)));
+    }
+
+    @Test
+    public void Reopen_TruncatesIncompleteRecord() throws IOException {
+
+        UserAction first = createAction("item1", 1000);
+        journal.createUserAction(first);
+        journal.close();
+
+        long validLength = file.length();
+        append("0000abcd A{\"Id\":\"cut");
+
+        journal = open();
+
+        assertEquals(ids(first), ids(journal.getUserActions(null)));
+        assertEquals(validLength, file.length());
+
+        UserAction second = createAction("item2", 2000);
+        journal.createUserAction(second);
+
+        reopen();
+
+        assertEquals(ids(first, second), ids(journal.getUserActions(null)));
+    }
+
+    @Test
+    public void Reopen_SkipsUnreadableRecord() throws IOException {
+
+        journal.close();
+        append(formatRecord("Anot json"));
+
+        journal = open();
+
+        UserAction action = createAction("item1", 1000);
+        journal.createUserAction(action);
+
+        reopen();
+
+        assertEquals(ids(action), ids(journal.getUserActions(null)));
+    }
+
+    @Test
+    public void Delete_RewritesMostlyDeadJournal() {
+
+        ArrayList<UserAction> deleted = new ArrayList<UserAction>();
+
+        for (int i = 0; i < 300; i++) {
+            UserAction action = createAction("item" + i, i);
+            journal.createUserAction(action);
+            deleted.add(action);
+        }
+
+        UserAction kept = createAction("kept", 5000);
+        journal.createUserAction(kept);
+
+        long lengthBeforeDelete = file.length();
+        journal.deleteUserActions(deleted);
+
+        reopen();
+
+        assertEquals(ids(kept), ids(journal.getUserActions(null)));
+        assertEquals(true, file.length() < lengthBeforeDelete / 100);
+    }
+
+    private UserActionJournal open() {
+        return new UserActionJournal(file, new BoonJsonSerializer(), new NullLogger());
+    }
+
+    private void reopen() {
+        journal.close();
+        journal = open();
+    }
+
+    private void append(String text) throws IOException {
+
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write(text.getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    private static String formatRecord(String payload) {
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(Charset.forName("UTF-8")));
+
+        return String.format("%08x", crc.getValue()) + " " + payload + "\n";
+    }
+
+    private static UserAction createAction(String itemId, long time) {
+
+        UserAction action = new UserAction();
+        action.setId(UUID.randomUUID().toString());
+        action.setServerId("server");
+        action.setUserId("user");
+        action.setItemId(itemId);
+        action.setType(UserActionType.PlayedItem);
+        action.setDate(new Date(time));
+        action.setPositionTicks(time * 10000);
+
+        return action;
+    }
+
+    private static HashSet<String> ids(UserAction... actions) {
+        return ids(Arrays.asList(actions));
+    }
+
+    private static HashSet<String> ids(Iterable<UserAction> actions) {
+
+        HashSet<String> ids = new HashSet<String>();
+
+        for (UserAction action : actions) {
+            ids.add(action.getId());
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,149 @@
+package mediabrowser.apiinteraction.tasks;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedIoExecutorTests {
+
+    private final BoundedIoExecutor executor = new BoundedIoExecutor(2, 1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void Execute_RunsNoMoreTasksThanThePoolSize() throws Exception {
+
+        ConcurrencyTracker tracker = new ConcurrencyTracker();
+        CountDownLatch started = new CountDownLatch(2);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(IoPool.Download, new BlockingTask(tracker, started, release));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        IoPoolMetrics metrics = executor.getMetrics(IoPool.Download);
+        assertEquals(2, metrics.getMaxConcurrency());
+        assertEquals(2, metrics.getActiveTasks());
+        assertEquals(3, metrics.getQueuedTasks());
+        assertEquals(0, metrics.getCompletedTasks());
+
+        release.countDown();
+        waitForCompleted(IoPool.Download, 5);
+
+        metrics = executor.getMetrics(IoPool.Download);
+        assertEquals(0, metrics.getActiveTasks());
+        assertEquals(0, metrics.getQueuedTasks());
+        assertEquals(5, metrics.getCompletedTasks());
+        assertEquals(2, tracker.maxRunning.get());
+    }
+
+    @Test
+    public void Execute_KeepsPoolsSeparate() throws Exception {
+
+        CountDownLatch downloadsStarted = new CountDownLatch(2);
+
+        for (int i = 0; i < 2; i++) {
+            executor.execute(IoPool.Download, new BlockingTask(new ConcurrencyTracker(), downloadsStarted, release));
+        }
+
+        assertTrue(downloadsStarted.await(5, TimeUnit.SECONDS));
+
+        // A full download pool must not hold up control requests
+        CountDownLatch controlRan = new CountDownLatch(1);
+        executor.execute(IoPool.Control, new BlockingTask(new ConcurrencyTracker(), controlRan, new CountDownLatch(0)));
+
+        assertTrue(controlRan.await(5, TimeUnit.SECONDS));
+        waitForCompleted(IoPool.Control, 1);
+
+        assertEquals(2, executor.getMetrics(IoPool.Download).getActiveTasks());
+    }
+
+    @Test
+    public void GetMetrics_ReportsConfiguredPoolSizes() {
+
+        assertEquals(2, executor.getMetrics(IoPool.Download).getMaxConcurrency());
+        assertEquals(1, executor.getMetrics(IoPool.Upload).getMaxConcurrency());
+        assertEquals(1, executor.getMetrics(IoPool.Control).getMaxConcurrency());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_RejectsEmptyPool() {
+        new BoundedIoExecutor(1, 0, 1);
+    }
+
+    private void waitForCompleted(IoPool pool, long count) throws InterruptedException {
+
+        // The pool counts a task as completed just after it returns, so the count can trail the task itself
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (executor.getMetrics(pool).getCompletedTasks() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(count, executor.getMetrics(pool).getCompletedTasks());
+    }
+
+    private static class ConcurrencyTracker {
+
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        void enter() {
+
+            int now = running.incrementAndGet();
+
+            while (true) {
+                int max = maxRunning.get();
+                if (now <= max || maxRunning.compareAndSet(max, now)) {
+                    return;
+                }
+            }
+        }
+
+        void exit() {
+            running.decrementAndGet();
+        }
+    }
+
+    private static class BlockingTask implements Runnable {
+
+        private final ConcurrencyTracker tracker;
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        BlockingTask(ConcurrencyTracker tracker, CountDownLatch started, CountDownLatch release) {
+            this.tracker = tracker;
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+
+            tracker.enter();
+            started.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                tracker.exit();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package mediabrowser.apiinteraction.tasks;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class ExponentialBackoffTests {
+
+    @Test
+    public void GetDelayMs_DoublesWithEachAttempt() {
+
+        ExponentialBackoff backoff = new ExponentialBackoff(1000, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(500, 1000, backoff.getDelayMs(0));
+            assertBetween(1000, 2000, backoff.getDelayMs(1));
+            assertBetween(4000, 8000, backoff.getDelayMs(3));
+        }
+    }
+
+    @Test
+    public void GetDelayMs_StopsAtMaximum() {
+
+        ExponentialBackoff backoff = new ExponentialBackoff(1000, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(30000, 60000, backoff.getDelayMs(6));
+            assertBetween(30000, 60000, backoff.getDelayMs(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void GetDelayMs_SpreadsRetries() {
+
+        ExponentialBackoff backoff = new ExponentialBackoff(1000, 60000);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (int i = 0; i < 200; i++) {
+            long delay = backoff.getDelayMs(2);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+
+        assertTrue("delays should vary, got " + min + " to " + max, max - min > 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Constructor_RejectsMaximumBelowInitial() {
+        new ExponentialBackoff(1000, 500);
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " should be between " + min + " and " + max, value >= min && value <= max);
+    }
+}
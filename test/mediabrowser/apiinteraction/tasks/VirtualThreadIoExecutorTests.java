@@ -0,0 +1,158 @@
+package mediabrowser.apiinteraction.tasks;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadIoExecutorTests {
+
+    private VirtualThreadIoExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+
+        // Virtual threads need Java 21, so on older JVMs there is nothing to test
+        Assume.assumeTrue(VirtualThreadIoExecutor.isSupported());
+
+        executor = new VirtualThreadIoExecutor(2, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+
+        release.countDown();
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void Execute_RunsNoMoreTasksThanThePoolLimit() throws Exception {
+
+        ConcurrencyTracker tracker = new ConcurrencyTracker();
+        CountDownLatch started = new CountDownLatch(2);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(IoPool.Download, new BlockingTask(tracker, started, release));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Give the other three a chance to get past the limit if it were not kept
+        Thread.sleep(100);
+
+        IoPoolMetrics metrics = executor.getMetrics(IoPool.Download);
+        assertEquals(2, metrics.getMaxConcurrency());
+        assertEquals(2, metrics.getActiveTasks());
+        assertEquals(3, metrics.getQueuedTasks());
+        assertEquals(0, metrics.getCompletedTasks());
+        assertEquals(2, tracker.maxRunning.get());
+
+        release.countDown();
+        waitForCompleted(IoPool.Download, 5);
+
+        metrics = executor.getMetrics(IoPool.Download);
+        assertEquals(0, metrics.getActiveTasks());
+        assertEquals(0, metrics.getQueuedTasks());
+        assertEquals(2, tracker.maxRunning.get());
+    }
+
+    @Test
+    public void Execute_KeepsPoolLimitsSeparate() throws Exception {
+
+        CountDownLatch uploadStarted = new CountDownLatch(1);
+        executor.execute(IoPool.Upload, new BlockingTask(new ConcurrencyTracker(), uploadStarted, release));
+
+        assertTrue(uploadStarted.await(5, TimeUnit.SECONDS));
+
+        // The upload pool is full, which must not hold up control tasks
+        CountDownLatch controlRan = new CountDownLatch(1);
+        executor.execute(IoPool.Control, new BlockingTask(new ConcurrencyTracker(), controlRan, new CountDownLatch(0)));
+
+        assertTrue(controlRan.await(5, TimeUnit.SECONDS));
+        waitForCompleted(IoPool.Control, 1);
+
+        assertEquals(1, executor.getMetrics(IoPool.Upload).getActiveTasks());
+    }
+
+    @Test
+    public void GetMetrics_ReportsConfiguredLimits() {
+
+        assertEquals(2, executor.getMetrics(IoPool.Download).getMaxConcurrency());
+        assertEquals(1, executor.getMetrics(IoPool.Upload).getMaxConcurrency());
+        assertEquals(1, executor.getMetrics(IoPool.Control).getMaxConcurrency());
+    }
+
+    private void waitForCompleted(IoPool pool, long count) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (executor.getMetrics(pool).getCompletedTasks() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(count, executor.getMetrics(pool).getCompletedTasks());
+    }
+
+    private static class ConcurrencyTracker {
+
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        void enter() {
+
+            int now = running.incrementAndGet();
+
+            while (true) {
+                int max = maxRunning.get();
+                if (now <= max || maxRunning.compareAndSet(max, now)) {
+                    return;
+                }
+            }
+        }
+
+        void exit() {
+            running.decrementAndGet();
+        }
+    }
+
+    private static class BlockingTask implements Runnable {
+
+        private final ConcurrencyTracker tracker;
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        BlockingTask(ConcurrencyTracker tracker, CountDownLatch started, CountDownLatch release) {
+            this.tracker = tracker;
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+
+            tracker.enter();
+            started.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                tracker.exit();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package mediabrowser.apiinteraction.websocket;
+
+import mediabrowser.apiinteraction.EmptyResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OutboundMessageBufferTests {
+
+    @Test
+    public void Add_KeepsOrder() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(10);
+
+        assertNull(buffer.add("1", null, new EmptyResponse()));
+        assertNull(buffer.add("2", null, new EmptyResponse()));
+        assertNull(buffer.add("3", "key", new EmptyResponse()));
+
+        assertEquals("1", buffer.poll().json);
+        assertEquals("2", buffer.poll().json);
+        assertEquals("3", buffer.poll().json);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void Add_ReplacesMessageWithSameKey() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(10);
+        EmptyResponse firstResponse = new EmptyResponse();
+
+        buffer.add("progress1", "session1", firstResponse);
+        buffer.add("other", "session2", new EmptyResponse());
+
+        ArrayList<OutboundMessageBuffer.PendingMessage> removed = buffer.add("progress2", "session1", new EmptyResponse());
+
+        assertEquals(1, removed.size());
+        assertSame(firstResponse, removed.get(0).response);
+        assertTrue(removed.get(0).superseded);
+
+        assertEquals(2, buffer.size());
+        assertEquals("other", buffer.poll().json);
+        assertEquals("progress2", buffer.poll().json);
+    }
+
+    @Test
+    public void Add_DropsOldestWhenFull() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(2);
+
+        buffer.add("1", null, new EmptyResponse());
+        buffer.add("2", null, new EmptyResponse());
+
+        ArrayList<OutboundMessageBuffer.PendingMessage> removed = buffer.add("3", null, new EmptyResponse());
+
+        assertEquals(1, removed.size());
+        assertEquals("1", removed.get(0).json);
+        assertFalse(removed.get(0).superseded);
+
+        assertEquals("2", buffer.poll().json);
+        assertEquals("3", buffer.poll().json);
+    }
+
+    @Test
+    public void Add_ReplacingDoesNotDrop() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(2);
+
+        buffer.add("1", null, new EmptyResponse());
+        buffer.add("2", "key", new EmptyResponse());
+
+        ArrayList<OutboundMessageBuffer.PendingMessage> removed = buffer.add("3", "key", new EmptyResponse());
+
+        assertEquals(1, removed.size());
+        assertEquals("2", removed.get(0).json);
+        assertEquals("1", buffer.poll().json);
+        assertEquals("3", buffer.poll().json);
+    }
+
+    @Test
+    public void PutBack_ReturnsMessageToFront() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(10);
+
+        buffer.add("1", null, new EmptyResponse());
+        buffer.add("2", null, new EmptyResponse());
+
+        OutboundMessageBuffer.PendingMessage message = buffer.poll();
+        buffer.putBack(message);
+
+        assertSame(message, buffer.poll());
+        assertEquals("2", buffer.poll().json);
+    }
+
+    @Test
+    public void Clear_ReturnsWaitingMessages() {
+
+        OutboundMessageBuffer buffer = new OutboundMessageBuffer(10);
+
+        buffer.add("1", null, new EmptyResponse());
+        buffer.add("2", "key", new EmptyResponse());
+
+        ArrayList<OutboundMessageBuffer.PendingMessage> cleared = buffer.clear();
+
+        assertEquals(2, cleared.size());
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,219 @@
+package mediabrowser.logging;
+
+import mediabrowser.model.logging.ILogMessageSupplier;
+import mediabrowser.model.logging.ILogger;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLoggerTests {
+
+    private final RecordingLogger inner = new RecordingLogger();
+    private AsyncLogger logger;
+
+    @After
+    public void tearDown() {
+
+        inner.gate.countDown();
+
+        if (logger != null) {
+            logger.close();
+        }
+    }
+
+    @Test
+    public void Write_KeepsLoggedOrder() throws Exception {
+
+        inner.gate.countDown();
+        logger = new AsyncLogger(inner, 1024);
+
+        ArrayList<String> expected = new ArrayList<String>();
+
+        for (int i = 0; i < 500; i++) {
+
+            if (i % 2 == 0) {
+                logger.Info("message %s", i);
+                expected.add("Info: message " + i);
+            }
+            else {
+                logger.Error("message %s", i);
+                expected.add("Error: message " + i);
+            }
+        }
+
+        assertTrue(logger.flush(5000));
+        assertEquals(expected, inner.getMessages());
+    }
+
+    @Test
+    public void Enqueue_CountsDroppedMessagesWhenFull() throws Exception {
+
+        logger = new AsyncLogger(inner, 4);
+
+        // The writer takes this one and then waits on the gate, leaving the whole buffer to the messages below
+        logger.Info("first");
+        assertTrue(inner.writing.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 7; i++) {
+            logger.Info("message %s", i);
+        }
+
+        inner.gate.countDown();
+        assertTrue(logger.flush(5000));
+
+        assertEquals(Arrays.asList(
+                "Info: first",
+                "Info: message 0",
+                "Info: message 1",
+                "Info: message 2",
+                "Info: message 3",
+                "Warn: AsyncLogger buffer was full, 3 messages were dropped"), inner.getMessages());
+    }
+
+    @Test
+    public void Flush_ReturnsOnceEverythingIsWritten() throws Exception {
+
+        inner.gate.countDown();
+        inner.delayMs = 1;
+        logger = new AsyncLogger(inner);
+
+        for (int i = 0; i < 200; i++) {
+            logger.Info("message %s", i);
+        }
+
+        assertTrue(logger.flush(10000));
+        assertEquals(200, inner.getMessages().size());
+    }
+
+    @Test
+    public void Flush_TimesOutWhileWriterIsBlocked() throws Exception {
+
+        logger = new AsyncLogger(inner);
+
+        logger.Info("first");
+        assertTrue(inner.writing.await(5, TimeUnit.SECONDS));
+
+        assertFalse(logger.flush(50));
+
+        inner.gate.countDown();
+        assertTrue(logger.flush(5000));
+    }
+
+    @Test
+    public void Close_WritesMessagesAlreadyQueued() throws Exception {
+
+        logger = new AsyncLogger(inner);
+
+        logger.Info("first");
+        assertTrue(inner.writing.await(5, TimeUnit.SECONDS));
+
+        logger.Info("second");
+        logger.Error("third");
+        logger.close();
+        logger.Info("after close");
+
+        inner.gate.countDown();
+        assertTrue(logger.flush(5000));
+
+        assertEquals(Arrays.asList("Info: first", "Info: second", "Error: third"), inner.getMessages());
+    }
+
+    /**
+     * Records formatted messages. Writes wait for the gate to open, so tests can hold the writer thread.
+     */
+    private static class RecordingLogger implements ILogger {
+
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final List<String> messages = new ArrayList<String>();
+        private volatile long delayMs;
+
+        synchronized List<String> getMessages() {
+            return new ArrayList<String>(messages);
+        }
+
+        private void record(String severity, String message, Object... paramList) {
+
+            writing.countDown();
+
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (this) {
+                messages.add(severity + ": " + String.format(message, paramList));
+            }
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public void Info(String message, Object... paramList) {
+            record("Info", message, paramList);
+        }
+
+        @Override
+        public void Error(String message, Object... paramList) {
+            record("Error", message, paramList);
+        }
+
+        @Override
+        public void Warn(String message, Object... paramList) {
+            record("Warn", message, paramList);
+        }
+
+        @Override
+        public void Debug(String message, Object... paramList) {
+            record("Debug", message, paramList);
+        }
+
+        @Override
+        public void Debug(ILogMessageSupplier supplier) {
+            record("Debug", supplier.getMessage());
+        }
+
+        @Override
+        public void Info(ILogMessageSupplier supplier) {
+            record("Info", supplier.getMessage());
+        }
+
+        @Override
+        public void Fatal(String message, Object... paramList) {
+            record("Fatal", message, paramList);
+        }
+
+        @Override
+        public void FatalException(String message, Exception exception, Object... paramList) {
+            record("Fatal", message, paramList);
+        }
+
+        @Override
+        public void ErrorException(String message, Exception exception, Object... paramList) {
+            record("Error", message, paramList);
+        }
+    }
+}